@@ -0,0 +1,68 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.memory.MemoryCompactor;
+import com.langchain.rag.memory.MemorySnapshotStore;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 많은 스레드가 많은 세션의 메모리를 동시에 조회/생성할 때 getOrCreateMemory 처리량
+ * - 세션 수가 최대 세션 수 이하이면 대부분 적중, 초과하면 생성과 축출이 섞임
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=ChatMemoryContention
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class ChatMemoryContentionBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int sessions;
+
+    @Param({"10000"})
+    public int maxSessions;
+
+    private ChatMemoryConfig chatMemoryConfig;
+    private String[] sessionIds;
+
+    @Setup
+    public void setUp() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        chatMemoryConfig = new ChatMemoryConfig(maxSessions, 256L << 20, Duration.ofMinutes(30), 10,
+                beanFactory.getBeanProvider(ChatMemoryStore.class),
+                beanFactory.getBeanProvider(MemoryCompactor.class),
+                beanFactory.getBeanProvider(MemorySnapshotStore.class));
+        sessionIds = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            sessionIds[i] = "session-" + i;
+            if (i < maxSessions) {
+                chatMemoryConfig.getOrCreateMemory(sessionIds[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public ChatMemory getOrCreateMemory() {
+        return chatMemoryConfig.getOrCreateMemory(sessionIds[ThreadLocalRandom.current().nextInt(sessions)]);
+    }
+}
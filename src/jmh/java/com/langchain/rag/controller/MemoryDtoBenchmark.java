@@ -0,0 +1,72 @@
+package com.langchain.rag.controller;
+
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.memory.MemoryCompactor;
+import com.langchain.rag.memory.MemorySnapshotStore;
+import com.langchain.rag.memory.PersistentChatMemoryStore;
+import com.langchain.rag.memory.SharedChatMemoryStore;
+import com.langchain.rag.service.MemorySnapshotService;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryController.getMemory 의 ChatMessage → DTO 변환 비용 (HTTP/JSON 계층 제외)
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=MemoryDto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryDtoBenchmark {
+
+    @Param({"10", "100"})
+    public int messages;
+
+    private MemoryController controller;
+
+    @Setup
+    public void setUp() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        ChatMemoryConfig chatMemoryConfig = new ChatMemoryConfig(1000, 256L << 20, Duration.ofMinutes(30), messages,
+                beanFactory.getBeanProvider(ChatMemoryStore.class),
+                beanFactory.getBeanProvider(MemoryCompactor.class),
+                beanFactory.getBeanProvider(MemorySnapshotStore.class));
+        ChatMemory memory = chatMemoryConfig.getOrCreateMemory("session");
+        for (int i = 0; i < messages; i++) {
+            memory.add(i % 2 == 0
+                    ? UserMessage.from("질문 " + i + ": 환불 규정이 어떻게 되나요?")
+                    : AiMessage.from("답변 " + i + ": 구매 후 7일 이내에 환불을 요청하실 수 있습니다."));
+        }
+        controller = new MemoryController(chatMemoryConfig, beanFactory.getBeanProvider(PersistentChatMemoryStore.class),
+                beanFactory.getBeanProvider(SharedChatMemoryStore.class),
+                new MemorySnapshotService(chatMemoryConfig, beanFactory.getBeanProvider(MemorySnapshotStore.class),
+                        new ChatExecution(ChatExecution.Mode.PLATFORM), Duration.ZERO));
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> getMemory() {
+        return controller.getMemory("session");
+    }
+}
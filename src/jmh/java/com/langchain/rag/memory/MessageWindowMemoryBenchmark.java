@@ -0,0 +1,74 @@
+package com.langchain.rag.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 창 크기에 따른 MessageWindowChatMemory add/messages 비용
+ * - 창이 가득 찬 상태에서 측정하므로 add 마다 가장 오래된 메시지 축출이 함께 일어남
+ * - 한 턴은 ChatAssistant 호출 한 번과 같이 user/ai add 두 번과 messages 읽기로 구성
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=MessageWindowMemory
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageWindowMemoryBenchmark {
+
+    @Param({"10", "50", "200", "1000"})
+    public int windowSize;
+
+    private ChatMemory memory;
+    private UserMessage question;
+    private AiMessage answer;
+
+    @Setup
+    public void setUp() {
+        memory = MessageWindowChatMemory.builder()
+                .id("benchmark")
+                .maxMessages(windowSize)
+                .build();
+        question = UserMessage.from("배송 상태를 확인하고 싶습니다. 주문번호는 PX-102938 입니다.");
+        answer = AiMessage.from("주문하신 상품은 현재 배송 중이며 내일 도착 예정입니다.");
+        for (int i = 0; i < windowSize; i++) {
+            memory.add(i % 2 == 0 ? question : answer);
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        memory.add(question);
+    }
+
+    @Benchmark
+    public List<ChatMessage> read() {
+        return memory.messages();
+    }
+
+    @Benchmark
+    public List<ChatMessage> turn() {
+        memory.add(question);
+        List<ChatMessage> messages = memory.messages();
+        memory.add(answer);
+        return messages;
+    }
+}
@@ -0,0 +1,110 @@
+package com.langchain.rag.retrieval;
+
+import com.langchain.rag.embedding.HashingEmbeddingModel;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 시작 후 첫 검색까지의 시간 비교
+ * - rebuildInMemory: 벡터를 다시 넣어 힙 HNSW 그래프를 만드는 경우 (memory 저장소 재시작 + 재적재)
+ * - openSegments: 기록된 mmap 세그먼트를 열고 바로 검색하는 경우 (disk 저장소 재시작)
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=ColdStart
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ColdStartBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final SegmentedEmbeddingStore.Settings SETTINGS = new SegmentedEmbeddingStore.Settings(
+            16, 128, 64, Integer.MAX_VALUE, Duration.ofHours(1), 8, 4, 0.3, 2_000_000, false);
+
+    @Param({"20000"})
+    public int entries;
+
+    private List<String> ids;
+    private List<Embedding> embeddings;
+    private List<TextSegment> segments;
+    private Embedding query;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        HashingEmbeddingModel model = new HashingEmbeddingModel(DIMENSION);
+        ids = new ArrayList<>(entries);
+        embeddings = new ArrayList<>(entries);
+        segments = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            TextSegment segment = TextSegment.from("문서 " + (i % 500) + " 의 청크 " + i + " 내용 토큰" + (i % 37));
+            ids.add("chunk-" + i);
+            segments.add(segment);
+            embeddings.add(model.embed(segment).content());
+        }
+        query = model.embed("문서 42 의 청크 내용").content();
+
+        directory = Files.createTempDirectory("cold-start");
+        SegmentedEmbeddingStore store = new SegmentedEmbeddingStore(directory, DIMENSION, SETTINGS);
+        store.addAll(ids, embeddings, segments);
+        store.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object rebuildInMemory() {
+        HnswEmbeddingStore store = new HnswEmbeddingStore(new HnswIndex(DIMENSION, 16, 128), 64);
+        store.addAll(ids, embeddings, segments);
+        return store.search(request()).matches();
+    }
+
+    @Benchmark
+    public Object openSegments() {
+        SegmentedEmbeddingStore store = new SegmentedEmbeddingStore(directory, DIMENSION, SETTINGS);
+        try {
+            return store.search(request()).matches();
+        } finally {
+            store.close();
+        }
+    }
+
+    private EmbeddingSearchRequest request() {
+        return EmbeddingSearchRequest.builder()
+                .queryEmbedding(query)
+                .maxResults(5)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.langchain.rag.retrieval;
+
+import com.langchain.rag.embedding.HashingEmbeddingModel;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 검색 방식별 질의 지연 시간과 recall@k
+ * - 말뭉치: 주제 문장 + 제품 코드, 질의: 제품 코드가 들어간 질문 (정답 = 해당 코드 문서)
+ * - recall 은 Setup 에서 한 번 계산하여 출력 (JMH 결과 JSON 에는 지연 시간만 기록)
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=HybridRetrieval
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HybridRetrievalBenchmark {
+
+    private static final String[] TOPICS = {
+            "배송이 지연되어 주문 상태를 확인하고 싶습니다",
+            "결제 오류가 발생하여 환불을 요청합니다",
+            "로그인이 되지 않아 계정 복구 방법을 문의합니다",
+            "상품 재고와 입고 일정을 알려주세요",
+            "쿠폰 적용이 되지 않는 이유가 궁금합니다",
+    };
+
+    @Param({"20000"})
+    public int documents;
+
+    private HashingEmbeddingModel model;
+    private LexicalIndexedStore store;
+    private HybridContentRetriever hybrid;
+    private EmbeddingStoreContentRetriever vector;
+    private List<String> questions;
+    private List<String> answers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        model = new HashingEmbeddingModel(384);
+        store = new LexicalIndexedStore(new HnswEmbeddingStore(new HnswIndex(model.dimension(), 16, 128), 64),
+                new LexicalIndex(2, 1.2f, 0.75f));
+        hybrid = new HybridContentRetriever(store, store.lexicalIndex(), model,
+                new HybridContentRetriever.Settings(5, 0.0, null, 50, 60, 1.0f, 1.0f));
+        vector = EmbeddingStoreContentRetriever.builder()
+                .embeddingStore(store)
+                .embeddingModel(model)
+                .maxResults(5)
+                .build();
+
+        Random random = new Random(17);
+        List<String> codes = new ArrayList<>(documents);
+        List<String> ids = new ArrayList<>(documents);
+        List<TextSegment> segments = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            String code = "PX-" + (100000 + random.nextInt(900000));
+            codes.add(code);
+            ids.add("chunk-" + i);
+            segments.add(TextSegment.from(TOPICS[i % TOPICS.length] + " 제품 코드 " + code));
+        }
+        store.addAll(ids, model.embedAll(segments).content(), segments);
+
+        questions = new ArrayList<>();
+        answers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String code = codes.get(random.nextInt(documents));
+            questions.add(code + " " + TOPICS[random.nextInt(TOPICS.length)].substring(0, 8));
+            answers.add(code);
+        }
+        System.out.printf("%nrecall@5 hybrid=%.3f vector=%.3f lexical=%.3f%n",
+                recall(question -> hybrid.retrieve(Query.from(question)).stream()
+                        .map(content -> content.textSegment().text()).toList()),
+                recall(question -> vector.retrieve(Query.from(question)).stream()
+                        .map(content -> content.textSegment().text()).toList()),
+                recall(question -> store.lexicalIndex().search(question, 5).stream()
+                        .map(hit -> store.segment(hit.id()).text()).toList()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.removeAll();
+    }
+
+    @Benchmark
+    public Object vectorOnly() {
+        return vector.retrieve(Query.from(nextQuestion()));
+    }
+
+    @Benchmark
+    public Object lexicalOnly() {
+        return store.lexicalIndex().search(nextQuestion(), 50);
+    }
+
+    @Benchmark
+    public Object hybrid() {
+        return hybrid.retrieve(Query.from(nextQuestion()));
+    }
+
+    private String nextQuestion() {
+        next = (next + 1) % questions.size();
+        return questions.get(next);
+    }
+
+    private double recall(Function<String, List<String>> search) {
+        int found = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            String answer = answers.get(i);
+            if (search.apply(questions.get(i)).stream().anyMatch(text -> text.endsWith(answer))) {
+                found++;
+            }
+        }
+        return (double) found / questions.size();
+    }
+}
@@ -0,0 +1,74 @@
+package com.langchain.rag.websocket;
+
+import com.langchain.rag.config.ChatExecution;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BroadcastEngine.publish() 로 N 개 세션에 한 프레임을 보내고, 모든 세션의 sendMessage 가 끝날 때까지의 시간
+ * - 한 번의 JSON 직렬화, shard 팬아웃, 세션별 SessionOutbound 대기열과 drainer 스케줄링을 모두 포함
+ * - 세션은 전송 횟수만 세는 가짜 세션 (네트워크 I/O 제외)
+ * - inlineThreshold 0 이면 항상 shard 병렬 전달, Integer.MAX_VALUE 면 항상 호출 스레드에서 전달
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=Broadcast
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int sessions;
+
+    @Param({"0", "2147483647"})
+    public int inlineThreshold;
+
+    private final AtomicLong sent = new AtomicLong();
+    private BroadcastEngine broadcastEngine;
+
+    @Setup
+    public void setUp() throws Exception {
+        ChatExecution execution = new ChatExecution(ChatExecution.Mode.PLATFORM);
+        broadcastEngine = new BroadcastEngine(execution, new SimpleMeterRegistry(), 0, inlineThreshold, 16, new String[0]);
+        ChatWebSocketHandler handler = new ChatWebSocketHandler(null, null, null, execution, broadcastEngine,
+                new SimpleMeterRegistry(),
+                Duration.ofMillis(30), Duration.ofMillis(250), 64, 512,
+                256, 64, SessionOutbound.OverflowPolicy.COALESCE);
+        for (int i = 0; i < sessions; i++) {
+            handler.afterConnectionEstablished(new FakeWebSocketSession("session-" + i, 0, sent::incrementAndGet));
+        }
+        // 연결 확인 메시지가 모두 나갈 때까지 대기
+        awaitSent(sessions);
+    }
+
+    @Benchmark
+    public long broadcast() {
+        long target = sent.get() + sessions;
+        broadcastEngine.publish(BroadcastEngine.TOPIC_ALL,
+                new ChatWebSocketHandler.ChatMessage("system", "서버 점검이 10분 후 시작됩니다.", "broadcast"));
+        awaitSent(target);
+        return target;
+    }
+
+    private void awaitSent(long target) {
+        while (sent.get() < target) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.langchain.rag.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 토큰 하나당 ChatMessage JSON 직렬화 비용 (SessionOutbound.send 와 같은 경로)
+ * - objectMapper: 현재 방식 (매번 ObjectMapper.writeValueAsString)
+ * - objectWriter: 타입을 미리 고정한 ObjectWriter 재사용 (비교 기준)
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=ChatMessageSerialization
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageSerializationBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int tokenChars;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter objectWriter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        objectWriter = objectMapper.writerFor(ChatWebSocketHandler.ChatMessage.class);
+        token = "가나다라마바사아자차카타파하".repeat(8).substring(0, tokenChars);
+    }
+
+    @Benchmark
+    public String objectMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(new ChatWebSocketHandler.ChatMessage("ai", token, "stream_token"));
+    }
+
+    @Benchmark
+    public String objectWriter() throws JsonProcessingException {
+        return objectWriter.writeValueAsString(new ChatWebSocketHandler.ChatMessage("ai", token, "stream_token"));
+    }
+}
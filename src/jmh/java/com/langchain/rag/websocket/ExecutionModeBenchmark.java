@@ -0,0 +1,108 @@
+package com.langchain.rag.websocket;
+
+import com.langchain.rag.config.ChatExecution;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * rag.execution.mode 별 토큰 전달 지연 비교 (platform = boundedElastic, virtual = 가상 스레드)
+ * - 동시 스트림 streams 개에 토큰을 하나씩 넣고, 모든 세션의 블로킹 sendMessage(sendMicros) 가 끝날 때까지를 한 라운드로 측정
+ * - platform 은 drainer 가 boundedElastic 스레드 상한(CPU x 10)에 묶여 라운드 시간이 streams 에 비례해 늘어남
+ * - 토큰별 전달 지연(라운드 시작 → 해당 세션 전송 완료) p50/p99 는 Trial 종료 시 출력
+ * 전체 스택 비교는 loadtest 프로파일 + --rag.execution.mode=virtual 로 ChatLoadDriver 실행
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=ExecutionMode
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"1000", "10000"})
+    public int streams;
+
+    @Param({"500"})
+    public int sendMicros;
+
+    private final AtomicLong sent = new AtomicLong();
+    private volatile long roundStart;
+    private ChatExecution execution;
+    private ChatWebSocketHandler handler;
+    private BroadcastEngine broadcastEngine;
+    private Timer delivery;
+
+    @Setup
+    public void setUp() throws Exception {
+        execution = new ChatExecution(ChatExecution.Mode.from(mode));
+        // 팬아웃은 호출 스레드에서 수행 (실행 방식 차이가 drainer 에만 나타나도록)
+        broadcastEngine = new BroadcastEngine(execution, new SimpleMeterRegistry(), 1, Integer.MAX_VALUE, 16, new String[0]);
+        handler = new ChatWebSocketHandler(null, null, null, execution, broadcastEngine, new SimpleMeterRegistry(),
+                Duration.ofMillis(30), Duration.ofMillis(250), 64, 512,
+                256, 64, SessionOutbound.OverflowPolicy.COALESCE);
+        delivery = Timer.builder("token.delivery")
+                .publishPercentiles(0.5, 0.99)
+                .distributionStatisticExpiry(Duration.ofHours(1))
+                .register(new SimpleMeterRegistry());
+        long sendNanos = TimeUnit.MICROSECONDS.toNanos(sendMicros);
+        for (int i = 0; i < streams; i++) {
+            handler.afterConnectionEstablished(new FakeWebSocketSession("stream-" + i, sendNanos, this::delivered));
+        }
+        awaitSent(streams);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        StringBuilder line = new StringBuilder();
+        for (ValueAtPercentile percentile : delivery.takeSnapshot().percentileValues()) {
+            line.append(String.format(" p%.0f=%.2fms", percentile.percentile() * 100, percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        System.out.printf("%ntoken delivery mode=%s streams=%d%s%n", mode, streams, line);
+        execution.close();
+    }
+
+    @Benchmark
+    public long deliverTokenToEveryStream() {
+        long target = sent.get() + streams;
+        roundStart = System.nanoTime();
+        broadcastEngine.publish(BroadcastEngine.TOPIC_ALL, new ChatWebSocketHandler.ChatMessage("ai", "토큰", "stream_token"));
+        awaitSent(target);
+        return target;
+    }
+
+    private void delivered() {
+        long start = roundStart;
+        if (start != 0) {
+            delivery.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        sent.incrementAndGet();
+    }
+
+    private void awaitSent(long target) {
+        while (sent.get() < target) {
+            Thread.onSpinWait();
+        }
+    }
+}
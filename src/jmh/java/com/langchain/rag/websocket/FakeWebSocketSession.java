@@ -0,0 +1,117 @@
+package com.langchain.rag.websocket;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 벤치마크용 가짜 서블릿 WebSocket 세션
+ * - sendMessage 는 sendNanos 만큼 블로킹(느린 소켓 쓰기 흉내) 후 onSent 호출
+ */
+class FakeWebSocketSession implements WebSocketSession {
+
+    private final String id;
+    private final long sendNanos;
+    private final Runnable onSent;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    FakeWebSocketSession(String id, long sendNanos, Runnable onSent) {
+        this.id = id;
+        this.sendNanos = sendNanos;
+        this.onSent = onSent;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (sendNanos > 0) {
+            LockSupport.parkNanos(sendNanos);
+        }
+        onSent.run();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return null;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return new HttpHeaders();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.langchain.rag.websocket;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * stream_token 프레임 하나의 인코딩 비용과 전송 바이트 (FrameCodec JSON / BINARY, permessage-deflate 유무)
+ * - deflate 는 permessage-deflate 와 같이 context takeover 를 유지한 raw deflate + SYNC_FLUSH, 꼬리 00 00 ff ff 제거
+ * - wireBytes 는 서버 → 클라이언트 WebSocket 프레임 헤더(2/4/10B, 마스킹 없음) 를 포함한 합계,
+ *   토큰당 바이트 = wireBytes / tokens (종료 시 출력)
+ * 실행: ./mvnw -Pjmh verify -Djmh.includes=FrameCodec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameCodecBenchmark {
+
+    // 토큰 한두 글자가 일반적인 모델 출력과 coalesced 모드의 묶음 크기
+    @Param({"2", "16", "64"})
+    public int tokenChars;
+
+    @Param({"JSON", "BINARY"})
+    public FrameCodec codec;
+
+    @Param({"false", "true"})
+    public boolean deflate;
+
+    /**
+     * 반복 구간별 전송량 (JMH 결과에 보조 지표로 표시)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Traffic {
+        public long wireBytes;
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+            tokens = 0;
+        }
+    }
+
+    private String[] tokens;
+    private Deflater deflater;
+    private byte[] compressed;
+    private int next;
+    private long totalBytes;
+    private long totalTokens;
+
+    @Setup
+    public void setUp() {
+        String text = "배송은 주문 후 영업일 기준 2~3일 정도 소요되며, 도서 산간 지역은 하루에서 이틀 더 걸릴 수 있습니다. ";
+        tokens = new String[64];
+        for (int i = 0; i < tokens.length; i++) {
+            int start = (i * tokenChars) % text.length();
+            tokens[i] = text.repeat(tokenChars / text.length() + 2).substring(start, start + tokenChars);
+        }
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        compressed = new byte[64 * 1024];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deflater.end();
+        System.out.printf("%n[%s, deflate=%s, tokenChars=%d] 토큰당 전송 바이트: %.1f%n",
+                codec, deflate, tokenChars, (double) totalBytes / Math.max(1, totalTokens));
+    }
+
+    @Benchmark
+    public int streamToken(Traffic traffic) {
+        String token = tokens[next++ & (tokens.length - 1)];
+        byte[] payload = codec.encode(new ChatWebSocketHandler.ChatMessage("ai", token, "stream_token"));
+        int length = deflate ? compress(payload) : payload.length;
+        int wire = header(length) + length;
+        traffic.wireBytes += wire;
+        traffic.tokens++;
+        totalBytes += wire;
+        totalTokens++;
+        return wire;
+    }
+
+    private int compress(byte[] payload) {
+        deflater.setInput(payload);
+        // 출력 버퍼가 프레임보다 충분히 크므로 한 번에 flush 됨
+        int length = deflater.deflate(compressed, 0, compressed.length, Deflater.SYNC_FLUSH);
+        // permessage-deflate 는 SYNC_FLUSH 꼬리(00 00 ff ff) 를 보내지 않음
+        return length - 4;
+    }
+
+    private static int header(int payloadLength) {
+        return payloadLength <= 125 ? 2 : payloadLength <= 65535 ? 4 : 10;
+    }
+}
@@ -0,0 +1,84 @@
+package com.langchain.rag.config;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 채팅/메모리 경로의 블로킹 작업 실행 방식 (rag.execution.mode)
+ * - platform: Reactor boundedElastic (스레드 수 CPU x 10, 대기 작업 100,000 개 상한)
+ * - virtual: 작업마다 가상 스레드, 블로킹 I/O 동안 캐리어 스레드를 반납하므로 스레드 수 상한이 없음
+ * 대상: 세션별 송신 drainer, 응답 캐시/검색 등 스트림 준비 단계, 메모리 영속화 writer
+ */
+public class ChatExecution implements Closeable {
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL;
+
+        public static Mode from(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Mode mode;
+    private final ExecutorService virtualThreads;
+    private final Scheduler scheduler;
+
+    public ChatExecution(Mode mode) {
+        this.mode = mode;
+        if (mode == Mode.VIRTUAL) {
+            this.virtualThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-vt-", 0).factory());
+            this.scheduler = Schedulers.fromExecutorService(virtualThreads, "chat-virtual");
+        } else {
+            this.virtualThreads = null;
+            this.scheduler = Schedulers.boundedElastic();
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * 짧은 블로킹 작업 실행기 (예: 세션 송신 대기열 drain)
+     */
+    public Executor executor() {
+        return virtualThreads != null ? virtualThreads : task -> scheduler.schedule(task);
+    }
+
+    /**
+     * 블로킹 구독용 Reactor 스케줄러 (subscribeOn)
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 전용 백그라운드 스레드 생성기 (virtual 모드면 가상 스레드)
+     */
+    public ThreadFactory threadFactory(String name) {
+        if (mode == Mode.VIRTUAL) {
+            return Thread.ofVirtual().name(name).factory();
+        }
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void close() {
+        if (virtualThreads != null) {
+            scheduler.dispose();
+            virtualThreads.shutdown();
+        }
+    }
+}
@@ -1,67 +1,218 @@
 package com.langchain.rag.config;
 
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.rag.RetrievalAugmentor;
 import dev.langchain4j.service.AiServices;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import com.langchain.rag.memory.EvictableChatMemoryStore;
+import com.langchain.rag.memory.MemoryCompactor;
+import com.langchain.rag.memory.MemorySnapshotStore;
+import com.langchain.rag.memory.SessionMemoryStore;
+import com.langchain.rag.model.CancellableStreamingChatModel;
 import com.langchain.rag.service.ChatAssistant;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 @Configuration
 public class ChatMemoryConfig {
 
-    // 세션별 메모리를 관리하는 ConcurrentHashMap
-    private final ConcurrentHashMap<String, ChatMemory> memoryStore = new ConcurrentHashMap<>();
+    // 세션별 메모리 저장소 (항목 수/추정 바이트 상한, 유휴 TTL 만료)
+    private final SessionMemoryStore memoryStore;
+
+    // 영속 저장소 (rag.memory.store=jpa 일 때만 존재, 없으면 힙에만 보관)
+    private final ChatMemoryStore chatMemoryStore;
+
+    // 토큰 예산 모드 요약기 (rag.memory.mode=token-budget 일 때만 존재)
+    private final MemoryCompactor memoryCompactor;
+
+    // 시작 시 인덱스만 읽은 스냅샷 (rag.memory.snapshot.enabled=true 일 때만 존재, 세션 생성 시 지연 복원)
+    private final MemorySnapshotStore snapshotStore;
+
+    // 스냅샷에서 복원 중인 세션 (같은 세션의 동시 첫 접근은 복원이 끝날 때까지 기다림)
+    private final ConcurrentHashMap<String, CompletableFuture<ChatMemory>> restoring = new ConcurrentHashMap<>();
+    private final int maxMessages;
+
+    public ChatMemoryConfig(
+            @Value("${rag.memory.max-sessions:10000}") long maxSessions,
+            @Value("${rag.memory.max-bytes:268435456}") long maxBytes,
+            @Value("${rag.memory.idle-ttl:30m}") Duration idleTtl,
+            @Value("${rag.memory.max-messages:10}") int maxMessages,
+            ObjectProvider<ChatMemoryStore> chatMemoryStoreProvider,
+            ObjectProvider<MemoryCompactor> memoryCompactorProvider,
+            ObjectProvider<MemorySnapshotStore> snapshotStoreProvider) {
+        this.chatMemoryStore = chatMemoryStoreProvider.getIfUnique();
+        this.memoryCompactor = memoryCompactorProvider.getIfAvailable();
+        this.snapshotStore = snapshotStoreProvider.getIfAvailable();
+        this.maxMessages = maxMessages;
+        this.memoryStore = new SessionMemoryStore(maxSessions, maxBytes, idleTtl,
+                id -> createMemory(id, maxMessages),
+                id -> {
+                    // 축출된 세션은 영속 저장소의 로컬 캐시에서도 제거 (DB 데이터는 유지)
+                    if (chatMemoryStore instanceof EvictableChatMemoryStore evictable) {
+                        evictable.evict(id);
+                    }
+                });
+    }
 
     /**
      * ChatAssistant AI 서비스 빈 생성
      * 
      * @param chatModel Spring Boot가 자동으로 생성한 OpenAI ChatModel (동기 처리용)
      * @param streamingChatModel Spring Boot가 자동으로 생성한 OpenAI StreamingChatModel (스트리밍용)
+     * @param retrievalAugmentorProvider 문서 검색 단계 (rag.retrieval.enabled=true 일 때만 존재)
      * @return 메모리 기능이 탑재된 ChatAssistant 인스턴스
      */
     @Bean
     public ChatAssistant chatAssistant(
             ChatModel chatModel,
-            StreamingChatModel streamingChatModel) {
+            StreamingChatModel streamingChatModel,
+            ObjectProvider<RetrievalAugmentor> retrievalAugmentorProvider) {
         
         // LangChain4j AiServices 빌더를 사용하여 ChatAssistant 인터페이스 구현체 생성
-        return AiServices.builder(ChatAssistant.class)
+        AiServices<ChatAssistant> builder = AiServices.builder(ChatAssistant.class)
                 // 동기 채팅용 모델 설정 (현재 프로젝트에서는 사용하지 않지만 필수)
                 .chatModel(chatModel)
                 // 스트리밍 채팅용 모델 설정 (실제로 사용되는 모델)
-                .streamingChatModel(streamingChatModel)
+                // 중지된 스트림의 늦은 콜백/메모리 쓰기를 버릴 수 있도록 감쌈 (StreamControl)
+                .streamingChatModel(new CancellableStreamingChatModel(streamingChatModel))
                 // 메모리 제공자 설정: memoryId(세션ID)를 받아서 해당하는 ChatMemory 반환
                 // 람다 함수: memoryId -> getOrCreateMemory(memoryId.toString())
                 // 세션별로 독립적인 메모리 공간을 제공하여 대화 컨텍스트를 유지
-                .chatMemoryProvider(memoryId -> getOrCreateMemory(memoryId.toString()))
-                // 최종적으로 프록시 객체 생성 (Spring이 ChatAssistant 인터페이스의 구현체를 동적 생성)
+                .chatMemoryProvider(memoryId -> getOrCreateMemory(memoryId.toString()));
+        // 검색 단계: 질문과 관련된 문서 청크를 찾아 사용자 메시지에 주입
+        RetrievalAugmentor retrievalAugmentor = retrievalAugmentorProvider.getIfAvailable();
+        if (retrievalAugmentor != null) {
+            builder.retrievalAugmentor(retrievalAugmentor);
+        }
+        // 최종적으로 프록시 객체 생성 (Spring이 ChatAssistant 인터페이스의 구현체를 동적 생성)
+        return builder.build();
+    }
+
+    private ChatMemory createMemory(String id, int maxMessages) {
+        if (memoryCompactor != null) {
+            // 토큰 예산 모드: 예산 초과 시 오래된 턴을 백그라운드에서 요약
+            return memoryCompactor.newMemory(id,
+                    chatMemoryStore != null ? chatMemoryStore : new InMemoryChatMemoryStore());
+        }
+        if (chatMemoryStore == null) {
+            return MessageWindowChatMemory.builder()
+                    .id(id)
+                    .maxMessages(maxMessages)
+                    .build();
+        }
+        // 기존 대화는 첫 접근 시 저장소에서 지연 로딩됨
+        return MessageWindowChatMemory.builder()
+                .id(id)
+                .maxMessages(maxMessages)
+                .chatMemoryStore(chatMemoryStore)
                 .build();
     }
 
     /**
-     * 세션 ID에 따라 메모리를 가져오거나 새로 생성
+     * 스냅샷에 남은 세션을 복원하여 등록
+     * - 청크 읽기/gunzip 과 영속 저장소 조회는 Caffeine compute 밖에서 수행하고 putIfAbsent 로 등록
+     *   (compute 안에서 하면 같은 해시 구간의 다른 세션 조회/생성까지 I/O 를 기다림)
+     */
+    private ChatMemory restoreFromSnapshot(String id) {
+        CompletableFuture<ChatMemory> restore = new CompletableFuture<>();
+        CompletableFuture<ChatMemory> inFlight = restoring.putIfAbsent(id, restore);
+        if (inFlight != null) {
+            return inFlight.join();
+        }
+        try {
+            List<ChatMessage> messages = snapshotStore.take(id);
+            ChatMemory memory = createMemory(id, maxMessages);
+            // 영속 저장소에 이미 대화가 있으면 그쪽이 최신
+            if (messages != null && memory.messages().isEmpty()) {
+                messages.forEach(memory::add);
+            }
+            ChatMemory registered = memoryStore.putIfAbsent(id, memory);
+            restore.complete(registered);
+            return registered;
+        } catch (RuntimeException e) {
+            restore.completeExceptionally(e);
+            throw e;
+        } finally {
+            restoring.remove(id, restore);
+        }
+    }
+
+    /**
+     * 세션 ID에 따라 메모리를 가져오거나 새로 생성 (스냅샷에 남은 세션이면 먼저 복원)
      */
     public ChatMemory getOrCreateMemory(String sessionId) {
-        return memoryStore.computeIfAbsent(sessionId, 
-            id -> MessageWindowChatMemory.withMaxMessages(10));
+        ChatMemory memory = memoryStore.get(sessionId);
+        if (memory != null) {
+            return memory;
+        }
+        if (snapshotStore != null && (snapshotStore.contains(sessionId) || restoring.containsKey(sessionId))) {
+            return restoreFromSnapshot(sessionId);
+        }
+        return memoryStore.getOrCreate(sessionId);
+    }
+
+    /**
+     * 중지된 스트림의 부분 응답만 메모리에 반영
+     * - 전체 응답은 스트림의 StreamControl 을 취소하여 막은 뒤 호출 (StreamControl.cancel() 이 true 일 때만)
+     */
+    public void commitPartialResponse(String sessionId, String partialResponse) {
+        if (!partialResponse.isEmpty()) {
+            getOrCreateMemory(sessionId).add(AiMessage.from(partialResponse));
+        }
     }
 
     /**
      * 특정 세션의 메모리 조회
      */
     public ChatMemory getMemory(String sessionId) {
-        return memoryStore.get(sessionId);
+        ChatMemory memory = memoryStore.get(sessionId);
+        if (memory == null && snapshotStore != null && snapshotStore.contains(sessionId)) {
+            return getOrCreateMemory(sessionId);
+        }
+        return memory;
+    }
+
+    /**
+     * 활성 세션을 복사본 없이 순회 (export/스냅샷용, 순회 중 생성/축출된 세션은 빠질 수 있음)
+     */
+    public void forEachMemory(BiConsumer<String, List<ChatMessage>> action) {
+        memoryStore.asMap().forEach((id, memory) -> action.accept(id, memory.messages()));
+    }
+
+    /**
+     * 세션 대화를 주어진 메시지로 교체 (import 용, 스냅샷에 남은 같은 세션은 버림)
+     */
+    public void restoreMemory(String sessionId, List<ChatMessage> messages) {
+        if (snapshotStore != null) {
+            snapshotStore.discard(sessionId);
+        }
+        ChatMemory memory = memoryStore.getOrCreate(sessionId);
+        memory.clear();
+        messages.forEach(memory::add);
     }
 
     /**
      * 특정 세션의 메모리 삭제
      */
     public void clearMemory(String sessionId) {
+        if (snapshotStore != null) {
+            snapshotStore.discard(sessionId);
+        }
         ChatMemory memory = memoryStore.get(sessionId);
         if (memory != null) {
             memory.clear();
@@ -72,7 +223,9 @@ public class ChatMemoryConfig {
      * 모든 메모리 삭제
      */
     public void clearAllMemories() {
-        memoryStore.values().forEach(ChatMemory::clear);
+        if (snapshotStore != null) {
+            snapshotStore.discardAll();
+        }
         memoryStore.clear();
     }
 
@@ -80,13 +233,27 @@ public class ChatMemoryConfig {
      * 현재 활성 메모리 세션 수
      */
     public int getActiveMemoryCount() {
-        return memoryStore.size();
+        return (int) memoryStore.size();
+    }
+
+    /**
+     * 메모리 저장소 통계 (적중/미스/축출 횟수, 추정 바이트)
+     */
+    public Map<String, Object> getMemoryStats() {
+        Map<String, Object> stats = memoryStore.stats();
+        if (memoryCompactor != null) {
+            stats.put("compaction", memoryCompactor.stats());
+        }
+        return stats;
     }
 
     /**
      * 메모리 세션 삭제 (완전 제거)
      */
     public void removeMemorySession(String sessionId) {
+        if (snapshotStore != null) {
+            snapshotStore.discard(sessionId);
+        }
         ChatMemory memory = memoryStore.remove(sessionId);
         if (memory != null) {
             memory.clear();
@@ -0,0 +1,72 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.embedding.CachedEmbeddingModel;
+import com.langchain.rag.embedding.HashingEmbeddingModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@Configuration
+public class EmbeddingConfig {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean cacheEnabled;
+    private final Path cacheDirectory;
+    private final DataSize cacheMaxSize;
+    private final int cacheLookupBatchSize;
+
+    public EmbeddingConfig(
+            MeterRegistry meterRegistry,
+            @Value("${rag.embedding.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${rag.embedding.cache.dir:./data/embedding-cache}") String cacheDirectory,
+            @Value("${rag.embedding.cache.max-size:1GB}") DataSize cacheMaxSize,
+            @Value("${rag.embedding.cache.lookup-batch-size:256}") int cacheLookupBatchSize) {
+        this.meterRegistry = meterRegistry;
+        this.cacheEnabled = cacheEnabled;
+        this.cacheDirectory = Path.of(cacheDirectory);
+        this.cacheMaxSize = cacheMaxSize;
+        this.cacheLookupBatchSize = cacheLookupBatchSize;
+    }
+
+    /**
+     * 로컬 임베딩 모델 (기본값, 외부 API 호출 없음)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.embedding.provider", havingValue = "local", matchIfMissing = true)
+    public EmbeddingModel localEmbeddingModel(
+            @Value("${rag.embedding.local.dimension:384}") int dimension) {
+        return cached(new HashingEmbeddingModel(dimension), "local/hashing");
+    }
+
+    /**
+     * OpenAI 임베딩 모델 (API 키는 별도 지정이 없으면 채팅 모델 키 사용)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.embedding.provider", havingValue = "openai")
+    public EmbeddingModel openAiEmbeddingModel(
+            @Value("${rag.embedding.openai.api-key:${langchain4j.open-ai.chat-model.api-key}}") String apiKey,
+            @Value("${rag.embedding.openai.model-name:text-embedding-3-small}") String modelName) {
+        return cached(OpenAiEmbeddingModel.builder()
+                .apiKey(apiKey)
+                .modelName(modelName)
+                .build(), "openai/" + modelName);
+    }
+
+    /**
+     * rag.embedding.cache.enabled 이면 디스크 캐시로 감쌈 (빈 종료 시 close 로 파일 기록)
+     */
+    private EmbeddingModel cached(EmbeddingModel model, String modelName) {
+        if (!cacheEnabled) {
+            return model;
+        }
+        return new CachedEmbeddingModel(model, modelName, cacheDirectory, cacheMaxSize.toBytes(),
+                cacheLookupBatchSize, meterRegistry);
+    }
+}
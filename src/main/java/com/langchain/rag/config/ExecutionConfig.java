@@ -0,0 +1,39 @@
+package com.langchain.rag.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 실행 방식 설정 (rag.execution.mode=platform | virtual)
+ * - virtual 이면 채팅/메모리 경로의 블로킹 작업과 Tomcat 요청 처리(REST 컨트롤러, 서블릿 WebSocket 수신)를 가상 스레드에서 실행
+ */
+@Configuration
+public class ExecutionConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public ChatExecution chatExecution(@Value("${rag.execution.mode:platform}") String mode) {
+        ChatExecution execution = new ChatExecution(ChatExecution.Mode.from(mode));
+        log.info("채팅 실행 방식: {}", execution.mode());
+        return execution;
+    }
+
+    /**
+     * Tomcat 요청 처리 스레드를 가상 스레드로 교체 (spring.threads.virtual.enabled 와 같은 방식)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.execution.mode", havingValue = "virtual")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.model.FakeChatModel;
+import com.langchain.rag.model.FakeStreamingChatModel;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+/**
+ * rag.model.provider=fake 일 때 OpenAI 모델 대신 가짜 모델 사용 (부하 테스트/오프라인 개발용)
+ * - OpenAI 자동 구성 빈은 그대로 생성되지만 @Primary 로 이 빈들이 주입됨
+ */
+@Configuration
+@ConditionalOnProperty(name = "rag.model.provider", havingValue = "fake")
+public class FakeModelConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public StreamingChatModel fakeStreamingChatModel(
+            @Value("${rag.model.fake.first-token-latency:300ms}") Duration firstTokenLatency,
+            @Value("${rag.model.fake.token-latency:20ms}") Duration tokenLatency,
+            @Value("${rag.model.fake.jitter:0.3}") double jitter,
+            @Value("${rag.model.fake.min-tokens:50}") int minTokens,
+            @Value("${rag.model.fake.max-tokens:300}") int maxTokens,
+            @Value("${rag.model.fake.threads:2}") int threads) {
+        return new FakeStreamingChatModel(new FakeStreamingChatModel.Settings(
+                firstTokenLatency, tokenLatency, jitter, minTokens, maxTokens, threads));
+    }
+
+    @Bean
+    @Primary
+    public ChatModel fakeChatModel() {
+        return new FakeChatModel();
+    }
+}
@@ -0,0 +1,39 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.memory.MemorySnapshotStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * rag.memory.snapshot.enabled=true 일 때 대화 메모리를 주기적으로 gzip 스냅샷으로 남기고 재시작 시 복원
+ * - 시작 시에는 인덱스만 읽고, 세션 대화는 처음 접근할 때 청크 단위로 지연 복원
+ * - 스냅샷 기록 주기/종료 시 기록은 MemorySnapshotService 참고
+ */
+@Configuration
+@ConditionalOnProperty(name = "rag.memory.snapshot.enabled", havingValue = "true")
+public class MemorySnapshotConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(MemorySnapshotConfig.class);
+
+    @Bean
+    public MemorySnapshotStore memorySnapshotStore(
+            @Value("${rag.memory.snapshot.dir:./data/memory-snapshots}") String directory,
+            @Value("${rag.memory.snapshot.chunk-size:256}") int chunkSize) {
+        MemorySnapshotStore store = new MemorySnapshotStore(Path.of(directory), chunkSize);
+        try {
+            int pending = store.open();
+            log.info("메모리 스냅샷 인덱스 로드: {}개 세션 복원 대기 ({})", pending, directory);
+        } catch (IOException e) {
+            // 깨진 스냅샷 때문에 기동이 막히지 않도록 빈 상태로 시작 (다음 스냅샷이 파일을 덮어씀)
+            log.warn("메모리 스냅샷을 읽지 못해 빈 상태로 시작합니다: {}", directory, e);
+        }
+        return store;
+    }
+}
@@ -0,0 +1,31 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.model.CancellableHttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 중지/연결 종료된 채팅 스트림의 공급자 요청을 실제로 끊도록 OpenAI 스트리밍 모델의 HttpClient 를 감쌈
+ * - 자동 구성의 openAiStreamingChatModelHttpClientBuilder 빈을 CancellableHttpClient.Builder 로 교체
+ * - 라우팅 모델(ModelRoutingConfig)은 경로별 모델을 직접 만들 때 같은 빌더를 사용
+ */
+@Configuration
+public class ModelCancellationConfig {
+
+    static final String STREAMING_HTTP_CLIENT_BUILDER = "openAiStreamingChatModelHttpClientBuilder";
+
+    @Bean
+    public static BeanPostProcessor cancellableHttpClientPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (STREAMING_HTTP_CLIENT_BUILDER.equals(beanName) && bean instanceof HttpClientBuilder builder) {
+                    return new CancellableHttpClient.Builder(builder);
+                }
+                return bean;
+            }
+        };
+    }
+}
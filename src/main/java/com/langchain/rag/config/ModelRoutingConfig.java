@@ -0,0 +1,68 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.model.CancellableHttpClient;
+import com.langchain.rag.model.RoutingStreamingChatModel;
+import dev.langchain4j.http.client.HttpClientBuilderLoader;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * rag.model.routing.enabled=true 일 때 ChatAssistant 의 스트리밍 모델을 라우팅 모델로 교체 (openai 공급자 전용)
+ * - rag.model.routing.models 의 각 모델이 주 경로 (같은 모델을 두 번 쓰면 같은 모델로 hedge)
+ * - rag.model.routing.fallback-model 은 모든 주 경로가 실패/차단됐을 때 쓰는 저렴한 모델
+ * - API 키/엔드포인트는 langchain4j.open-ai.streaming-chat-model 설정을 공유
+ * - 경로별 모델은 CancellableHttpClient 를 써서 중지된 요청과 hedge 패자의 응답 스트림을 끊음
+ */
+@Configuration
+@ConditionalOnExpression("${rag.model.routing.enabled:false} and '${rag.model.provider:openai}' == 'openai'")
+public class ModelRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public StreamingChatModel routingStreamingChatModel(
+            MeterRegistry meterRegistry,
+            @Value("${langchain4j.open-ai.streaming-chat-model.api-key}") String apiKey,
+            @Value("${rag.model.routing.base-url:}") String baseUrl,
+            @Value("${rag.model.routing.models:gpt-4o,gpt-4o}") List<String> models,
+            @Value("${rag.model.routing.fallback-model:gpt-4o-mini}") String fallbackModel,
+            @Value("${rag.model.routing.hedge-delay:1500ms}") Duration hedgeDelay,
+            @Value("${rag.model.routing.max-hedges:1}") int maxHedges,
+            @Value("${rag.model.routing.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${rag.model.routing.circuit.open-duration:30s}") Duration openDuration,
+            @Value("${rag.model.routing.timeout:60s}") Duration timeout) {
+        List<RoutingStreamingChatModel.Route> primaries = new ArrayList<>();
+        for (int i = 0; i < models.size(); i++) {
+            String model = models.get(i).trim();
+            primaries.add(new RoutingStreamingChatModel.Route(
+                    "primary-" + i + ":" + model, openAi(apiKey, baseUrl, model, timeout)));
+        }
+        RoutingStreamingChatModel.Route fallback = fallbackModel.isBlank() ? null
+                : new RoutingStreamingChatModel.Route("fallback:" + fallbackModel,
+                        openAi(apiKey, baseUrl, fallbackModel, timeout));
+        return new RoutingStreamingChatModel(primaries, fallback,
+                new RoutingStreamingChatModel.Settings(hedgeDelay, maxHedges, failureThreshold, openDuration),
+                meterRegistry);
+    }
+
+    private static StreamingChatModel openAi(String apiKey, String baseUrl, String modelName, Duration timeout) {
+        OpenAiStreamingChatModel.OpenAiStreamingChatModelBuilder builder = OpenAiStreamingChatModel.builder()
+                .httpClientBuilder(new CancellableHttpClient.Builder(HttpClientBuilderLoader.loadHttpClientBuilder()))
+                .apiKey(apiKey)
+                .modelName(modelName)
+                .timeout(timeout);
+        if (!baseUrl.isBlank()) {
+            builder.baseUrl(baseUrl);
+        }
+        return builder.build();
+    }
+}
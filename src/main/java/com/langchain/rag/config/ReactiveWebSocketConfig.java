@@ -0,0 +1,88 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.service.ChatAdmissionService;
+import com.langchain.rag.service.SemanticResponseCache;
+import com.langchain.rag.websocket.BroadcastEngine;
+import com.langchain.rag.websocket.ReactiveChatWebSocketHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.netty.http.server.WebsocketServerSpec;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 리액티브 스택 WebSocket 설정 (spring.main.web-application-type=reactive, reactive 프로파일 참고)
+ * - 서블릿 스택과 같은 /ws/chat 경로, 같은 프로토콜 (송신 인코딩은 서브프로토콜로 협상, FrameCodec 참고)
+ * - WebSocketHandlerAdapter 는 WebFlux 기본 구성이 등록 (Netty 일 때 핸드셰이크 서비스만 교체)
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebSocketConfig {
+
+    /**
+     * starter-web 때문에 Tomcat 도 클래스패스에 있어 기본값으로는 리액티브 스택도 Tomcat 위에서 뜨므로 Netty 를 명시
+     * (rag.websocket.reactive.server=tomcat 이면 Spring Boot 기본 선택을 따름)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.websocket.reactive.server", havingValue = "netty", matchIfMissing = true)
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Netty 는 permessage-deflate 를 기본으로 켜지 않으므로 핸드셰이크 서비스에서 명시 (Tomcat 은 컨테이너가 협상)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.websocket.reactive.server", havingValue = "netty", matchIfMissing = true)
+    public WebFluxConfigurer webSocketCompressionConfigurer(
+            @Value("${rag.websocket.permessage-deflate:true}") boolean permessageDeflate) {
+        return new WebFluxConfigurer() {
+            @Override
+            public WebSocketService getWebSocketService() {
+                return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy(
+                        () -> WebsocketServerSpec.builder().compress(permessageDeflate)));
+            }
+        };
+    }
+
+    @Bean
+    public ReactiveChatWebSocketHandler reactiveChatWebSocketHandler(
+            SemanticResponseCache responseCache,
+            ChatMemoryConfig chatMemoryConfig,
+            ChatAdmissionService admissionService,
+            ChatExecution execution,
+            BroadcastEngine broadcastEngine,
+            MeterRegistry meterRegistry,
+            @Value("${rag.websocket.coalesce.flush-interval:30ms}") Duration defaultFlushInterval,
+            @Value("${rag.websocket.coalesce.max-flush-interval:250ms}") Duration maxFlushInterval,
+            @Value("${rag.websocket.coalesce.max-tokens:64}") int defaultMaxTokens,
+            @Value("${rag.websocket.coalesce.max-tokens-limit:512}") int maxTokensLimit,
+            @Value("${rag.websocket.outbound.capacity:256}") int controlCapacity) {
+        return new ReactiveChatWebSocketHandler(responseCache, chatMemoryConfig, admissionService, execution, broadcastEngine, meterRegistry,
+                defaultFlushInterval, maxFlushInterval, defaultMaxTokens, maxTokensLimit, controlCapacity);
+    }
+
+    @Bean
+    public HandlerMapping chatWebSocketHandlerMapping(ReactiveChatWebSocketHandler handler) {
+        // 실제 운영에서는 특정 도메인으로 제한
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOriginPatterns(List.of("*"));
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of("/ws/chat", handler), -1);
+        mapping.setCorsConfigurations(Map.of("/ws/chat", cors));
+        return mapping;
+    }
+}
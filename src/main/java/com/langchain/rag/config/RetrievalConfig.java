@@ -0,0 +1,155 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.retrieval.HnswEmbeddingStore;
+import com.langchain.rag.retrieval.HnswIndex;
+import com.langchain.rag.retrieval.HybridContentRetriever;
+import com.langchain.rag.retrieval.LexicalIndex;
+import com.langchain.rag.retrieval.LexicalIndexedStore;
+import com.langchain.rag.retrieval.SegmentedEmbeddingStore;
+import com.langchain.rag.retrieval.VectorStore;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.rag.DefaultRetrievalAugmentor;
+import dev.langchain4j.rag.RetrievalAugmentor;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.MetadataFilterBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class RetrievalConfig {
+
+    /**
+     * 하이브리드 검색용 BM25 어휘 색인 (벡터 저장소에 쓰는 청크가 함께 색인됨)
+     *
+     * @param ngram 한글 구간을 자르는 문자 n-gram 길이
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.retrieval.hybrid.enabled", havingValue = "true", matchIfMissing = true)
+    public LexicalIndex lexicalIndex(
+            @Value("${rag.retrieval.hybrid.ngram:2}") int ngram,
+            @Value("${rag.retrieval.hybrid.bm25-k1:1.2}") float k1,
+            @Value("${rag.retrieval.hybrid.bm25-b:0.75}") float b) {
+        return new LexicalIndex(ngram, k1, b);
+    }
+
+    /**
+     * 인메모리 HNSW 벡터 저장소 (차원은 임베딩 모델을 따름, 재시작 시 비어 있음)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.retrieval.store", havingValue = "memory", matchIfMissing = true)
+    public VectorStore embeddingStore(
+            EmbeddingModel embeddingModel,
+            ObjectProvider<LexicalIndex> lexicalIndex,
+            @Value("${rag.retrieval.hnsw.m:16}") int m,
+            @Value("${rag.retrieval.hnsw.ef-construction:128}") int efConstruction,
+            @Value("${rag.retrieval.hnsw.ef-search:64}") int efSearch) {
+        return withLexicalIndex(new HnswEmbeddingStore(new HnswIndex(embeddingModel.dimension(), m, efConstruction), efSearch),
+                lexicalIndex.getIfAvailable());
+    }
+
+    /**
+     * mmap 세그먼트 벡터 저장소 (디스크 영속, 시작 시 그래프 재구성 없음)
+     *
+     * @param verify open(열 때 전체 체크섬 확인) | background(시작 후 백그라운드 확인)
+     */
+    @Bean(name = "embeddingStore", destroyMethod = "close")
+    @ConditionalOnProperty(name = "rag.retrieval.store", havingValue = "disk")
+    public VectorStore segmentedEmbeddingStore(
+            EmbeddingModel embeddingModel,
+            ObjectProvider<LexicalIndex> lexicalIndex,
+            @Value("${rag.retrieval.hnsw.m:16}") int m,
+            @Value("${rag.retrieval.hnsw.ef-construction:128}") int efConstruction,
+            @Value("${rag.retrieval.hnsw.ef-search:64}") int efSearch,
+            @Value("${rag.retrieval.disk.dir:./data/index}") String directory,
+            @Value("${rag.retrieval.disk.flush-threshold:10000}") int flushThreshold,
+            @Value("${rag.retrieval.disk.maintenance-interval:30s}") Duration maintenanceInterval,
+            @Value("${rag.retrieval.disk.max-segments:8}") int maxSegments,
+            @Value("${rag.retrieval.disk.merge-factor:4}") int mergeFactor,
+            @Value("${rag.retrieval.disk.merge-deletes-ratio:0.3}") double mergeDeletesRatio,
+            @Value("${rag.retrieval.disk.max-segment-nodes:2000000}") int maxSegmentNodes,
+            @Value("${rag.retrieval.disk.verify:background}") String verify) {
+        return withLexicalIndex(new SegmentedEmbeddingStore(Path.of(directory), embeddingModel.dimension(),
+                new SegmentedEmbeddingStore.Settings(m, efConstruction, efSearch, flushThreshold, maintenanceInterval,
+                        maxSegments, mergeFactor, mergeDeletesRatio, maxSegmentNodes, "open".equalsIgnoreCase(verify))),
+                lexicalIndex.getIfAvailable());
+    }
+
+    /**
+     * 질문으로 저장소에서 관련 청크 top-k 를 찾는 검색기
+     * - 어휘 색인이 있으면 벡터 + BM25 하이브리드 (RRF 결합), 없으면 벡터 검색만
+     *
+     * @param filter "key=value,key2=value2" 형식의 메타데이터 일치 조건 (비어 있으면 필터 없음)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.retrieval.enabled", havingValue = "true")
+    public ContentRetriever contentRetriever(
+            VectorStore embeddingStore,
+            EmbeddingModel embeddingModel,
+            ObjectProvider<LexicalIndex> lexicalIndexProvider,
+            @Value("${rag.retrieval.max-results:5}") int maxResults,
+            @Value("${rag.retrieval.min-score:0.6}") double minScore,
+            @Value("${rag.retrieval.filter:}") String filter,
+            @Value("${rag.retrieval.hybrid.candidates:50}") int candidates,
+            @Value("${rag.retrieval.hybrid.rrf-k:60}") int rrfK,
+            @Value("${rag.retrieval.hybrid.vector-weight:1.0}") float vectorWeight,
+            @Value("${rag.retrieval.hybrid.lexical-weight:1.0}") float lexicalWeight,
+            @Value("${rag.retrieval.hybrid.lexical-floor:0.2}") float lexicalFloor) {
+        Filter metadataFilter = parseFilter(filter);
+        LexicalIndex lexicalIndex = lexicalIndexProvider.getIfAvailable();
+        if (lexicalIndex != null) {
+            return new HybridContentRetriever(embeddingStore, lexicalIndex, embeddingModel,
+                    new HybridContentRetriever.Settings(maxResults, minScore, metadataFilter,
+                            Math.max(candidates, maxResults), rrfK, vectorWeight, lexicalWeight, lexicalFloor));
+        }
+
+        EmbeddingStoreContentRetriever.EmbeddingStoreContentRetrieverBuilder builder = EmbeddingStoreContentRetriever.builder()
+                .embeddingStore(embeddingStore)
+                .embeddingModel(embeddingModel)
+                .maxResults(maxResults)
+                .minScore(minScore);
+        if (metadataFilter != null) {
+            builder.filter(metadataFilter);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 검색 결과를 사용자 메시지에 주입하는 RetrievalAugmentor (ChatAssistant 에 연결됨)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.retrieval.enabled", havingValue = "true")
+    public RetrievalAugmentor retrievalAugmentor(ContentRetriever contentRetriever) {
+        return DefaultRetrievalAugmentor.builder()
+                .contentRetriever(contentRetriever)
+                .build();
+    }
+
+    private static VectorStore withLexicalIndex(VectorStore store, LexicalIndex lexicalIndex) {
+        return lexicalIndex == null ? store : new LexicalIndexedStore(store, lexicalIndex);
+    }
+
+    static Filter parseFilter(String expression) {
+        Filter result = null;
+        for (String condition : expression.split(",")) {
+            if (condition.isBlank()) {
+                continue;
+            }
+            int separator = condition.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("잘못된 검색 필터 조건입니다: " + condition);
+            }
+            Filter equals = MetadataFilterBuilder.metadataKey(condition.substring(0, separator).trim())
+                    .isEqualTo(condition.substring(separator + 1).trim());
+            result = result == null ? equals : result.and(equals);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.memory.SharedChatMemoryStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * rag.memory.store=shared 일 때 여러 노드가 같은 DB 의 대화 메모리를 공유 (shared 프로파일 참고)
+ * - 노드마다 near-cache 를 두고, 다른 노드의 변경은 change-log polling 으로 무효화
+ */
+@Configuration
+@ConditionalOnProperty(name = "rag.memory.store", havingValue = "shared")
+public class SharedMemoryConfig {
+
+    @Bean
+    public SharedChatMemoryStore sharedChatMemoryStore(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ChatExecution execution,
+            @Value("${rag.memory.shared.node-id:}") String nodeId,
+            @Value("${rag.memory.shared.poll-interval:200ms}") Duration pollInterval,
+            @Value("${rag.memory.shared.poll-batch-size:500}") int pollBatchSize,
+            @Value("${rag.memory.shared.max-staleness:5s}") Duration maxStaleness,
+            @Value("${rag.memory.shared.changelog-retention:10m}") Duration retention,
+            @Value("${rag.memory.shared.max-retries:5}") int maxRetries,
+            @Value("${rag.memory.shared.initialize-schema:true}") boolean initializeSchema) {
+        return new SharedChatMemoryStore(jdbcTemplate, transactionManager, execution,
+                new SharedChatMemoryStore.Settings(nodeId, pollInterval, pollBatchSize, maxStaleness,
+                        retention, maxRetries, initializeSchema));
+    }
+}
@@ -0,0 +1,73 @@
+package com.langchain.rag.controller;
+
+import com.langchain.rag.ingest.IngestRequest;
+import com.langchain.rag.ingest.IngestionJob;
+import com.langchain.rag.ingest.IngestionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ingest")
+@CrossOrigin(origins = "*")
+public class IngestionController {
+
+    private final IngestionService ingestionService;
+
+    public IngestionController(IngestionService ingestionService) {
+        this.ingestionService = ingestionService;
+    }
+
+    /**
+     * 적재 작업 등록 (202 Accepted 와 함께 작업 상태 반환)
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> ingest(@RequestBody IngestRequest request) {
+        IngestionJob job = ingestionService.submit(request);
+        return ResponseEntity.accepted().body(job.snapshot());
+    }
+
+    /**
+     * 적재 작업 진행 상태 및 처리량 조회
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        IngestionJob job = ingestionService.job(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.snapshot());
+    }
+
+    /**
+     * 최근 적재 작업 목록과 인덱스 상태
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("index", ingestionService.stats());
+        response.put("jobs", ingestionService.recentJobs());
+        response.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 적재 작업 취소
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId) {
+        if (!ingestionService.cancel(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "적재 작업 " + jobId + " 취소를 요청했습니다.");
+        response.put("jobId", jobId);
+        response.put("success", true);
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,8 +1,15 @@
 package com.langchain.rag.controller;
 
 import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.memory.PersistentChatMemoryStore;
+import com.langchain.rag.memory.SharedChatMemoryStore;
+import com.langchain.rag.service.MemorySnapshotService;
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.ChatMemory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,10 +22,39 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class MemoryController {
 
+    /**
+     * 대화 히스토리 응답의 메시지 항목 (메시지마다 HashMap 을 만들지 않도록 record 로 직렬화)
+     */
+    record MessageView(String type, String text) {
+
+        static MessageView of(ChatMessage message) {
+            String text;
+            if (message instanceof UserMessage userMessage) {
+                text = userMessage.singleText();
+            } else if (message instanceof AiMessage aiMessage) {
+                text = aiMessage.text();
+            } else if (message instanceof SystemMessage systemMessage) {
+                text = systemMessage.text();
+            } else {
+                text = message.toString();
+            }
+            return new MessageView(message.type().toString(), text);
+        }
+    }
+
     private final ChatMemoryConfig chatMemoryConfig;
+    private final ObjectProvider<PersistentChatMemoryStore> persistentStore;
+    private final ObjectProvider<SharedChatMemoryStore> sharedStore;
+    private final MemorySnapshotService snapshotService;
 
-    public MemoryController(ChatMemoryConfig chatMemoryConfig) {
+    public MemoryController(ChatMemoryConfig chatMemoryConfig,
+                            ObjectProvider<PersistentChatMemoryStore> persistentStore,
+                            ObjectProvider<SharedChatMemoryStore> sharedStore,
+                            MemorySnapshotService snapshotService) {
         this.chatMemoryConfig = chatMemoryConfig;
+        this.persistentStore = persistentStore;
+        this.sharedStore = sharedStore;
+        this.snapshotService = snapshotService;
     }
 
     /**
@@ -33,24 +69,8 @@ public class MemoryController {
         if (memory != null) {
             List<ChatMessage> messages = memory.messages();
             // ChatMessage를 간단한 DTO로 변환
-            List<Map<String, Object>> messageList = messages.stream()
-                .map(msg -> {
-                    Map<String, Object> msgMap = new HashMap<>();
-                    msgMap.put("type", msg.type().toString());
-                    
-                    // ChatMessage의 텍스트 내용 추출
-                    if (msg instanceof dev.langchain4j.data.message.UserMessage) {
-                        msgMap.put("text", ((dev.langchain4j.data.message.UserMessage) msg).singleText());
-                    } else if (msg instanceof dev.langchain4j.data.message.AiMessage) {
-                        msgMap.put("text", ((dev.langchain4j.data.message.AiMessage) msg).text());
-                    } else if (msg instanceof dev.langchain4j.data.message.SystemMessage) {
-                        msgMap.put("text", ((dev.langchain4j.data.message.SystemMessage) msg).text());
-                    } else {
-                        msgMap.put("text", msg.toString());
-                    }
-                    
-                    return msgMap;
-                })
+            List<MessageView> messageList = messages.stream()
+                .map(MessageView::of)
                 .toList();
             
             response.put("sessionId", sessionId);
@@ -105,6 +125,10 @@ public class MemoryController {
     public ResponseEntity<Map<String, Object>> getMemoryStatus() {
         Map<String, Object> response = new HashMap<>();
         response.put("activeMemoryCount", chatMemoryConfig.getActiveMemoryCount());
+        response.put("stats", chatMemoryConfig.getMemoryStats());
+        persistentStore.ifAvailable(store -> response.put("persistence", store.stats()));
+        sharedStore.ifAvailable(store -> response.put("shared", store.stats()));
+        response.put("snapshot", snapshotService.stats());
         response.put("timestamp", System.currentTimeMillis());
         
         return ResponseEntity.ok(response);
@@ -0,0 +1,74 @@
+package com.langchain.rag.controller;
+
+import com.langchain.rag.service.MemorySnapshotService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 전체 대화 메모리 export/import (관리용)
+ * - 모든 세션의 대화를 읽고 덮어쓰므로 rag.memory.transfer.enabled=true 일 때만 등록
+ * - @CrossOrigin 을 두지 않아 다른 출처의 페이지는 응답을 읽을 수 없지만, 단순 요청(GET, text/plain·form POST)은
+ *   preflight 없이 그대로 전송되어 실행됨
+ * - 그래서 import 는 Content-Type: application/x-ndjson 만 받음 (단순 요청이 아니므로 다른 출처의 브라우저는
+ *   preflight 에서 막히고, text/plain 등으로 보낸 위조 요청은 415 로 거절)
+ */
+@RestController
+@RequestMapping("/api/memory")
+@ConditionalOnProperty(name = "rag.memory.transfer.enabled", havingValue = "true")
+public class MemoryTransferController {
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+
+    private final MemorySnapshotService snapshotService;
+
+    public MemoryTransferController(MemorySnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    /**
+     * 모든 세션을 NDJSON 으로 내보내기 (세션 하나 = 한 줄, 응답으로 바로 흘려 보냄)
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMemories() {
+        StreamingResponseBody body = out -> snapshotService.export(
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16));
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"chat-memory.ndjson\"")
+                .body(body);
+    }
+
+    /**
+     * export 형식의 NDJSON 을 한 줄씩 읽어 세션별 대화 교체 (예: curl -H 'Content-Type: application/x-ndjson' --data-binary @chat-memory.ndjson)
+     */
+    @PostMapping(path = "/import", consumes = NDJSON_VALUE)
+    public ResponseEntity<Map<String, Object>> importMemories(InputStream body) throws IOException {
+        int imported = snapshotService.importFrom(
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 1 << 16));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", imported + "개 세션의 메모리를 가져왔습니다.");
+        response.put("importedCount", imported);
+        response.put("success", true);
+
+        return ResponseEntity.ok(response);
+    }
+}
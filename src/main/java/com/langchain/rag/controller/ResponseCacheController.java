@@ -0,0 +1,42 @@
+package com.langchain.rag.controller;
+
+import com.langchain.rag.service.SemanticResponseCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class ResponseCacheController {
+
+    private final SemanticResponseCache responseCache;
+
+    public ResponseCacheController(SemanticResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * 응답 캐시 통계 및 적중 횟수 상위 항목 조회
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getCacheStatus(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(responseCache.stats(limit));
+    }
+
+    /**
+     * 응답 캐시 전체 삭제
+     */
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        responseCache.clear();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "응답 캐시가 초기화되었습니다.");
+        response.put("success", true);
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,7 +1,15 @@
 package com.langchain.rag.controller;
 
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.service.ChatAdmissionService;
+import com.langchain.rag.websocket.BroadcastEngine;
+import com.langchain.rag.websocket.BroadcastRequest;
+import com.langchain.rag.websocket.ChatEndpoint;
 import com.langchain.rag.websocket.ChatWebSocketHandler;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -12,10 +20,19 @@ import java.util.Map;
 @RequestMapping("/api/ws")
 public class WebSocketStatusController {
 
-    private final ChatWebSocketHandler webSocketHandler;
+    private final ChatEndpoint webSocketHandler;
+    private final ChatAdmissionService admissionService;
+    private final ChatExecution execution;
+    private final BroadcastEngine broadcastEngine;
 
-    public WebSocketStatusController(ChatWebSocketHandler webSocketHandler) {
+    public WebSocketStatusController(ChatEndpoint webSocketHandler,
+                                     ChatAdmissionService admissionService,
+                                     ChatExecution execution,
+                                     BroadcastEngine broadcastEngine) {
         this.webSocketHandler = webSocketHandler;
+        this.admissionService = admissionService;
+        this.execution = execution;
+        this.broadcastEngine = broadcastEngine;
     }
 
     /**
@@ -25,27 +42,37 @@ public class WebSocketStatusController {
     public Map<String, Object> getWebSocketStatus() {
         Map<String, Object> status = new HashMap<>();
         status.put("activeConnections", webSocketHandler.getActiveSessionCount());
+        status.put("activeStreams", webSocketHandler.getActiveStreamCount());
+        status.put("admission", admissionService.stats());
         status.put("status", "running");
         status.put("endpoint", "/ws/chat");
+        status.put("stack", webSocketHandler.stack());
+        status.put("executionMode", execution.mode().name().toLowerCase());
+        status.put("broadcastTopics", broadcastEngine.stats());
         return status;
     }
 
     /**
-     * 모든 연결된 클라이언트에 브로드캐스트
+     * 토픽 구독자에게 브로드캐스트 (메시지는 한 번만 직렬화되어 모든 세션이 공유)
+     * 요청 예: {"topic":"notice","content":"서버 점검이 10분 후 시작됩니다."} (topic 생략 시 전체 연결)
      */
-    @GetMapping("/broadcast/test")
-    public Map<String, String> testBroadcast() {
+    @PostMapping("/broadcast")
+    public ResponseEntity<Map<String, Object>> broadcast(@RequestBody BroadcastRequest request) {
+        if (request.content() == null || request.content().isBlank()) {
+            throw new IllegalArgumentException("브로드캐스트 내용(content)이 비어 있습니다.");
+        }
         ChatWebSocketHandler.ChatMessage message = new ChatWebSocketHandler.ChatMessage(
-            "system", 
-            "🔔 관리자 테스트 브로드캐스트 메시지입니다!", 
+            request.sender(),
+            request.content(),
             "broadcast"
         );
-        
-        webSocketHandler.broadcast(message);
-        
-        Map<String, String> result = new HashMap<>();
+
+        int recipients = broadcastEngine.publish(request.topic(), message);
+
+        Map<String, Object> result = new HashMap<>();
         result.put("message", "브로드캐스트 전송 완료");
-        result.put("recipients", String.valueOf(webSocketHandler.getActiveSessionCount()));
-        return result;
+        result.put("topic", request.topic());
+        result.put("recipients", recipients);
+        return ResponseEntity.ok(result);
     }
-} 
\ No newline at end of file
+}
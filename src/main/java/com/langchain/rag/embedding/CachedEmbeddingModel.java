@@ -0,0 +1,185 @@
+package com.langchain.rag.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * 콘텐츠 해시 기반 임베딩 캐시 (임의의 EmbeddingModel 을 감싸는 EmbeddingModel)
+ * - 키: 텍스트 SHA-256, 파일은 모델 이름 + 차원마다 따로 두므로 모델을 바꾸면 다른 캐시를 사용
+ * - 벡터는 EmbeddingCacheFile(mmap) 에 저장되어 재시작 후에도 유지되고 힙을 차지하지 않음
+ * - embedAll 은 lookupBatchSize 단위로 나누어 해시 계산과 조회를 병렬로 수행하고,
+ *   미스만 (중복 제거 후) 원래 모델에 한 번에 요청
+ * - 재적재, 반복 질문, 응답 캐시의 질문 임베딩이 모두 이 경로를 지남
+ * - 지표: 모델에 실제로 요청한 텍스트만 미스, 나머지(캐시 적중 + 같은 배치 안의 중복)는 적중
+ * - 다른 프로세스가 캐시 파일을 쓰고 있으면 열 때 기록된 항목만 읽기 전용으로 사용 (EmbeddingCacheFile 참고)
+ */
+public class CachedEmbeddingModel implements EmbeddingModel, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CachedEmbeddingModel.class);
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingCacheFile cacheFile;
+    private final int lookupBatchSize;
+    private final AtomicBoolean fullLogged = new AtomicBoolean();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter savedBytes;
+
+    /**
+     * @param modelName 캐시 파일을 구분하는 모델 이름 (예: openai/text-embedding-3-small)
+     */
+    public CachedEmbeddingModel(EmbeddingModel delegate, String modelName, Path directory, long maxBytes,
+                                int lookupBatchSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.lookupBatchSize = Math.max(1, lookupBatchSize);
+        Path file = directory.resolve(fileName(modelName, delegate.dimension()));
+        try {
+            this.cacheFile = new EmbeddingCacheFile(file, modelName, delegate.dimension(), maxBytes, 64 << 20);
+        } catch (IOException e) {
+            throw new UncheckedIOException("임베딩 캐시를 열 수 없습니다: " + file, e);
+        }
+        if (cacheFile.isReadOnly()) {
+            log.warn("다른 프로세스가 임베딩 캐시를 사용 중이어서 읽기 전용으로 엽니다: {} ({} 항목)", file, cacheFile.size());
+        } else {
+            log.info("임베딩 캐시 열기: {} ({} 항목)", file, cacheFile.size());
+        }
+
+        this.hits = Counter.builder("embedding.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("embedding.cache.requests").tag("result", "miss").register(meterRegistry);
+        // 적중으로 모델에 보내지 않은 입력 텍스트 바이트 (API 비용/지연의 대리 지표)
+        this.savedBytes = Counter.builder("embedding.cache.saved.bytes").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("embedding.cache.hit.ratio", this, CachedEmbeddingModel::hitRatio).register(meterRegistry);
+        Gauge.builder("embedding.cache.entries", cacheFile, EmbeddingCacheFile::size).register(meterRegistry);
+        Gauge.builder("embedding.cache.offheap.bytes", cacheFile, EmbeddingCacheFile::usedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        int size = textSegments.size();
+        byte[][] keys = new byte[size][];
+        float[][] vectors = new float[size][];
+
+        int batches = (size + lookupBatchSize - 1) / lookupBatchSize;
+        IntStream range = IntStream.range(0, batches);
+        (batches > 1 ? range.parallel() : range).forEach(batch -> {
+            for (int i = batch * lookupBatchSize; i < Math.min(size, (batch + 1) * lookupBatchSize); i++) {
+                keys[i] = sha256(textSegments.get(i).text());
+                vectors[i] = cacheFile.get(keys[i]);
+            }
+        });
+
+        // 미스는 같은 텍스트끼리 묶어 한 번만 요청
+        Map<String, List<Integer>> missing = new LinkedHashMap<>();
+        List<TextSegment> requests = new ArrayList<>();
+        long hitBytes = 0;
+        for (int i = 0; i < size; i++) {
+            if (vectors[i] == null) {
+                List<Integer> positions = missing.computeIfAbsent(textSegments.get(i).text(), text -> new ArrayList<>());
+                positions.add(i);
+                if (positions.size() == 1) {
+                    requests.add(textSegments.get(i));
+                    continue;
+                }
+            }
+            hitBytes += textSegments.get(i).text().getBytes(StandardCharsets.UTF_8).length;
+        }
+        hits.increment(size - requests.size());
+        misses.increment(requests.size());
+        savedBytes.increment(hitBytes);
+
+        if (!requests.isEmpty()) {
+            List<Embedding> embedded = delegate.embedAll(requests).content();
+            int request = 0;
+            for (List<Integer> positions : missing.values()) {
+                float[] vector = embedded.get(request++).vector();
+                int first = positions.get(0);
+                store(keys[first], vector);
+                for (int position : positions) {
+                    vectors[position] = vector;
+                }
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(size);
+        for (float[] vector : vectors) {
+            embeddings.add(Embedding.from(vector));
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", cacheFile.file().toString());
+        result.put("entries", cacheFile.size());
+        result.put("offHeapBytes", cacheFile.usedBytes());
+        result.put("full", cacheFile.isFull());
+        result.put("readOnly", cacheFile.isReadOnly());
+        result.put("hits", (long) hits.count());
+        result.put("misses", (long) misses.count());
+        result.put("hitRatio", hitRatio());
+        result.put("savedBytes", (long) savedBytes.count());
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        cacheFile.close();
+    }
+
+    private void store(byte[] key, float[] vector) {
+        try {
+            if (!cacheFile.put(key, vector) && cacheFile.isFull() && fullLogged.compareAndSet(false, true)) {
+                log.warn("임베딩 캐시 파일이 최대 크기에 도달하여 새 항목을 저장하지 않습니다: {}", cacheFile.file());
+            }
+        } catch (IOException e) {
+            // 캐시 저장 실패는 임베딩 결과에 영향을 주지 않음
+            log.warn("임베딩 캐시 저장 실패: {}", e.getMessage());
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    static String fileName(String modelName, int dimension) {
+        return modelName.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + dimension + ".emb";
+    }
+
+    static byte[] sha256(String text) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
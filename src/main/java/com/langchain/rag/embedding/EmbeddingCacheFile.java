@@ -0,0 +1,357 @@
+package com.langchain.rag.embedding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * 임베딩 벡터를 담는 추가 전용 mmap 파일
+ * - [헤더 4KB] magic, 버전, 차원, 레코드 크기, 모델 이름
+ * - [레코드]   콘텐츠 해시(32B) + float[dimension] + CRC32C(4B), 고정 크기로 이어 붙임
+ * - 파일은 regionBytes 단위로 나누어 매핑하고 레코드는 영역 경계를 넘지 않음 (영역 하나가 2GB 제한을 넘지 않도록)
+ * - 벡터는 힙 밖(페이지 캐시)에 있고, 힙에는 해시 앞 8바이트 → 레코드 번호의 primitive 해시 테이블만 둠
+ * - 열 때 레코드를 앞에서부터 CRC 로 확인하여 색인을 다시 만들고, 처음 깨진 레코드(쓰다 죽은 꼬리)부터는 덮어씀
+ * - 쓰기는 파일 전체의 배타 잠금(tryLock)을 얻은 프로세스 하나만 함
+ *   잠금을 얻지 못하면(같은 디렉터리를 공유하는 다른 노드/프로세스) 열 때까지 기록된 레코드만 읽기 전용으로 매핑하고 put 은 항상 false
+ */
+final class EmbeddingCacheFile implements Closeable {
+
+    static final int KEY_BYTES = 32;
+    private static final long MAGIC = 0x3148434143424D45L; // "EMBCACH1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4096;
+    private static final int MAX_MODEL_NAME_BYTES = 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private final int dimension;
+    private final int recordBytes;
+    private final int recordsPerRegion;
+    private final long regionBytes;
+    private final long maxRecords;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 아래 필드는 lock 으로 보호
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private final List<FloatBuffer> regionFloats = new ArrayList<>();
+    private long[] tableKeys = new long[1024];
+    private int[] tableRecords = new int[1024];
+    private int count;
+
+    /**
+     * @param maxBytes 파일 최대 크기 (넘으면 더 이상 저장하지 않고 조회만 함)
+     */
+    EmbeddingCacheFile(Path file, String modelName, int dimension, long maxBytes, int regionBytes) throws IOException {
+        this.file = file;
+        this.dimension = dimension;
+        this.recordBytes = KEY_BYTES + dimension * Float.BYTES + Integer.BYTES;
+        this.recordsPerRegion = Math.max(1, regionBytes / recordBytes);
+        this.regionBytes = (long) recordsPerRegion * recordBytes;
+        this.maxRecords = Math.max(0, (maxBytes - HEADER_BYTES) / recordBytes);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel writable = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (tryLock(writable)) {
+            this.channel = writable;
+            this.readOnly = false;
+        } else {
+            writable.close();
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.readOnly = true;
+        }
+        try {
+            openHeader(modelName);
+            recover();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 해시로 벡터 조회
+     *
+     * @return 없으면 null
+     */
+    float[] get(byte[] key) {
+        lock.readLock().lock();
+        try {
+            int record = findLocked(key);
+            if (record < 0) {
+                return null;
+            }
+            float[] vector = new float[dimension];
+            regionFloats.get(record / recordsPerRegion)
+                    .get(floatIndex(record) + KEY_BYTES / Float.BYTES, vector, 0, dimension);
+            return vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 벡터 추가 (이미 있거나 파일이 가득 찼으면 false)
+     */
+    boolean put(byte[] key, float[] vector) throws IOException {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("임베딩 차원이 다릅니다: " + vector.length + " != " + dimension);
+        }
+        if (readOnly) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (count >= maxRecords || findLocked(key) >= 0) {
+                return false;
+            }
+            int record = count;
+            MappedByteBuffer region = regionLocked(record / recordsPerRegion);
+            int offset = (record % recordsPerRegion) * recordBytes;
+            // 벡터 → 해시 → CRC 순으로 기록하여, 중간에 죽으면 CRC 불일치로 꼬리가 버려지게 함
+            regionFloats.get(record / recordsPerRegion).put(floatIndex(record) + KEY_BYTES / Float.BYTES, vector);
+            region.put(offset, key);
+            region.putInt(offset + recordBytes - Integer.BYTES, checksum(region, offset));
+            insertLocked(prefix(key), record);
+            count++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isFull() {
+        return size() >= maxRecords;
+    }
+
+    /**
+     * 사용 중인 파일 바이트 (헤더 + 레코드)
+     */
+    long usedBytes() {
+        return HEADER_BYTES + (long) size() * recordBytes;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    /**
+     * 다른 프로세스가 쓰기 잠금을 가지고 있어 읽기 전용으로 열렸는지
+     */
+    boolean isReadOnly() {
+        return readOnly;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /**
+     * 페이지 캐시의 변경분을 디스크에 기록
+     */
+    void force() {
+        if (readOnly) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            regions.forEach(MappedByteBuffer::force);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        // 채널을 닫으면 배타 잠금도 풀림
+        channel.close();
+    }
+
+    private static boolean tryLock(FileChannel channel) throws IOException {
+        try {
+            FileLock fileLock = channel.tryLock();
+            return fileLock != null;
+        } catch (OverlappingFileLockException e) {
+            // 같은 JVM 의 다른 인스턴스가 잠금을 가지고 있음
+            return false;
+        }
+    }
+
+    private void openHeader(String modelName) throws IOException {
+        byte[] name = modelName.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_MODEL_NAME_BYTES) {
+            throw new IllegalArgumentException("모델 이름이 너무 깁니다: " + modelName);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (readOnly && channel.size() < HEADER_BYTES) {
+            // 쓰는 쪽이 아직 헤더를 기록하지 않은 새 파일: 빈 캐시로 사용
+            return;
+        }
+        if (channel.size() == 0) {
+            header.putLong(MAGIC).putInt(VERSION).putInt(dimension).putInt(recordBytes).putInt(name.length).put(name);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            return;
+        }
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("임베딩 캐시 헤더가 잘렸습니다: " + file);
+            }
+        }
+        int nameLength = header.getInt(20);
+        if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION || nameLength > MAX_MODEL_NAME_BYTES) {
+            throw new IOException("임베딩 캐시 파일 형식이 아닙니다: " + file);
+        }
+        byte[] stored = new byte[nameLength];
+        header.get(24, stored);
+        if (header.getInt(12) != dimension || header.getInt(16) != recordBytes || !Arrays.equals(stored, name)) {
+            throw new IOException("다른 모델의 임베딩 캐시입니다: " + file + " ("
+                    + new String(stored, StandardCharsets.UTF_8) + ", " + header.getInt(12) + "차원)");
+        }
+    }
+
+    /**
+     * 레코드를 앞에서부터 확인하여 해시 테이블 재구성
+     */
+    private void recover() throws IOException {
+        long available = (channel.size() - HEADER_BYTES) / recordBytes;
+        long limit = Math.min(available, maxRecords);
+        for (int record = 0; record < limit; record++) {
+            int regionIndex = record / recordsPerRegion;
+            MappedByteBuffer region = regionLocked(regionIndex);
+            int offset = (record % recordsPerRegion) * recordBytes;
+            if (region.getInt(offset + recordBytes - Integer.BYTES) != checksum(region, offset) || isEmptyKey(region, offset)) {
+                break;
+            }
+            byte[] key = new byte[KEY_BYTES];
+            region.get(offset, key);
+            insertLocked(prefix(key), record);
+            count++;
+        }
+    }
+
+    private MappedByteBuffer regionLocked(int index) throws IOException {
+        while (regions.size() <= index) {
+            long position = HEADER_BYTES + regions.size() * regionBytes;
+            // READ_WRITE 매핑은 필요하면 파일을 늘리고, 읽기 전용은 파일 끝을 넘어 매핑하지 않음
+            MappedByteBuffer region = readOnly
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionBytes, channel.size() - position))
+                    : channel.map(FileChannel.MapMode.READ_WRITE, position, regionBytes);
+            region.order(ByteOrder.LITTLE_ENDIAN);
+            regions.add(region);
+            regionFloats.add(region.asFloatBuffer());
+        }
+        return regions.get(index);
+    }
+
+    private int findLocked(byte[] key) {
+        long prefix = prefix(key);
+        int mask = tableKeys.length - 1;
+        for (int slot = mix(prefix) & mask; tableKeys[slot] != 0; slot = (slot + 1) & mask) {
+            if (tableKeys[slot] == prefix && keyEquals(tableRecords[slot], key)) {
+                return tableRecords[slot];
+            }
+        }
+        return -1;
+    }
+
+    private void insertLocked(long prefix, int record) {
+        if ((count + 1) * 2 > tableKeys.length) {
+            long[] oldKeys = tableKeys;
+            int[] oldRecords = tableRecords;
+            tableKeys = new long[oldKeys.length * 2];
+            tableRecords = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    place(oldKeys[i], oldRecords[i]);
+                }
+            }
+        }
+        place(prefix, record);
+    }
+
+    private void place(long prefix, int record) {
+        int mask = tableKeys.length - 1;
+        int slot = mix(prefix) & mask;
+        while (tableKeys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        tableKeys[slot] = prefix;
+        tableRecords[slot] = record;
+    }
+
+    private boolean keyEquals(int record, byte[] key) {
+        ByteBuffer region = regions.get(record / recordsPerRegion);
+        int offset = (record % recordsPerRegion) * recordBytes;
+        for (int i = 0; i < KEY_BYTES; i++) {
+            if (region.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int floatIndex(int record) {
+        return (record % recordsPerRegion) * (recordBytes / Float.BYTES);
+    }
+
+    private int checksum(ByteBuffer region, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(region.duplicate().position(offset).limit(offset + recordBytes - Integer.BYTES));
+        return (int) crc.getValue();
+    }
+
+    private static boolean isEmptyKey(ByteBuffer region, int offset) {
+        for (int i = 0; i < KEY_BYTES; i++) {
+            if (region.get(offset + i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 해시 앞 8바이트 (0 은 빈 슬롯 표시이므로 1 로 치환)
+     */
+    private static long prefix(byte[] key) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (key[i] & 0xFF);
+        }
+        return value == 0 ? 1 : value;
+    }
+
+    private static int mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+}
@@ -0,0 +1,91 @@
+package com.langchain.rag.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 외부 API 없이 동작하는 결정적(deterministic) 로컬 임베딩 모델
+ * - 문자 n-gram(2, 3) 과 단어를 feature hashing 으로 고정 차원 벡터에 누적 후 L2 정규화
+ * - 한국어처럼 띄어쓰기/조사 변화가 많은 텍스트에서도 문자 n-gram 으로 유사도를 잡음
+ * - 의미 이해는 없으므로 운영에서는 rag.embedding.provider=openai 사용 권장, 테스트/오프라인 개발용
+ */
+public class HashingEmbeddingModel implements EmbeddingModel {
+
+    private final int dimension;
+
+    public HashingEmbeddingModel(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("dimension 은 0보다 커야 합니다.");
+        }
+        this.dimension = dimension;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+        for (TextSegment segment : textSegments) {
+            embeddings.add(Embedding.from(embed(segment.text(), dimension)));
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * 텍스트를 정규화된 벡터로 변환
+     */
+    public static float[] embed(String text, int dimension) {
+        float[] vector = new float[dimension];
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        for (String word : normalized.split("[\\s\\p{Punct}]+")) {
+            if (!word.isEmpty()) {
+                accumulate(vector, "w:" + word, 1.0f);
+            }
+        }
+        String compact = normalized.replaceAll("\\s+", " ");
+        for (int n = 2; n <= 3; n++) {
+            for (int i = 0; i + n <= compact.length(); i++) {
+                accumulate(vector, compact.substring(i, i + n), 0.5f);
+            }
+        }
+
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private static void accumulate(float[] vector, String feature, float weight) {
+        int hash = mix(feature.hashCode());
+        int index = Math.floorMod(hash, vector.length);
+        // 부호 해시로 충돌에 의한 편향을 줄임
+        vector[index] += ((hash >>> 31) == 0) ? weight : -weight;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,25 @@
+package com.langchain.rag.exception;
+
+/**
+ * 동시 스트림 한도 초과로 채팅 요청이 거절되었을 때 발생
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    public enum Reason {
+        // 전체 대기열이 가득 참
+        QUEUE_FULL,
+        // 한 클라이언트의 대기 요청 수 한도 초과
+        CLIENT_LIMIT
+    }
+
+    private final Reason reason;
+
+    public AdmissionRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
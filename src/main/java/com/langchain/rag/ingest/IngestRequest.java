@@ -0,0 +1,29 @@
+package com.langchain.rag.ingest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 문서 적재 요청
+ *
+ * @param paths     적재 루트(rag.ingest.root-dir) 기준 파일/디렉터리 경로
+ * @param glob      디렉터리 안에서 적재할 파일 패턴 (루트 기준 상대 경로에 적용, 비어 있으면 기본값)
+ * @param prune     true 면 지정한 디렉터리 아래에서 더 이상 존재하지 않는 문서의 청크를 삭제
+ * @param documents 본문을 직접 전달하는 문서
+ */
+public record IngestRequest(List<String> paths, String glob, boolean prune, List<InlineDocument> documents) {
+
+    /**
+     * 본문 직접 전달 문서 (같은 id 로 다시 보내면 변경된 청크만 갱신)
+     */
+    public record InlineDocument(String id, String text, Map<String, String> metadata) {
+    }
+
+    public List<String> paths() {
+        return paths == null ? List.of() : paths;
+    }
+
+    public List<InlineDocument> documents() {
+        return documents == null ? List.of() : documents;
+    }
+}
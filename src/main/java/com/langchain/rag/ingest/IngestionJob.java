@@ -0,0 +1,129 @@
+package com.langchain.rag.ingest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 적재 작업 진행 상태
+ * - 단계별 처리 건수는 각 작업자 스레드가 갱신하고 상태 조회 시 스냅샷으로 읽음
+ */
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final IngestRequest request;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long startedAtNanos;
+    private volatile long finishedAtNanos;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    final LongAdder documentsDiscovered = new LongAdder();
+    final LongAdder documentsParsed = new LongAdder();
+    final LongAdder documentsUnchanged = new LongAdder();
+    final LongAdder documentsRemoved = new LongAdder();
+    final LongAdder documentsFailed = new LongAdder();
+    final LongAdder chunksSplit = new LongAdder();
+    final LongAdder chunksUnchanged = new LongAdder();
+    final LongAdder chunksEmbedded = new LongAdder();
+    final LongAdder chunksIndexed = new LongAdder();
+    final LongAdder chunksRemoved = new LongAdder();
+    final LongAdder embeddingBatches = new LongAdder();
+    final LongAdder chunksFailed = new LongAdder();
+
+    IngestionJob(String id, IngestRequest request) {
+        this.id = id;
+        this.request = request;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    IngestRequest request() {
+        return request;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    void started() {
+        startedAt = System.currentTimeMillis();
+        startedAtNanos = System.nanoTime();
+        status = Status.RUNNING;
+    }
+
+    void finished(Status finalStatus, String errorMessage) {
+        finishedAt = System.currentTimeMillis();
+        finishedAtNanos = System.nanoTime();
+        error = errorMessage;
+        status = finalStatus;
+    }
+
+    /**
+     * 취소 요청 (대기 중이면 실행되지 않고, 실행 중이면 남은 항목을 버리고 종료)
+     */
+    void cancel() {
+        cancelRequested = true;
+    }
+
+    /**
+     * 진행 상태와 처리량 (문서/초, 청크/초)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobId", id);
+        result.put("status", status);
+        result.put("createdAt", createdAt);
+        result.put("startedAt", startedAt);
+        result.put("finishedAt", finishedAt);
+        if (error != null) {
+            result.put("error", error);
+        }
+
+        Map<String, Object> documents = new LinkedHashMap<>();
+        documents.put("discovered", documentsDiscovered.sum());
+        documents.put("parsed", documentsParsed.sum());
+        documents.put("unchanged", documentsUnchanged.sum());
+        documents.put("removed", documentsRemoved.sum());
+        documents.put("failed", documentsFailed.sum());
+        result.put("documents", documents);
+
+        Map<String, Object> chunks = new LinkedHashMap<>();
+        chunks.put("split", chunksSplit.sum());
+        chunks.put("unchanged", chunksUnchanged.sum());
+        chunks.put("embedded", chunksEmbedded.sum());
+        chunks.put("indexed", chunksIndexed.sum());
+        chunks.put("removed", chunksRemoved.sum());
+        chunks.put("failed", chunksFailed.sum());
+        chunks.put("embeddingBatches", embeddingBatches.sum());
+        result.put("chunks", chunks);
+
+        double elapsedSeconds = elapsedSeconds();
+        result.put("elapsedSeconds", elapsedSeconds);
+        result.put("documentsPerSecond", elapsedSeconds > 0 ? documentsParsed.sum() / elapsedSeconds : 0.0);
+        result.put("chunksPerSecond", elapsedSeconds > 0 ? chunksIndexed.sum() / elapsedSeconds : 0.0);
+        return result;
+    }
+
+    private double elapsedSeconds() {
+        if (startedAtNanos == 0) {
+            return 0;
+        }
+        long end = finishedAtNanos != 0 ? finishedAtNanos : System.nanoTime();
+        return (end - startedAtNanos) / 1_000_000_000.0;
+    }
+}
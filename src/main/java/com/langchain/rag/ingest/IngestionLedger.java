@@ -0,0 +1,98 @@
+package com.langchain.rag.ingest;
+
+import com.langchain.rag.retrieval.VectorStore;
+import dev.langchain4j.data.document.Metadata;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 적재된 문서별 내용 해시와 청크 ID 기록
+ * - 다시 적재할 때 문서 해시가 같고 청크가 모두 저장소에 남아 있으면 문서 전체를 건너뜀
+ * - 문서가 바뀌면 새 청크 ID 와 비교하여 사라진 청크만 저장소에서 삭제
+ * - 기록 자체는 메모리에만 두고, 시작 시 저장소에 남은 청크 메타데이터로 복원 (rebuild)
+ */
+public class IngestionLedger {
+
+    // 청크 메타데이터 키 (IngestionPipeline 이 기록)
+    static final String DOCUMENT_ID = "document_id";
+    static final String CONTENT_HASH = "content_hash";
+    static final String CHUNK_COUNT = "chunk_count";
+
+    /**
+     * 문서 기록
+     *
+     * @param contentHash 문서 본문 SHA-256
+     * @param chunkIds    문서를 구성하는 청크 ID (= 문서 ID + 청크 본문의 SHA-256)
+     */
+    public record DocumentRecord(String contentHash, Set<String> chunkIds) {
+    }
+
+    private final ConcurrentHashMap<String, DocumentRecord> documents = new ConcurrentHashMap<>();
+
+    public DocumentRecord get(String documentId) {
+        return documents.get(documentId);
+    }
+
+    public void put(String documentId, DocumentRecord record) {
+        documents.put(documentId, record);
+    }
+
+    public DocumentRecord remove(String documentId) {
+        return documents.remove(documentId);
+    }
+
+    /**
+     * 조건에 맞는 문서 ID 목록 (스냅샷)
+     */
+    public Set<String> documentIds(Predicate<String> filter) {
+        Set<String> result = ConcurrentHashMap.newKeySet();
+        documents.keySet().stream().filter(filter).forEach(result::add);
+        return result;
+    }
+
+    /**
+     * 저장소에 남아 있는 청크의 메타데이터(document_id, content_hash, chunk_count)로 기록 복원
+     * - 청크가 일부 빠졌거나 해시가 없는(이전 버전에서 적재한) 문서는 해시를 비워 두어 다음 적재 때 다시 분할
+     *   (바뀌지 않은 청크는 저장소에 있으므로 임베딩하지 않음)
+     *
+     * @return 복원한 문서 수
+     */
+    public int rebuild(VectorStore store) {
+        Map<String, Set<String>> chunks = new HashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        Map<String, Integer> expected = new HashMap<>();
+        store.forEach((id, segment) -> {
+            Metadata metadata = segment != null ? segment.metadata() : null;
+            String documentId = metadata != null ? metadata.getString(DOCUMENT_ID) : null;
+            if (documentId == null) {
+                return;
+            }
+            chunks.computeIfAbsent(documentId, key -> new HashSet<>()).add(id);
+            // 한 문서에 서로 다른 해시가 섞여 있으면 비교가 항상 실패하도록 빈 값
+            // (적재는 바뀌지 않은 청크의 메타데이터도 새 해시로 다시 쓰므로, 섞였다면 교체 도중 중단된 것)
+            hashes.merge(documentId, Objects.requireNonNullElse(metadata.getString(CONTENT_HASH), ""),
+                    (a, b) -> a.equals(b) ? a : "");
+            Integer count = metadata.getInteger(CHUNK_COUNT);
+            expected.put(documentId, count != null ? count : -1);
+        });
+        chunks.forEach((documentId, ids) -> {
+            String hash = ids.size() == expected.get(documentId) ? hashes.get(documentId) : "";
+            documents.put(documentId, new DocumentRecord(hash, Set.copyOf(ids)));
+        });
+        return chunks.size();
+    }
+
+    public int documentCount() {
+        return documents.size();
+    }
+
+    public long chunkCount() {
+        return documents.values().stream().mapToLong(record -> record.chunkIds().size()).sum();
+    }
+}
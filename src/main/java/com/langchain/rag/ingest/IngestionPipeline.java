@@ -0,0 +1,425 @@
+package com.langchain.rag.ingest;
+
+import com.langchain.rag.retrieval.VectorStore;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentParser;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.document.parser.TextDocumentParser;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 적재 작업 1건의 parse → split → embed → index 파이프라인
+ * - 단계 사이는 크기가 제한된 큐로 연결되어, 뒷단이 느리면 앞단이 put 에서 대기 (메모리 사용량 상한)
+ * - 단계마다 작업자 수를 따로 지정, index 단계는 HNSW 추가가 어차피 직렬화되므로 1개
+ * - 큐 종료는 END 표식으로 전달: 작업자는 END 를 받으면 형제 작업자를 위해 다시 넣고 종료하며,
+ *   마지막으로 종료한 작업자가 다음 단계 큐에 END 를 넣음
+ * - 문서 하나의 실패는 건수만 기록하고 작업 전체는 계속 진행
+ * - 취소되면 원본 탐색을 멈추고 각 단계는 남은 항목을 처리하지 않고 비워서 END 까지 정상 종료
+ */
+final class IngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    private static final Object END = new Object();
+    private static final String INLINE_PREFIX = "inline:";
+    private static final DocumentParser PARSER = new TextDocumentParser();
+
+    /**
+     * 파이프라인 설정
+     */
+    record Settings(int parseThreads, int splitThreads, int embedThreads, int queueCapacity,
+                    int embedBatchSize, Duration embedBatchLinger, int chunkSize, int chunkOverlap) {
+    }
+
+    private record Source(String documentId, Path path, Document document) {
+    }
+
+    private record Parsed(String documentId, Document document) {
+    }
+
+    private record Chunk(String id, TextSegment segment) {
+    }
+
+    private record EmbeddedBatch(List<Chunk> chunks, List<Embedding> embeddings) {
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(Object item, BlockingQueue<Object> output) throws InterruptedException;
+    }
+
+    private final IngestionJob job;
+    private final Settings settings;
+    private final Path root;
+    private final PathMatcher matcher;
+    private final IngestionLedger ledger;
+    private final VectorStore store;
+    private final EmbeddingModel embeddingModel;
+
+    IngestionPipeline(IngestionJob job, Settings settings, Path root, String glob,
+                      IngestionLedger ledger, VectorStore store, EmbeddingModel embeddingModel) {
+        this.job = job;
+        this.settings = settings;
+        this.root = root;
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        this.ledger = ledger;
+        this.store = store;
+        this.embeddingModel = embeddingModel;
+    }
+
+    /**
+     * 적재 루트 기준 경로를 검증하여 절대 경로로 변환 (루트 밖으로 벗어나는 경로는 거부)
+     */
+    static Path resolve(Path root, String path) {
+        Path resolved = root.resolve(path).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("적재 루트 밖의 경로는 사용할 수 없습니다: " + path);
+        }
+        if (!Files.exists(resolved)) {
+            throw new IllegalArgumentException("경로를 찾을 수 없습니다: " + path);
+        }
+        return resolved;
+    }
+
+    void run() throws InterruptedException {
+        BlockingQueue<Object> parseQueue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        BlockingQueue<Object> splitQueue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        BlockingQueue<Object> embedQueue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        BlockingQueue<Object> indexQueue = new ArrayBlockingQueue<>(settings.queueCapacity());
+
+        List<Thread> threads = new ArrayList<>();
+        startStage("parse", settings.parseThreads(), parseQueue, splitQueue, this::parse, threads);
+        startStage("split", settings.splitThreads(), splitQueue, embedQueue, this::split, threads);
+        AtomicInteger embedRemaining = new AtomicInteger(settings.embedThreads());
+        for (int i = 0; i < settings.embedThreads(); i++) {
+            threads.add(startWorker("embed", i, () -> embedLoop(embedQueue, indexQueue, embedRemaining)));
+        }
+        startStage("index", 1, indexQueue, null, this::index, threads);
+
+        Set<String> seen = new HashSet<>();
+        List<String> prunePrefixes = new ArrayList<>();
+        try {
+            discover(parseQueue, seen, prunePrefixes);
+        } finally {
+            parseQueue.put(END);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        if (job.request().prune() && !job.isCancelRequested()) {
+            prune(seen, prunePrefixes);
+        }
+    }
+
+    /**
+     * 요청의 파일/디렉터리와 본문 문서를 parse 큐에 넣음 (큐가 가득 차면 대기)
+     */
+    private void discover(BlockingQueue<Object> output, Set<String> seen, List<String> prunePrefixes)
+            throws InterruptedException {
+        for (String path : job.request().paths()) {
+            Path target = resolve(root, path);
+            if (Files.isDirectory(target)) {
+                String prefix = documentId(target);
+                prunePrefixes.add(prefix.isEmpty() ? "" : prefix + "/");
+                try (Stream<Path> files = Files.walk(target)) {
+                    Iterator<Path> it = files.iterator();
+                    while (it.hasNext() && !job.isCancelRequested()) {
+                        Path file = it.next();
+                        if (Files.isRegularFile(file) && matcher.matches(root.relativize(file))) {
+                            submit(output, seen, new Source(documentId(file), file, null));
+                        }
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    throw new IllegalStateException("디렉터리를 읽을 수 없습니다: " + path, e);
+                }
+            } else {
+                submit(output, seen, new Source(documentId(target), target, null));
+            }
+        }
+        for (IngestRequest.InlineDocument inline : job.request().documents()) {
+            if (inline.id() == null || inline.id().isBlank()
+                    || inline.text() == null || inline.text().isBlank()) {
+                job.documentsFailed.increment();
+                continue;
+            }
+            Metadata metadata = inline.metadata() == null ? new Metadata() : Metadata.from(inline.metadata());
+            submit(output, seen, new Source(INLINE_PREFIX + inline.id(), null, Document.from(inline.text(), metadata)));
+        }
+    }
+
+    private void submit(BlockingQueue<Object> output, Set<String> seen, Source source) throws InterruptedException {
+        if (seen.add(source.documentId())) {
+            job.documentsDiscovered.increment();
+            output.put(source);
+        }
+    }
+
+    private void parse(Object item, BlockingQueue<Object> output) throws InterruptedException {
+        Source source = (Source) item;
+        Document document;
+        try {
+            document = source.path() != null
+                    ? FileSystemDocumentLoader.loadDocument(source.path(), PARSER)
+                    : source.document();
+        } catch (RuntimeException e) {
+            // 빈 파일 등 파싱할 수 없는 문서는 건너뜀
+            log.warn("문서 파싱 실패 ({}): {}", source.documentId(), e.getMessage());
+            job.documentsFailed.increment();
+            return;
+        }
+        document.metadata().put(IngestionLedger.DOCUMENT_ID, source.documentId());
+        job.documentsParsed.increment();
+        output.put(new Parsed(source.documentId(), document));
+    }
+
+    /**
+     * 청크 분할과 중복 제거
+     * - 문서 해시가 같고 기존 청크가 모두 남아 있으면 문서 전체를 건너뜀
+     * - 청크 ID 는 문서 ID + 청크 본문의 해시이므로, 바뀌지 않은 청크는 이미 저장소에 있어 임베딩하지 않음
+     * - 바뀌지 않은 청크도 저장된 벡터로 다시 저장하여 content_hash/chunk_count 를 새 문서 기준으로 갱신
+     *   (이전 값이 남으면 재시작 후 rebuild 가 수정된 문서를 불완전한 것으로 보고 다시 분할함)
+     * - 이전 적재에는 있었지만 이번에 사라진 청크는 저장소에서 삭제
+     */
+    private void split(Object item, BlockingQueue<Object> output) throws InterruptedException {
+        Parsed parsed = (Parsed) item;
+        String contentHash = sha256(parsed.document().text());
+        IngestionLedger.DocumentRecord previous = ledger.get(parsed.documentId());
+        if (previous != null && previous.contentHash().equals(contentHash)
+                && previous.chunkIds().stream().allMatch(store::contains)) {
+            job.documentsUnchanged.increment();
+            job.chunksUnchanged.add(previous.chunkIds().size());
+            return;
+        }
+
+        Map<String, TextSegment> chunks = new LinkedHashMap<>();
+        for (TextSegment segment : DocumentSplitters.recursive(settings.chunkSize(), settings.chunkOverlap())
+                .split(parsed.document())) {
+            chunks.putIfAbsent(sha256(parsed.documentId() + "\n" + segment.text()), segment);
+        }
+        job.chunksSplit.add(chunks.size());
+        // 재시작 후 IngestionLedger.rebuild 가 문서 기록을 복원할 수 있도록 청크에 남김
+        for (TextSegment segment : chunks.values()) {
+            segment.metadata().put(IngestionLedger.CONTENT_HASH, contentHash)
+                    .put(IngestionLedger.CHUNK_COUNT, chunks.size());
+        }
+
+        if (previous != null) {
+            List<String> removed = previous.chunkIds().stream()
+                    .filter(id -> !chunks.containsKey(id))
+                    .toList();
+            if (!removed.isEmpty()) {
+                store.removeAll(removed);
+                job.chunksRemoved.add(removed.size());
+            }
+        }
+        ledger.put(parsed.documentId(), new IngestionLedger.DocumentRecord(contentHash, Set.copyOf(chunks.keySet())));
+
+        List<String> relabelIds = new ArrayList<>();
+        List<Embedding> relabelEmbeddings = new ArrayList<>();
+        List<TextSegment> relabelSegments = new ArrayList<>();
+        for (Map.Entry<String, TextSegment> chunk : chunks.entrySet()) {
+            TextSegment stored = store.segment(chunk.getKey());
+            if (stored == null) {
+                output.put(new Chunk(chunk.getKey(), chunk.getValue()));
+                continue;
+            }
+            job.chunksUnchanged.increment();
+            if (!stored.metadata().equals(chunk.getValue().metadata())) {
+                Embedding embedding = store.embedding(chunk.getKey());
+                if (embedding != null) {
+                    relabelIds.add(chunk.getKey());
+                    relabelEmbeddings.add(embedding);
+                    relabelSegments.add(chunk.getValue());
+                }
+            }
+        }
+        if (!relabelIds.isEmpty()) {
+            store.addAll(relabelIds, relabelEmbeddings, relabelSegments);
+        }
+    }
+
+    /**
+     * 임베딩 단계: 청크를 최대 embedBatchSize 개까지 모아 한 번에 호출
+     * - 첫 청크를 받은 뒤 embedBatchLinger 동안 더 기다려 배치를 채우고, 시간이 지나면 모인 만큼 처리
+     */
+    private void embedLoop(BlockingQueue<Object> input, BlockingQueue<Object> output, AtomicInteger remaining) {
+        List<Chunk> batch = new ArrayList<>(settings.embedBatchSize());
+        long lingerNanos = settings.embedBatchLinger().toNanos();
+        boolean ended = false;
+        try {
+            while (!ended) {
+                Object first = input.take();
+                if (first == END) {
+                    input.put(END);
+                    break;
+                }
+                batch.add((Chunk) first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < settings.embedBatchSize()) {
+                    long wait = deadline - System.nanoTime();
+                    Object next = wait > 0 ? input.poll(wait, TimeUnit.NANOSECONDS) : input.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == END) {
+                        input.put(END);
+                        ended = true;
+                        break;
+                    }
+                    batch.add((Chunk) next);
+                }
+                if (!job.isCancelRequested()) {
+                    embedBatch(batch, output);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finishWorker(output, remaining);
+        }
+    }
+
+    private void embedBatch(List<Chunk> batch, BlockingQueue<Object> output) throws InterruptedException {
+        List<Embedding> embeddings;
+        try {
+            embeddings = embeddingModel.embedAll(batch.stream().map(Chunk::segment).toList()).content();
+        } catch (RuntimeException e) {
+            // 저장소에 들어가지 않은 청크는 다음 적재 때 다시 처리됨
+            log.warn("임베딩 실패 ({}개 청크): {}", batch.size(), e.getMessage());
+            job.chunksFailed.add(batch.size());
+            return;
+        }
+        job.embeddingBatches.increment();
+        job.chunksEmbedded.add(batch.size());
+        output.put(new EmbeddedBatch(List.copyOf(batch), embeddings));
+    }
+
+    private void index(Object item, BlockingQueue<Object> output) {
+        EmbeddedBatch batch = (EmbeddedBatch) item;
+        try {
+            store.addAll(
+                    batch.chunks().stream().map(Chunk::id).toList(),
+                    batch.embeddings(),
+                    batch.chunks().stream().map(Chunk::segment).toList());
+        } catch (RuntimeException e) {
+            log.warn("인덱스 추가 실패 ({}개 청크): {}", batch.chunks().size(), e.getMessage());
+            job.chunksFailed.add(batch.chunks().size());
+            return;
+        }
+        job.chunksIndexed.add(batch.chunks().size());
+    }
+
+    /**
+     * 지정한 디렉터리 아래에서 이번 적재에 나타나지 않은 문서를 삭제
+     */
+    private void prune(Set<String> seen, List<String> prefixes) {
+        Set<String> stale = ledger.documentIds(id -> !id.startsWith(INLINE_PREFIX)
+                && !seen.contains(id)
+                && prefixes.stream().anyMatch(id::startsWith));
+        for (String documentId : stale) {
+            IngestionLedger.DocumentRecord record = ledger.remove(documentId);
+            if (record != null) {
+                store.removeAll(record.chunkIds());
+                job.chunksRemoved.add(record.chunkIds().size());
+                job.documentsRemoved.increment();
+            }
+        }
+    }
+
+    private void startStage(String name, int workers, BlockingQueue<Object> input, BlockingQueue<Object> output,
+                            Handler handler, List<Thread> threads) {
+        AtomicInteger remaining = new AtomicInteger(workers);
+        for (int i = 0; i < workers; i++) {
+            threads.add(startWorker(name, i, () -> stageLoop(input, output, remaining, handler)));
+        }
+    }
+
+    private void stageLoop(BlockingQueue<Object> input, BlockingQueue<Object> output,
+                           AtomicInteger remaining, Handler handler) {
+        try {
+            while (true) {
+                Object item = input.take();
+                if (item == END) {
+                    input.put(END);
+                    break;
+                }
+                if (job.isCancelRequested()) {
+                    continue;
+                }
+                try {
+                    handler.handle(item, output);
+                } catch (RuntimeException e) {
+                    log.warn("적재 단계 처리 실패: {}", e.getMessage(), e);
+                    job.documentsFailed.increment();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finishWorker(output, remaining);
+        }
+    }
+
+    private void finishWorker(BlockingQueue<Object> output, AtomicInteger remaining) {
+        if (remaining.decrementAndGet() == 0 && output != null) {
+            try {
+                output.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Thread startWorker(String stage, int index, Runnable body) {
+        Thread thread = new Thread(body, "ingest-" + job.id() + "-" + stage + "-" + index);
+        thread.setDaemon(true);
+        // 채팅 경로보다 낮은 우선순위
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        thread.start();
+        return thread;
+    }
+
+    private String documentId(Path path) {
+        return root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
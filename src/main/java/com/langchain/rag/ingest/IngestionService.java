@@ -0,0 +1,174 @@
+package com.langchain.rag.ingest;
+
+import com.langchain.rag.retrieval.VectorStore;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 문서 적재 작업 관리
+ * - 작업은 전용 스레드에서 한 번에 하나씩 실행 (같은 문서를 두 작업이 동시에 갱신하지 않도록)
+ * - 작업 안에서는 IngestionPipeline 의 단계별 작업자가 병렬로 처리
+ * - 최근 작업 상태를 rag.ingest.retained-jobs 개까지 보관
+ */
+@Service
+public class IngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
+
+    private final VectorStore embeddingStore;
+    private final EmbeddingModel embeddingModel;
+    private final IngestionLedger ledger = new IngestionLedger();
+    private final Path root;
+    private final String defaultGlob;
+    private final IngestionPipeline.Settings settings;
+    private final int retainedJobs;
+
+    // 생성 순서대로 보관 (this 잠금으로 보호)
+    private final LinkedHashMap<String, IngestionJob> jobs = new LinkedHashMap<>();
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ingest-job-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IngestionService(
+            VectorStore embeddingStore,
+            EmbeddingModel embeddingModel,
+            @Value("${rag.ingest.root-dir:./data/corpus}") String rootDir,
+            @Value("${rag.ingest.glob:**.{txt,md}}") String defaultGlob,
+            @Value("${rag.ingest.parse-threads:2}") int parseThreads,
+            @Value("${rag.ingest.split-threads:2}") int splitThreads,
+            @Value("${rag.ingest.embed-threads:2}") int embedThreads,
+            @Value("${rag.ingest.queue-capacity:256}") int queueCapacity,
+            @Value("${rag.ingest.embed-batch-size:64}") int embedBatchSize,
+            @Value("${rag.ingest.embed-batch-linger:20ms}") Duration embedBatchLinger,
+            @Value("${rag.ingest.chunk-size:800}") int chunkSize,
+            @Value("${rag.ingest.chunk-overlap:100}") int chunkOverlap,
+            @Value("${rag.ingest.retained-jobs:50}") int retainedJobs) {
+        this.embeddingStore = embeddingStore;
+        this.embeddingModel = embeddingModel;
+        this.root = Path.of(rootDir).toAbsolutePath().normalize();
+        this.defaultGlob = defaultGlob;
+        this.settings = new IngestionPipeline.Settings(parseThreads, splitThreads, embedThreads, queueCapacity,
+                embedBatchSize, embedBatchLinger, chunkSize, chunkOverlap);
+        this.retainedJobs = retainedJobs;
+        // 영속 저장소(disk)는 재시작 후에도 청크가 남아 있으므로 문서 기록을 복원하여 중복 임베딩을 피함
+        int restored = ledger.rebuild(embeddingStore);
+        if (restored > 0) {
+            log.info("적재 기록 복원: {} 문서", restored);
+        }
+    }
+
+    /**
+     * 적재 작업 등록 (경로는 즉시 검증하고, 처리는 비동기로 진행)
+     */
+    public IngestionJob submit(IngestRequest request) {
+        if (request.paths().isEmpty() && request.documents().isEmpty()) {
+            throw new IllegalArgumentException("paths 또는 documents 중 하나는 있어야 합니다.");
+        }
+        request.paths().forEach(path -> IngestionPipeline.resolve(root, path));
+
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString().substring(0, 8), request);
+        String glob = request.glob() == null || request.glob().isBlank() ? defaultGlob : request.glob();
+        synchronized (this) {
+            jobs.put(job.id(), job);
+            trimLocked();
+        }
+        runner.execute(() -> run(job, new IngestionPipeline(job, settings, root, glob, ledger, embeddingStore, embeddingModel)));
+        return job;
+    }
+
+    public synchronized IngestionJob job(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 최근 작업 상태 (최신순)
+     */
+    public List<Map<String, Object>> recentJobs() {
+        List<IngestionJob> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(jobs.values());
+        }
+        Collections.reverse(snapshot);
+        return snapshot.stream().map(IngestionJob::snapshot).toList();
+    }
+
+    public boolean cancel(String jobId) {
+        IngestionJob job = job(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rootDir", root.toString());
+        result.put("documents", ledger.documentCount());
+        result.put("chunks", ledger.chunkCount());
+        result.put("store", embeddingStore.stats());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            jobs.values().forEach(IngestionJob::cancel);
+        }
+        runner.shutdownNow();
+    }
+
+    private void run(IngestionJob job, IngestionPipeline pipeline) {
+        if (job.isCancelRequested()) {
+            job.finished(IngestionJob.Status.CANCELLED, null);
+            return;
+        }
+        job.started();
+        log.info("적재 작업 시작: {}", job.id());
+        try {
+            pipeline.run();
+            // 디스크 저장소면 적재 결과를 세그먼트로 기록 (인메모리 저장소는 아무 일도 하지 않음)
+            embeddingStore.flush();
+            job.finished(job.isCancelRequested() ? IngestionJob.Status.CANCELLED : IngestionJob.Status.COMPLETED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finished(IngestionJob.Status.CANCELLED, null);
+        } catch (RuntimeException e) {
+            log.error("적재 작업 실패: {}", job.id(), e);
+            job.finished(IngestionJob.Status.FAILED, e.getMessage());
+        }
+        log.info("적재 작업 종료: {}", job.snapshot());
+    }
+
+    /**
+     * 보관 개수를 넘으면 끝난 작업부터 오래된 순으로 제거
+     */
+    private void trimLocked() {
+        Iterator<IngestionJob> it = jobs.values().iterator();
+        while (jobs.size() > retainedJobs && it.hasNext()) {
+            IngestionJob.Status status = it.next().status();
+            if (status != IngestionJob.Status.QUEUED && status != IngestionJob.Status.RUNNING) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.langchain.rag.memory;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * 세션 메모리 영속화 엔티티 (세션당 1행, 메시지 목록은 JSON 으로 저장)
+ */
+@Entity
+@Table(name = "chat_memory")
+public class ChatMemoryEntity implements Persistable<String> {
+
+    @Id
+    @Column(name = "memory_id", length = 255)
+    private String memoryId;
+
+    @Lob
+    @Column(name = "messages_json", nullable = false)
+    private String messagesJson;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // 새 엔티티는 merge 의 행 단위 SELECT 없이 바로 INSERT 되도록 표시 (기존 행 여부는 배치마다 IN 조회 한 번으로 확인)
+    @Transient
+    private boolean isNew = true;
+
+    protected ChatMemoryEntity() {
+    }
+
+    public ChatMemoryEntity(String memoryId) {
+        this.memoryId = memoryId;
+    }
+
+    @Override
+    public String getId() {
+        return memoryId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public String getMemoryId() { return memoryId; }
+
+    public String getMessagesJson() { return messagesJson; }
+    public void setMessagesJson(String messagesJson) { this.messagesJson = messagesJson; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,62 @@
+package com.langchain.rag.memory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+
+import java.util.List;
+
+/**
+ * 세션 하나 = NDJSON 한 줄 형식 (export/import, 스냅샷 파일 공통)
+ * 예: {"memoryId":"abc","messages":[...LangChain4j ChatMessageSerializer 형식...]}
+ */
+public final class ChatMemoryNdjson {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 파싱된 한 줄
+     */
+    public record Entry(String memoryId, List<ChatMessage> messages) {
+    }
+
+    private ChatMemoryNdjson() {
+    }
+
+    /**
+     * 한 줄 생성 (줄바꿈 제외), 메시지 배열은 트리로 만들지 않고 그대로 이어 붙임
+     */
+    public static String line(String memoryId, List<ChatMessage> messages) {
+        try {
+            return "{\"memoryId\":" + MAPPER.writeValueAsString(memoryId)
+                    + ",\"messages\":" + ChatMessageSerializer.messagesToJson(messages) + "}";
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * 한 줄 파싱 (형식이 맞지 않으면 IllegalArgumentException)
+     */
+    public static Entry parse(String line) {
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON 형식이 아닙니다: " + e.getOriginalMessage(), e);
+        }
+        String memoryId = node.path("memoryId").asText("");
+        JsonNode messages = node.get("messages");
+        if (memoryId.isEmpty() || messages == null || !messages.isArray()) {
+            throw new IllegalArgumentException("memoryId 와 messages 배열이 필요합니다.");
+        }
+        try {
+            return new Entry(memoryId, ChatMessageDeserializer.messagesFromJson(messages.toString()));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("메시지 형식이 올바르지 않습니다 [" + memoryId + "]: " + e.getMessage(), e);
+        }
+    }
+}
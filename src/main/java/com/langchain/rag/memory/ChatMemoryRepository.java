@@ -0,0 +1,6 @@
+package com.langchain.rag.memory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ChatMemoryRepository extends JpaRepository<ChatMemoryEntity, String> {
+}
@@ -0,0 +1,55 @@
+package com.langchain.rag.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.List;
+
+/**
+ * ChatMessage 텍스트 추출 및 힙 사용량 추정 유틸리티
+ */
+public final class ChatMessageSizes {
+
+    // 메시지 객체 헤더, 필드, 리스트 슬롯 등 고정 오버헤드 (대략치)
+    private static final int MESSAGE_OVERHEAD_BYTES = 64;
+
+    private ChatMessageSizes() {
+    }
+
+    /**
+     * 메시지의 텍스트 내용 추출
+     */
+    public static String text(ChatMessage message) {
+        if (message instanceof UserMessage userMessage) {
+            return userMessage.hasSingleText() ? userMessage.singleText() : userMessage.toString();
+        } else if (message instanceof AiMessage aiMessage) {
+            return aiMessage.text() != null ? aiMessage.text() : "";
+        } else if (message instanceof SystemMessage systemMessage) {
+            return systemMessage.text();
+        } else if (message instanceof ToolExecutionResultMessage toolMessage) {
+            return toolMessage.text();
+        }
+        return message.toString();
+    }
+
+    /**
+     * 단일 메시지의 추정 바이트 수 (UTF-16 문자열 기준)
+     */
+    public static long estimateBytes(ChatMessage message) {
+        return MESSAGE_OVERHEAD_BYTES + 2L * text(message).length();
+    }
+
+    /**
+     * 메시지 목록의 추정 바이트 수
+     */
+    public static long estimateBytes(List<ChatMessage> messages) {
+        long total = 0;
+        for (ChatMessage message : messages) {
+            total += estimateBytes(message);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,15 @@
+package com.langchain.rag.memory;
+
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+/**
+ * 로컬 캐시를 가진 ChatMemoryStore
+ * - 세션 메모리가 축출되면 해당 세션의 로컬 캐시도 함께 비운다 (영속 데이터는 유지)
+ */
+public interface EvictableChatMemoryStore extends ChatMemoryStore {
+
+    /**
+     * 로컬 캐시에서 세션 제거
+     */
+    void evict(String memoryId);
+}
@@ -0,0 +1,179 @@
+package com.langchain.rag.memory;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 토큰 예산 메모리 생성 및 백그라운드 요약(compaction) 실행기
+ * - 요약은 사용자 요청 스레드가 아닌 전용 실행기에서 수행
+ * - 요약 전/후 프롬프트 토큰 수를 Micrometer 지표로 기록
+ */
+@Component
+@ConditionalOnProperty(name = "rag.memory.mode", havingValue = "token-budget")
+public class MemoryCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryCompactor.class);
+
+    private final ChatModel chatModel;
+    private final TokenCountEstimator estimator;
+    private final int tokenBudget;
+    private final int hardLimit;
+    private final double targetRatio;
+    private final ThreadPoolExecutor executor;
+
+    private final DistributionSummary tokensBefore;
+    private final DistributionSummary tokensAfter;
+    private final Timer duration;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter rejected;
+    private final Counter discarded;
+
+    public MemoryCompactor(
+            ChatModel chatModel,
+            MeterRegistry meterRegistry,
+            @Value("${langchain4j.open-ai.chat-model.model-name:gpt-4o}") String modelName,
+            @Value("${rag.memory.token-budget:2000}") int tokenBudget,
+            @Value("${rag.memory.token-hard-limit:4000}") int hardLimit,
+            @Value("${rag.memory.compaction.target-ratio:0.5}") double targetRatio,
+            @Value("${rag.memory.compaction.threads:2}") int threads,
+            @Value("${rag.memory.compaction.queue-size:1000}") int queueSize) {
+        this.chatModel = chatModel;
+        this.estimator = new OpenAiTokenCountEstimator(modelName);
+        this.tokenBudget = tokenBudget;
+        this.hardLimit = hardLimit;
+        this.targetRatio = targetRatio;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread thread = new Thread(r, "memory-compactor-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.tokensBefore = DistributionSummary.builder("chat.memory.compaction.tokens.before")
+                .description("요약 전 프롬프트 추정 토큰 수")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.tokensAfter = DistributionSummary.builder("chat.memory.compaction.tokens.after")
+                .description("요약 후 프롬프트 추정 토큰 수")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.duration = Timer.builder("chat.memory.compaction.duration")
+                .description("요약 소요 시간")
+                .register(meterRegistry);
+        this.succeeded = Counter.builder("chat.memory.compactions").tag("result", "success").register(meterRegistry);
+        this.failed = Counter.builder("chat.memory.compactions").tag("result", "failure").register(meterRegistry);
+        this.rejected = Counter.builder("chat.memory.compactions").tag("result", "rejected").register(meterRegistry);
+        this.discarded = Counter.builder("chat.memory.compactions").tag("result", "discarded").register(meterRegistry);
+    }
+
+    /**
+     * 토큰 예산 메모리 생성
+     */
+    public ChatMemory newMemory(Object id, ChatMemoryStore store) {
+        return new TokenBudgetChatMemory(id, store, estimator, tokenBudget, hardLimit, targetRatio, this);
+    }
+
+    /**
+     * 요약 작업 예약 (대기열이 가득 차면 건너뛰고 다음 메시지 추가 시 재시도)
+     */
+    void schedule(TokenBudgetChatMemory memory) {
+        try {
+            executor.execute(() -> compact(memory));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            memory.compactionFinished();
+        }
+    }
+
+    /**
+     * 요약 통계
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tokenBudget", tokenBudget);
+        result.put("compactions", (long) succeeded.count());
+        result.put("failures", (long) failed.count());
+        result.put("rejected", (long) rejected.count());
+        result.put("discarded", (long) discarded.count());
+        result.put("queued", executor.getQueue().size());
+        result.put("avgTokensBefore", tokensBefore.mean());
+        result.put("avgTokensAfter", tokensAfter.mean());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void compact(TokenBudgetChatMemory memory) {
+        try {
+            TokenBudgetChatMemory.CompactionPlan plan = memory.prepareCompaction();
+            if (plan == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            // LLM 호출은 메모리 잠금 밖에서 수행
+            String summary = chatModel.chat(summaryPrompt(plan));
+            int after = memory.applyCompaction(plan, summary);
+            duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (after < 0) {
+                discarded.increment();
+                log.debug("요약 중 메모리가 초기화되어 요약 결과를 버림 [{}]", memory.id());
+                return;
+            }
+
+            tokensBefore.record(plan.tokensBefore());
+            tokensAfter.record(after);
+            succeeded.increment();
+            log.debug("메모리 요약 완료 [{}]: {} -> {} tokens", memory.id(), plan.tokensBefore(), after);
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("메모리 요약 실패 [{}]", memory.id(), e);
+        } finally {
+            memory.compactionFinished();
+        }
+    }
+
+    private static String summaryPrompt(TokenBudgetChatMemory.CompactionPlan plan) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("다음 대화를 이후 대화의 맥락으로 쓸 수 있도록 핵심 사실, 사용자의 요청과 선호, ")
+                .append("결정된 사항 위주로 간결하게 한국어로 요약해주세요.\n\n");
+        if (plan.previousSummary() != null) {
+            prompt.append("기존 요약:\n").append(plan.previousSummary()).append("\n\n");
+        }
+        prompt.append("대화:\n");
+        for (ChatMessage message : plan.turns()) {
+            prompt.append(message instanceof UserMessage ? "사용자: " : "AI: ")
+                    .append(ChatMessageSizes.text(message))
+                    .append('\n');
+        }
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,471 @@
+package com.langchain.rag.memory;
+
+import dev.langchain4j.data.message.ChatMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 대화 메모리 gzip 스냅샷 파일과 시작 시 지연 복원
+ * - [청크]*   세션 chunkSize 개의 NDJSON 줄 (ChatMemoryNdjson 형식), 청크마다 독립된 gzip member
+ * - [인덱스]  gzip member: 버전, 청크 크기, 청크 시작 오프셋, 기록 순서대로의 memoryId (i 번째 세션은 i / chunkSize 번째 청크)
+ * - [꼬리]    인덱스 시작 오프셋 + magic (16B)
+ * - 열 때는 인덱스만 읽고, 세션은 처음 접근할 때 그 세션이 든 청크 하나만 풀어서 복원 (take)
+ * - 새 스냅샷은 임시 파일에 쓴 뒤 원자적으로 교체하며, 아직 복원되지 않은 세션은 이전 파일의 줄을 그대로 옮겨 씀
+ */
+public class MemorySnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MemorySnapshotStore.class);
+
+    static final String FILE_NAME = "chat-memory.snapshot.gz";
+    private static final long MAGIC = 0x31504E534D454D43L; // "CMEMSNP1"
+    private static final int VERSION = 1;
+    private static final int FOOTER_BYTES = 2 * Long.BYTES;
+
+    /**
+     * 스냅샷에 기록할 활성 세션 (ChatMemoryConfig::forEachMemory)
+     */
+    @FunctionalInterface
+    public interface SessionSource {
+        void forEach(BiConsumer<String, List<ChatMessage>> action);
+    }
+
+    /**
+     * 현재 파일의 청크 경계와 세션 순서 (파일 교체 시 통째로 바꿈)
+     */
+    private record Layout(long[] chunkOffsets, String[] ids, int chunkSize) {
+        int chunkCount() {
+            return chunkOffsets.length - 1;
+        }
+    }
+
+    /**
+     * 마지막으로 푼 청크 (같은 청크의 세션이 이어서 복원될 때 다시 풀지 않도록)
+     */
+    private record DecodedChunk(Layout layout, int chunk, List<String> lines) {
+    }
+
+    private final Path file;
+    private final int chunkSize;
+
+    // 읽기 잠금: 청크 읽기/take, 쓰기 잠금: 파일 교체
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 아직 복원되지 않은 세션 → 파일 내 순번
+    private final ConcurrentHashMap<String, Integer> pending = new ConcurrentHashMap<>();
+    private volatile Layout layout;
+    private volatile DecodedChunk lastChunk;
+
+    private final LongAdder restored = new LongAdder();
+    private final LongAdder chunkReads = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private volatile long lastSnapshotAt;
+    private volatile int lastSnapshotSessions;
+    private volatile long lastSnapshotBytes;
+    private volatile long lastSnapshotMillis;
+
+    public MemorySnapshotStore(Path directory, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다: " + chunkSize);
+        }
+        this.file = directory.resolve(FILE_NAME);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 기존 스냅샷의 인덱스만 읽어 복원 대기 목록 구성
+     *
+     * @return 복원 대기 세션 수 (파일이 없으면 0)
+     */
+    public synchronized int open() throws IOException {
+        lock.writeLock().lock();
+        try {
+            pending.clear();
+            layout = null;
+            if (!Files.exists(file)) {
+                return 0;
+            }
+            Layout loaded = readLayout();
+            for (int i = 0; i < loaded.ids().length; i++) {
+                pending.put(loaded.ids()[i], i);
+            }
+            layout = loaded;
+            return pending.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 아직 복원되지 않은 세션인지
+     */
+    public boolean contains(String memoryId) {
+        return pending.containsKey(memoryId);
+    }
+
+    /**
+     * 스냅샷의 세션 대화를 꺼냄 (한 번만 반환, 이후에는 활성 메모리가 원본)
+     *
+     * @return 스냅샷에 없거나 읽기에 실패하면 null
+     */
+    public List<ChatMessage> take(String memoryId) {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Integer position = pending.remove(memoryId);
+            if (position == null) {
+                return null;
+            }
+            Layout current = layout;
+            String line = chunkLines(current, position / current.chunkSize()).get(position % current.chunkSize());
+            List<ChatMessage> messages = ChatMemoryNdjson.parse(line).messages();
+            restored.increment();
+            return messages;
+        } catch (IOException | RuntimeException e) {
+            log.warn("스냅샷에서 세션 복원 실패 [{}], 빈 대화로 시작합니다.", memoryId, e);
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 복원 대기 중인 세션을 버림 (삭제/import 로 대체된 세션이 나중에 되살아나지 않도록)
+     */
+    public void discard(String memoryId) {
+        pending.remove(memoryId);
+    }
+
+    public void discardAll() {
+        pending.clear();
+    }
+
+    /**
+     * 아직 복원되지 않은 세션의 원본 줄을 파일 순서대로 전달 (export, 스냅샷 이월용)
+     * - 한 번에 청크 하나만 메모리에 올리고, 대기 세션이 없는 청크는 풀지 않음
+     */
+    public synchronized void forEachPending(BiConsumer<String, String> action) throws IOException {
+        Layout current = layout;
+        if (current == null) {
+            return;
+        }
+        for (int chunk = 0; chunk < current.chunkCount(); chunk++) {
+            int base = chunk * current.chunkSize();
+            int end = Math.min(base + current.chunkSize(), current.ids().length);
+            if (!hasPending(current, base, end)) {
+                continue;
+            }
+            List<String> lines;
+            lock.readLock().lock();
+            try {
+                lines = chunkLines(current, chunk);
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                String id = current.ids()[base + i];
+                if (pending.containsKey(id)) {
+                    action.accept(id, lines.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * 활성 세션 + 복원 대기 세션으로 새 스냅샷을 쓰고 파일 교체
+     *
+     * @return 기록한 세션 수
+     */
+    public synchronized int write(SessionSource live) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        Set<String> written = new HashSet<>();
+        Layout next;
+        long bytes;
+        try (ChunkWriter writer = new ChunkWriter(temp, chunkSize)) {
+            live.forEach((id, messages) -> {
+                if (written.add(id)) {
+                    writer.append(id, ChatMemoryNdjson.line(id, messages));
+                }
+            });
+            forEachPending((id, line) -> {
+                if (written.add(id)) {
+                    writer.append(id, line);
+                }
+            });
+            bytes = writer.finish();
+            next = writer.layout();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            if (e instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // 쓰는 동안 복원/폐기된 세션은 대기 목록에서 빠진 그대로 유지
+            Map<String, Integer> carried = new HashMap<>();
+            for (int i = 0; i < next.ids().length; i++) {
+                if (pending.containsKey(next.ids()[i])) {
+                    carried.put(next.ids()[i], i);
+                }
+            }
+            pending.clear();
+            pending.putAll(carried);
+            layout = next;
+            lastChunk = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        snapshots.increment();
+        lastSnapshotAt = System.currentTimeMillis();
+        lastSnapshotSessions = next.ids().length;
+        lastSnapshotBytes = bytes;
+        lastSnapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return next.ids().length;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", file.toString());
+        result.put("pendingSessions", pending.size());
+        result.put("restored", restored.sum());
+        result.put("chunkReads", chunkReads.sum());
+        result.put("snapshots", snapshots.sum());
+        result.put("lastSnapshotAt", lastSnapshotAt);
+        result.put("lastSnapshotSessions", lastSnapshotSessions);
+        result.put("lastSnapshotBytes", lastSnapshotBytes);
+        result.put("lastSnapshotMillis", lastSnapshotMillis);
+        return result;
+    }
+
+    private boolean hasPending(Layout current, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (pending.containsKey(current.ids()[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 청크 하나를 풀어 줄 목록으로 (읽기 잠금 안에서 호출)
+     */
+    private List<String> chunkLines(Layout current, int chunk) throws IOException {
+        DecodedChunk cached = lastChunk;
+        if (cached != null && cached.layout() == current && cached.chunk() == chunk) {
+            return cached.lines();
+        }
+        byte[] compressed;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long from = current.chunkOffsets()[chunk];
+            compressed = read(channel, from, current.chunkOffsets()[chunk + 1] - from);
+        }
+        List<String> lines = new ArrayList<>(current.chunkSize());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        chunkReads.increment();
+        lastChunk = new DecodedChunk(current, chunk, lines);
+        return lines;
+    }
+
+    private Layout readLayout() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_BYTES) {
+                throw new IOException("스냅샷 파일이 잘렸습니다: " + file);
+            }
+            ByteBuffer footer = ByteBuffer.wrap(read(channel, size - FOOTER_BYTES, FOOTER_BYTES));
+            long indexOffset = footer.getLong();
+            if (footer.getLong() != MAGIC || indexOffset < 0 || indexOffset > size - FOOTER_BYTES) {
+                throw new IOException("스냅샷 파일 형식이 아닙니다: " + file);
+            }
+            byte[] index = read(channel, indexOffset, size - FOOTER_BYTES - indexOffset);
+            try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(index)))) {
+                if (in.readInt() != VERSION) {
+                    throw new IOException("지원하지 않는 스냅샷 버전입니다: " + file);
+                }
+                int fileChunkSize = in.readInt();
+                long[] offsets = new long[in.readInt() + 1];
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = in.readLong();
+                }
+                String[] ids = new String[in.readInt()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = in.readUTF();
+                }
+                return new Layout(offsets, ids, fileChunkSize);
+            }
+        }
+    }
+
+    private static byte[] read(FileChannel channel, long position, long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("스냅샷 파일 범위가 잘못되었습니다: " + position + "+" + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("스냅샷 파일이 잘렸습니다.");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 임시 파일에 청크 → 인덱스 → 꼬리 순으로 기록
+     */
+    private static final class ChunkWriter implements Closeable {
+
+        private final FileOutputStream file;
+        private final CountingOutputStream out;
+        private final int chunkSize;
+        private final List<String> ids = new ArrayList<>();
+        private final List<Long> offsets = new ArrayList<>();
+        private Writer chunk;
+
+        ChunkWriter(Path path, int chunkSize) throws IOException {
+            this.file = new FileOutputStream(path.toFile());
+            this.out = new CountingOutputStream(file);
+            this.chunkSize = chunkSize;
+        }
+
+        void append(String id, String line) {
+            try {
+                if (ids.size() % chunkSize == 0) {
+                    closeChunk();
+                    offsets.add(out.count);
+                    chunk = new BufferedWriter(new OutputStreamWriter(
+                            new GZIPOutputStream(out, 1 << 16), StandardCharsets.UTF_8), 1 << 16);
+                }
+                chunk.write(line);
+                chunk.write('\n');
+                ids.add(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 인덱스와 꼬리를 쓰고 디스크에 반영
+         *
+         * @return 파일 크기
+         */
+        long finish() throws IOException {
+            closeChunk();
+            long indexOffset = out.count;
+            offsets.add(indexOffset);
+            try (DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(out, 1 << 16), 1 << 16))) {
+                index.writeInt(VERSION);
+                index.writeInt(chunkSize);
+                index.writeInt(offsets.size() - 1);
+                for (long offset : offsets) {
+                    index.writeLong(offset);
+                }
+                index.writeInt(ids.size());
+                for (String id : ids) {
+                    index.writeUTF(id);
+                }
+            }
+            DataOutputStream footer = new DataOutputStream(out);
+            footer.writeLong(indexOffset);
+            footer.writeLong(MAGIC);
+            footer.flush();
+            file.getChannel().force(true);
+            return out.count;
+        }
+
+        Layout layout() {
+            return new Layout(offsets.stream().mapToLong(Long::longValue).toArray(), ids.toArray(String[]::new), chunkSize);
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+
+        private void closeChunk() throws IOException {
+            if (chunk != null) {
+                // gzip member 를 끝내고 Deflater 해제 (아래 스트림은 닫히지 않음)
+                chunk.close();
+                chunk = null;
+            }
+        }
+    }
+
+    /**
+     * 쓴 바이트 수를 세고, close 는 flush 로만 처리 (gzip member 를 닫아도 파일은 열어 둠)
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.langchain.rag.memory;
+
+import com.langchain.rag.config.ChatExecution;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * JPA 기반 ChatMemoryStore (write-behind)
+ * - updateMessages 는 로컬 캐시와 대기열만 갱신하고 즉시 반환 (스트리밍 경로에서 커밋 대기 없음)
+ * - 같은 세션의 연속 갱신은 마지막 스냅샷 하나로 합쳐져 배치 단위로 비동기 저장
+ * - 세션은 처음 접근할 때 DB 에서 지연 로딩 (맵 잠금 밖에서 조회, 같은 세션의 동시 로딩은 한 번만)
+ * - 배치 저장은 IN 조회 한 번으로 기존 행을 확인한 뒤, 기존 행은 UPDATE, 새 행은 행 단위 SELECT 없이 INSERT
+ */
+@Component
+@ConditionalOnProperty(name = "rag.memory.store", havingValue = "jpa")
+public class PersistentChatMemoryStore implements EvictableChatMemoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentChatMemoryStore.class);
+
+    /**
+     * 저장 대기 중인 변경 (삭제면 messages 는 null)
+     */
+    private record PendingWrite(List<ChatMessage> messages) {
+        boolean isDelete() {
+            return messages == null;
+        }
+    }
+
+    private static final PendingWrite DELETE = new PendingWrite(null);
+
+    private final ChatMemoryRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    // 로딩된 세션의 메시지 (세션 메모리가 축출되면 함께 제거)
+    private final ConcurrentHashMap<String, List<ChatMessage>> loaded = new ConcurrentHashMap<>();
+    // 로딩 중인 세션 (갱신/삭제가 끼어들면 제거되어 읽은 값을 캐시하지 않음)
+    private final ConcurrentHashMap<String, CompletableFuture<List<ChatMessage>>> loading = new ConcurrentHashMap<>();
+    // 아직 DB 에 반영되지 않은 변경 (세션당 최신 1건)
+    private final ConcurrentHashMap<String, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService writer;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    public PersistentChatMemoryStore(
+            ChatMemoryRepository repository,
+            PlatformTransactionManager transactionManager,
+            ChatExecution execution,
+            @Value("${rag.memory.jpa.batch-size:100}") int batchSize,
+            @Value("${rag.memory.jpa.flush-interval:200ms}") Duration flushInterval) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        // virtual 모드면 writer 가 JDBC 대기 중에 캐리어 스레드를 점유하지 않음
+        this.writer = Executors.newSingleThreadScheduledExecutor(execution.threadFactory("chat-memory-writer"));
+        long intervalMillis = flushInterval.toMillis();
+        writer.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        String id = memoryId.toString();
+        List<ChatMessage> messages = loaded.get(id);
+        if (messages != null) {
+            return messages;
+        }
+        PendingWrite write = pending.get(id);
+        if (write != null) {
+            return write.isDelete() ? List.of() : write.messages();
+        }
+        return loadOnce(id);
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        String id = memoryId.toString();
+        List<ChatMessage> snapshot = List.copyOf(messages);
+        loading.remove(id);
+        loaded.put(id, snapshot);
+        pending.put(id, new PendingWrite(snapshot));
+        requestFlushIfFull();
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        String id = memoryId.toString();
+        loading.remove(id);
+        loaded.remove(id);
+        pending.put(id, DELETE);
+        requestFlushIfFull();
+    }
+
+    @Override
+    public void evict(String memoryId) {
+        // 대기 중인 변경은 유지되므로 다음 접근 시 최신 상태가 보장됨
+        loaded.remove(memoryId);
+    }
+
+    /**
+     * 저장 통계
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("loadedSessions", loaded.size());
+        result.put("pendingWrites", pending.size());
+        result.put("flushedBatches", flushedBatches.sum());
+        result.put("flushedRows", flushedRows.sum());
+        result.put("failedFlushes", failedFlushes.sum());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        // 종료 전 남은 변경을 모두 저장
+        while (!pending.isEmpty()) {
+            if (!flushBatch()) {
+                log.warn("종료 중 메모리 저장 실패, {}개 세션의 변경이 유실됩니다.", pending.size());
+                break;
+            }
+        }
+    }
+
+    /**
+     * DB 에서 세션 로딩
+     * - computeIfAbsent 안에서 조회하면 같은 bin 의 다른 세션까지 I/O 동안 막히므로, 밖에서 읽고 putIfAbsent 로 등록
+     * - 로딩 중에 갱신/삭제가 있었으면 (loading 에서 빠짐) 읽은 값은 캐시에서 되돌림
+     */
+    private List<ChatMessage> loadOnce(String id) {
+        CompletableFuture<List<ChatMessage>> future = new CompletableFuture<>();
+        CompletableFuture<List<ChatMessage>> inFlight = loading.putIfAbsent(id, future);
+        if (inFlight != null) {
+            return inFlight.join();
+        }
+        try {
+            List<ChatMessage> messages = load(id);
+            List<ChatMessage> current = loaded.putIfAbsent(id, messages);
+            if (current != null) {
+                messages = current;
+            } else if (!loading.remove(id, future)) {
+                loaded.remove(id, messages);
+            }
+            future.complete(messages);
+            return messages;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(id, future);
+        }
+    }
+
+    private List<ChatMessage> load(String memoryId) {
+        return repository.findById(memoryId)
+                .map(entity -> ChatMessageDeserializer.messagesFromJson(entity.getMessagesJson()))
+                .map(List::copyOf)
+                .orElseGet(List::of);
+    }
+
+    private void requestFlushIfFull() {
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            while (!pending.isEmpty()) {
+                if (!flushBatch()) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("메모리 저장 중 오류", e);
+        }
+    }
+
+    /**
+     * 대기열에서 최대 batchSize 개의 변경을 하나의 트랜잭션으로 저장
+     *
+     * @return 성공 여부 (실패한 변경은 대기열에 남아 다음 주기에 재시도)
+     */
+    private boolean flushBatch() {
+        Map<String, PendingWrite> batch = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, PendingWrite>> it = pending.entrySet().iterator();
+        while (it.hasNext() && batch.size() < batchSize) {
+            Map.Entry<String, PendingWrite> entry = it.next();
+            batch.put(entry.getKey(), entry.getValue());
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        List<String> deleteIds = new ArrayList<>();
+        Map<String, String> updates = new LinkedHashMap<>();
+        batch.forEach((id, write) -> {
+            if (write.isDelete()) {
+                deleteIds.add(id);
+            } else {
+                updates.put(id, ChatMessageSerializer.messagesToJson(write.messages()));
+            }
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!deleteIds.isEmpty()) {
+                    repository.deleteAllByIdInBatch(deleteIds);
+                }
+                if (!updates.isEmpty()) {
+                    Map<String, ChatMemoryEntity> existing = repository.findAllById(updates.keySet()).stream()
+                            .collect(Collectors.toMap(ChatMemoryEntity::getMemoryId, Function.identity()));
+                    Instant now = Instant.now();
+                    List<ChatMemoryEntity> entities = new ArrayList<>(updates.size());
+                    updates.forEach((id, json) -> {
+                        ChatMemoryEntity entity = existing.getOrDefault(id, new ChatMemoryEntity(id));
+                        entity.setMessagesJson(json);
+                        entity.setUpdatedAt(now);
+                        entities.add(entity);
+                    });
+                    repository.saveAll(entities);
+                }
+            });
+        } catch (Exception e) {
+            failedFlushes.increment();
+            log.error("메모리 배치 저장 실패 ({}건)", batch.size(), e);
+            return false;
+        }
+
+        // 저장 중에 새로 들어온 변경은 남겨둠
+        batch.forEach(pending::remove);
+        flushedBatches.increment();
+        flushedRows.add(batch.size());
+        return true;
+    }
+}
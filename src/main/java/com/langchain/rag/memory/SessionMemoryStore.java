@@ -0,0 +1,175 @@
+package com.langchain.rag.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.langchain4j.memory.ChatMemory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 세션별 ChatMemory 를 보관하는 용량 제한 저장소
+ * - Caffeine(W-TinyLFU) 기반: 항목 수 / 추정 바이트 상한, 유휴 TTL 만료
+ * - 조회/생성은 키 단위 잠금만 사용 (전역 잠금 없음)
+ *
+ * Caffeine 은 maximumSize 와 maximumWeight 를 함께 쓸 수 없으므로,
+ * 각 항목의 가중치를 최소 (maxBytes / maxSessions) 로 잡아 항목 수 상한을 함께 보장한다.
+ */
+public class SessionMemoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionMemoryStore.class);
+
+    // 이 이상 크기가 변하면 캐시 가중치를 다시 계산
+    private static final long REWEIGH_THRESHOLD_BYTES = 1024;
+
+    private final Cache<String, TrackedChatMemory> cache;
+    private final Function<String, ChatMemory> memoryFactory;
+    private final Consumer<String> evictionListener;
+    private final int minWeight;
+
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public SessionMemoryStore(long maxSessions, long maxBytes, Duration idleTtl,
+                              Function<String, ChatMemory> memoryFactory) {
+        this(maxSessions, maxBytes, idleTtl, memoryFactory, sessionId -> {});
+    }
+
+    /**
+     * @param evictionListener 용량 초과/만료로 축출된 세션 ID 를 통지받는 콜백 (명시적 삭제는 제외)
+     */
+    public SessionMemoryStore(long maxSessions, long maxBytes, Duration idleTtl,
+                              Function<String, ChatMemory> memoryFactory,
+                              Consumer<String> evictionListener) {
+        if (maxSessions <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("maxSessions, maxBytes 는 0보다 커야 합니다.");
+        }
+        this.memoryFactory = memoryFactory;
+        this.evictionListener = evictionListener;
+        this.minWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBytes / maxSessions));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, TrackedChatMemory memory) -> weigh(memory))
+                .expireAfterAccess(idleTtl)
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    /**
+     * 메모리를 가져오거나 새로 생성
+     */
+    public ChatMemory getOrCreate(String sessionId) {
+        return cache.get(sessionId, this::create);
+    }
+
+    /**
+     * 호출자가 미리 만든 메모리를 등록 (이미 있으면 기존 메모리를 반환하고 memory 는 버림)
+     * - 파일/DB 읽기처럼 느린 생성은 이 메서드 밖에서 하여 Caffeine 의 키 잠금을 잡은 채 I/O 하지 않도록 함
+     */
+    public ChatMemory putIfAbsent(String sessionId, ChatMemory memory) {
+        return cache.get(sessionId, id -> track(id, memory));
+    }
+
+    /**
+     * 메모리 조회 (없으면 null)
+     */
+    public ChatMemory get(String sessionId) {
+        return cache.getIfPresent(sessionId);
+    }
+
+    /**
+     * 메모리 제거 (제거된 메모리 반환)
+     */
+    public ChatMemory remove(String sessionId) {
+        return cache.asMap().remove(sessionId);
+    }
+
+    /**
+     * 저장된 모든 메모리 (약한 일관성 뷰, 복사 없음)
+     */
+    public Map<String, TrackedChatMemory> asMap() {
+        return cache.asMap();
+    }
+
+    public void clear() {
+        cache.asMap().values().forEach(ChatMemory::clear);
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 적중/미스/축출 통계
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("estimatedBytes", estimatedBytes.get());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("sizeEvictionCount", sizeEvictions.sum());
+        result.put("expiredCount", expirations.sum());
+        return result;
+    }
+
+    private TrackedChatMemory create(String sessionId) {
+        return track(sessionId, memoryFactory.apply(sessionId));
+    }
+
+    private TrackedChatMemory track(String sessionId, ChatMemory delegate) {
+        TrackedChatMemory memory = new TrackedChatMemory(sessionId, delegate, this::onResize);
+        estimatedBytes.addAndGet(memory.estimatedBytes());
+        return memory;
+    }
+
+    private int weigh(TrackedChatMemory memory) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(minWeight, memory.estimatedBytes()));
+    }
+
+    private void onResize(TrackedChatMemory memory, long deltaBytes) {
+        if (cache.asMap().get(memory.key()) != memory) {
+            // 이미 제거된 메모리는 집계에서 빠져 있음
+            return;
+        }
+        estimatedBytes.addAndGet(deltaBytes);
+        if (memory.claimReweigh(REWEIGH_THRESHOLD_BYTES)) {
+            // 동일 인스턴스로 교체하여 가중치만 재계산 (해당 키의 잠금만 사용)
+            cache.asMap().replace(memory.key(), memory, memory);
+        }
+    }
+
+    private void onRemoval(String sessionId, TrackedChatMemory memory, RemovalCause cause) {
+        if (memory == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+        estimatedBytes.addAndGet(-memory.estimatedBytes());
+        if (cause == RemovalCause.EXPIRED) {
+            expirations.increment();
+            log.debug("유휴 메모리 세션 만료: {}", sessionId);
+        } else if (cause == RemovalCause.SIZE) {
+            sizeEvictions.increment();
+            log.debug("용량 초과로 메모리 세션 축출: {}", sessionId);
+        }
+        if (cause.wasEvicted()) {
+            evictionListener.accept(sessionId);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.langchain.rag.memory;
+
+import com.langchain.rag.config.ChatExecution;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 여러 노드가 함께 쓰는 JDBC 기반 ChatMemoryStore (rag.memory.store=shared)
+ * - 세션당 1행 + version 컬럼, 쓰기는 "version 이 읽은 값과 같을 때만 갱신" 으로 동시 append 가 서로를 덮어쓰지 않음
+ * - 충돌하면 최신 행을 다시 읽고, 이 노드가 덧붙인 메시지만 그 뒤에 이어 붙여 재시도
+ * - 읽기는 노드별 near-cache 에서 처리하고, 다른 노드의 쓰기는 change-log 테이블 polling 으로 감지하여 stale 표시
+ *   (stale 항목은 다음 읽기에서 다시 로딩, 쓰기의 기준 version 으로는 그대로 사용하여 충돌을 감지)
+ * - change-log 를 놓쳐도(트랜잭션 커밋 순서로 생기는 seq 공백 등) max-staleness 가 지난 캐시는 version 을 다시 확인
+ * - 같은 memoryId 의 읽기→쓰기는 노드 안에서 직렬화되어 있다고 가정 (ChatAdmissionService 의 memoryId 별 직렬화)
+ * 쓰기는 write-behind 없이 동기 커밋 (다른 노드가 바로 다음 요청을 받아도 대화가 이어지도록)
+ */
+public class SharedChatMemoryStore implements EvictableChatMemoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedChatMemoryStore.class);
+
+    static final String MEMORY_TABLE = "shared_chat_memory";
+    static final String CHANGELOG_TABLE = "shared_chat_memory_changelog";
+
+    /**
+     * @param nodeId          이 노드 식별자 (비어 있으면 임의 UUID, 자기 변경은 무효화하지 않음)
+     * @param pollInterval    change-log polling 주기
+     * @param pollBatchSize   한 번에 읽는 change-log 행 수
+     * @param maxStaleness    이 시간이 지난 near-cache 항목은 읽기 전에 version 을 다시 확인
+     * @param retention       change-log 보존 기간
+     * @param maxRetries      version 충돌 시 재시도 횟수
+     * @param initializeSchema 시작 시 테이블 생성 (CREATE TABLE IF NOT EXISTS)
+     */
+    public record Settings(String nodeId, Duration pollInterval, int pollBatchSize, Duration maxStaleness,
+                           Duration retention, int maxRetries, boolean initializeSchema) {
+    }
+
+    /**
+     * near-cache 항목 (version 은 읽은 시점의 DB version, 행이 없으면 0)
+     */
+    private record Cached(List<ChatMessage> messages, long version, long validatedAtNanos, boolean stale) {
+
+        Cached(List<ChatMessage> messages, long version) {
+            this(messages, version, System.nanoTime(), false);
+        }
+
+        Cached markStale() {
+            return new Cached(messages, version, validatedAtNanos, true);
+        }
+    }
+
+    private record Row(List<ChatMessage> messages, long version) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Settings settings;
+    private final String nodeId;
+
+    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller;
+    // 마지막으로 처리한 change-log seq (poller 스레드만 갱신)
+    private volatile long lastSeq;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+
+    public SharedChatMemoryStore(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ChatExecution execution,
+                                 Settings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = settings;
+        this.nodeId = settings.nodeId() == null || settings.nodeId().isBlank()
+                ? UUID.randomUUID().toString() : settings.nodeId();
+        if (settings.initializeSchema()) {
+            createSchema();
+        }
+        // 시작 이전의 변경은 near-cache 가 비어 있으므로 건너뜀
+        Long maxSeq = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM " + CHANGELOG_TABLE, Long.class);
+        this.lastSeq = maxSeq != null ? maxSeq : 0;
+        this.poller = Executors.newSingleThreadScheduledExecutor(execution.threadFactory("chat-memory-poller"));
+        long intervalMillis = settings.pollInterval().toMillis();
+        poller.scheduleWithFixedDelay(this::pollQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        long pruneMillis = Math.max(intervalMillis, settings.retention().toMillis() / 2);
+        poller.scheduleWithFixedDelay(this::pruneQuietly, pruneMillis, pruneMillis, TimeUnit.MILLISECONDS);
+        log.info("공유 메모리 저장소 시작: nodeId={}, changelog seq={}", nodeId, lastSeq);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        return current(memoryId.toString()).messages();
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        String id = memoryId.toString();
+        // 호출자는 getMessages 결과에 메시지를 더해 전체 목록을 넘기므로, 그때 읽은 캐시가 변경의 기준
+        // (stale 표시된 항목도 그대로 기준으로 사용해야 다른 노드의 변경과 충돌을 감지할 수 있음)
+        Cached base = cache.get(id);
+        if (base == null) {
+            base = current(id);
+        }
+        List<ChatMessage> target = List.copyOf(messages);
+        for (int attempt = 0; ; attempt++) {
+            long version = write(id, base.version(), target);
+            if (version > 0) {
+                cache.put(id, new Cached(target, version));
+                writes.increment();
+                return;
+            }
+            conflicts.increment();
+            Row latest = load(id);
+            if (attempt >= settings.maxRetries()) {
+                cache.put(id, new Cached(latest.messages(), latest.version()));
+                throw new IllegalStateException("메모리 동시 갱신 충돌이 계속되어 저장하지 못했습니다: " + id);
+            }
+            log.debug("메모리 version 충돌 [{}]: 기대 {}, 현재 {}", id, base.version(), latest.version());
+            target = rebase(base.messages(), target, latest.messages());
+            base = new Cached(latest.messages(), latest.version());
+        }
+    }
+
+    /**
+     * 행을 지우지 않고 빈 목록으로 갱신 (version 이 되돌아가면 다른 노드의 near-cache 가 변경을 놓칠 수 있음)
+     */
+    @Override
+    public void deleteMessages(Object memoryId) {
+        String id = memoryId.toString();
+        for (int attempt = 0; attempt <= settings.maxRetries(); attempt++) {
+            long current = version(id);
+            if (current == 0) {
+                cache.remove(id);
+                return;
+            }
+            long version = write(id, current, List.of());
+            if (version > 0) {
+                cache.put(id, new Cached(List.of(), version));
+                return;
+            }
+            conflicts.increment();
+        }
+        cache.remove(id);
+        throw new IllegalStateException("메모리 동시 갱신 충돌이 계속되어 삭제하지 못했습니다: " + id);
+    }
+
+    @Override
+    public void evict(String memoryId) {
+        cache.remove(memoryId);
+    }
+
+    /**
+     * 다른 노드의 변경을 읽어 near-cache 에 stale 표시 (poller 스레드에서 주기 실행)
+     *
+     * @return 처리한 change-log 행 수
+     */
+    int pollChanges() {
+        List<Map<String, Object>> changes = jdbcTemplate.queryForList(
+                "SELECT seq, memory_id, version, node_id FROM " + CHANGELOG_TABLE
+                        + " WHERE seq > ? ORDER BY seq FETCH FIRST " + settings.pollBatchSize() + " ROWS ONLY",
+                lastSeq);
+        for (Map<String, Object> change : changes) {
+            String id = (String) change.get("memory_id");
+            long version = ((Number) change.get("version")).longValue();
+            if (!nodeId.equals(change.get("node_id"))) {
+                // 이미 같거나 더 새 version 을 들고 있으면 유지
+                cache.computeIfPresent(id, (key, cached) -> {
+                    if (cached.stale() || cached.version() >= version) {
+                        return cached;
+                    }
+                    invalidations.increment();
+                    return cached.markStale();
+                });
+            }
+            lastSeq = ((Number) change.get("seq")).longValue();
+        }
+        return changes.size();
+    }
+
+    /**
+     * 저장 통계
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nodeId", nodeId);
+        result.put("cachedSessions", cache.size());
+        result.put("hits", hits.sum());
+        result.put("loads", loads.sum());
+        result.put("writes", writes.sum());
+        result.put("conflicts", conflicts.sum());
+        result.put("invalidations", invalidations.sum());
+        result.put("revalidations", revalidations.sum());
+        result.put("changelogSeq", lastSeq);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        poller.shutdown();
+        poller.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private Cached current(String id) {
+        Cached cached = cache.get(id);
+        if (cached != null) {
+            if (!cached.stale() && System.nanoTime() - cached.validatedAtNanos() < settings.maxStaleness().toNanos()) {
+                hits.increment();
+                return cached;
+            }
+            // stale/오래된 항목은 version 만 확인하고, 같으면 메시지 역직렬화 없이 재사용
+            revalidations.increment();
+            if (version(id) == cached.version()) {
+                Cached refreshed = new Cached(cached.messages(), cached.version());
+                cache.replace(id, cached, refreshed);
+                return refreshed;
+            }
+        }
+        Row row = load(id);
+        Cached loaded = new Cached(row.messages(), row.version());
+        // 그 사이 더 새 version 이 들어왔으면 그것을 유지
+        return cache.merge(id, loaded, (existing, fresh) -> existing.version() > fresh.version() ? existing : fresh);
+    }
+
+    private Row load(String id) {
+        loads.increment();
+        List<Row> rows = jdbcTemplate.query(
+                "SELECT messages_json, version FROM " + MEMORY_TABLE + " WHERE memory_id = ?",
+                (rs, rowNum) -> new Row(List.copyOf(ChatMessageDeserializer.messagesFromJson(rs.getString(1))), rs.getLong(2)),
+                id);
+        return rows.isEmpty() ? new Row(List.of(), 0) : rows.get(0);
+    }
+
+    private long version(String id) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM " + MEMORY_TABLE + " WHERE memory_id = ?", Long.class, id);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    /**
+     * expectedVersion 일 때만 저장
+     *
+     * @return 저장된 새 version, 충돌이면 0
+     */
+    private long write(String id, long expectedVersion, List<ChatMessage> messages) {
+        String json = ChatMessageSerializer.messagesToJson(messages);
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            Long version = transactionTemplate.execute(status -> {
+                long next = expectedVersion + 1;
+                int updated;
+                if (expectedVersion == 0) {
+                    updated = jdbcTemplate.update("INSERT INTO " + MEMORY_TABLE
+                            + " (memory_id, messages_json, version, updated_at) VALUES (?, ?, ?, ?)", id, json, next, now);
+                } else {
+                    updated = jdbcTemplate.update("UPDATE " + MEMORY_TABLE
+                            + " SET messages_json = ?, version = ?, updated_at = ? WHERE memory_id = ? AND version = ?",
+                            json, next, now, id, expectedVersion);
+                }
+                if (updated == 0) {
+                    return 0L;
+                }
+                appendChange(id, next);
+                return next;
+            });
+            return version != null ? version : 0;
+        } catch (DuplicateKeyException e) {
+            // 다른 노드가 먼저 첫 행을 만듦
+            return 0;
+        }
+    }
+
+    private void appendChange(String id, long version) {
+        jdbcTemplate.update("INSERT INTO " + CHANGELOG_TABLE
+                + " (memory_id, version, node_id, changed_at) VALUES (?, ?, ?, ?)",
+                id, version, nodeId, Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * 충돌 시 이 노드의 변경(base 이후 덧붙인 메시지)만 최신 목록 뒤에 이어 붙임
+     * - 메모리 윈도우가 앞부분을 잘라냈을 수 있으므로, base 의 꼬리와 target 의 머리가 겹치는 가장 긴 구간을 찾음
+     * - 겹치는 구간이 없으면(요약으로 전체가 바뀐 경우 등) 이 노드의 목록으로 덮어씀
+     */
+    static List<ChatMessage> rebase(List<ChatMessage> base, List<ChatMessage> target, List<ChatMessage> latest) {
+        for (int dropped = 0; dropped <= base.size(); dropped++) {
+            int overlap = base.size() - dropped;
+            if (overlap > target.size()) {
+                continue;
+            }
+            if (base.subList(dropped, base.size()).equals(target.subList(0, overlap))) {
+                if (overlap == 0 && !base.isEmpty()) {
+                    break;
+                }
+                List<ChatMessage> merged = new ArrayList<>(latest);
+                merged.addAll(target.subList(overlap, target.size()));
+                return List.copyOf(merged);
+            }
+        }
+        return target;
+    }
+
+    private void createSchema() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + MEMORY_TABLE + " ("
+                + "memory_id VARCHAR(255) PRIMARY KEY, "
+                + "messages_json CLOB NOT NULL, "
+                + "version BIGINT NOT NULL, "
+                + "updated_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + CHANGELOG_TABLE + " ("
+                + "seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "memory_id VARCHAR(255) NOT NULL, "
+                + "version BIGINT NOT NULL, "
+                + "node_id VARCHAR(64) NOT NULL, "
+                + "changed_at TIMESTAMP NOT NULL)");
+    }
+
+    private void pollQuietly() {
+        try {
+            while (pollChanges() == settings.pollBatchSize()) {
+                // 밀린 변경이 더 있으면 이어서 처리
+            }
+        } catch (Exception e) {
+            log.error("메모리 change-log 조회 중 오류", e);
+        }
+    }
+
+    private void pruneQuietly() {
+        try {
+            Timestamp cutoff = Timestamp.from(Instant.now().minus(settings.retention()));
+            int pruned = jdbcTemplate.update("DELETE FROM " + CHANGELOG_TABLE + " WHERE changed_at < ?", cutoff);
+            if (pruned > 0) {
+                log.debug("메모리 change-log {}건 정리", pruned);
+            }
+        } catch (Exception e) {
+            log.error("메모리 change-log 정리 중 오류", e);
+        }
+    }
+}
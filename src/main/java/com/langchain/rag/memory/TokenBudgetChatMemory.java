@@ -0,0 +1,238 @@
+package com.langchain.rag.memory;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 토큰 예산 기반 ChatMemory
+ * - 메시지 수가 아닌 추정 토큰 수로 대화 창을 유지
+ * - 예산을 넘으면 오래된 턴을 백그라운드에서 요약(compaction)하여 요약 시스템 메시지로 대체
+ * - 요약이 끝나기 전이라도 hardLimit 을 넘으면 가장 오래된 턴을 즉시 버려 프롬프트 크기를 제한
+ *
+ * 저장 형태: [시스템 프롬프트] [요약 시스템 메시지] [최근 턴...]
+ */
+public class TokenBudgetChatMemory implements ChatMemory {
+
+    static final String SUMMARY_PREFIX = "[이전 대화 요약]\n";
+
+    /**
+     * 요약 대상 스냅샷 (generation: 계획 시점의 clear 횟수)
+     */
+    public record CompactionPlan(List<ChatMessage> turns, String previousSummary, int tokensBefore, long generation) {
+    }
+
+    private final Object id;
+    private final ChatMemoryStore store;
+    private final TokenCountEstimator estimator;
+    private final int tokenBudget;
+    private final int hardLimit;
+    private final double targetRatio;
+    private final MemoryCompactor compactor;
+
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    // 요약 반영 후 호출 (add 를 거치지 않고 저장소를 바꾸므로 래퍼가 크기를 다시 계산하도록)
+    private volatile Runnable compactionListener = () -> {};
+    // clear 될 때마다 증가, 요약 중에 지워진 대화의 요약이 되살아나지 않도록 비교 (this 잠금으로 보호)
+    private long generation;
+
+    public TokenBudgetChatMemory(Object id, ChatMemoryStore store, TokenCountEstimator estimator,
+                                 int tokenBudget, int hardLimit, double targetRatio,
+                                 MemoryCompactor compactor) {
+        this.id = id;
+        this.store = store;
+        this.estimator = estimator;
+        this.tokenBudget = tokenBudget;
+        this.hardLimit = Math.max(tokenBudget, hardLimit);
+        this.targetRatio = targetRatio;
+        this.compactor = compactor;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public void add(ChatMessage message) {
+        int tokens;
+        synchronized (this) {
+            List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+            if (message instanceof SystemMessage systemMessage && !isSummary(systemMessage)) {
+                int index = indexOfPrompt(messages);
+                if (index >= 0) {
+                    if (messages.get(index).equals(message)) {
+                        return;
+                    }
+                    messages.set(index, message);
+                } else {
+                    messages.add(0, message);
+                }
+            } else {
+                messages.add(message);
+            }
+            tokens = enforceHardLimit(messages);
+            store.updateMessages(id, messages);
+        }
+        if (tokens > tokenBudget && compactionScheduled.compareAndSet(false, true)) {
+            compactor.schedule(this);
+        }
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        return new ArrayList<>(store.getMessages(id));
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            generation++;
+            store.deleteMessages(id);
+        }
+    }
+
+    /**
+     * 요약 결과가 반영될 때마다 호출할 콜백 등록 (메모리 잠금 밖에서 호출)
+     */
+    public void onCompaction(Runnable listener) {
+        this.compactionListener = listener;
+    }
+
+    /**
+     * 현재 추정 프롬프트 토큰 수
+     */
+    public int estimatedTokens() {
+        return estimator.estimateTokenCountInMessages(store.getMessages(id));
+    }
+
+    /**
+     * 요약할 오래된 턴 선택 (목표: 최근 턴이 tokenBudget * targetRatio 이하)
+     *
+     * @return 요약할 턴이 없으면 null
+     */
+    synchronized CompactionPlan prepareCompaction() {
+        List<ChatMessage> messages = store.getMessages(id);
+        int tokensBefore = estimator.estimateTokenCountInMessages(messages);
+        if (tokensBefore <= tokenBudget) {
+            return null;
+        }
+        List<ChatMessage> turns = turns(messages);
+        int target = (int) (tokenBudget * targetRatio);
+        int recentTokens = estimator.estimateTokenCountInMessages(turns);
+        int cut = 0;
+        while (cut < turns.size() - 1 && recentTokens > target) {
+            recentTokens -= estimator.estimateTokenCountInMessage(turns.get(cut));
+            cut++;
+        }
+        // 사용자 메시지에서 시작하도록 턴 경계에 맞춤
+        while (cut < turns.size() - 1 && !(turns.get(cut) instanceof UserMessage)) {
+            cut++;
+        }
+        if (cut == 0) {
+            return null;
+        }
+        return new CompactionPlan(List.copyOf(turns.subList(0, cut)), summaryText(messages), tokensBefore, generation);
+    }
+
+    /**
+     * 요약 결과 반영 (요약 중에 이미 버려진 턴은 건너뜀)
+     * - 요약 중에 메모리가 clear(삭제/import 교체 포함) 되었으면 결과를 버림
+     *
+     * @return 반영 후 추정 토큰 수, 버렸으면 -1
+     */
+    int applyCompaction(CompactionPlan plan, String summary) {
+        List<ChatMessage> result = new ArrayList<>();
+        synchronized (this) {
+            if (plan.generation() != generation) {
+                return -1;
+            }
+            List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+            List<ChatMessage> turns = turns(messages);
+            int matched = 0;
+            for (ChatMessage summarized : plan.turns()) {
+                if (matched < turns.size() && turns.get(matched).equals(summarized)) {
+                    matched++;
+                }
+            }
+            int promptIndex = indexOfPrompt(messages);
+            if (promptIndex >= 0) {
+                result.add(messages.get(promptIndex));
+            }
+            result.add(SystemMessage.from(SUMMARY_PREFIX + summary));
+            result.addAll(turns.subList(matched, turns.size()));
+            store.updateMessages(id, result);
+        }
+        compactionListener.run();
+        return estimator.estimateTokenCountInMessages(result);
+    }
+
+    void compactionFinished() {
+        compactionScheduled.set(false);
+    }
+
+    /**
+     * hardLimit 을 넘으면 가장 오래된 턴부터 즉시 제거
+     *
+     * @return 제거 후 추정 토큰 수
+     */
+    private int enforceHardLimit(List<ChatMessage> messages) {
+        int tokens = estimator.estimateTokenCountInMessages(messages);
+        while (tokens > hardLimit) {
+            int oldest = firstTurnIndex(messages);
+            if (oldest < 0 || oldest == messages.size() - 1) {
+                break;
+            }
+            tokens -= estimator.estimateTokenCountInMessage(messages.remove(oldest));
+        }
+        return tokens;
+    }
+
+    private static List<ChatMessage> turns(List<ChatMessage> messages) {
+        List<ChatMessage> turns = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            if (!(message instanceof SystemMessage)) {
+                turns.add(message);
+            }
+        }
+        return turns;
+    }
+
+    private static int firstTurnIndex(List<ChatMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (!(messages.get(i) instanceof SystemMessage)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfPrompt(List<ChatMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage systemMessage && !isSummary(systemMessage)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String summaryText(List<ChatMessage> messages) {
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage systemMessage && isSummary(systemMessage)) {
+                return systemMessage.text().substring(SUMMARY_PREFIX.length());
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSummary(SystemMessage message) {
+        return message.text().startsWith(SUMMARY_PREFIX);
+    }
+}
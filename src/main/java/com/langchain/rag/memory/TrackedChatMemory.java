@@ -0,0 +1,118 @@
+package com.langchain.rag.memory;
+
+import com.langchain.rag.model.StreamControl;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.memory.ChatMemory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 추정 크기를 추적하는 ChatMemory 래퍼
+ * - 메시지가 추가/삭제될 때마다 크기를 다시 계산하여 저장소에 알림
+ * - 저장소는 이 값을 가중치로 사용하여 바이트 상한을 적용
+ * - 토큰 예산 메모리의 백그라운드 요약처럼 add 를 거치지 않는 변경도 콜백으로 받아 크기에 반영
+ * - 채팅 스트림 안에서의 쓰기는 그 스트림의 StreamControl 을 거치므로, 중지/연결 종료로 취소된 스트림의 쓰기는 버려짐
+ */
+public class TrackedChatMemory implements ChatMemory {
+
+    /**
+     * 크기 변경 통지 콜백
+     */
+    public interface ResizeListener {
+        void onResize(TrackedChatMemory memory, long deltaBytes);
+    }
+
+    private final String key;
+    private final ChatMemory delegate;
+    private final ResizeListener resizeListener;
+
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    // 캐시 가중치에 마지막으로 반영된 크기
+    private final AtomicLong weighedBytes = new AtomicLong();
+
+    public TrackedChatMemory(String key, ChatMemory delegate, ResizeListener resizeListener) {
+        this.key = key;
+        this.delegate = delegate;
+        this.resizeListener = resizeListener;
+        long initial = ChatMessageSizes.estimateBytes(delegate.messages());
+        this.estimatedBytes.set(initial);
+        this.weighedBytes.set(initial);
+        if (delegate instanceof TokenBudgetChatMemory budgetMemory) {
+            budgetMemory.onCompaction(this::refreshSize);
+        }
+    }
+
+    @Override
+    public Object id() {
+        return delegate.id();
+    }
+
+    @Override
+    public void add(ChatMessage message) {
+        StreamControl stream = StreamControl.current();
+        if (stream == null) {
+            addNow(message);
+            return;
+        }
+        // 도구 호출 요청이 없는 AI 메시지가 그 턴의 최종 응답 (이후 중지되어도 부분 응답을 덧붙이지 않음)
+        boolean completes = message instanceof AiMessage aiMessage && !aiMessage.hasToolExecutionRequests();
+        stream.write(completes, () -> addNow(message));
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        return delegate.messages();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        refreshSize();
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public ChatMemory delegate() {
+        return delegate;
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    /**
+     * 마지막 가중치 반영 이후 thresholdBytes 이상 변했으면 현재 크기를 반영된 값으로 기록
+     *
+     * @return 이 호출자가 가중치를 다시 계산해야 하면 true (동시 호출 중 하나만)
+     */
+    boolean claimReweigh(long thresholdBytes) {
+        while (true) {
+            long current = estimatedBytes.get();
+            long weighed = weighedBytes.get();
+            if (Math.abs(current - weighed) < thresholdBytes) {
+                return false;
+            }
+            if (weighedBytes.compareAndSet(weighed, current)) {
+                return true;
+            }
+        }
+    }
+
+    private void addNow(ChatMessage message) {
+        delegate.add(message);
+        refreshSize();
+    }
+
+    private void refreshSize() {
+        long current = ChatMessageSizes.estimateBytes(delegate.messages());
+        // 교체 전 값 기준의 차이만 통지하므로 동시에 갱신되어도 통지 합계가 최종 크기와 일치
+        long previous = estimatedBytes.getAndSet(current);
+        if (current != previous) {
+            resizeListener.onResize(this, current - previous);
+        }
+    }
+}
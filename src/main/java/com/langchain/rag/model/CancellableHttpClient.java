@@ -0,0 +1,99 @@
+package com.langchain.rag.model;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+/**
+ * 스트리밍(SSE) 요청을 StreamControl 취소 시 끊는 HttpClient 래퍼
+ * - execute 를 호출한 스레드에 연결된 StreamControl 이 취소되면 공급자 응답 스트림을 닫아 생성 중인 응답 수신을 중단
+ *   (연결이 끊기면 공급자도 생성을 멈추므로 중지 뒤의 출력 토큰이 과금되지 않음)
+ * - 이미 취소된 스트림은 응답 본문을 읽기 시작하자마자 닫음
+ * - 닫힌 스트림의 읽기 오류는 리스너 onError 로 전달되지만 CancellableStreamingChatModel 이 취소된 스트림의 콜백을 버림
+ * - StreamControl 이 없는 호출과 비스트리밍 요청은 그대로 위임
+ */
+public class CancellableHttpClient implements HttpClient {
+
+    private static final Logger log = LoggerFactory.getLogger(CancellableHttpClient.class);
+
+    private final HttpClient delegate;
+
+    public CancellableHttpClient(HttpClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) {
+        return delegate.execute(request);
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        StreamControl control = StreamControl.current();
+        if (control == null) {
+            delegate.execute(request, parser, listener);
+            return;
+        }
+        // 본문은 delegate 의 실행기 스레드에서 읽으므로 여기서 잡은 StreamControl 에 닫기 작업을 등록
+        delegate.execute(request, (body, eventListener) -> {
+            control.onCancel(() -> closeQuietly(body));
+            parser.parse(body, eventListener);
+        }, listener);
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            log.debug("취소된 모델 응답 스트림 닫기 실패", e);
+        }
+    }
+
+    /**
+     * 기존 HttpClientBuilder 가 만드는 클라이언트를 감싸는 빌더
+     */
+    public static class Builder implements HttpClientBuilder {
+
+        private final HttpClientBuilder delegate;
+
+        public Builder(HttpClientBuilder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Duration connectTimeout() {
+            return delegate.connectTimeout();
+        }
+
+        @Override
+        public Builder connectTimeout(Duration timeout) {
+            delegate.connectTimeout(timeout);
+            return this;
+        }
+
+        @Override
+        public Duration readTimeout() {
+            return delegate.readTimeout();
+        }
+
+        @Override
+        public Builder readTimeout(Duration timeout) {
+            delegate.readTimeout(timeout);
+            return this;
+        }
+
+        @Override
+        public HttpClient build() {
+            return new CancellableHttpClient(delegate.build());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.langchain.rag.model;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+
+import java.util.Set;
+
+/**
+ * StreamControl 로 요청을 취소할 수 있게 감싼 스트리밍 모델 (ChatAssistant 용)
+ * - 스트림이 취소되면 이후 콜백(토큰/완료/오류)을 버림 (AiServices 에 완료가 전달되지 않으므로 늦은 응답이 메모리에 기록되지 않음)
+ * - LangChain4j 1.1 StreamingChatModel 에는 취소 API 가 없으므로 공급자 요청 자체는 HttpClient 단에서 끊음
+ *   (OpenAI 모델은 CancellableHttpClient 가 응답 스트림을 닫음, FakeStreamingChatModel 은 남은 토큰을 내보내지 않음)
+ * - 콜백은 요청한 스트림의 StreamControl 을 현재 스레드에 연결한 채 전달 (AiServices 의 메모리 쓰기가 그 스트림 소속이 됨)
+ * - 호출 스레드에 StreamControl 이 없으면 그대로 위임
+ */
+public class CancellableStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+
+    public CancellableStreamingChatModel(StreamingChatModel delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        StreamControl control = StreamControl.current();
+        if (control == null) {
+            delegate.chat(chatRequest, handler);
+            return;
+        }
+        if (control.isCancelled()) {
+            // 준비 단계에서 이미 중지된 요청은 공급자에 보내지 않음
+            return;
+        }
+        delegate.chat(chatRequest, new ControlledHandler(control, handler));
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private record ControlledHandler(StreamControl control, StreamingChatResponseHandler handler)
+            implements StreamingChatResponseHandler {
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            if (!control.isCancelled()) {
+                control.bind(() -> handler.onPartialResponse(partialResponse));
+            }
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            if (!control.isCancelled()) {
+                control.bind(() -> handler.onCompleteResponse(completeResponse));
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (!control.isCancelled()) {
+                control.bind(() -> handler.onError(error));
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.langchain.rag.model;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+
+/**
+ * 부하 테스트용 가짜 동기 모델 (token-budget 메모리의 요약 요청 등에 고정 응답)
+ */
+public class FakeChatModel implements ChatModel {
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from("이전 대화 요약: 고객 문의와 안내가 오갔습니다."))
+                .finishReason(FinishReason.STOP)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.langchain.rag.model;
+
+import com.langchain.rag.memory.ChatMessageSizes;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 부하 테스트용 가짜 스트리밍 모델 (외부 API 호출 없음)
+ * - 첫 토큰 지연, 토큰 간 지연, 지연 흔들림(jitter), 응답 길이를 설정값으로 흉내냄
+ * - 토큰은 스레드를 잡아두지 않고 공유 스케줄러에 예약하여 내보내므로, 수천 개의 동시 스트림도 스레드 몇 개로 처리
+ * - 응답 내용은 의미 없는 한국어 단어 나열 (프롬프트 크기는 입력 토큰 수 추정에만 사용)
+ * - 요청한 스트림의 StreamControl 이 취소되면 남은 토큰을 내보내지 않음 (공급자 연결을 끊은 것과 같은 효과)
+ */
+public class FakeStreamingChatModel implements StreamingChatModel, Closeable {
+
+    /**
+     * @param firstTokenLatency 요청부터 첫 토큰까지의 평균 지연
+     * @param tokenLatency      토큰 사이 평균 지연
+     * @param jitter            지연 흔들림 비율 (0.3 이면 평균의 ±30% 안에서 균등 분포)
+     * @param minTokens         응답 최소 토큰 수
+     * @param maxTokens         응답 최대 토큰 수
+     * @param threads           토큰 예약 스레드 수
+     */
+    public record Settings(Duration firstTokenLatency, Duration tokenLatency, double jitter,
+                           int minTokens, int maxTokens, int threads) {
+    }
+
+    private static final String[] WORDS = {
+            "주문", "배송", "결제", "환불", "상품", "문의", "확인", "처리", "안내", "고객",
+            "계정", "로그인", "재고", "입고", "쿠폰", "적용", "일정", "요청", "완료", "접수",
+    };
+
+    private final Settings settings;
+    private final ScheduledExecutorService scheduler;
+
+    public FakeStreamingChatModel(Settings settings) {
+        if (settings.minTokens() < 1 || settings.maxTokens() < settings.minTokens()) {
+            throw new IllegalArgumentException("토큰 수 범위가 올바르지 않습니다: "
+                    + settings.minTokens() + ".." + settings.maxTokens());
+        }
+        this.settings = settings;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, settings.threads()), r -> {
+            Thread thread = new Thread(r, "fake-chat-model-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int tokens = random.nextInt(settings.minTokens(), settings.maxTokens() + 1);
+        new Emission(handler, StreamControl.current(), tokens, inputTokens(chatRequest))
+                .schedule(settings.firstTokenLatency());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private long delayNanos(Duration mean) {
+        long nanos = mean.toNanos();
+        if (settings.jitter() <= 0 || nanos == 0) {
+            return nanos;
+        }
+        double factor = 1 + settings.jitter() * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        return Math.max(0, (long) (nanos * factor));
+    }
+
+    /**
+     * 입력 토큰 수 추정 (대략 4바이트당 1토큰)
+     */
+    private static int inputTokens(ChatRequest chatRequest) {
+        long bytes = 0;
+        for (ChatMessage message : chatRequest.messages()) {
+            bytes += ChatMessageSizes.text(message).length() * 2L;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes / 4);
+    }
+
+    /**
+     * 스트림 하나의 토큰 방출 상태 (예약 작업은 한 번에 하나만 실행되므로 동기화 불필요)
+     */
+    private final class Emission implements Runnable {
+        private final StreamingChatResponseHandler handler;
+        // 요청한 스트림 (없으면 null)
+        private final StreamControl control;
+        private final int tokens;
+        private final int inputTokens;
+        private final StringBuilder text = new StringBuilder();
+        private int emitted;
+
+        Emission(StreamingChatResponseHandler handler, StreamControl control, int tokens, int inputTokens) {
+            this.handler = handler;
+            this.control = control;
+            this.tokens = tokens;
+            this.inputTokens = inputTokens;
+        }
+
+        void schedule(Duration mean) {
+            scheduler.schedule(this, delayNanos(mean), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            if (control != null && control.isCancelled()) {
+                return;
+            }
+            try {
+                String token = (emitted == 0 ? "" : " ") + WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+                text.append(token);
+                emitted++;
+                handler.onPartialResponse(token);
+                if (emitted < tokens) {
+                    schedule(settings.tokenLatency());
+                    return;
+                }
+                handler.onCompleteResponse(ChatResponse.builder()
+                        .aiMessage(AiMessage.from(text.toString()))
+                        .tokenUsage(new TokenUsage(inputTokens, tokens))
+                        .finishReason(FinishReason.STOP)
+                        .build());
+            } catch (Exception e) {
+                handler.onError(e);
+            }
+        }
+    }
+}
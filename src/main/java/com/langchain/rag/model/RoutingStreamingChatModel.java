@@ -0,0 +1,419 @@
+package com.langchain.rag.model;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 모델 경로 앞에 두는 라우팅 스트리밍 모델 (첫 토큰 지연 꼬리 줄이기)
+ * - 첫 경로에 요청하고 hedgeDelay 안에 첫 토큰이 없으면 다음 경로로 hedge 요청 (최대 maxHedges 회)
+ * - 먼저 토큰을 낸 스트림만 전달하고 나머지는 분리 (시도마다 StreamControl 을 연결해 두므로
+ *   CancellableHttpClient 를 쓰는 경로는 패자 응답 스트림을 끊고, 그 밖의 경로는 끝까지 받되 콜백을 버림)
+ * - 요청한 스트림의 StreamControl 이 취소되면 진행 중인 모든 시도를 같은 방식으로 끊고 hedge 도 보내지 않음
+ * - 첫 토큰 전에 실패한 경로는 다음 경로로 즉시 넘김 (마지막은 저렴한 fallback 모델)
+ * - 경로별 circuit breaker: 연속 실패 failureThreshold 회면 openDuration 동안 건너뛰고, 이후 요청 하나로 회복 확인
+ * - 토큰을 이미 내보낸 뒤의 실패는 중복 응답을 막기 위해 그대로 오류로 전달
+ */
+public class RoutingStreamingChatModel implements StreamingChatModel, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingStreamingChatModel.class);
+
+    /**
+     * @param name  지표/로그에 쓰는 경로 이름
+     * @param model 실제 모델
+     */
+    public record Route(String name, StreamingChatModel model) {
+    }
+
+    /**
+     * @param hedgeDelay       이 시간 안에 첫 토큰이 없으면 hedge 요청
+     * @param maxHedges        요청당 최대 hedge 수 (0 이면 hedge 없이 실패 시 failover 만)
+     * @param failureThreshold circuit 을 여는 연속 실패 수
+     * @param openDuration     circuit 이 열린 뒤 다시 시도하기까지의 시간
+     */
+    public record Settings(Duration hedgeDelay, int maxHedges, int failureThreshold, Duration openDuration) {
+    }
+
+    private final List<RouteState> routes = new ArrayList<>();
+    private final Settings settings;
+    private final ScheduledExecutorService timer;
+    private final Counter hedges;
+    private final Counter exhausted;
+
+    /**
+     * @param primaries 우선순위 순서의 주 경로
+     * @param fallback  모든 주 경로가 실패/차단됐을 때 쓰는 경로 (없으면 null)
+     */
+    public RoutingStreamingChatModel(List<Route> primaries, Route fallback, Settings settings, MeterRegistry meterRegistry) {
+        if (primaries.isEmpty()) {
+            throw new IllegalArgumentException("주 모델 경로가 하나 이상 필요합니다.");
+        }
+        this.settings = settings;
+        for (Route route : primaries) {
+            routes.add(new RouteState(route, settings, meterRegistry));
+        }
+        if (fallback != null) {
+            routes.add(new RouteState(fallback, settings, meterRegistry));
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "model-routing-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedges = Counter.builder("chat.model.hedges")
+                .description("첫 토큰 지연으로 보낸 hedge 요청 수")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("chat.model.route.exhausted")
+                .description("모든 경로가 실패하거나 차단되어 오류로 끝난 요청 수")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        new Exchange(chatRequest, handler).start();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 요청 하나의 라우팅 상태 (여러 경로의 콜백이 동시에 들어오므로 this 잠금으로 보호, 하위 핸들러 호출은 잠금 밖에서)
+     */
+    private final class Exchange {
+        private final ChatRequest request;
+        private final StreamingChatResponseHandler handler;
+        // 요청한 스트림 (없으면 null)
+        private final StreamControl control;
+        private final List<Attempt> inFlight = new ArrayList<>();
+        private int nextRoute;
+        private int hedgeCount;
+        private Attempt winner;
+        private boolean done;
+
+        Exchange(ChatRequest request, StreamingChatResponseHandler handler) {
+            this.request = request;
+            this.handler = handler;
+            this.control = StreamControl.current();
+        }
+
+        void start() {
+            if (control != null) {
+                control.onCancel(this::cancel);
+            }
+            Attempt attempt;
+            synchronized (this) {
+                attempt = nextAttempt();
+            }
+            if (attempt == null) {
+                exhausted.increment();
+                handler.onError(new IllegalStateException("사용 가능한 모델 경로가 없습니다 (모든 circuit 이 열림)."));
+                return;
+            }
+            launch(attempt);
+        }
+
+        /**
+         * circuit 이 허용하는 다음 경로로 시도 생성 (this 잠금 안에서 호출)
+         */
+        private Attempt nextAttempt() {
+            while (!done && nextRoute < routes.size()) {
+                RouteState route = routes.get(nextRoute++);
+                CircuitBreaker.Permit permit = route.breaker.tryAcquire();
+                if (permit != CircuitBreaker.Permit.DENIED) {
+                    Attempt attempt = new Attempt(this, route, permit == CircuitBreaker.Permit.TRIAL);
+                    inFlight.add(attempt);
+                    return attempt;
+                }
+            }
+            return null;
+        }
+
+        private void launch(Attempt attempt) {
+            if (hedgeCountAllows()) {
+                timer.schedule(this::onHedgeTimer, settings.hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            try {
+                // 시도별 StreamControl 을 연결한 채 요청 (HttpClient 가 이 시도의 응답 스트림 닫기를 등록)
+                attempt.control.bind(() -> attempt.route.route.model().chat(request, attempt));
+            } catch (Exception e) {
+                attempt.onError(e);
+            }
+        }
+
+        /**
+         * 요청한 스트림이 취소되면 진행 중인 시도를 모두 끊음
+         */
+        private void cancel() {
+            List<Attempt> attempts;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                attempts = new ArrayList<>(inFlight);
+                inFlight.clear();
+            }
+            attempts.forEach(Attempt::cancel);
+        }
+
+        private synchronized boolean hedgeCountAllows() {
+            return hedgeCount < settings.maxHedges() && nextRoute < routes.size();
+        }
+
+        private void onHedgeTimer() {
+            Attempt hedge;
+            synchronized (this) {
+                if (done || winner != null || hedgeCount >= settings.maxHedges()) {
+                    return;
+                }
+                hedge = nextAttempt();
+                if (hedge == null) {
+                    return;
+                }
+                hedgeCount++;
+            }
+            hedges.increment();
+            log.debug("첫 토큰 지연으로 hedge 요청: {}", hedge.route.route.name());
+            launch(hedge);
+        }
+
+        void onPartialResponse(Attempt attempt, String token) {
+            List<Attempt> losers = List.of();
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                if (winner == null) {
+                    winner = attempt;
+                    losers = detachOthers(attempt);
+                } else if (winner != attempt) {
+                    return;
+                }
+            }
+            losers.forEach(Attempt::abandon);
+            handler.onPartialResponse(token);
+        }
+
+        void onCompleteResponse(Attempt attempt, ChatResponse response) {
+            List<Attempt> losers;
+            synchronized (this) {
+                if (done || (winner != null && winner != attempt)) {
+                    attempt.route.breaker.success();
+                    return;
+                }
+                // 토큰 없이 끝난 응답도 먼저 끝난 쪽을 채택
+                winner = attempt;
+                done = true;
+                losers = detachOthers(attempt);
+            }
+            losers.forEach(Attempt::abandon);
+            attempt.route.breaker.success();
+            attempt.route.won.increment();
+            handler.onCompleteResponse(response);
+        }
+
+        void onError(Attempt attempt, Throwable error) {
+            attempt.route.breaker.failure();
+            attempt.route.failed.increment();
+            Attempt failover = null;
+            boolean fail = false;
+            boolean midStream;
+            synchronized (this) {
+                if (done || (winner != null && winner != attempt)) {
+                    return;
+                }
+                inFlight.remove(attempt);
+                midStream = winner == attempt;
+                if (midStream) {
+                    // 이미 토큰을 내보낸 스트림은 다른 경로로 이어 붙일 수 없음
+                    done = true;
+                    fail = true;
+                } else if (inFlight.isEmpty()) {
+                    failover = nextAttempt();
+                    if (failover == null) {
+                        done = true;
+                        fail = true;
+                    }
+                }
+            }
+            log.warn("모델 경로 실패 [{}]: {}", attempt.route.route.name(), error.toString());
+            if (failover != null) {
+                launch(failover);
+            } else if (fail) {
+                if (!midStream) {
+                    exhausted.increment();
+                }
+                handler.onError(error);
+            }
+        }
+
+        private List<Attempt> detachOthers(Attempt keep) {
+            List<Attempt> others = new ArrayList<>(inFlight);
+            others.remove(keep);
+            inFlight.clear();
+            inFlight.add(keep);
+            return others;
+        }
+    }
+
+    /**
+     * 경로 하나로 보낸 요청
+     */
+    private static final class Attempt implements StreamingChatResponseHandler {
+        private final Exchange exchange;
+        private final RouteState route;
+        // half-open circuit 의 회복 확인 요청인지
+        private final boolean trial;
+        // 이 시도의 요청 (취소하면 응답 스트림을 닫음)
+        private final StreamControl control = new StreamControl();
+        private volatile boolean abandoned;
+
+        Attempt(Exchange exchange, RouteState route, boolean trial) {
+            this.exchange = exchange;
+            this.route = route;
+            this.trial = trial;
+        }
+
+        void abandon() {
+            route.lost.increment();
+            cancel();
+        }
+
+        void cancel() {
+            abandoned = true;
+            control.cancel();
+            if (trial) {
+                // 결과를 모른 채 분리했으므로 다음 요청이 다시 회복을 확인하도록 허용
+                route.breaker.release();
+            }
+        }
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            if (!abandoned) {
+                exchange.onPartialResponse(this, partialResponse);
+            }
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            if (!abandoned) {
+                exchange.onCompleteResponse(this, completeResponse);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (!abandoned) {
+                exchange.onError(this, error);
+            }
+        }
+    }
+
+    /**
+     * 경로 + circuit breaker + 지표
+     */
+    private static final class RouteState {
+        private final Route route;
+        private final CircuitBreaker breaker;
+        private final Counter won;
+        private final Counter lost;
+        private final Counter failed;
+
+        RouteState(Route route, Settings settings, MeterRegistry meterRegistry) {
+            this.route = route;
+            this.breaker = new CircuitBreaker(settings.failureThreshold(), settings.openDuration());
+            this.won = attempts(meterRegistry, route.name(), "won");
+            this.lost = attempts(meterRegistry, route.name(), "lost");
+            this.failed = attempts(meterRegistry, route.name(), "failed");
+            Gauge.builder("chat.model.circuit.open", breaker, b -> b.isOpen() ? 1 : 0)
+                    .description("모델 경로 circuit 열림 여부 (1 이면 차단 중)")
+                    .tag("route", route.name())
+                    .register(meterRegistry);
+        }
+
+        private static Counter attempts(MeterRegistry meterRegistry, String route, String result) {
+            return Counter.builder("chat.model.route.attempts")
+                    .description("모델 경로별 요청 결과 (won: 채택, lost: hedge 경쟁에서 분리, failed: 오류)")
+                    .tag("route", route)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 연속 실패 기반 circuit breaker (closed → open → half-open → closed)
+     */
+    static final class CircuitBreaker {
+
+        enum Permit {
+            DENIED,
+            NORMAL,
+            // half-open 상태에서 통과시킨 회복 확인 요청
+            TRIAL
+        }
+
+        private final int failureThreshold;
+        private final long openNanos;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean open;
+        private boolean trialInFlight;
+
+        CircuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = Math.max(1, failureThreshold);
+            this.openNanos = openDuration.toNanos();
+        }
+
+        synchronized Permit tryAcquire() {
+            if (!open) {
+                return Permit.NORMAL;
+            }
+            if (trialInFlight || System.nanoTime() - openedAt < openNanos) {
+                return Permit.DENIED;
+            }
+            // half-open: 요청 하나만 통과시켜 회복 여부 확인
+            trialInFlight = true;
+            return Permit.TRIAL;
+        }
+
+        synchronized void success() {
+            consecutiveFailures = 0;
+            open = false;
+            trialInFlight = false;
+        }
+
+        synchronized void failure() {
+            consecutiveFailures++;
+            if (trialInFlight || consecutiveFailures >= failureThreshold) {
+                open = true;
+                openedAt = System.nanoTime();
+            }
+            trialInFlight = false;
+        }
+
+        synchronized void release() {
+            trialInFlight = false;
+        }
+
+        synchronized boolean isOpen() {
+            return open;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.langchain.rag.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 채팅 스트림(한 턴) 하나의 취소 상태와 메모리 쓰기 권한
+ * - 이 스트림을 위해 실행되는 코드(AiServices 호출, 모델 콜백, 캐시 재생)는 bind 로 현재 스레드에 연결
+ * - TrackedChatMemory 는 연결된 스트림이 취소되었으면 쓰기를 버림 (중지 뒤 늦게 끝난 응답이 메모리에 섞이지 않도록)
+ * - 쓰기와 cancel() 은 이 객체 잠금으로 직렬화되므로, cancel() 이 true 를 반환한 뒤에는 이 스트림의 쓰기가 없음
+ * - 응답을 완결하는 쓰기(전체 AI 응답)가 먼저 기록되었으면 cancel() 은 false
+ * - onCancel 로 등록한 정리 작업(공급자 응답 스트림 닫기 등)은 cancel() 이 성공할 때 한 번 실행
+ */
+public final class StreamControl {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamControl.class);
+
+    private static final ThreadLocal<StreamControl> CURRENT = new ThreadLocal<>();
+
+    private enum State {
+        ACTIVE,
+        COMPLETED,
+        CANCELLED
+    }
+
+    // this 잠금으로 보호
+    private State state = State.ACTIVE;
+    private List<Runnable> cancelHooks = new ArrayList<>();
+
+    /**
+     * 현재 스레드에 연결된 스트림 (없으면 null)
+     */
+    public static StreamControl current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 이 스트림을 현재 스레드에 연결한 채 action 실행
+     */
+    public <T> T bind(Supplier<T> action) {
+        StreamControl previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public void bind(Runnable action) {
+        bind(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 취소되지 않았으면 write 실행
+     *
+     * @param completes 이 쓰기로 응답이 완결되는지 (이후 cancel() 은 false)
+     * @return 실행했으면 true
+     */
+    public synchronized boolean write(boolean completes, Runnable write) {
+        if (state == State.CANCELLED) {
+            return false;
+        }
+        write.run();
+        if (completes) {
+            state = State.COMPLETED;
+        }
+        return true;
+    }
+
+    /**
+     * 이후 이 스트림의 모델 콜백과 메모리 쓰기를 모두 버림
+     *
+     * @return 이번 호출로 취소되었으면 true (이미 취소되었거나 응답이 완결된 경우 false)
+     */
+    public boolean cancel() {
+        List<Runnable> hooks;
+        synchronized (this) {
+            if (state != State.ACTIVE) {
+                return false;
+            }
+            state = State.CANCELLED;
+            hooks = cancelHooks;
+            cancelHooks = List.of();
+        }
+        // 정리 작업은 잠금 밖에서 실행 (하나가 실패해도 나머지는 실행)
+        for (Runnable hook : hooks) {
+            try {
+                hook.run();
+            } catch (RuntimeException e) {
+                log.warn("스트림 취소 정리 작업 실패", e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * cancel() 이 성공할 때 실행할 정리 작업 등록 (이미 취소되었으면 바로 실행)
+     */
+    public void onCancel(Runnable hook) {
+        synchronized (this) {
+            if (state != State.CANCELLED) {
+                cancelHooks.add(hook);
+                return;
+            }
+        }
+        hook.run();
+    }
+
+    public synchronized boolean isCancelled() {
+        return state == State.CANCELLED;
+    }
+}
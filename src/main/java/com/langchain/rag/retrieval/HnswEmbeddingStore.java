@@ -0,0 +1,265 @@
+package com.langchain.rag.retrieval;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * HnswIndex 기반 LangChain4j EmbeddingStore
+ * - 노드 번호로 ID/세그먼트를 찾는 배열과 ID → 노드 번호 맵을 함께 관리
+ * - 같은 ID 로 다시 추가하면 기존 노드를 삭제 표시하고 새 노드로 교체
+ * - 점수는 InMemoryEmbeddingStore 와 같은 RelevanceScore ((cos + 1) / 2) 이므로 minScore 의미도 동일
+ * - 메타데이터 필터는 탐색 중에 적용되어 top-k 를 필터를 통과한 결과로 채움
+ */
+public class HnswEmbeddingStore implements VectorStore {
+
+    private final HnswIndex index;
+    private final int efSearch;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 아래 필드는 모두 lock 으로 보호 (인덱스 노드 번호와 같은 순서)
+    private final List<String> ids = new ArrayList<>();
+    private final List<TextSegment> segments = new ArrayList<>();
+    private final Map<String, Integer> nodesById = new HashMap<>();
+
+    public HnswEmbeddingStore(HnswIndex index, int efSearch) {
+        this.index = index;
+        this.efSearch = efSearch;
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        put(id, embedding, null);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        put(id, embedding, null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        put(id, embedding, textSegment);
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> added = new ArrayList<>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            added.add(add(embedding));
+        }
+        return added;
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> embedded) {
+        if (ids.size() != embeddings.size() || (embedded != null && embedded.size() != ids.size())) {
+            throw new IllegalArgumentException("ids, embeddings, embedded 의 크기가 같아야 합니다.");
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            put(ids.get(i), embeddings.get(i), embedded == null ? null : embedded.get(i));
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                Integer node = nodesById.remove(id);
+                if (node != null) {
+                    deleteLocked(node);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        lock.writeLock().lock();
+        try {
+            for (int node = 0; node < segments.size(); node++) {
+                TextSegment segment = segments.get(node);
+                if (segment != null && filter.test(segment.metadata())) {
+                    nodesById.remove(ids.get(node));
+                    deleteLocked(node);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            ids.clear();
+            segments.clear();
+            nodesById.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        Filter filter = request.filter();
+        lock.readLock().lock();
+        try {
+            IntPredicate accept = null;
+            if (filter != null) {
+                accept = node -> {
+                    TextSegment segment = segments.get(node);
+                    return segment != null && filter.test(segment.metadata());
+                };
+            }
+            List<HnswIndex.Hit> hits = index.search(request.queryEmbedding().vector(), request.maxResults(), efSearch, accept);
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(hits.size());
+            for (HnswIndex.Hit hit : hits) {
+                double score = RelevanceScore.fromCosineSimilarity(hit.score());
+                if (score < request.minScore()) {
+                    // 유사도 내림차순이므로 이후 결과도 모두 미달
+                    break;
+                }
+                matches.add(new EmbeddingMatch<>(score, ids.get(hit.node()),
+                        Embedding.from(index.vector(hit.node())), segments.get(hit.node())));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return nodesById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TextSegment segment(String id) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodesById.get(id);
+            return node == null ? null : segments.get(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Embedding embedding(String id) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodesById.get(id);
+            return node == null ? null : Embedding.from(index.vector(node));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, TextSegment> action) {
+        lock.readLock().lock();
+        try {
+            nodesById.forEach((id, node) -> action.accept(id, segments.get(node)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", size());
+        result.put("nodes", index.size());
+        result.put("deletedNodes", index.deletedCount());
+        result.put("dimension", index.dimension());
+        result.put("efSearch", efSearch);
+        return result;
+    }
+
+    HnswIndex index() {
+        return index;
+    }
+
+    /**
+     * 노드 번호의 ID (세그먼트 기록용)
+     */
+    String id(int node) {
+        lock.readLock().lock();
+        try {
+            return ids.get(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    TextSegment segment(int node) {
+        lock.readLock().lock();
+        try {
+            return segments.get(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(String id, Embedding embedding, TextSegment segment) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = nodesById.get(id);
+            if (previous != null) {
+                deleteLocked(previous);
+            }
+            int node = index.add(embedding.vector());
+            ids.add(id);
+            segments.add(segment);
+            nodesById.put(id, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void deleteLocked(int node) {
+        index.markDeleted(node);
+        // 그래프에는 남아 있으므로 세그먼트만 해제하여 메모리를 돌려받음
+        segments.set(node, null);
+    }
+}
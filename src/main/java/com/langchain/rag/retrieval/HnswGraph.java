@@ -0,0 +1,43 @@
+package com.langchain.rag.retrieval;
+
+/**
+ * HNSW 그래프 읽기 전용 뷰
+ * - 힙 배열 기반 HnswIndex 와 mmap 기반 MappedSegment 가 같은 탐색 코드(HnswSearcher)를 공유하기 위한 추상화
+ * - 호출자가 그래프가 바뀌지 않도록 보장해야 함 (HnswIndex 는 잠금 안에서만 노출)
+ */
+interface HnswGraph {
+
+    int dimension();
+
+    /**
+     * 레벨 1 이상 노드당 최대 이웃 수 (레벨 0 은 maxM0)
+     */
+    int m();
+
+    int maxM0();
+
+    /**
+     * 삭제 표시된 노드를 포함한 전체 노드 수
+     */
+    int nodeCount();
+
+    /**
+     * 진입점 노드 (비어 있으면 -1)
+     */
+    int entryPoint();
+
+    int maxLevel();
+
+    int level(int node);
+
+    /**
+     * 질의 벡터(정규화됨)와 노드 벡터의 내적
+     */
+    float similarity(float[] query, int node);
+
+    int neighborCount(int node, int level);
+
+    int neighbor(int node, int level, int index);
+
+    void copyVector(int node, float[] target);
+}
@@ -0,0 +1,486 @@
+package com.langchain.rag.retrieval;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * 인메모리 HNSW(Hierarchical Navigable Small World) 근사 최근접 이웃 인덱스
+ * - 벡터는 L2 정규화 후 페이지 단위의 연속된 float[] 에 저장하고, 유사도는 내적(= 코사인)으로 계산
+ * - 레벨 0 이웃 목록도 페이지 단위 int[] 에 [개수, 이웃...] 형태로 저장 (노드당 객체 할당 없음)
+ * - 삭제는 표시만 하고 그래프 탐색에는 계속 사용 (결과에서만 제외)
+ * - 추가는 쓰기 잠금으로 직렬화, 검색은 읽기 잠금으로 동시 실행
+ */
+public class HnswIndex {
+
+    /**
+     * 검색 결과 (노드 번호, 코사인 유사도)
+     */
+    public record Hit(int node, float score) {
+    }
+
+    // 페이지당 노드 수 (2^12)
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 아래 필드는 모두 lock 으로 보호
+    private float[][] vectorPages = new float[0][];
+    private int[][] level0Pages = new int[0][];
+    private byte[] levels = new byte[0];
+    // 레벨 1 이상 이웃 목록 (해당 레벨이 있는 노드만, upper[node][level - 1] = [개수, 이웃...])
+    private int[][][] upper = new int[0][][];
+    private final BitSet deleted = new BitSet();
+    private int size;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    // 잠금을 잡은 상태에서만 사용하는 HnswSearcher 용 뷰
+    private final HnswGraph graph = new Graph();
+
+    /**
+     * @param dimension      벡터 차원
+     * @param m              레벨 1 이상에서 노드당 최대 이웃 수 (레벨 0 은 2m)
+     * @param efConstruction 추가 시 탐색 후보 수
+     * @param seed           레벨 추첨용 시드 (같은 입력 순서면 같은 그래프)
+     */
+    public HnswIndex(int dimension, int m, int efConstruction, long seed) {
+        if (dimension <= 0 || m < 2 || efConstruction < m) {
+            throw new IllegalArgumentException("잘못된 HNSW 설정입니다: dimension=" + dimension
+                    + ", m=" + m + ", efConstruction=" + efConstruction);
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    public HnswIndex(int dimension, int m, int efConstruction) {
+        this(dimension, m, efConstruction, 42L);
+    }
+
+    /**
+     * 벡터 추가
+     *
+     * @return 새 노드 번호 (0부터 순서대로 증가)
+     */
+    public int add(float[] vector) {
+        float[] query = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            int node = size;
+            ensureCapacity(node + 1);
+            System.arraycopy(query, 0, vectorPages[node >>> PAGE_BITS], (node & PAGE_MASK) * dimension, dimension);
+            int level = randomLevel();
+            levels[node] = (byte) level;
+            if (level > 0) {
+                upper[node] = new int[level][m + 1];
+            }
+            size++;
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return node;
+            }
+
+            int ep = entryPoint;
+            float epScore = similarity(query, ep);
+            for (int l = maxLevel; l > level; l--) {
+                ep = HnswSearcher.greedy(graph, query, ep, l);
+                epScore = similarity(query, ep);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                NodeHeap found = HnswSearcher.searchLayer(graph, query, ep, epScore, efConstruction, l, null);
+                int count = found.size();
+                int[] candidates = new int[count];
+                float[] scores = new float[count];
+                // min-heap 에서 꺼내면 오름차순이므로 뒤에서부터 채워 내림차순으로 정렬
+                for (int i = count - 1; i >= 0; i--) {
+                    scores[i] = found.peekScore();
+                    candidates[i] = found.pop();
+                }
+                int maxConnections = l == 0 ? maxM0 : m;
+                int[] selected = selectNeighbors(candidates, scores, count, maxConnections);
+                setLinks(node, l, selected, selected.length);
+                for (int neighbor : selected) {
+                    connect(neighbor, node, l, maxConnections);
+                }
+                ep = candidates[0];
+                epScore = scores[0];
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+            return node;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 근사 최근접 이웃 검색
+     *
+     * @param query  질의 벡터 (정규화되지 않아도 됨)
+     * @param k      반환할 최대 결과 수
+     * @param ef     탐색 후보 수 (클수록 정확하고 느림, k 보다 작으면 k 사용)
+     * @param accept 결과에 포함할 노드 조건 (null 이면 삭제되지 않은 모든 노드)
+     * @return 유사도 내림차순 결과
+     */
+    public List<Hit> search(float[] query, int k, int ef, IntPredicate accept) {
+        if (k <= 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            IntPredicate live = accept == null
+                    ? node -> !deleted.get(node)
+                    : node -> !deleted.get(node) && accept.test(node);
+            return HnswSearcher.search(graph, normalized, k, ef, live);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 전수 비교 검색 (정확도 검증/작은 인덱스용)
+     */
+    public List<Hit> exactSearch(float[] query, int k, IntPredicate accept) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            NodeHeap top = NodeHeap.minHeap(k + 1);
+            for (int node = 0; node < size; node++) {
+                if (!deleted.get(node) && (accept == null || accept.test(node))) {
+                    top.pushBounded(node, similarity(normalized, node), k);
+                }
+            }
+            Hit[] hits = new Hit[top.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                float score = top.peekScore();
+                hits[i] = new Hit(top.pop(), score);
+            }
+            return Arrays.asList(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 삭제 표시 (그래프 연결은 유지하고 검색 결과에서만 제외)
+     */
+    public void markDeleted(int node) {
+        lock.writeLock().lock();
+        try {
+            if (node >= 0 && node < size && !deleted.get(node)) {
+                deleted.set(node);
+                deletedCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isDeleted(int node) {
+        lock.readLock().lock();
+        try {
+            return deleted.get(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 저장된 (정규화된) 벡터 복사본
+     */
+    public float[] vector(int node) {
+        lock.readLock().lock();
+        try {
+            float[] copy = new float[dimension];
+            System.arraycopy(vectorPages[node >>> PAGE_BITS], (node & PAGE_MASK) * dimension, copy, 0, dimension);
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            vectorPages = new float[0][];
+            level0Pages = new int[0][];
+            levels = new byte[0];
+            upper = new int[0][][];
+            deleted.clear();
+            size = 0;
+            deletedCount = 0;
+            entryPoint = -1;
+            maxLevel = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * 삭제 표시된 노드를 포함한 전체 노드 수
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int liveCount() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 이웃 선택 휴리스틱: 이미 선택된 이웃보다 기준점에 더 가까운 후보만 우선 선택하여 방향을 분산,
+     * 자리가 남으면 제외된 후보 중 가까운 순으로 채움
+     *
+     * @param candidates 유사도 내림차순 후보
+     */
+    private int[] selectNeighbors(int[] candidates, float[] scores, int count, int max) {
+        if (count <= max) {
+            return Arrays.copyOf(candidates, count);
+        }
+        int[] selected = new int[max];
+        boolean[] taken = new boolean[count];
+        int n = 0;
+        for (int i = 0; i < count && n < max; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < n; j++) {
+                if (similarity(candidates[i], selected[j]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[n++] = candidates[i];
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < count && n < max; i++) {
+            if (!taken[i]) {
+                selected[n++] = candidates[i];
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * neighbor 의 이웃 목록에 node 를 추가, 가득 차면 휴리스틱으로 다시 선택
+     */
+    private void connect(int neighbor, int node, int level, int maxConnections) {
+        int[] links = linkArray(neighbor, level);
+        int offset = linkOffset(neighbor, level);
+        int count = links[offset];
+        if (count < maxConnections) {
+            links[offset + 1 + count] = node;
+            links[offset] = count + 1;
+            return;
+        }
+        float score = similarity(neighbor, node);
+        NodeHeap ranked = NodeHeap.minHeap(count + 1);
+        for (int i = 1; i <= count; i++) {
+            ranked.push(links[offset + i], similarity(neighbor, links[offset + i]));
+        }
+        if (score <= ranked.peekScore()) {
+            // 기존 이웃보다 모두 멀면 목록을 바꾸지 않음 (대부분의 경우 다시 선택하는 비용을 생략)
+            return;
+        }
+        ranked.push(node, score);
+        int total = ranked.size();
+        int[] candidates = new int[total];
+        float[] scores = new float[total];
+        for (int i = total - 1; i >= 0; i--) {
+            scores[i] = ranked.peekScore();
+            candidates[i] = ranked.pop();
+        }
+        int[] selected = selectNeighbors(candidates, scores, total, maxConnections);
+        setLinks(neighbor, level, selected, selected.length);
+    }
+
+    private void setLinks(int node, int level, int[] neighbors, int count) {
+        int[] links = linkArray(node, level);
+        int offset = linkOffset(node, level);
+        links[offset] = count;
+        System.arraycopy(neighbors, 0, links, offset + 1, count);
+    }
+
+    private int[] linkArray(int node, int level) {
+        return level == 0 ? level0Pages[node >>> PAGE_BITS] : upper[node][level - 1];
+    }
+
+    private int linkOffset(int node, int level) {
+        return level == 0 ? (node & PAGE_MASK) * (maxM0 + 1) : 0;
+    }
+
+    private int randomLevel() {
+        double r = 1.0 - random.nextDouble();
+        return Math.min((int) (-Math.log(r) * levelMultiplier), Byte.MAX_VALUE);
+    }
+
+    private void ensureCapacity(int required) {
+        int pages = (required + PAGE_SIZE - 1) >>> PAGE_BITS;
+        if (pages > vectorPages.length) {
+            int from = vectorPages.length;
+            vectorPages = Arrays.copyOf(vectorPages, pages);
+            level0Pages = Arrays.copyOf(level0Pages, pages);
+            for (int p = from; p < pages; p++) {
+                vectorPages[p] = new float[PAGE_SIZE * dimension];
+                level0Pages[p] = new int[PAGE_SIZE * (maxM0 + 1)];
+            }
+        }
+        if (required > levels.length) {
+            int capacity = Math.max(required, levels.length + (levels.length >> 1) + 16);
+            levels = Arrays.copyOf(levels, capacity);
+            upper = Arrays.copyOf(upper, capacity);
+        }
+    }
+
+    private float similarity(float[] query, int node) {
+        return dot(query, 0, vectorPages[node >>> PAGE_BITS], (node & PAGE_MASK) * dimension, dimension);
+    }
+
+    private float similarity(int a, int b) {
+        return dot(vectorPages[a >>> PAGE_BITS], (a & PAGE_MASK) * dimension,
+                vectorPages[b >>> PAGE_BITS], (b & PAGE_MASK) * dimension, dimension);
+    }
+
+    /**
+     * 내적 (누산기 4개로 나눠 의존 체인을 줄임)
+     */
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("벡터 차원이 일치하지 않습니다: expected="
+                    + dimension + ", actual=" + vector.length);
+        }
+        return HnswSearcher.normalize(vector);
+    }
+
+    /**
+     * 더 이상 추가가 없는 인덱스의 그래프 뷰 (세그먼트 파일 기록용)
+     * - 잠금 없이 읽으므로 add 가 끝난 인덱스에서만 사용 (삭제 표시는 그래프 구조를 바꾸지 않아 무관)
+     */
+    HnswGraph frozenGraph() {
+        return graph;
+    }
+
+    /**
+     * 배열 기반 HnswGraph 구현 (호출자가 lock 을 잡고 있어야 함)
+     */
+    private final class Graph implements HnswGraph {
+
+        @Override
+        public int dimension() {
+            return dimension;
+        }
+
+        @Override
+        public int m() {
+            return m;
+        }
+
+        @Override
+        public int maxM0() {
+            return maxM0;
+        }
+
+        @Override
+        public int nodeCount() {
+            return size;
+        }
+
+        @Override
+        public int entryPoint() {
+            return entryPoint;
+        }
+
+        @Override
+        public int maxLevel() {
+            return maxLevel;
+        }
+
+        @Override
+        public int level(int node) {
+            return levels[node];
+        }
+
+        @Override
+        public float similarity(float[] query, int node) {
+            return HnswIndex.this.similarity(query, node);
+        }
+
+        @Override
+        public int neighborCount(int node, int level) {
+            return linkArray(node, level)[linkOffset(node, level)];
+        }
+
+        @Override
+        public int neighbor(int node, int level, int index) {
+            return linkArray(node, level)[linkOffset(node, level) + 1 + index];
+        }
+
+        @Override
+        public void copyVector(int node, float[] target) {
+            System.arraycopy(vectorPages[node >>> PAGE_BITS], (node & PAGE_MASK) * dimension, target, 0, dimension);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.langchain.rag.retrieval;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * HnswGraph 위의 HNSW 탐색 (힙 인덱스와 mmap 세그먼트 공용)
+ */
+final class HnswSearcher {
+
+    private static final ScratchPool<VisitedSet> VISITED = ScratchPool.perProcessor(VisitedSet::new);
+
+    private HnswSearcher() {
+    }
+
+    /**
+     * 상위 레벨을 greedy 로 내려간 뒤 레벨 0 에서 ef 후보 탐색
+     *
+     * @param query  정규화된 질의 벡터
+     * @param accept 결과에 포함할 노드 조건 (null 이면 모든 노드)
+     * @return 유사도 내림차순 최대 k 개
+     */
+    static List<HnswIndex.Hit> search(HnswGraph graph, float[] query, int k, int ef, IntPredicate accept) {
+        int ep = graph.entryPoint();
+        if (ep < 0 || k <= 0) {
+            return List.of();
+        }
+        for (int l = graph.maxLevel(); l > 0; l--) {
+            ep = greedy(graph, query, ep, l);
+        }
+        NodeHeap found = searchLayer(graph, query, ep, graph.similarity(query, ep), Math.max(ef, k), 0, accept);
+        while (found.size() > k) {
+            found.pop();
+        }
+        HnswIndex.Hit[] hits = new HnswIndex.Hit[found.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            float score = found.peekScore();
+            hits[i] = new HnswIndex.Hit(found.pop(), score);
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * L2 정규화한 복사본 (영벡터는 그대로)
+     */
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                normalized[i] = vector[i] * scale;
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * 한 레벨에서 가장 가까운 노드로 이동 (ef=1 탐색)
+     */
+    static int greedy(HnswGraph graph, float[] query, int ep, int level) {
+        int current = ep;
+        float currentScore = graph.similarity(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int count = graph.neighborCount(current, level);
+            // 이번 라운드는 시작 노드의 이웃만 확인
+            int base = current;
+            for (int i = 0; i < count; i++) {
+                int neighbor = graph.neighbor(base, level, i);
+                float score = graph.similarity(query, neighbor);
+                if (score > currentScore) {
+                    current = neighbor;
+                    currentScore = score;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 한 레벨에서의 best-first 탐색
+     *
+     * @return 결과 min-heap (최대 ef 개, accept 를 통과한 노드만)
+     */
+    static NodeHeap searchLayer(HnswGraph graph, float[] query, int ep, float epScore, int ef, int level,
+                                IntPredicate accept) {
+        VisitedSet visited = VISITED.acquire();
+        try {
+            visited.reset(graph.nodeCount());
+            NodeHeap candidates = NodeHeap.maxHeap(ef * 2);
+            NodeHeap results = NodeHeap.minHeap(ef + 1);
+
+            visited.visit(ep);
+            candidates.push(ep, epScore);
+            if (accept == null || accept.test(ep)) {
+                results.push(ep, epScore);
+            }
+            while (!candidates.isEmpty()) {
+                if (results.size() >= ef && candidates.peekScore() < results.peekScore()) {
+                    break;
+                }
+                int current = candidates.pop();
+                int count = graph.neighborCount(current, level);
+                for (int i = 0; i < count; i++) {
+                    int neighbor = graph.neighbor(current, level, i);
+                    if (!visited.visit(neighbor)) {
+                        continue;
+                    }
+                    float score = graph.similarity(query, neighbor);
+                    if (results.size() < ef || score > results.peekScore()) {
+                        candidates.push(neighbor, score);
+                        if (accept == null || accept.test(neighbor)) {
+                            results.pushBounded(neighbor, score, ef);
+                        }
+                    }
+                }
+            }
+            return results;
+        } finally {
+            VISITED.release(visited);
+        }
+    }
+
+    /**
+     * 방문 표시 (ScratchPool 에서 빌려 세대 번호로 초기화 비용 없이 재사용)
+     */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        /**
+         * @return 처음 방문이면 true
+         */
+        boolean visit(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
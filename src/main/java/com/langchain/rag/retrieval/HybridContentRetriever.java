@@ -0,0 +1,125 @@
+package com.langchain.rag.retrieval;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 벡터 검색과 BM25 어휘 검색을 reciprocal-rank fusion 으로 합치는 ContentRetriever
+ * - 두 검색에서 각각 candidates 개를 뽑고, 문서 점수 = Σ weight / (rrfK + 순위)
+ * - 점수 척도가 다른 두 검색을 순위만으로 합치므로 별도의 점수 보정이 필요 없음
+ * - 질의의 코드 토큰(제품/오류 코드)을 모두 포함하는 어휘 후보는 (vectorWeight + lexicalWeight) / (rrfK + 1) 가산
+ *   (흔한 토큰이 많이 겹치는 문서가 순위 합으로 정확 일치 문서를 밀어내지 않도록)
+ * - minScore 는 벡터 후보에, lexicalFloor 는 어휘 검색에만 걸린 후보에 적용
+ *   (BM25 점수는 척도가 질의마다 달라 절대 임계값 대신 질의 최고 점수 대비 비율, 정확 일치 후보는 제외)
+ * - 메타데이터 필터는 벡터 검색에는 탐색 중에, 어휘 후보에는 세그먼트 조회 후 적용
+ * - 최종 top-k 는 크기 maxResults 의 min-heap 으로 선택
+ */
+public class HybridContentRetriever implements ContentRetriever {
+
+    /**
+     * @param candidates 각 검색에서 가져올 후보 수
+     * @param rrfK         순위 감쇠 상수 (클수록 하위 순위의 기여가 커짐, 보통 60)
+     * @param lexicalFloor 어휘 검색에만 걸린 후보의 최소 BM25 점수 (질의 최고 점수 대비 비율, 0 이면 제한 없음)
+     */
+    public record Settings(int maxResults, double minScore, Filter filter, int candidates, int rrfK,
+                           float vectorWeight, float lexicalWeight, float lexicalFloor) {
+
+        public Settings(int maxResults, double minScore, Filter filter, int candidates, int rrfK,
+                        float vectorWeight, float lexicalWeight) {
+            this(maxResults, minScore, filter, candidates, rrfK, vectorWeight, lexicalWeight, 0f);
+        }
+    }
+
+    private final VectorStore store;
+    private final LexicalIndex lexicalIndex;
+    private final EmbeddingModel embeddingModel;
+    private final Settings settings;
+
+    public HybridContentRetriever(VectorStore store, LexicalIndex lexicalIndex, EmbeddingModel embeddingModel,
+                                  Settings settings) {
+        this.store = store;
+        this.lexicalIndex = lexicalIndex;
+        this.embeddingModel = embeddingModel;
+        this.settings = settings;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        List<TextSegment> segments = new ArrayList<>();
+        float[] scores = fuse(query.text(), segments);
+
+        NodeHeap top = NodeHeap.minHeap(settings.maxResults());
+        for (int i = 0; i < segments.size(); i++) {
+            top.pushBounded(i, scores[i], settings.maxResults());
+        }
+        Content[] contents = new Content[top.size()];
+        for (int i = contents.length - 1; i >= 0; i--) {
+            contents[i] = Content.from(segments.get(top.pop()));
+        }
+        return List.of(contents);
+    }
+
+    /**
+     * 두 검색 결과를 RRF 로 합친 점수 (segments 와 같은 순서)
+     */
+    float[] fuse(String text, List<TextSegment> segments) {
+        Embedding embedding = embeddingModel.embed(text).content();
+        List<EmbeddingMatch<TextSegment>> vectorMatches = store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(embedding)
+                .maxResults(settings.candidates())
+                .minScore(settings.minScore())
+                .filter(settings.filter())
+                .build()).matches();
+        List<LexicalIndex.Hit> lexicalHits = lexicalIndex.search(text, settings.candidates());
+        float exactBonus = (settings.vectorWeight() + settings.lexicalWeight()) / (settings.rrfK() + 1);
+        float floor = lexicalHits.isEmpty() ? 0 : lexicalHits.get(0).score() * settings.lexicalFloor();
+
+        Map<String, Integer> positions = new HashMap<>();
+        float[] scores = new float[vectorMatches.size() + lexicalHits.size()];
+        for (int rank = 0; rank < vectorMatches.size(); rank++) {
+            EmbeddingMatch<TextSegment> match = vectorMatches.get(rank);
+            if (match.embedded() == null) {
+                continue;
+            }
+            positions.put(match.embeddingId(), segments.size());
+            scores[segments.size()] = settings.vectorWeight() / (settings.rrfK() + rank + 1);
+            segments.add(match.embedded());
+        }
+        for (int rank = 0; rank < lexicalHits.size(); rank++) {
+            LexicalIndex.Hit hit = lexicalHits.get(rank);
+            String id = hit.id();
+            float score = settings.lexicalWeight() / (settings.rrfK() + rank + 1);
+            if (hit.exact()) {
+                score += exactBonus;
+            }
+            Integer position = positions.get(id);
+            if (position != null) {
+                scores[position] += score;
+                continue;
+            }
+            if (!hit.exact() && hit.score() < floor) {
+                continue;
+            }
+            // 벡터 후보에 없던 문서는 저장소에서 조회 (삭제되었거나 필터에 걸리면 제외)
+            TextSegment segment = store.segment(id);
+            if (segment == null || (settings.filter() != null && !settings.filter().test(segment.metadata()))) {
+                continue;
+            }
+            scores[segments.size()] = score;
+            segments.add(segment);
+        }
+        return scores;
+    }
+}
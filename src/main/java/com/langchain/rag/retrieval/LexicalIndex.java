@@ -0,0 +1,363 @@
+package com.langchain.rag.retrieval;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BM25 역색인 (힙 전용)
+ * - 포스팅은 용어별 byte[] 에 (문서 번호 차이, tf) 를 varint 로 이어 붙여 저장 (List&lt;Integer&gt; 대비 수 배 작음)
+ * - 문서 번호는 추가 순서대로 증가하므로 포스팅은 항상 뒤에 덧붙이기만 함
+ * - 삭제는 비트셋으로 표시하고, 삭제 비율이 높아지면 포스팅을 다시 인코딩하여 df 와 크기를 회복
+ * - 점수 누적은 ScratchPool 에서 빌려 재사용하는 float 배열 (가상 스레드에서도 재사용), top-k 는 크기 k 의 min-heap 으로 선택
+ */
+public class LexicalIndex {
+
+    private static final ScratchPool<Accumulator> ACCUMULATORS = ScratchPool.perProcessor(Accumulator::new);
+
+    /**
+     * @param score BM25 점수
+     * @param exact 질의의 코드 토큰(LexicalTokenizer.isCode)을 모두 포함하는지 (질의에 코드 토큰이 없으면 false)
+     */
+    public record Hit(String id, float score, boolean exact) {
+    }
+
+    private final LexicalTokenizer tokenizer;
+    private final float k1;
+    private final float b;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 아래 필드는 모두 lock 으로 보호
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private Postings[] postings = new Postings[1024];
+    private final Map<String, Integer> docsById = new HashMap<>();
+    private String[] docIds = new String[1024];
+    private int[] docLengths = new int[1024];
+    private int docCount;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    // 포스팅에 아직 남아 있는 삭제 문서 수 (정리 시 0 으로)
+    private int uncompactedDeletes;
+    private long totalLength;
+
+    public LexicalIndex(int ngram, float k1, float b) {
+        this.tokenizer = new LexicalTokenizer(ngram);
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * 문서 추가 (같은 ID 가 있으면 교체)
+     */
+    public void put(String id, String text) {
+        Map<String, Integer> frequencies = termFrequencies(text);
+        lock.writeLock().lock();
+        try {
+            deleteLocked(id);
+            addLocked(id, frequencies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 같은 ID 가 없을 때만 추가 (백그라운드 재구성이 더 최신 문서를 덮어쓰지 않도록)
+     */
+    public void putIfAbsent(String id, String text) {
+        Map<String, Integer> frequencies = termFrequencies(text);
+        lock.writeLock().lock();
+        try {
+            if (!docsById.containsKey(id)) {
+                addLocked(id, frequencies);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            deleteLocked(id);
+            // 삭제 문서가 전체의 1/4 을 넘으면 포스팅 정리
+            if (uncompactedDeletes > 1024 && uncompactedDeletes * 4 > docCount - deletedCount + uncompactedDeletes) {
+                compactLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            termIds.clear();
+            postings = new Postings[1024];
+            docsById.clear();
+            docIds = new String[1024];
+            docLengths = new int[1024];
+            docCount = 0;
+            deleted.clear();
+            deletedCount = 0;
+            uncompactedDeletes = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * BM25 상위 k 개 (점수 내림차순, 질의 용어가 하나도 없으면 빈 목록)
+     */
+    public List<Hit> search(String query, int k) {
+        Set<String> terms = new LinkedHashSet<>(tokenizer.tokenize(query));
+        Accumulator accumulator = ACCUMULATORS.acquire();
+        lock.readLock().lock();
+        try {
+            int live = docCount - deletedCount;
+            if (live == 0 || k <= 0) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / live;
+            accumulator.reset(docCount);
+            int codeTerms = 0;
+            for (String term : terms) {
+                boolean code = LexicalTokenizer.isCode(term);
+                if (code) {
+                    codeTerms++;
+                }
+                Integer termId = termIds.get(term);
+                if (termId == null) {
+                    continue;
+                }
+                Postings list = postings[termId];
+                // df 에는 정리 전 삭제 문서가 섞여 있을 수 있으므로 live 로 제한
+                int df = Math.min(list.df, live);
+                float idf = (float) Math.log(1 + (live - df + 0.5) / (df + 0.5));
+                byte[] data = list.data;
+                int position = 0;
+                int doc = 0;
+                while (position < list.length) {
+                    // varint 두 개 (문서 번호 차이, tf) 를 인라인으로 디코딩
+                    int delta = 0;
+                    for (int shift = 0; ; shift += 7) {
+                        byte value = data[position++];
+                        delta |= (value & 0x7F) << shift;
+                        if (value >= 0) {
+                            break;
+                        }
+                    }
+                    int tf = 0;
+                    for (int shift = 0; ; shift += 7) {
+                        byte value = data[position++];
+                        tf |= (value & 0x7F) << shift;
+                        if (value >= 0) {
+                            break;
+                        }
+                    }
+                    doc += delta;
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    float norm = k1 * (1 - b + b * docLengths[doc] / averageLength);
+                    accumulator.add(doc, idf * tf * (k1 + 1) / (tf + norm));
+                    if (code) {
+                        accumulator.codeMatches[doc]++;
+                    }
+                }
+            }
+
+            NodeHeap top = NodeHeap.minHeap(k);
+            for (int i = 0; i < accumulator.touchedCount; i++) {
+                int doc = accumulator.touched[i];
+                top.pushBounded(doc, accumulator.scores[doc], k);
+            }
+            Hit[] hits = new Hit[top.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                float score = top.peekScore();
+                int doc = top.pop();
+                hits[i] = new Hit(docIds[doc], score, codeTerms > 0 && accumulator.codeMatches[doc] == codeTerms);
+            }
+            return Arrays.asList(hits);
+        } finally {
+            lock.readLock().unlock();
+            ACCUMULATORS.release(accumulator);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            long postingBytes = 0;
+            for (int i = 0; i < termIds.size(); i++) {
+                postingBytes += postings[i].length;
+            }
+            result.put("documents", docCount - deletedCount);
+            result.put("deletedDocuments", deletedCount);
+            result.put("terms", termIds.size());
+            result.put("postingBytes", postingBytes);
+            result.put("averageLength", docCount == deletedCount ? 0 : (double) totalLength / (docCount - deletedCount));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenizer.tokenize(text)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private void addLocked(String id, Map<String, Integer> frequencies) {
+        int doc = docCount++;
+        if (doc == docIds.length) {
+            docIds = Arrays.copyOf(docIds, doc * 2);
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            int termId = termIds.computeIfAbsent(entry.getKey(), term -> termIds.size());
+            if (termId == postings.length) {
+                postings = Arrays.copyOf(postings, termId * 2);
+            }
+            if (postings[termId] == null) {
+                postings[termId] = new Postings();
+            }
+            postings[termId].append(doc, entry.getValue());
+            length += entry.getValue();
+        }
+        docIds[doc] = id;
+        docLengths[doc] = length;
+        docsById.put(id, doc);
+        totalLength += length;
+    }
+
+    private void deleteLocked(String id) {
+        Integer doc = docsById.remove(id);
+        if (doc != null) {
+            deleted.set(doc);
+            deletedCount++;
+            uncompactedDeletes++;
+            totalLength -= docLengths[doc];
+            docIds[doc] = null;
+        }
+    }
+
+    /**
+     * 삭제된 문서를 뺀 포스팅으로 다시 인코딩 (문서 번호는 유지, 빈 용어는 남겨 둠)
+     */
+    private void compactLocked() {
+        for (int termId = 0; termId < termIds.size(); termId++) {
+            Postings source = postings[termId];
+            Postings target = new Postings();
+            int position = 0;
+            int doc = 0;
+            while (position < source.length) {
+                int delta = source.readVarint(position);
+                position = source.next;
+                int tf = source.readVarint(position);
+                position = source.next;
+                doc += delta;
+                if (!deleted.get(doc)) {
+                    target.append(doc, tf);
+                }
+            }
+            postings[termId] = target;
+        }
+        uncompactedDeletes = 0;
+    }
+
+    /**
+     * 한 용어의 포스팅 (varint 인코딩된 문서 번호 차이와 tf)
+     */
+    private static final class Postings {
+        private byte[] data = new byte[8];
+        private int length;
+        private int df;
+        private int lastDoc;
+        // readVarint 가 읽은 다음 위치 (쓰기 잠금 안에서만 사용)
+        private int next;
+
+        void append(int doc, int tf) {
+            writeVarint(doc - lastDoc);
+            writeVarint(tf);
+            lastDoc = doc;
+            df++;
+        }
+
+        private void writeVarint(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        int readVarint(int position) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte current = data[position++];
+                value |= (current & 0x7F) << shift;
+                if (current >= 0) {
+                    next = position;
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * 문서별 점수/코드 토큰 일치 수 누적 배열 (touched 에 기록한 문서만 다음 질의 전에 초기화)
+     */
+    private static final class Accumulator {
+        private float[] scores = new float[0];
+        private int[] codeMatches = new int[0];
+        private int[] touched = new int[64];
+        private int touchedCount;
+
+        void reset(int capacity) {
+            if (scores.length < capacity) {
+                scores = new float[Math.max(capacity, scores.length * 2)];
+                codeMatches = new int[scores.length];
+            } else {
+                for (int i = 0; i < touchedCount; i++) {
+                    scores[touched[i]] = 0;
+                    codeMatches[touched[i]] = 0;
+                }
+            }
+            touchedCount = 0;
+        }
+
+        void add(int doc, float score) {
+            if (scores[doc] == 0) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                }
+                touched[touchedCount++] = doc;
+            }
+            scores[doc] += score;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.langchain.rag.retrieval;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.filter.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 벡터 저장소에 쓰는 내용을 LexicalIndex 에도 반영하는 VectorStore
+ * - 적재 파이프라인은 이 저장소만 알면 되고, 두 인덱스는 같은 청크 ID 를 공유
+ * - 시작 시 저장소에 이미 있는 항목(디스크 세그먼트)은 백그라운드 스레드로 색인하며, 끝나기 전까지는 어휘 검색 결과가 일부만 나옴
+ * - removeAll(Filter) 는 필터에 맞는 ID 를 먼저 모은 뒤 저장소에서 지우고 어휘 색인에서도 제거
+ */
+public class LexicalIndexedStore implements VectorStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LexicalIndexedStore.class);
+
+    private final VectorStore delegate;
+    private final LexicalIndex lexicalIndex;
+    private volatile boolean lexicalReady;
+
+    public LexicalIndexedStore(VectorStore delegate, LexicalIndex lexicalIndex) {
+        this.delegate = delegate;
+        this.lexicalIndex = lexicalIndex;
+        if (delegate.size() == 0) {
+            lexicalReady = true;
+        } else {
+            Thread loader = new Thread(this::loadExisting, "lexical-index-loader");
+            loader.setDaemon(true);
+            loader.setPriority(Thread.NORM_PRIORITY - 1);
+            loader.start();
+        }
+    }
+
+    public LexicalIndex lexicalIndex() {
+        return lexicalIndex;
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        return delegate.add(embedding);
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        delegate.add(id, embedding);
+        lexicalIndex.remove(id);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = delegate.add(embedding, textSegment);
+        lexicalIndex.put(id, textSegment.text());
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        return delegate.addAll(embeddings);
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> embedded) {
+        delegate.addAll(ids, embeddings, embedded);
+        for (int i = 0; i < ids.size(); i++) {
+            if (embedded == null || embedded.get(i) == null) {
+                lexicalIndex.remove(ids.get(i));
+            } else {
+                lexicalIndex.put(ids.get(i), embedded.get(i).text());
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        delegate.removeAll(ids);
+        ids.forEach(lexicalIndex::remove);
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        List<String> ids = new ArrayList<>();
+        delegate.forEach((id, segment) -> {
+            if (segment != null && filter.test(segment.metadata())) {
+                ids.add(id);
+            }
+        });
+        delegate.removeAll(filter);
+        ids.forEach(lexicalIndex::remove);
+    }
+
+    @Override
+    public void removeAll() {
+        delegate.removeAll();
+        lexicalIndex.clear();
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        return delegate.search(request);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return delegate.contains(id);
+    }
+
+    @Override
+    public TextSegment segment(String id) {
+        return delegate.segment(id);
+    }
+
+    @Override
+    public Embedding embedding(String id) {
+        return delegate.embedding(id);
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, TextSegment> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>(delegate.stats());
+        Map<String, Object> lexical = new LinkedHashMap<>(lexicalIndex.stats());
+        lexical.put("ready", lexicalReady);
+        result.put("lexical", lexical);
+        return result;
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void loadExisting() {
+        long start = System.nanoTime();
+        try {
+            delegate.forEach((id, segment) -> {
+                if (segment != null) {
+                    lexicalIndex.putIfAbsent(id, segment.text());
+                }
+            });
+            lexicalReady = true;
+            log.info("어휘 색인 재구성 완료: {} 문서, {}ms", lexicalIndex.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("어휘 색인 재구성 실패 (벡터 검색만 사용됨)", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.langchain.rag.retrieval;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * BM25 색인/질의용 토크나이저
+ * - 한글(및 한자/가나) 구간은 형태소 분석 없이 문자 n-gram 으로 분해 ("배송지연" -> "배송", "송지", "지연")
+ * - 영문/숫자 구간은 단어 단위, '-', '_', '.', '/' 로 이어진 코드("ERR-1042", "SKU_77.3")는 전체 토큰도 함께 생성
+ * - 연결 문자나 숫자를 포함한 3자 이상의 토큰은 코드 토큰 (isCode, 하이브리드 검색의 정확 일치 가산에 사용)
+ * - NFKC 정규화 + 소문자화로 전각/대소문자 차이를 흡수 (HashingEmbeddingModel 과 동일한 정규화)
+ */
+final class LexicalTokenizer {
+
+    private final int ngram;
+
+    LexicalTokenizer(int ngram) {
+        if (ngram < 1) {
+            throw new IllegalArgumentException("ngram 은 1 이상이어야 합니다: " + ngram);
+        }
+        this.ngram = ngram;
+    }
+
+    List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            char c = normalized.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(normalized.charAt(i))) {
+                    i++;
+                }
+                addNgrams(tokens, normalized, start, i);
+            } else if (Character.isLetterOrDigit(c)) {
+                i = addWords(tokens, normalized, i);
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 영문/숫자 단어와 연결 문자로 이어진 코드 토큰 추가
+     *
+     * @return 다음 검사 위치
+     */
+    private static int addWords(List<String> tokens, String text, int start) {
+        int length = text.length();
+        int i = start;
+        int parts = 0;
+        while (true) {
+            int wordStart = i;
+            while (i < length && isWordChar(text.charAt(i))) {
+                i++;
+            }
+            tokens.add(text.substring(wordStart, i));
+            parts++;
+            if (i + 1 < length && isConnector(text.charAt(i)) && isWordChar(text.charAt(i + 1))) {
+                i++;
+                continue;
+            }
+            break;
+        }
+        if (parts > 1) {
+            tokens.add(text.substring(start, i));
+        }
+        return i;
+    }
+
+    /**
+     * 제품/오류 코드처럼 정확히 일치해야 의미가 있는 토큰인지 (연결 문자 또는 숫자 포함, 3자 이상)
+     */
+    static boolean isCode(String token) {
+        if (token.length() < 3) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (isConnector(c) || Character.isDigit(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addNgrams(List<String> tokens, String text, int start, int end) {
+        if (end - start <= ngram) {
+            tokens.add(text.substring(start, end));
+            return;
+        }
+        for (int i = start; i + ngram <= end; i++) {
+            tokens.add(text.substring(i, i + ngram));
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) && !isCjk(c);
+    }
+
+    private static boolean isConnector(char c) {
+        return c == '-' || c == '_' || c == '.' || c == '/';
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+}
@@ -0,0 +1,361 @@
+package com.langchain.rag.retrieval;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.CRC32C;
+
+/**
+ * mmap 으로 연 읽기 전용 벡터 세그먼트 (형식은 SegmentFormat 참고)
+ * - 섹션마다 따로 매핑하므로 섹션 하나가 2GB(MAX_SECTION_BYTES) 를 넘지 않는 한 파일 크기 제한이 없음
+ * - 벡터/그래프/본문은 모두 힙 밖(페이지 캐시)에 있고, 힙에는 삭제 비트셋만 둠
+ * - 열 때는 헤더 체크섬만 확인하고 섹션 체크섬은 verify() 로 따로 확인 (시작 시간에 파일 전체를 읽지 않도록)
+ * - 삭제 비트셋은 SegmentedEmbeddingStore 의 잠금으로 보호
+ */
+final class MappedSegment implements HnswGraph {
+
+    // 섹션 하나의 최대 바이트 (섹션마다 MappedByteBuffer 하나, 위치는 int)
+    static final long MAX_SECTION_BYTES = Integer.MAX_VALUE;
+
+    private final String name;
+    private final Path file;
+    private final int dimension;
+    private final int nodeCount;
+    private final int m;
+    private final int maxM0;
+    private final int entryPoint;
+    private final int maxLevel;
+
+    private final MappedByteBuffer[] sections = new MappedByteBuffer[SegmentFormat.SECTION_COUNT];
+    private final int[] checksums = new int[SegmentFormat.SECTION_COUNT];
+    private final FloatBuffer vectors;
+    private final IntBuffer level0;
+    private final ByteBuffer levels;
+    private final IntBuffer upperIndex;
+    private final IntBuffer upper;
+    private final ByteBuffer ids;
+    private final LongBuffer idsIndex;
+    private final IntBuffer sortedIds;
+    private final ByteBuffer payload;
+    private final LongBuffer payloadIndex;
+
+    private final BitSet deleted;
+    private int deletedCount;
+    private long deleteGeneration;
+    private boolean deletesDirty;
+
+    private MappedSegment(String name, Path file, FileChannel channel, ByteBuffer header,
+                          BitSet deleted, long deleteGeneration) throws IOException {
+        this.name = name;
+        this.file = file;
+        this.dimension = header.getInt(12);
+        this.nodeCount = header.getInt(16);
+        this.m = header.getInt(20);
+        this.maxM0 = header.getInt(24);
+        this.entryPoint = header.getInt(28);
+        this.maxLevel = header.getInt(32);
+        for (int i = 0; i < SegmentFormat.SECTION_COUNT; i++) {
+            int entry = SegmentFormat.TABLE_OFFSET + i * SegmentFormat.TABLE_ENTRY_SIZE;
+            long offset = header.getLong(entry);
+            long length = header.getLong(entry + 8);
+            if (offset + length > channel.size()) {
+                throw new IOException("세그먼트 섹션이 파일 크기를 벗어납니다: " + file);
+            }
+            if (length > MAX_SECTION_BYTES) {
+                throw new IOException("세그먼트 섹션 " + i + " 이 2GB 를 넘어 매핑할 수 없습니다: " + file);
+            }
+            sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            sections[i].order(ByteOrder.LITTLE_ENDIAN);
+            checksums[i] = header.getInt(entry + 16);
+        }
+        this.vectors = sections[SegmentFormat.VECTORS].asFloatBuffer();
+        this.level0 = sections[SegmentFormat.LEVEL0].asIntBuffer();
+        this.levels = sections[SegmentFormat.LEVELS];
+        this.upperIndex = sections[SegmentFormat.UPPER_INDEX].asIntBuffer();
+        this.upper = sections[SegmentFormat.UPPER].asIntBuffer();
+        this.ids = sections[SegmentFormat.IDS];
+        this.idsIndex = sections[SegmentFormat.IDS_INDEX].asLongBuffer();
+        this.sortedIds = sections[SegmentFormat.SORTED_IDS].asIntBuffer();
+        this.payload = sections[SegmentFormat.PAYLOAD];
+        this.payloadIndex = sections[SegmentFormat.PAYLOAD_INDEX].asLongBuffer();
+        this.deleted = deleted;
+        this.deletedCount = deleted.cardinality();
+        this.deleteGeneration = deleteGeneration;
+    }
+
+    /**
+     * 세그먼트 열기
+     *
+     * @param deleteGeneration 삭제 파일 세대 (0 이면 삭제 없음)
+     */
+    static MappedSegment open(Path directory, String name, long deleteGeneration) throws IOException {
+        Path file = directory.resolve(SegmentFormat.segmentFile(name));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SegmentFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("세그먼트 헤더가 잘렸습니다: " + file);
+                }
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(header.array(), 0, SegmentFormat.HEADER_CRC_OFFSET);
+            if (header.getLong(0) != SegmentFormat.MAGIC
+                    || header.getInt(SegmentFormat.HEADER_CRC_OFFSET) != (int) crc.getValue()) {
+                throw new IOException("세그먼트 헤더가 손상되었습니다: " + file);
+            }
+            int version = header.getInt(8);
+            if (version != SegmentFormat.VERSION) {
+                throw new IOException("지원하지 않는 세그먼트 형식 버전입니다: " + version + " (" + file + ")");
+            }
+            int nodeCount = header.getInt(16);
+            BitSet deleted = deleteGeneration > 0
+                    ? SegmentFormat.readDeletes(directory.resolve(SegmentFormat.deletesFile(name, deleteGeneration)), nodeCount)
+                    : new BitSet(nodeCount);
+            // 매핑은 채널을 닫아도 유지됨
+            return new MappedSegment(name, file, channel, header, deleted, deleteGeneration);
+        }
+    }
+
+    /**
+     * 모든 섹션 체크섬 확인 (파일 전체를 읽으므로 백그라운드에서 호출)
+     */
+    void verify() throws IOException {
+        for (int i = 0; i < SegmentFormat.SECTION_COUNT; i++) {
+            CRC32C crc = new CRC32C();
+            crc.update(sections[i].duplicate().clear());
+            if ((int) crc.getValue() != checksums[i]) {
+                throw new IOException("세그먼트 섹션 " + i + " 체크섬이 일치하지 않습니다: " + file);
+            }
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long sizeInBytes() {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * IDS 섹션 바이트 수 (삭제된 노드 포함)
+     */
+    long idBytes() {
+        return idsIndex.get(nodeCount);
+    }
+
+    /**
+     * PAYLOAD 섹션 바이트 수 (삭제된 노드 포함)
+     */
+    long payloadBytes() {
+        return payloadIndex.get(nodeCount);
+    }
+
+    String id(int node) {
+        return readString(ids, idsIndex.get(node), idsIndex.get(node + 1));
+    }
+
+    TextSegment segment(int node) {
+        long start = payloadIndex.get(node);
+        int length = (int) (payloadIndex.get(node + 1) - start);
+        byte[] bytes = new byte[length];
+        payload.get((int) start, bytes);
+        return SegmentFormat.decodePayload(bytes);
+    }
+
+    byte[] payload(int node) {
+        long start = payloadIndex.get(node);
+        byte[] bytes = new byte[(int) (payloadIndex.get(node + 1) - start)];
+        payload.get((int) start, bytes);
+        return bytes;
+    }
+
+    float[] vector(int node) {
+        float[] vector = new float[dimension];
+        copyVector(node, vector);
+        return vector;
+    }
+
+    /**
+     * ID 로 노드 번호 찾기 (정렬된 ID 테이블 이진 탐색, 없으면 -1)
+     * - 버퍼에서 교체된 ID 는 삭제된 노드로 함께 기록되므로, 같은 ID 가 여럿이면 살아 있는 노드를 우선 반환
+     */
+    int find(String id) {
+        int low = 0;
+        int high = nodeCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = id(sortedIds.get(mid)).compareTo(id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        // low 는 id 이상인 첫 위치
+        int found = -1;
+        for (int i = low; i < nodeCount; i++) {
+            int node = sortedIds.get(i);
+            if (!id(node).equals(id)) {
+                break;
+            }
+            if (!deleted.get(node)) {
+                return node;
+            }
+            found = node;
+        }
+        return found;
+    }
+
+    boolean isDeleted(int node) {
+        return deleted.get(node);
+    }
+
+    /**
+     * @return 새로 삭제되었으면 true
+     */
+    boolean delete(int node) {
+        if (deleted.get(node)) {
+            return false;
+        }
+        deleted.set(node);
+        deletedCount++;
+        deletesDirty = true;
+        return true;
+    }
+
+    int liveCount() {
+        return nodeCount - deletedCount;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    BitSet deletedSnapshot() {
+        return (BitSet) deleted.clone();
+    }
+
+    boolean deletesDirty() {
+        return deletesDirty;
+    }
+
+    long deleteGeneration() {
+        return deleteGeneration;
+    }
+
+    /**
+     * 삭제 비트셋을 다음 세대 파일로 기록
+     *
+     * @return 새 세대 번호
+     */
+    long writeDeletes(Path directory) throws IOException {
+        long next = deleteGeneration + 1;
+        SegmentFormat.writeDeletes(directory.resolve(SegmentFormat.deletesFile(name, next)), deleted, nodeCount);
+        deleteGeneration = next;
+        deletesDirty = false;
+        return next;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public int m() {
+        return m;
+    }
+
+    @Override
+    public int maxM0() {
+        return maxM0;
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int entryPoint() {
+        return entryPoint;
+    }
+
+    @Override
+    public int maxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    public int level(int node) {
+        return levels.get(node);
+    }
+
+    @Override
+    public float similarity(float[] query, int node) {
+        int base = node * dimension;
+        FloatBuffer v = vectors;
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int bound = dimension & ~3;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * v.get(base + i);
+            s1 += query[i + 1] * v.get(base + i + 1);
+            s2 += query[i + 2] * v.get(base + i + 2);
+            s3 += query[i + 3] * v.get(base + i + 3);
+        }
+        for (; i < dimension; i++) {
+            s0 += query[i] * v.get(base + i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public int neighborCount(int node, int level) {
+        return level == 0
+                ? level0.get(node * (maxM0 + 1))
+                : upper.get(upperIndex.get(node) + (level - 1) * (m + 1));
+    }
+
+    @Override
+    public int neighbor(int node, int level, int index) {
+        return level == 0
+                ? level0.get(node * (maxM0 + 1) + 1 + index)
+                : upper.get(upperIndex.get(node) + (level - 1) * (m + 1) + 1 + index);
+    }
+
+    @Override
+    public void copyVector(int node, float[] target) {
+        vectors.get(node * dimension, target, 0, dimension);
+    }
+
+    private static String readString(ByteBuffer buffer, long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        buffer.get((int) start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,126 @@
+package com.langchain.rag.retrieval;
+
+import java.util.Arrays;
+
+/**
+ * (노드 ID, 점수) 쌍을 담는 primitive 배열 기반 이진 힙
+ * - 박싱 없이 top-k 선택과 그래프 탐색 후보 관리에 사용
+ * - maxHeap=true 면 점수가 가장 높은 항목이 루트, false 면 가장 낮은 항목이 루트
+ */
+final class NodeHeap {
+
+    private final boolean maxHeap;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    NodeHeap(int initialCapacity, boolean maxHeap) {
+        this.maxHeap = maxHeap;
+        this.nodes = new int[Math.max(1, initialCapacity)];
+        this.scores = new float[nodes.length];
+    }
+
+    static NodeHeap maxHeap(int initialCapacity) {
+        return new NodeHeap(initialCapacity, true);
+    }
+
+    static NodeHeap minHeap(int initialCapacity) {
+        return new NodeHeap(initialCapacity, false);
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    /**
+     * 크기가 limit 을 넘지 않도록 추가 (min-heap 에서 top-k 유지 용도)
+     *
+     * @return 추가되었으면 true
+     */
+    boolean pushBounded(int node, float score, int limit) {
+        if (size < limit) {
+            push(node, score);
+            return true;
+        }
+        if (before(scores[0], score)) {
+            pop();
+            push(node, score);
+            return true;
+        }
+        return false;
+    }
+
+    int peekNode() {
+        return nodes[0];
+    }
+
+    float peekScore() {
+        return scores[0];
+    }
+
+    int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            int node = nodes[size];
+            float score = scores[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && before(scores[right], scores[child])) {
+                    child = right;
+                }
+                if (!before(scores[child], score)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+        return top;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int nodeAt(int index) {
+        return nodes[index];
+    }
+
+    float scoreAt(int index) {
+        return scores[index];
+    }
+
+    private boolean before(float a, float b) {
+        return maxHeap ? a > b : a < b;
+    }
+}
@@ -0,0 +1,37 @@
+package com.langchain.rag.retrieval;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * 검색 중에만 쓰는 작업 버퍼(방문 표시, 점수 누적 배열)의 공용 풀
+ * - ThreadLocal 은 가상 스레드마다 새 버퍼를 만들어 재사용이 되지 않으므로 스레드와 무관하게 빌려 씀
+ * - 풀이 비어 있으면 새로 만들고, 반납 시 풀이 가득 차 있으면 버림 (동시 검색 수가 capacity 를 넘는 순간만 할당)
+ * - 빌린 버퍼는 한 스레드만 사용하고, 반납 후에는 참조하지 않아야 함
+ */
+final class ScratchPool<T> {
+
+    private final ArrayBlockingQueue<T> idle;
+    private final Supplier<T> factory;
+
+    ScratchPool(int capacity, Supplier<T> factory) {
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.factory = factory;
+    }
+
+    /**
+     * CPU 수의 두 배만큼 보관하는 풀 (검색은 CPU 바운드라 동시 실행 수가 대체로 이 안에 머묾)
+     */
+    static <T> ScratchPool<T> perProcessor(Supplier<T> factory) {
+        return new ScratchPool<>(Runtime.getRuntime().availableProcessors() * 2, factory);
+    }
+
+    T acquire() {
+        T scratch = idle.poll();
+        return scratch != null ? scratch : factory.get();
+    }
+
+    void release(T scratch) {
+        idle.offer(scratch);
+    }
+}
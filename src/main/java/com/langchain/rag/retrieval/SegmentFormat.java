@@ -0,0 +1,389 @@
+package com.langchain.rag.retrieval;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * 벡터 세그먼트 파일 형식 (버전 1, little-endian)
+ * <pre>
+ * [헤더 256B] magic, version, dimension, nodeCount, m, maxM0, entryPoint, maxLevel, sectionCount,
+ *             섹션 테이블(offset, length, crc32c) x SECTION_COUNT, 헤더 crc32c
+ * [VECTORS]       nodeCount x dimension float (정규화된 벡터, 64B 정렬)
+ * [LEVEL0]        nodeCount x (maxM0 + 1) int ([개수, 이웃..., -1 채움])
+ * [LEVELS]        nodeCount byte
+ * [UPPER_INDEX]   nodeCount int (UPPER 안의 시작 위치, 레벨 0 뿐이면 -1)
+ * [UPPER]         노드별 레벨 1..L 에 대해 (m + 1) int
+ * [IDS]           UTF-8 ID 연결
+ * [IDS_INDEX]     (nodeCount + 1) long (IDS 안의 시작 위치)
+ * [SORTED_IDS]    ID 사전순으로 정렬된 노드 번호 (ID 이진 탐색용)
+ * [PAYLOAD]       노드별 JSON {"text", "metadata"} 연결 (세그먼트가 없으면 길이 0)
+ * [PAYLOAD_INDEX] (nodeCount + 1) long
+ * </pre>
+ * - 세그먼트는 한 번 기록되면 바뀌지 않음 (삭제는 별도 .del 파일, 병합은 새 세그먼트로 대체)
+ * - 임시 파일에 기록하고 fsync 후 원자적으로 이름을 바꿔, 중간에 죽어도 반쯤 쓰인 세그먼트가 남지 않음
+ */
+final class SegmentFormat {
+
+    static final long MAGIC = 0x3153574E48474152L; // "RAGHNSW1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 256;
+
+    static final int VECTORS = 0;
+    static final int LEVEL0 = 1;
+    static final int LEVELS = 2;
+    static final int UPPER_INDEX = 3;
+    static final int UPPER = 4;
+    static final int IDS = 5;
+    static final int IDS_INDEX = 6;
+    static final int SORTED_IDS = 7;
+    static final int PAYLOAD = 8;
+    static final int PAYLOAD_INDEX = 9;
+    static final int SECTION_COUNT = 10;
+
+    // 섹션 테이블 시작 위치와 항목 크기 (offset long + length long + crc int)
+    static final int TABLE_OFFSET = 40;
+    static final int TABLE_ENTRY_SIZE = 20;
+    static final int HEADER_CRC_OFFSET = HEADER_SIZE - 4;
+
+    static final int DELETES_MAGIC = 0x52414744; // "RAGD"
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * 세그먼트에 기록할 노드별 ID/본문
+     */
+    interface NodeSource {
+        String id(int node);
+
+        byte[] payload(int node);
+    }
+
+    private SegmentFormat() {
+    }
+
+    static String segmentFile(String name) {
+        return name + ".seg";
+    }
+
+    static String deletesFile(String name, long deleteGeneration) {
+        return name + "_" + deleteGeneration + ".del";
+    }
+
+    /**
+     * 그래프와 노드 정보를 세그먼트 파일로 기록
+     */
+    static void write(Path path, HnswGraph graph, NodeSource nodes) throws IOException {
+        int nodeCount = graph.nodeCount();
+        int dimension = graph.dimension();
+        int maxM0 = graph.maxM0();
+        int m = graph.m();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SectionOutput out = new SectionOutput(channel, HEADER_SIZE);
+            long[][] table = new long[SECTION_COUNT][];
+
+            out.begin(64);
+            float[] vector = new float[dimension];
+            for (int node = 0; node < nodeCount; node++) {
+                graph.copyVector(node, vector);
+                for (float v : vector) {
+                    out.putFloat(v);
+                }
+            }
+            table[VECTORS] = out.end();
+
+            out.begin(8);
+            for (int node = 0; node < nodeCount; node++) {
+                int count = graph.neighborCount(node, 0);
+                out.putInt(count);
+                for (int i = 0; i < maxM0; i++) {
+                    out.putInt(i < count ? graph.neighbor(node, 0, i) : -1);
+                }
+            }
+            table[LEVEL0] = out.end();
+
+            out.begin(8);
+            for (int node = 0; node < nodeCount; node++) {
+                out.putByte((byte) graph.level(node));
+            }
+            table[LEVELS] = out.end();
+
+            out.begin(8);
+            int upperPosition = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                int level = graph.level(node);
+                out.putInt(level > 0 ? upperPosition : -1);
+                upperPosition += level * (m + 1);
+            }
+            table[UPPER_INDEX] = out.end();
+
+            out.begin(8);
+            for (int node = 0; node < nodeCount; node++) {
+                for (int level = 1; level <= graph.level(node); level++) {
+                    int count = graph.neighborCount(node, level);
+                    out.putInt(count);
+                    for (int i = 0; i < m; i++) {
+                        out.putInt(i < count ? graph.neighbor(node, level, i) : -1);
+                    }
+                }
+            }
+            table[UPPER] = out.end();
+
+            String[] ids = new String[nodeCount];
+            long[] idOffsets = new long[nodeCount + 1];
+            out.begin(8);
+            for (int node = 0; node < nodeCount; node++) {
+                ids[node] = nodes.id(node);
+                byte[] bytes = ids[node].getBytes(StandardCharsets.UTF_8);
+                out.putBytes(bytes);
+                idOffsets[node + 1] = idOffsets[node] + bytes.length;
+            }
+            table[IDS] = out.end();
+            table[IDS_INDEX] = writeLongs(out, idOffsets);
+
+            out.begin(8);
+            int[] sorted = IntStream.range(0, nodeCount).boxed()
+                    .sorted(Comparator.comparing((Integer node) -> ids[node]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            for (int node : sorted) {
+                out.putInt(node);
+            }
+            table[SORTED_IDS] = out.end();
+
+            long[] payloadOffsets = new long[nodeCount + 1];
+            out.begin(8);
+            for (int node = 0; node < nodeCount; node++) {
+                byte[] bytes = nodes.payload(node);
+                out.putBytes(bytes);
+                payloadOffsets[node + 1] = payloadOffsets[node] + bytes.length;
+            }
+            table[PAYLOAD] = out.end();
+            table[PAYLOAD_INDEX] = writeLongs(out, payloadOffsets);
+            for (int i = 0; i < SECTION_COUNT; i++) {
+                // 열 수 없는 세그먼트를 커밋하지 않도록 여기서 실패 (임시 파일은 다음 open 에서 정리)
+                if (table[i][1] > MappedSegment.MAX_SECTION_BYTES) {
+                    throw new IOException("세그먼트 섹션 " + i + " 이 2GB 를 넘습니다 (" + table[i][1] + " 바이트): " + path);
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(dimension)
+                    .putInt(nodeCount)
+                    .putInt(m)
+                    .putInt(maxM0)
+                    .putInt(graph.entryPoint())
+                    .putInt(graph.maxLevel())
+                    .putInt(SECTION_COUNT);
+            for (long[] section : table) {
+                header.putLong(section[0]).putLong(section[1]).putInt((int) section[2]);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(header.array(), 0, HEADER_CRC_OFFSET);
+            header.putInt(HEADER_CRC_OFFSET, (int) crc.getValue());
+            header.rewind();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 삭제 표시 파일 기록 (임시 파일 + 원자적 이름 변경)
+     */
+    static void writeDeletes(Path path, BitSet deleted, int nodeCount) throws IOException {
+        long[] words = Arrays.copyOf(deleted.toLongArray(), (nodeCount + 63) / 64);
+        ByteBuffer buffer = ByteBuffer.allocate(12 + words.length * 8 + 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(DELETES_MAGIC).putInt(nodeCount).putInt(words.length);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        writeAtomically(path, buffer.array());
+    }
+
+    static BitSet readDeletes(Path path, int nodeCount) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 16 || buffer.getInt() != DELETES_MAGIC || buffer.getInt() != nodeCount) {
+            throw new IOException("삭제 파일 형식이 올바르지 않습니다: " + path);
+        }
+        int wordCount = buffer.getInt();
+        if (buffer.remaining() != wordCount * 8 + 4) {
+            throw new IOException("삭제 파일 길이가 올바르지 않습니다: " + path);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, 12 + wordCount * 8);
+        long[] words = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = buffer.getLong();
+        }
+        if (buffer.getInt() != (int) crc.getValue()) {
+            throw new IOException("삭제 파일 체크섬이 일치하지 않습니다: " + path);
+        }
+        return BitSet.valueOf(words);
+    }
+
+    static void writeAtomically(Path path, byte[] bytes) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static byte[] encodePayload(TextSegment segment) {
+        if (segment == null) {
+            return new byte[0];
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("text", segment.text());
+        payload.put("metadata", segment.metadata().toMap());
+        try {
+            return JSON.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static TextSegment decodePayload(byte[] bytes) {
+        if (bytes.length == 0) {
+            return null;
+        }
+        try {
+            Map<String, Object> payload = JSON.readValue(bytes, MAP_TYPE);
+            Map<String, Object> metadata = (Map<String, Object>) payload.getOrDefault("metadata", Map.of());
+            return TextSegment.from((String) payload.get("text"), Metadata.from(metadata));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long[] writeLongs(SectionOutput out, long[] values) throws IOException {
+        out.begin(8);
+        for (long value : values) {
+            out.putLong(value);
+        }
+        return out.end();
+    }
+
+    /**
+     * 섹션 단위 순차 기록기 (정렬 패딩, 섹션별 CRC32C 계산)
+     */
+    private static final class SectionOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+        private long position;
+        private long sectionStart;
+
+        SectionOutput(FileChannel channel, long start) {
+            this.channel = channel;
+            this.position = start;
+        }
+
+        void begin(int alignment) throws IOException {
+            drain(false);
+            long padding = (alignment - position % alignment) % alignment;
+            for (long i = 0; i < padding; i++) {
+                buffer.put((byte) 0);
+            }
+            drain(false);
+            crc.reset();
+            sectionStart = position;
+        }
+
+        /**
+         * @return [offset, length, crc]
+         */
+        long[] end() throws IOException {
+            drain(true);
+            return new long[]{sectionStart, position - sectionStart, crc.getValue()};
+        }
+
+        void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putFloat(float value) throws IOException {
+            ensure(4);
+            buffer.putFloat(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain(true);
+            }
+        }
+
+        /**
+         * 버퍼 내용을 파일에 기록 (checksum=true 면 현재 섹션 CRC 에 포함)
+         */
+        private void drain(boolean checksum) throws IOException {
+            buffer.flip();
+            if (checksum) {
+                crc.update(buffer.duplicate());
+            }
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
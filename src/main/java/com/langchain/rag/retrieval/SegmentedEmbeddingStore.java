@@ -0,0 +1,820 @@
+package com.langchain.rag.retrieval;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * mmap 세그먼트 기반 EmbeddingStore (디스크 영속, 빠른 시작)
+ * - 새 항목은 힙의 HnswEmbeddingStore(버퍼)에 추가되고, flush 시 불변 세그먼트 파일로 기록되어 mmap 으로 열림
+ * - 시작 시에는 MANIFEST 에 적힌 세그먼트를 매핑만 하므로 그래프를 다시 만들지 않음 (섹션 체크섬은 백그라운드 검증)
+ * - 삭제는 세그먼트별 비트셋에 표시하고 flush 시 새 세대의 .del 파일로 기록
+ * - 백그라운드 병합: 세그먼트가 많아지거나 삭제 비율이 높으면 살아 있는 벡터로 새 그래프를 만들어 교체
+ * - MANIFEST 는 임시 파일 + 원자적 이름 변경으로 교체되므로, 중간에 죽어도 직전 커밋 상태로 열림
+ * - 체크섬이 맞지 않는 세그먼트는 MANIFEST 에서 빼고 *.corrupt 로 이름을 바꿔 조사용으로 남김
+ * - flush 전의 버퍼/삭제는 프로세스가 비정상 종료되면 유실됨 (flush-interval 이 유실 범위 상한)
+ */
+public class SegmentedEmbeddingStore implements VectorStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedEmbeddingStore.class);
+
+    static final String MANIFEST = "MANIFEST";
+    static final String CORRUPT_SUFFIX = ".corrupt";
+    private static final int MANIFEST_VERSION = 1;
+    // open() 에서 정리할 수 있는 이 저장소의 파일 (세그먼트, 삭제 파일, 기록 중이던 임시 파일)
+    private static final Pattern OWN_FILE = Pattern.compile("seg_\\d+(\\.seg|_\\d+\\.del)(\\.tmp)?|MANIFEST\\.tmp");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * 세그먼트 설정
+     *
+     * @param flushThreshold     버퍼가 이 개수에 도달하면 세그먼트로 기록
+     * @param maxSegments        세그먼트가 이보다 많으면 작은 것부터 병합
+     * @param mergeFactor        한 번에 병합할 최대 세그먼트 수
+     * @param mergeDeletesRatio  삭제 비율이 이 이상인 세그먼트는 단독으로 다시 기록
+     * @param maxSegmentNodes    병합 결과 세그먼트의 최대 노드 수 (섹션 크기 제한으로 더 작아질 수 있음)
+     * @param verifyOnOpen       true 면 열 때 섹션 체크섬까지 확인, false 면 백그라운드에서 확인
+     */
+    public record Settings(int m, int efConstruction, int efSearch, int flushThreshold, Duration maintenanceInterval,
+                           int maxSegments, int mergeFactor, double mergeDeletesRatio, int maxSegmentNodes,
+                           boolean verifyOnOpen) {
+    }
+
+    private final Path directory;
+    private final int dimension;
+    private final Settings settings;
+    private final int maxSegmentNodes;
+    // 병합 결과의 IDS/PAYLOAD 섹션 최대 바이트 (섹션마다 int 위치로 읽는 매핑 하나이므로 2GB 미만)
+    private final long maxSectionBytes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // flush/병합/초기화의 파일 기록과 커밋을 직렬화
+    private final Object commitLock = new Object();
+
+    // 아래 필드는 lock 으로 보호 (세그먼트의 삭제 비트셋 포함)
+    private HnswEmbeddingStore buffer;
+    private final List<HnswEmbeddingStore> frozen = new ArrayList<>();
+    private final List<MappedSegment> segments = new ArrayList<>();
+    private final List<Path> obsoleteFiles = new ArrayList<>();
+    private long manifestGeneration;
+    private long nextSegment;
+
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "vector-segment-maintenance");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Set<String> verifiedSegments = ConcurrentHashMap.newKeySet();
+
+    private final long openMillis;
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+    private final LongAdder mergedNodes = new LongAdder();
+    private final LongAdder corruptSegments = new LongAdder();
+
+    public SegmentedEmbeddingStore(Path directory, int dimension, Settings settings) {
+        this(directory, dimension, settings, MappedSegment.MAX_SECTION_BYTES);
+    }
+
+    SegmentedEmbeddingStore(Path directory, int dimension, Settings settings, long maxSectionBytes) {
+        long start = System.nanoTime();
+        this.directory = directory.toAbsolutePath().normalize();
+        this.dimension = dimension;
+        this.settings = settings;
+        // 노드 수에 비례하는 고정 크기 섹션(VECTORS, LEVEL0) 이 2GB 를 넘지 않도록 제한
+        long nodeBytes = Math.max((long) dimension * Float.BYTES, (long) (settings.m() * 2 + 1) * Integer.BYTES);
+        this.maxSegmentNodes = (int) Math.min(settings.maxSegmentNodes(), MappedSegment.MAX_SECTION_BYTES / nodeBytes);
+        this.maxSectionBytes = maxSectionBytes;
+        this.buffer = newBuffer();
+        try {
+            Files.createDirectories(this.directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("벡터 인덱스를 열 수 없습니다: " + this.directory, e);
+        }
+        this.openMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("벡터 인덱스 열기 완료: {} 세그먼트, {} 항목, {}ms", segments.size(), size(), openMillis);
+
+        long interval = settings.maintenanceInterval().toMillis();
+        maintenance.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        put(id, embedding, null);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        put(id, embedding, null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        put(id, embedding, textSegment);
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> added = new ArrayList<>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            added.add(add(embedding));
+        }
+        return added;
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> embedded) {
+        if (ids.size() != embeddings.size() || (embedded != null && embedded.size() != ids.size())) {
+            throw new IllegalArgumentException("ids, embeddings, embedded 의 크기가 같아야 합니다.");
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            put(ids.get(i), embeddings.get(i), embedded == null ? null : embedded.get(i));
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                deleteEverywhereLocked(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        lock.writeLock().lock();
+        try {
+            buffer.removeAll(filter);
+            frozen.forEach(store -> store.removeAll(filter));
+            for (MappedSegment segment : segments) {
+                for (int node = 0; node < segment.nodeCount(); node++) {
+                    if (!segment.isDeleted(node)) {
+                        TextSegment textSegment = segment.segment(node);
+                        if (textSegment != null && filter.test(textSegment.metadata())) {
+                            segment.delete(node);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        synchronized (commitLock) {
+            lock.writeLock().lock();
+            try {
+                buffer = newBuffer();
+                frozen.clear();
+                for (MappedSegment segment : segments) {
+                    obsoleteFiles.add(segment.file());
+                    if (segment.deleteGeneration() > 0) {
+                        obsoleteFiles.add(directory.resolve(
+                                SegmentFormat.deletesFile(segment.name(), segment.deleteGeneration())));
+                    }
+                }
+                segments.clear();
+                commitLocked();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        float[] query = HnswSearcher.normalize(request.queryEmbedding().vector());
+        Filter filter = request.filter();
+        int maxResults = request.maxResults();
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            matches.addAll(buffer.search(request).matches());
+            for (HnswEmbeddingStore store : frozen) {
+                matches.addAll(store.search(request).matches());
+            }
+            for (MappedSegment segment : segments) {
+                List<HnswIndex.Hit> hits = HnswSearcher.search(segment, query, maxResults, settings.efSearch(),
+                        node -> !segment.isDeleted(node) && (filter == null || accepts(filter, segment.segment(node))));
+                for (HnswIndex.Hit hit : hits) {
+                    double score = RelevanceScore.fromCosineSimilarity(hit.score());
+                    if (score < request.minScore()) {
+                        break;
+                    }
+                    matches.add(new EmbeddingMatch<>(score, segment.id(hit.node()),
+                            Embedding.from(segment.vector(hit.node())), segment.segment(hit.node())));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingDouble((EmbeddingMatch<TextSegment> match) -> match.score()).reversed());
+        return new EmbeddingSearchResult<>(matches.size() > maxResults
+                ? new ArrayList<>(matches.subList(0, maxResults))
+                : matches);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            if (buffer.contains(id)) {
+                return true;
+            }
+            for (HnswEmbeddingStore store : frozen) {
+                if (store.contains(id)) {
+                    return true;
+                }
+            }
+            for (MappedSegment segment : segments) {
+                int node = segment.find(id);
+                if (node >= 0 && !segment.isDeleted(node)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TextSegment segment(String id) {
+        lock.readLock().lock();
+        try {
+            if (buffer.contains(id)) {
+                return buffer.segment(id);
+            }
+            for (HnswEmbeddingStore store : frozen) {
+                if (store.contains(id)) {
+                    return store.segment(id);
+                }
+            }
+            for (MappedSegment segment : segments) {
+                int node = segment.find(id);
+                if (node >= 0 && !segment.isDeleted(node)) {
+                    return segment.segment(node);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Embedding embedding(String id) {
+        lock.readLock().lock();
+        try {
+            if (buffer.contains(id)) {
+                return buffer.embedding(id);
+            }
+            for (HnswEmbeddingStore store : frozen) {
+                if (store.contains(id)) {
+                    return store.embedding(id);
+                }
+            }
+            for (MappedSegment segment : segments) {
+                int node = segment.find(id);
+                if (node >= 0 && !segment.isDeleted(node)) {
+                    return Embedding.from(segment.vector(node));
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 세그먼트 목록만 잠금 안에서 복사하고 순회는 잠금 없이 수행 (긴 순회가 flush/삭제를 막지 않도록)
+     */
+    @Override
+    public void forEach(BiConsumer<String, TextSegment> action) {
+        List<HnswEmbeddingStore> buffers = new ArrayList<>();
+        List<MappedSegment> mapped;
+        lock.readLock().lock();
+        try {
+            buffers.add(buffer);
+            buffers.addAll(frozen);
+            mapped = new ArrayList<>(segments);
+        } finally {
+            lock.readLock().unlock();
+        }
+        buffers.forEach(store -> store.forEach(action));
+        for (MappedSegment segment : mapped) {
+            for (int node = 0; node < segment.nodeCount(); node++) {
+                if (!segment.isDeleted(node)) {
+                    action.accept(segment.id(node), segment.segment(node));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int size = buffer.size();
+            for (HnswEmbeddingStore store : frozen) {
+                size += store.size();
+            }
+            for (MappedSegment segment : segments) {
+                size += segment.liveCount();
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            result.put("directory", directory.toString());
+            result.put("entries", size());
+            result.put("dimension", dimension);
+            result.put("bufferedEntries", buffer.size());
+            result.put("flushingBuffers", frozen.size());
+            result.put("manifestGeneration", manifestGeneration);
+            List<Map<String, Object>> segmentStats = new ArrayList<>();
+            for (MappedSegment segment : segments) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("name", segment.name());
+                item.put("nodes", segment.nodeCount());
+                item.put("deleted", segment.deletedCount());
+                item.put("bytes", segment.sizeInBytes());
+                item.put("verified", verifiedSegments.contains(segment.name()));
+                segmentStats.add(item);
+            }
+            result.put("segments", segmentStats);
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.put("openMillis", openMillis);
+        result.put("flushes", flushes.sum());
+        result.put("merges", merges.sum());
+        result.put("mergedNodes", mergedNodes.sum());
+        result.put("corruptSegments", corruptSegments.sum());
+        return result;
+    }
+
+    /**
+     * 버퍼를 세그먼트로 기록하고 삭제 표시와 MANIFEST 를 커밋
+     */
+    @Override
+    public void flush() {
+        synchronized (commitLock) {
+            try {
+                flushLocked();
+            } catch (IOException e) {
+                throw new UncheckedIOException("벡터 세그먼트 기록 실패", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("종료 중 벡터 인덱스 flush 실패", e);
+        }
+    }
+
+    private void put(String id, Embedding embedding, TextSegment segment) {
+        // 이전 버전 삭제와 추가를 한 번의 쓰기 잠금 안에서 수행
+        // (둘 사이에 같은 ID 의 put 이 끼어들면 두 버전이 모두 남고, flush 가 추가 중인 버퍼를 가져갈 수 있음)
+        int buffered;
+        lock.writeLock().lock();
+        try {
+            deleteEverywhereLocked(id);
+            buffer.addAll(List.of(id), List.of(embedding), segment == null ? null : List.of(segment));
+            buffered = buffer.index().size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (buffered >= settings.flushThreshold() && flushRequested.compareAndSet(false, true)) {
+            maintenance.execute(() -> {
+                flushRequested.set(false);
+                maintainSafely(this::flush);
+            });
+        }
+    }
+
+    private void deleteEverywhereLocked(String id) {
+        buffer.removeAll(List.of(id));
+        for (HnswEmbeddingStore store : frozen) {
+            store.removeAll(List.of(id));
+        }
+        for (MappedSegment segment : segments) {
+            int node = segment.find(id);
+            if (node >= 0) {
+                segment.delete(node);
+            }
+        }
+    }
+
+    private void flushLocked() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (buffer.index().size() > 0) {
+                frozen.add(buffer);
+                buffer = newBuffer();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<HnswEmbeddingStore> pending;
+        lock.readLock().lock();
+        try {
+            pending = new ArrayList<>(frozen);
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (HnswEmbeddingStore store : pending) {
+            String name = "seg_" + nextSegment++;
+            HnswIndex index = store.index();
+            SegmentFormat.write(directory.resolve(SegmentFormat.segmentFile(name)), index.frozenGraph(),
+                    new SegmentFormat.NodeSource() {
+                        @Override
+                        public String id(int node) {
+                            return store.id(node);
+                        }
+
+                        @Override
+                        public byte[] payload(int node) {
+                            return SegmentFormat.encodePayload(store.segment(node));
+                        }
+                    });
+            MappedSegment segment = MappedSegment.open(directory, name, 0);
+            verifiedSegments.add(name);
+            lock.writeLock().lock();
+            try {
+                // 기록하는 동안 삭제된 항목 반영 (노드 번호는 버퍼와 동일)
+                for (int node = 0; node < segment.nodeCount(); node++) {
+                    if (index.isDeleted(node)) {
+                        segment.delete(node);
+                    }
+                }
+                frozen.remove(store);
+                segments.add(segment);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            flushes.increment();
+            log.debug("벡터 세그먼트 기록: {} ({} 노드)", name, segment.nodeCount());
+        }
+
+        lock.writeLock().lock();
+        try {
+            // 바뀐 것이 없으면 MANIFEST 를 다시 쓰지 않음
+            if (!pending.isEmpty() || segments.stream().anyMatch(MappedSegment::deletesDirty)) {
+                commitLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 백그라운드 병합
+     * - 세그먼트가 maxSegments 를 넘으면 살아 있는 항목이 적은 순으로 mergeFactor 개를 병합
+     *   (결과의 노드 수가 maxSegmentNodes, ID/본문 바이트가 maxSectionBytes 를 넘지 않는 데까지)
+     * - 아니면 삭제 비율이 mergeDeletesRatio 이상인 세그먼트 1개를 다시 기록
+     * - 병합하는 동안 새로 삭제된 항목은 교체 시점에 새 세그먼트에 반영
+     */
+    void maybeMerge() throws IOException {
+        synchronized (commitLock) {
+            List<MappedSegment> sources = new ArrayList<>();
+            List<BitSet> snapshots = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                List<MappedSegment> bySize = new ArrayList<>(segments);
+                bySize.sort(Comparator.comparingInt(MappedSegment::liveCount));
+                if (bySize.size() > settings.maxSegments()) {
+                    long total = 0;
+                    // 삭제된 노드를 포함한 크기로 계산 (병합 결과는 이보다 작거나 같음)
+                    long idBytes = 0;
+                    long payloadBytes = 0;
+                    for (MappedSegment segment : bySize) {
+                        if (sources.size() >= settings.mergeFactor() || total + segment.liveCount() > maxSegmentNodes
+                                || idBytes + segment.idBytes() > maxSectionBytes
+                                || payloadBytes + segment.payloadBytes() > maxSectionBytes) {
+                            break;
+                        }
+                        sources.add(segment);
+                        total += segment.liveCount();
+                        idBytes += segment.idBytes();
+                        payloadBytes += segment.payloadBytes();
+                    }
+                } else {
+                    bySize.stream()
+                            .filter(segment -> segment.nodeCount() > 0
+                                    && (double) segment.deletedCount() / segment.nodeCount() >= settings.mergeDeletesRatio())
+                            .findFirst()
+                            .ifPresent(sources::add);
+                }
+                if (sources.size() < 2 && (sources.isEmpty() || sources.get(0).deletedCount() == 0)) {
+                    return;
+                }
+                sources.forEach(segment -> snapshots.add(segment.deletedSnapshot()));
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            long start = System.nanoTime();
+            HnswIndex merged = new HnswIndex(dimension, settings.m(), settings.efConstruction());
+            List<int[]> origins = new ArrayList<>();
+            float[] vector = new float[dimension];
+            for (int s = 0; s < sources.size(); s++) {
+                MappedSegment source = sources.get(s);
+                for (int node = 0; node < source.nodeCount(); node++) {
+                    if (!snapshots.get(s).get(node)) {
+                        source.copyVector(node, vector);
+                        merged.add(vector);
+                        origins.add(new int[]{s, node});
+                    }
+                }
+            }
+
+            String name = "seg_" + nextSegment++;
+            SegmentFormat.write(directory.resolve(SegmentFormat.segmentFile(name)), merged.frozenGraph(),
+                    new SegmentFormat.NodeSource() {
+                        @Override
+                        public String id(int node) {
+                            int[] origin = origins.get(node);
+                            return sources.get(origin[0]).id(origin[1]);
+                        }
+
+                        @Override
+                        public byte[] payload(int node) {
+                            int[] origin = origins.get(node);
+                            return sources.get(origin[0]).payload(origin[1]);
+                        }
+                    });
+            MappedSegment segment = MappedSegment.open(directory, name, 0);
+            verifiedSegments.add(name);
+
+            lock.writeLock().lock();
+            try {
+                for (int node = 0; node < origins.size(); node++) {
+                    int[] origin = origins.get(node);
+                    if (sources.get(origin[0]).isDeleted(origin[1])) {
+                        segment.delete(node);
+                    }
+                }
+                segments.removeAll(sources);
+                segments.add(segment);
+                for (MappedSegment source : sources) {
+                    obsoleteFiles.add(source.file());
+                    if (source.deleteGeneration() > 0) {
+                        obsoleteFiles.add(directory.resolve(
+                                SegmentFormat.deletesFile(source.name(), source.deleteGeneration())));
+                    }
+                    verifiedSegments.remove(source.name());
+                }
+                commitLocked();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            merges.increment();
+            mergedNodes.add(origins.size());
+            log.info("벡터 세그먼트 병합: {} -> {} ({} 노드, {}ms)",
+                    sources.stream().map(MappedSegment::name).toList(), name, origins.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * 삭제 파일과 MANIFEST 기록 후 더 이상 참조되지 않는 파일 삭제 (commitLock 과 쓰기 잠금 안에서 호출)
+     */
+    private void commitLocked() throws IOException {
+        for (MappedSegment segment : segments) {
+            if (segment.deletesDirty()) {
+                long previous = segment.deleteGeneration();
+                segment.writeDeletes(directory);
+                if (previous > 0) {
+                    obsoleteFiles.add(directory.resolve(SegmentFormat.deletesFile(segment.name(), previous)));
+                }
+            }
+        }
+
+        ObjectNode manifest = JSON.createObjectNode();
+        manifest.put("version", MANIFEST_VERSION);
+        manifest.put("generation", manifestGeneration + 1);
+        manifest.put("dimension", dimension);
+        manifest.put("nextSegment", nextSegment);
+        ArrayNode list = manifest.putArray("segments");
+        for (MappedSegment segment : segments) {
+            list.addObject()
+                    .put("name", segment.name())
+                    .put("nodes", segment.nodeCount())
+                    .put("deleteGeneration", segment.deleteGeneration());
+        }
+        byte[] body = JSON.writeValueAsBytes(manifest);
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        byte[] content = (new String(body, StandardCharsets.UTF_8) + "\n" + Long.toHexString(crc.getValue()) + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        SegmentFormat.writeAtomically(directory.resolve(MANIFEST), content);
+        manifestGeneration++;
+
+        // mmap 은 GC 때 해제되며, 리눅스에서는 매핑된 파일을 지워도 안전
+        for (Path file : obsoleteFiles) {
+            Files.deleteIfExists(file);
+        }
+        obsoleteFiles.clear();
+    }
+
+    /**
+     * MANIFEST 를 읽어 세그먼트를 매핑 (생성자에서 호출)
+     */
+    private void open() throws IOException {
+        Path manifestFile = directory.resolve(MANIFEST);
+        Set<String> referenced = new HashSet<>();
+        referenced.add(MANIFEST);
+        if (Files.exists(manifestFile)) {
+            String[] lines = Files.readString(manifestFile, StandardCharsets.UTF_8).split("\n");
+            byte[] body = lines[0].getBytes(StandardCharsets.UTF_8);
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            if (lines.length < 2 || !Long.toHexString(crc.getValue()).equals(lines[1].trim())) {
+                throw new IOException("MANIFEST 체크섬이 일치하지 않습니다: " + manifestFile);
+            }
+            var manifest = JSON.readTree(body);
+            if (manifest.get("version").asInt() != MANIFEST_VERSION) {
+                throw new IOException("지원하지 않는 MANIFEST 버전입니다: " + manifest.get("version"));
+            }
+            int storedDimension = manifest.get("dimension").asInt();
+            if (storedDimension != dimension) {
+                throw new IllegalStateException("벡터 인덱스 차원(" + storedDimension + ")이 임베딩 모델 차원("
+                        + dimension + ")과 다릅니다. 인덱스 디렉터리를 비우고 다시 적재하세요: " + directory);
+            }
+            manifestGeneration = manifest.get("generation").asLong();
+            nextSegment = manifest.get("nextSegment").asLong();
+            for (var item : manifest.get("segments")) {
+                String name = item.get("name").asText();
+                long deleteGeneration = item.get("deleteGeneration").asLong();
+                MappedSegment segment = MappedSegment.open(directory, name, deleteGeneration);
+                if (settings.verifyOnOpen()) {
+                    segment.verify();
+                    verifiedSegments.add(name);
+                }
+                segments.add(segment);
+                referenced.add(SegmentFormat.segmentFile(name));
+                if (deleteGeneration > 0) {
+                    referenced.add(SegmentFormat.deletesFile(name, deleteGeneration));
+                }
+            }
+        }
+        // 커밋되지 않은 세그먼트/삭제/임시 파일만 정리 (같은 디렉터리의 다른 파일과 *.corrupt 는 그대로 둠)
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String fileName = file.getFileName().toString();
+                if (!referenced.contains(fileName) && OWN_FILE.matcher(fileName).matches()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 주기 작업: 섹션 체크섬 백그라운드 검증, 버퍼 flush, 병합
+     */
+    private void maintain() {
+        maintainSafely(this::verifyPending);
+        maintainSafely(this::flush);
+        maintainSafely(this::maybeMerge);
+    }
+
+    private void verifyPending() throws IOException {
+        List<MappedSegment> snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = new ArrayList<>(segments);
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (MappedSegment segment : snapshot) {
+            if (verifiedSegments.contains(segment.name())) {
+                continue;
+            }
+            try {
+                segment.verify();
+                verifiedSegments.add(segment.name());
+            } catch (IOException e) {
+                log.error("손상된 벡터 세그먼트를 검색에서 제외합니다: {}", segment.name(), e);
+                corruptSegments.increment();
+                quarantine(segment);
+            }
+        }
+    }
+
+    /**
+     * 손상된 세그먼트를 MANIFEST 에서 빼고 파일을 *.corrupt 로 격리 (조사용으로 남겨둠)
+     * - MANIFEST 를 먼저 커밋하므로 다시 열 때 없는 파일을 참조하지 않음
+     * - 그 사이에 죽으면 참조되지 않는 세그먼트로 남아 다음 open() 에서 정리됨
+     */
+    private void quarantine(MappedSegment segment) throws IOException {
+        synchronized (commitLock) {
+            lock.writeLock().lock();
+            try {
+                // 병합으로 이미 교체된 세그먼트는 병합이 정리함
+                if (!segments.remove(segment)) {
+                    return;
+                }
+                if (segment.deleteGeneration() > 0) {
+                    obsoleteFiles.add(directory.resolve(
+                            SegmentFormat.deletesFile(segment.name(), segment.deleteGeneration())));
+                }
+                commitLocked();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        Path file = segment.file();
+        Files.move(file, file.resolveSibling(file.getFileName() + CORRUPT_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+        log.warn("손상된 벡터 세그먼트를 격리했습니다: {}{}", file.getFileName(), CORRUPT_SUFFIX);
+    }
+
+    private void maintainSafely(IoTask task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("벡터 인덱스 유지 작업 실패", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    private static boolean accepts(Filter filter, TextSegment segment) {
+        return segment != null && filter.test(segment.metadata());
+    }
+
+    private HnswEmbeddingStore newBuffer() {
+        return new HnswEmbeddingStore(new HnswIndex(dimension, settings.m(), settings.efConstruction()),
+                settings.efSearch());
+    }
+}
@@ -0,0 +1,47 @@
+package com.langchain.rag.retrieval;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 검색/적재 경로가 사용하는 벡터 저장소
+ * - EmbeddingStore 에 ID 존재 확인(적재 중복 제거용)과 상태 조회를 더함
+ * - 구현: HnswEmbeddingStore(힙 전용), SegmentedEmbeddingStore(mmap 세그먼트)
+ */
+public interface VectorStore extends EmbeddingStore<TextSegment> {
+
+    boolean contains(String id);
+
+    /**
+     * ID 의 세그먼트 (없거나 삭제되었으면 null)
+     */
+    TextSegment segment(String id);
+
+    /**
+     * ID 의 저장된 벡터 (정규화된 값, 없거나 삭제되었으면 null)
+     * - 임베딩을 다시 계산하지 않고 메타데이터만 바꿔 다시 저장할 때 사용
+     */
+    Embedding embedding(String id);
+
+    /**
+     * 살아 있는 모든 항목 순회 (보조 인덱스 재구성용, 순회 중 변경은 반영되지 않을 수 있음)
+     */
+    void forEach(BiConsumer<String, TextSegment> action);
+
+    /**
+     * 검색 가능한 항목 수
+     */
+    int size();
+
+    Map<String, Object> stats();
+
+    /**
+     * 아직 영속화되지 않은 변경을 디스크에 반영 (힙 전용 저장소는 아무 일도 하지 않음)
+     */
+    default void flush() {
+    }
+}
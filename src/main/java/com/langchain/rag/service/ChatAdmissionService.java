@@ -0,0 +1,298 @@
+package com.langchain.rag.service;
+
+import com.langchain.rag.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * ChatAssistant 앞단의 채팅 스트림 입장 제어
+ * - 전체 동시 스트림 수 제한
+ * - 같은 memoryId 의 턴은 한 번에 하나씩만 실행 (ChatMemory 에 두 턴이 섞이지 않도록)
+ * - 제한된 크기의 대기열, 대기 순번 변경 시 클라이언트에 통지
+ * - 공정 스케줄링: 실행 가능한 대기 요청 중 현재 실행 중인 스트림이 가장 적은 클라이언트를 먼저, 같으면 먼저 온 순서
+ * - 대기열이 가득 차면 즉시 거절 (AdmissionRejectedException)
+ */
+@Service
+public class ChatAdmissionService {
+
+    /**
+     * 실행 허가. 스트림이 끝나면 반드시 release 해야 함 (중복 호출은 무시)
+     */
+    public final class Permit {
+        private final String clientId;
+        private final String memoryId;
+        private final AtomicBoolean released = new AtomicBoolean();
+        // 구독자에게 전달됨 (이후 반납은 구독자 책임)
+        private volatile boolean delivered;
+
+        private Permit(String clientId, String memoryId) {
+            this.clientId = clientId;
+            this.memoryId = memoryId;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                ChatAdmissionService.this.release(this);
+            }
+        }
+    }
+
+    private static final class Ticket {
+        final String clientId;
+        final String memoryId;
+        final IntConsumer positionListener;
+        final MonoSink<Permit> sink;
+        final long enqueuedAtNanos = System.nanoTime();
+        int lastNotifiedPosition = -1;
+        // 구독 취소됨 (대기열에 넣거나 허가하지 않음)
+        boolean cancelled;
+        Permit permit;
+
+        Ticket(String clientId, String memoryId, IntConsumer positionListener, MonoSink<Permit> sink) {
+            this.clientId = clientId;
+            this.memoryId = memoryId;
+            this.positionListener = positionListener;
+            this.sink = sink;
+        }
+    }
+
+    private final int maxConcurrentStreams;
+    private final int maxQueueSize;
+    private final int maxQueuedPerClient;
+
+    // 아래 필드는 모두 this 잠금으로 보호
+    private final LinkedList<Ticket> queue = new LinkedList<>();
+    private final Set<String> activeMemoryIds = new HashSet<>();
+    private final Map<String, Integer> activePerClient = new HashMap<>();
+    private final Map<String, Integer> queuedPerClient = new HashMap<>();
+    private int active;
+
+    private final Timer waitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedClientLimit;
+
+    public ChatAdmissionService(
+            MeterRegistry meterRegistry,
+            @Value("${rag.admission.max-concurrent-streams:64}") int maxConcurrentStreams,
+            @Value("${rag.admission.max-queue-size:256}") int maxQueueSize,
+            @Value("${rag.admission.max-queued-per-client:3}") int maxQueuedPerClient) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.maxQueueSize = maxQueueSize;
+        this.maxQueuedPerClient = maxQueuedPerClient;
+
+        this.waitTimer = Timer.builder("chat.admission.wait")
+                .description("채팅 스트림 입장 대기 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("chat.admission.rejected")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.rejectedClientLimit = Counter.builder("chat.admission.rejected")
+                .tag("reason", "client_limit")
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.queue.depth", this, ChatAdmissionService::queueDepth)
+                .description("입장 대기 중인 채팅 요청 수")
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.active", this, ChatAdmissionService::activeStreams)
+                .description("실행 중인 채팅 스트림 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 실행 허가 요청
+     *
+     * @param clientId         요청한 클라이언트 (WebSocket 세션 ID)
+     * @param memoryId         대화 메모리 ID
+     * @param positionListener 대기 순번(1부터)이 바뀔 때마다 호출
+     * @return 허가되면 Permit 을 발행하는 Mono, 거절되면 AdmissionRejectedException 으로 종료
+     */
+    public Mono<Permit> acquire(String clientId, String memoryId, IntConsumer positionListener) {
+        return Mono.<Permit>create(sink -> {
+                    Ticket ticket = new Ticket(clientId, memoryId, positionListener, sink);
+                    // onCancel 과 달리 이미 취소된 sink 에 등록해도 바로 실행되고, 성공 뒤에도 호출됨
+                    sink.onDispose(() -> cancel(ticket));
+                    submit(ticket);
+                })
+                // sink 는 onNext 뒤에 dispose 되므로 cancel 시점에 전달 여부를 알 수 있음
+                .doOnNext(permit -> permit.delivered = true);
+    }
+
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    public synchronized int activeStreams() {
+        return active;
+    }
+
+    /**
+     * 입장 제어 상태
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("activeStreams", active);
+        result.put("maxConcurrentStreams", maxConcurrentStreams);
+        result.put("queueDepth", queue.size());
+        result.put("maxQueueSize", maxQueueSize);
+        result.put("rejected", (long) (rejectedQueueFull.count() + rejectedClientLimit.count()));
+        return result;
+    }
+
+    private void submit(Ticket ticket) {
+        List<Runnable> notifications;
+        synchronized (this) {
+            if (ticket.cancelled) {
+                return;
+            }
+            boolean memoryIdWaiting = queue.stream().anyMatch(queued -> queued.memoryId.equals(ticket.memoryId));
+            if (active < maxConcurrentStreams && !activeMemoryIds.contains(ticket.memoryId) && !memoryIdWaiting) {
+                notifications = List.of(grantLocked(ticket));
+            } else if (queue.size() >= maxQueueSize) {
+                rejectedQueueFull.increment();
+                notifications = List.of(() -> ticket.sink.error(new AdmissionRejectedException(
+                        AdmissionRejectedException.Reason.QUEUE_FULL, "대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.")));
+            } else if (queuedPerClient.getOrDefault(ticket.clientId, 0) >= maxQueuedPerClient) {
+                rejectedClientLimit.increment();
+                notifications = List.of(() -> ticket.sink.error(new AdmissionRejectedException(
+                        AdmissionRejectedException.Reason.CLIENT_LIMIT, "처리 대기 중인 요청이 너무 많습니다.")));
+            } else {
+                queue.addLast(ticket);
+                queuedPerClient.merge(ticket.clientId, 1, Integer::sum);
+                notifications = positionUpdatesLocked();
+            }
+        }
+        notifications.forEach(Runnable::run);
+    }
+
+    private void release(Permit permit) {
+        List<Runnable> notifications;
+        synchronized (this) {
+            active--;
+            activeMemoryIds.remove(permit.memoryId);
+            decrement(activePerClient, permit.clientId);
+            notifications = dispatchLocked();
+        }
+        notifications.forEach(Runnable::run);
+    }
+
+    /**
+     * sink dispose 시 호출 (구독 취소, 허가 전달 후 모두)
+     * - 대기 중이면 대기열에서 제거
+     * - 허가되었지만 전달되지 못한 경우 (허가와 취소가 겹쳐 sink 가 값을 버림) 자리를 반납
+     */
+    private void cancel(Ticket ticket) {
+        List<Runnable> notifications = List.of();
+        Permit orphaned = null;
+        synchronized (this) {
+            ticket.cancelled = true;
+            if (queue.remove(ticket)) {
+                decrement(queuedPerClient, ticket.clientId);
+                notifications = positionUpdatesLocked();
+            } else if (ticket.permit != null && !ticket.permit.delivered) {
+                orphaned = ticket.permit;
+            }
+        }
+        notifications.forEach(Runnable::run);
+        if (orphaned != null) {
+            orphaned.release();
+        }
+    }
+
+    /**
+     * 빈 자리가 있는 동안 공정 순서로 대기 요청을 허가
+     */
+    private List<Runnable> dispatchLocked() {
+        List<Runnable> notifications = new ArrayList<>();
+        while (active < maxConcurrentStreams) {
+            Ticket next = null;
+            int nextClientActive = Integer.MAX_VALUE;
+            Set<String> blockedMemoryIds = new HashSet<>(activeMemoryIds);
+            for (Ticket ticket : queue) {
+                // 같은 memoryId 는 먼저 온 요청이 우선 (뒤에 온 턴이 앞지르지 않도록)
+                if (!blockedMemoryIds.add(ticket.memoryId)) {
+                    continue;
+                }
+                int clientActive = activePerClient.getOrDefault(ticket.clientId, 0);
+                if (clientActive < nextClientActive) {
+                    next = ticket;
+                    nextClientActive = clientActive;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            queue.remove(next);
+            decrement(queuedPerClient, next.clientId);
+            notifications.add(grantLocked(next));
+        }
+        notifications.addAll(positionUpdatesLocked());
+        return notifications;
+    }
+
+    private Runnable grantLocked(Ticket ticket) {
+        active++;
+        activeMemoryIds.add(ticket.memoryId);
+        activePerClient.merge(ticket.clientId, 1, Integer::sum);
+        waitTimer.record(System.nanoTime() - ticket.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+        Permit permit = new Permit(ticket.clientId, ticket.memoryId);
+        ticket.permit = permit;
+        return () -> deliver(ticket, permit);
+    }
+
+    /**
+     * 허가 전달 (잠금 밖에서 호출), 그 사이 취소되었으면 자리를 바로 반납
+     */
+    private void deliver(Ticket ticket, Permit permit) {
+        boolean cancelled;
+        synchronized (this) {
+            cancelled = ticket.cancelled;
+        }
+        if (cancelled) {
+            permit.release();
+        } else {
+            ticket.sink.success(permit);
+        }
+    }
+
+    /**
+     * 순번이 바뀐 대기 요청에 통지 (잠금 밖에서 실행할 작업 목록 반환)
+     */
+    private List<Runnable> positionUpdatesLocked() {
+        List<Runnable> notifications = new ArrayList<>();
+        int position = 0;
+        Iterator<Ticket> it = queue.iterator();
+        while (it.hasNext()) {
+            Ticket ticket = it.next();
+            position++;
+            if (ticket.lastNotifiedPosition != position) {
+                ticket.lastNotifiedPosition = position;
+                int notified = position;
+                notifications.add(() -> ticket.positionListener.accept(notified));
+            }
+        }
+        return notifications;
+    }
+
+    private static void decrement(Map<String, Integer> counts, String key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+}
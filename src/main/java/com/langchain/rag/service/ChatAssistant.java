@@ -6,11 +6,14 @@ import dev.langchain4j.service.UserMessage;
 import reactor.core.publisher.Flux;
 
 public interface ChatAssistant {
+
+    // 시스템 프롬프트 (응답 캐시가 메모리를 직접 채울 때도 동일한 값을 사용)
+    String SYSTEM_PROMPT = "당신은 친절하고 도움이 되는 한국어 AI 어시스턴트입니다. 사용자의 질문에 정중하고 유용한 답변을 제공해주세요. 이전 대화 내용을 기억하고 맥락에 맞게 대답해주세요.";
     
-    @SystemMessage("당신은 친절하고 도움이 되는 한국어 AI 어시스턴트입니다. 사용자의 질문에 정중하고 유용한 답변을 제공해주세요. 이전 대화 내용을 기억하고 맥락에 맞게 대답해주세요.")
+    @SystemMessage(SYSTEM_PROMPT)
     String chat(@MemoryId String memoryId, @UserMessage String userMessage);
     
     // 스트리밍 응답 (실시간 채팅용)
-    @SystemMessage("당신은 친절하고 도움이 되는 한국어 AI 어시스턴트입니다. 사용자의 질문에 정중하고 유용한 답변을 제공해주세요. 이전 대화 내용을 기억하고 맥락에 맞게 대답해주세요.")
+    @SystemMessage(SYSTEM_PROMPT)
     Flux<String> chatStream(@MemoryId String memoryId, @UserMessage String userMessage);
 } 
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.langchain.rag.service;
+
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.memory.ChatMemoryNdjson;
+import com.langchain.rag.memory.MemorySnapshotStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전체 대화 메모리 일괄 백업/복원
+ * - export: 활성 세션 + 아직 복원되지 않은 스냅샷 세션을 NDJSON 한 줄씩 바로 흘려 보냄 (전체 복사본을 만들지 않음)
+ * - import: NDJSON 을 한 줄씩 읽어 세션 단위로 교체
+ * - 스냅샷이 켜져 있으면 주기적으로, 그리고 종료 시 한 번 더 gzip 스냅샷 기록
+ */
+@Service
+public class MemorySnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(MemorySnapshotService.class);
+
+    private final ChatMemoryConfig chatMemoryConfig;
+    // rag.memory.snapshot.enabled=false 이면 null
+    private final MemorySnapshotStore snapshotStore;
+    private final ScheduledExecutorService scheduler;
+
+    public MemorySnapshotService(ChatMemoryConfig chatMemoryConfig,
+                                 ObjectProvider<MemorySnapshotStore> snapshotStoreProvider,
+                                 ChatExecution execution,
+                                 @Value("${rag.memory.snapshot.interval:5m}") Duration interval) {
+        this.chatMemoryConfig = chatMemoryConfig;
+        this.snapshotStore = snapshotStoreProvider.getIfAvailable();
+        if (snapshotStore != null && !interval.isZero()) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(execution.threadFactory("chat-memory-snapshot"));
+            long intervalMillis = interval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 모든 세션을 NDJSON 으로 기록
+     *
+     * @return 기록한 세션 수
+     */
+    public long export(Writer writer) throws IOException {
+        long[] count = {0};
+        try {
+            chatMemoryConfig.forEachMemory((id, messages) -> {
+                writeLine(writer, ChatMemoryNdjson.line(id, messages));
+                count[0]++;
+            });
+            if (snapshotStore != null) {
+                // 스냅샷에만 있는 세션은 풀어서 다시 직렬화하지 않고 원본 줄을 그대로 전달
+                snapshotStore.forEachPending((id, line) -> {
+                    writeLine(writer, line);
+                    count[0]++;
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count[0];
+    }
+
+    /**
+     * NDJSON 을 읽어 세션별 대화를 교체 (빈 줄은 무시)
+     * - 형식이 잘못된 줄에서 멈추며, 그 앞의 줄은 이미 반영된 상태
+     *
+     * @return 반영한 세션 수
+     */
+    public int importFrom(BufferedReader reader) throws IOException {
+        int imported = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            ChatMemoryNdjson.Entry entry;
+            try {
+                entry = ChatMemoryNdjson.parse(line);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(lineNumber + "번째 줄: " + e.getMessage()
+                        + " (앞의 " + imported + "개 세션은 반영됨)", e);
+            }
+            chatMemoryConfig.restoreMemory(entry.memoryId(), entry.messages());
+            imported++;
+        }
+        return imported;
+    }
+
+    /**
+     * 스냅샷 기록 (스냅샷이 꺼져 있으면 -1)
+     */
+    public int snapshot() throws IOException {
+        if (snapshotStore == null) {
+            return -1;
+        }
+        int sessions = snapshotStore.write(chatMemoryConfig::forEachMemory);
+        log.debug("메모리 스냅샷 기록: {}개 세션", sessions);
+        return sessions;
+    }
+
+    public Map<String, Object> stats() {
+        return snapshotStore != null ? snapshotStore.stats() : Map.of("enabled", false);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        // 재시작 후 이어서 대화할 수 있도록 마지막 상태를 남김
+        snapshotQuietly();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("메모리 스냅샷 기록 중 오류", e);
+        }
+    }
+
+    private static void writeLine(Writer writer, String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.langchain.rag.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.model.StreamControl;
+import com.langchain.rag.retrieval.HnswIndex;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ChatAssistant 앞단의 응답 캐시 (기본 비활성, rag.cache.enabled)
+ * - 정규화된 질문이 정확히 같으면 즉시 적중, 아니면 HNSW 인덱스에서 임베딩 코사인 유사도가 임계값 이상인 항목을 찾음
+ * - 이전 대화가 없는 세션의 답변만 저장하고 조회하므로 (시스템 프롬프트 + 질문에만 의존) 항목은 세션 간에 공유
+ * - 이전 대화가 있는 세션은 답변이 맥락에 따라 달라지므로 캐시를 거치지 않음
+ * - 유사도 조회는 실제 임베딩 모델에서만 사용, local(해싱 임베딩) 이면 정확 일치만
+ * - 적중 시 저장된 답변을 토큰 Flux 로 재생하므로 클라이언트 프로토콜은 동일
+ */
+@Service
+public class SemanticResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticResponseCache.class);
+
+    // 유사도 인덱스 설정 (질문 임베딩 수는 max-entries 이하로 작으므로 고정)
+    private static final int INDEX_M = 16;
+    private static final int INDEX_EF_CONSTRUCTION = 64;
+    private static final int INDEX_EF_SEARCH = 32;
+    // 임계값을 넘는 후보가 만료/교체된 항목일 수 있으므로 몇 개 더 봄
+    private static final int INDEX_CANDIDATES = 4;
+    // 삭제 표시가 살아 있는 노드보다 많아지면 인덱스를 다시 만듦
+    private static final int INDEX_REBUILD_MIN_DELETED = 256;
+
+    /**
+     * 캐시 항목
+     */
+    static final class Entry {
+        final String key;
+        final String answer;
+        // 유사도 조회를 쓰지 않으면 null
+        final float[] embedding;
+        final long createdAt = System.currentTimeMillis();
+        final LongAdder hits = new LongAdder();
+        volatile long lastHitAt;
+        // 유사도 인덱스의 노드 번호 (없으면 -1, indexLock 으로 보호)
+        int node = -1;
+
+        Entry(String key, String answer, float[] embedding) {
+            this.key = key;
+            this.answer = answer;
+            this.embedding = embedding;
+        }
+    }
+
+    /**
+     * 유사도 인덱스와 노드 번호별 항목 (다시 만들 때 통째로 교체)
+     */
+    private record VectorIndex(HnswIndex index, Map<Integer, Entry> entries) {
+    }
+
+    /**
+     * 조회 결과 (미스면 entry 는 null, 저장 시 재사용할 임베딩 포함)
+     */
+    private record Lookup(Entry entry, float[] embedding) {
+    }
+
+    private final ChatAssistant chatAssistant;
+    private final ChatMemoryConfig chatMemoryConfig;
+    private final ChatExecution execution;
+    private final EmbeddingModel embeddingModel;
+    private final boolean enabled;
+    private final boolean semantic;
+    private final double similarityThreshold;
+    private final int maxAnswerChars;
+    private final Cache<String, Entry> entries;
+    // 추가/삭제/재구성은 indexLock 으로 직렬화, 검색은 잠금 없이 (HnswIndex 가 읽기 잠금으로 보호)
+    private final Object indexLock = new Object();
+    // 첫 임베딩의 차원으로 생성
+    private volatile VectorIndex vectors;
+
+    private final Counter exactHits;
+    private final Counter semanticHits;
+    private final Counter misses;
+    private final Counter bypasses;
+
+    public SemanticResponseCache(
+            ChatAssistant chatAssistant,
+            ChatMemoryConfig chatMemoryConfig,
+            ChatExecution execution,
+            EmbeddingModel embeddingModel,
+            MeterRegistry meterRegistry,
+            @Value("${rag.cache.enabled:false}") boolean enabled,
+            @Value("${rag.cache.max-entries:10000}") long maxEntries,
+            @Value("${rag.cache.ttl:1h}") Duration ttl,
+            @Value("${rag.cache.similarity-threshold:0.92}") double similarityThreshold,
+            @Value("${rag.cache.max-answer-chars:8000}") int maxAnswerChars,
+            @Value("${rag.embedding.provider:local}") String embeddingProvider) {
+        this.chatAssistant = chatAssistant;
+        this.chatMemoryConfig = chatMemoryConfig;
+        this.execution = execution;
+        this.embeddingModel = embeddingModel;
+        this.enabled = enabled;
+        // 해싱 임베딩은 의미가 아닌 글자 겹침이므로 유사도 적중이 다른 질문의 답변을 돌려줄 수 있음
+        this.semantic = !"local".equals(embeddingProvider);
+        if (enabled && !semantic) {
+            log.info("응답 캐시: local 임베딩 모델이므로 정확 일치만 사용");
+        }
+        this.similarityThreshold = similarityThreshold;
+        this.maxAnswerChars = maxAnswerChars;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .<String, Entry>removalListener((key, entry, cause) -> {
+                    if (entry != null) {
+                        unindex(entry);
+                    }
+                })
+                .build();
+
+        this.exactHits = Counter.builder("chat.cache.requests").tag("result", "exact_hit").register(meterRegistry);
+        this.semanticHits = Counter.builder("chat.cache.requests").tag("result", "semantic_hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.bypasses = Counter.builder("chat.cache.requests").tag("result", "bypass").register(meterRegistry);
+    }
+
+    /**
+     * 캐시를 거친 스트리밍 응답
+     *
+     * @param control 이 스트림의 취소 상태 (AiServices 호출과 메모리 쓰기를 이 스트림 소속으로 실행)
+     */
+    public Flux<String> chatStream(String memoryId, String userMessage, StreamControl control) {
+        if (!enabled || dependsOnMemory(memoryId)) {
+            bypasses.increment();
+            return control.bind(() -> chatAssistant.chatStream(memoryId, userMessage));
+        }
+        String key = normalize(userMessage);
+        return Mono.fromCallable(() -> lookup(key))
+                // 임베딩 계산은 원격 호출일 수 있으므로 블로킹 허용 스레드에서 수행
+                .subscribeOn(execution.scheduler())
+                .flatMapMany(lookup -> lookup.entry() != null
+                        ? replay(memoryId, userMessage, lookup.entry(), control)
+                        : streamAndStore(memoryId, userMessage, key, lookup.embedding(), control));
+    }
+
+    /**
+     * 캐시 통계 (적중 횟수가 많은 항목 순, 질문/답변은 노출하지 않음)
+     */
+    public Map<String, Object> stats(int limit) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("semantic", semantic);
+        result.put("size", entries.estimatedSize());
+        VectorIndex current = vectors;
+        result.put("indexedNodes", current == null ? 0 : current.index().liveCount());
+        result.put("exactHits", (long) exactHits.count());
+        result.put("semanticHits", (long) semanticHits.count());
+        result.put("misses", (long) misses.count());
+        result.put("bypasses", (long) bypasses.count());
+        List<Map<String, Object>> top = entries.asMap().values().stream()
+                .sorted(Comparator.comparingLong((Entry entry) -> entry.hits.sum()).reversed())
+                .limit(limit)
+                .map(entry -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("answerChars", entry.answer.length());
+                    item.put("hits", entry.hits.sum());
+                    item.put("createdAt", entry.createdAt);
+                    item.put("lastHitAt", entry.lastHitAt);
+                    return item;
+                })
+                .toList();
+        result.put("topEntries", top);
+        return result;
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+        synchronized (indexLock) {
+            vectors = null;
+        }
+    }
+
+    /**
+     * 이전 대화(질문/답변)가 있는 세션인지 확인
+     * - 세션을 새로 만들지 않고 조회만 함 (스냅샷에 남은 세션은 복원)
+     * - 시스템 프롬프트만 있으면 (이전 턴이 없거나 모두 지워진 경우) 이전 대화가 없는 것으로 봄
+     */
+    private boolean dependsOnMemory(String memoryId) {
+        ChatMemory memory = chatMemoryConfig.getMemory(memoryId);
+        if (memory == null) {
+            return false;
+        }
+        for (ChatMessage message : memory.messages()) {
+            if (!(message instanceof SystemMessage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Lookup lookup(String key) {
+        Entry exact = entries.getIfPresent(key);
+        if (exact != null) {
+            exactHits.increment();
+            return new Lookup(recordHit(exact), exact.embedding);
+        }
+        if (!semantic) {
+            misses.increment();
+            return new Lookup(null, null);
+        }
+        float[] embedding = embeddingModel.embed(key).content().vector();
+        VectorIndex current = vectors;
+        if (current != null) {
+            for (HnswIndex.Hit hit : current.index().search(embedding, INDEX_CANDIDATES, INDEX_EF_SEARCH, null)) {
+                if (hit.score() < similarityThreshold) {
+                    break;
+                }
+                Entry entry = current.entries().get(hit.node());
+                // 인덱스 갱신은 Caffeine 제거 알림보다 늦을 수 있으므로 캐시에 남아 있는 항목인지 확인
+                if (entry != null && entries.getIfPresent(entry.key) == entry) {
+                    semanticHits.increment();
+                    log.debug("시맨틱 캐시 적중 (score={})", hit.score());
+                    return new Lookup(recordHit(entry), embedding);
+                }
+            }
+        }
+        misses.increment();
+        return new Lookup(null, embedding);
+    }
+
+    /**
+     * 항목을 유사도 인덱스에 추가 (캐시에 넣기 전에 호출해야 제거 알림이 먼저 오지 않음)
+     */
+    private void index(Entry entry) {
+        synchronized (indexLock) {
+            VectorIndex current = vectors;
+            if (current == null || current.index().dimension() != entry.embedding.length) {
+                current = new VectorIndex(new HnswIndex(entry.embedding.length, INDEX_M, INDEX_EF_CONSTRUCTION),
+                        new ConcurrentHashMap<>());
+                vectors = current;
+            }
+            entry.node = current.index().add(entry.embedding);
+            current.entries().put(entry.node, entry);
+        }
+    }
+
+    /**
+     * 만료/축출/교체된 항목을 인덱스에서 삭제 표시, 삭제 표시가 많이 쌓이면 살아 있는 항목으로 다시 만듦
+     */
+    private void unindex(Entry entry) {
+        synchronized (indexLock) {
+            VectorIndex current = vectors;
+            if (current == null || entry.node < 0 || !current.entries().remove(entry.node, entry)) {
+                return;
+            }
+            current.index().markDeleted(entry.node);
+            entry.node = -1;
+            HnswIndex index = current.index();
+            if (index.deletedCount() >= INDEX_REBUILD_MIN_DELETED && index.deletedCount() > index.liveCount()) {
+                VectorIndex rebuilt = new VectorIndex(new HnswIndex(index.dimension(), INDEX_M, INDEX_EF_CONSTRUCTION),
+                        new ConcurrentHashMap<>());
+                for (Entry live : current.entries().values()) {
+                    live.node = rebuilt.index().add(live.embedding);
+                    rebuilt.entries().put(live.node, live);
+                }
+                vectors = rebuilt;
+            }
+        }
+    }
+
+    private Flux<String> replay(String memoryId, String userMessage, Entry entry, StreamControl control) {
+        // AiServices 와 같은 순서로 메모리를 채워 다음 턴의 맥락을 유지
+        ChatMemory memory = chatMemoryConfig.getOrCreateMemory(memoryId);
+        control.bind(() -> {
+            memory.add(SystemMessage.from(ChatAssistant.SYSTEM_PROMPT));
+            memory.add(UserMessage.from(userMessage));
+        });
+        return Flux.fromIterable(Arrays.asList(entry.answer.split("(?<=\\s)")))
+                .doOnComplete(() -> control.bind(() -> memory.add(AiMessage.from(entry.answer))));
+    }
+
+    private Flux<String> streamAndStore(String memoryId, String userMessage, String key, float[] embedding,
+                                        StreamControl control) {
+        StringBuilder answer = new StringBuilder();
+        return control.bind(() -> chatAssistant.chatStream(memoryId, userMessage))
+                .doOnNext(answer::append)
+                .doOnComplete(() -> {
+                    if (answer.length() > 0 && answer.length() <= maxAnswerChars) {
+                        Entry entry = new Entry(key, answer.toString(), embedding);
+                        if (embedding != null) {
+                            index(entry);
+                        }
+                        entries.put(key, entry);
+                    }
+                });
+    }
+
+    private static Entry recordHit(Entry entry) {
+        entry.hits.increment();
+        entry.lastHitAt = System.currentTimeMillis();
+        return entry;
+    }
+
+    /**
+     * 질문 정규화: 유니코드 정규화, 소문자, 공백 축약, 끝 문장부호 제거
+     */
+    static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .trim();
+        return normalized.replaceAll("[\\s?!.~]+$", "");
+    }
+}
@@ -0,0 +1,85 @@
+package com.langchain.rag.websocket;
+
+import com.langchain.rag.model.StreamControl;
+import reactor.core.Disposable;
+
+/**
+ * 진행 중인 LLM 스트림
+ * - 지금까지 전송한 부분 응답을 보관하여 중지 시 메모리에 반영할 수 있도록 함
+ * - 구독(Disposable)이 연결되기 전에 취소되어도 연결 즉시 해제됨
+ * - 취소 시 StreamControl 도 취소하여 모델의 늦은 콜백과 이 스트림의 메모리 쓰기를 막음
+ */
+public class ActiveStream {
+
+    private final String webSocketSessionId;
+    private final String memoryId;
+    private final StringBuilder partialResponse = new StringBuilder();
+    private final StreamControl control = new StreamControl();
+
+    private Disposable disposable;
+    private boolean cancelled;
+    // 취소 시점에 최종 응답이 아직 메모리에 기록되지 않았는지
+    private boolean responseAbandoned;
+
+    public ActiveStream(String webSocketSessionId, String memoryId) {
+        this.webSocketSessionId = webSocketSessionId;
+        this.memoryId = memoryId;
+    }
+
+    public String webSocketSessionId() {
+        return webSocketSessionId;
+    }
+
+    public String memoryId() {
+        return memoryId;
+    }
+
+    public StreamControl control() {
+        return control;
+    }
+
+    public synchronized void attach(Disposable disposable) {
+        this.disposable = disposable;
+        if (cancelled) {
+            disposable.dispose();
+        }
+    }
+
+    public synchronized void append(String token) {
+        if (!cancelled) {
+            partialResponse.append(token);
+        }
+    }
+
+    /**
+     * 스트림 구독 해제 (먼저 StreamControl 을 취소하여 이후 메모리 쓰기를 막음)
+     *
+     * @return 이번 호출로 취소되었으면 true (이미 취소된 경우 false)
+     */
+    public synchronized boolean cancel() {
+        if (cancelled) {
+            return false;
+        }
+        cancelled = true;
+        responseAbandoned = control.cancel();
+        if (disposable != null) {
+            disposable.dispose();
+        }
+        return true;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 최종 응답이 기록되기 전에 취소되었는지 (부분 응답을 메모리에 반영해야 하는지)
+     */
+    public synchronized boolean responseAbandoned() {
+        return responseAbandoned;
+    }
+
+    public synchronized String partialResponse() {
+        return partialResponse.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.langchain.rag.websocket;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket 세션별 / memoryId 별 진행 중인 스트림 관리
+ */
+public class ActiveStreamRegistry {
+
+    private final ConcurrentHashMap<String, Set<ActiveStream>> bySession = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<ActiveStream>> byMemoryId = new ConcurrentHashMap<>();
+
+    public void register(ActiveStream stream) {
+        addTo(bySession, stream.webSocketSessionId(), stream);
+        addTo(byMemoryId, stream.memoryId(), stream);
+    }
+
+    public void unregister(ActiveStream stream) {
+        removeFrom(bySession, stream.webSocketSessionId(), stream);
+        removeFrom(byMemoryId, stream.memoryId(), stream);
+    }
+
+    /**
+     * WebSocket 세션의 스트림 목록 (memoryId 가 null 이면 전체)
+     */
+    public List<ActiveStream> find(String webSocketSessionId, String memoryId) {
+        Set<ActiveStream> streams = bySession.get(webSocketSessionId);
+        if (streams == null) {
+            return List.of();
+        }
+        return streams.stream()
+                .filter(stream -> memoryId == null || memoryId.equals(stream.memoryId()))
+                .toList();
+    }
+
+    /**
+     * memoryId 에 대해 진행 중인 스트림 목록
+     */
+    public List<ActiveStream> findByMemoryId(String memoryId) {
+        Set<ActiveStream> streams = byMemoryId.get(memoryId);
+        return streams == null ? List.of() : List.copyOf(streams);
+    }
+
+    public int activeCount() {
+        return bySession.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private static void addTo(ConcurrentHashMap<String, Set<ActiveStream>> index, String key, ActiveStream stream) {
+        index.compute(key, (k, streams) -> {
+            Set<ActiveStream> result = streams != null ? streams : ConcurrentHashMap.newKeySet();
+            result.add(stream);
+            return result;
+        });
+    }
+
+    private static void removeFrom(ConcurrentHashMap<String, Set<ActiveStream>> index, String key, ActiveStream stream) {
+        index.computeIfPresent(key, (k, streams) -> {
+            streams.remove(stream);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+}
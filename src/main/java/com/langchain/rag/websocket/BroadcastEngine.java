@@ -0,0 +1,287 @@
+package com.langchain.rag.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.langchain.rag.config.ChatExecution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 토픽 기반 브로드캐스트 팬아웃
+ * - 메시지는 publish 시점에 한 번만 직렬화하여 BroadcastFrame 으로 공유
+ * - 토픽 구독자는 세션 ID 해시로 shard 에 나뉘고, 구독자가 많으면 shard 별로 ChatExecution 실행기에서 병렬 전달
+ * - 전달은 세션 송신 대기열에 넣기만 하므로 호출 스레드가 느린 클라이언트의 소켓 쓰기를 기다리지 않음
+ *   (대기열이 가득 찬 세션은 그 프레임만 건너뜀)
+ * - 모든 연결은 TOPIC_ALL 을 자동 구독, 그 외 토픽은 클라이언트가 {"type":"subscribe","topic":"..."} 로 구독
+ * - 클라이언트 요청(subscribeClient/unsubscribeClient)은 예약 토픽(TOPIC_ALL, reserved-topics)을 거절하고
+ *   연결당 구독 토픽 수를 maxTopicsPerRecipient 로 제한 (TOPIC_ALL 제외, 넘으면 IllegalArgumentException)
+ */
+@Component
+public class BroadcastEngine {
+
+    public static final String TOPIC_ALL = "all";
+
+    // 클라이언트가 임의 문자열로 토픽을 무한히 만들지 못하도록 이름 형식 제한
+    private static final Pattern TOPIC_NAME = Pattern.compile("[a-z0-9][a-z0-9._-]{0,63}");
+
+    /**
+     * 브로드캐스트 수신자 (세션 송신 대기열)
+     */
+    public interface Recipient {
+
+        String id();
+
+        /**
+         * 프레임을 송신 대기열에 추가 (블로킹 없음)
+         *
+         * @return 대기열에 반영되었으면 true, 닫혔거나 가득 차 건너뛰었으면 false
+         */
+        boolean deliver(BroadcastFrame frame);
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Executor executor;
+    private final int shardCount;
+    // 구독자가 이 수 이하이면 shard 병렬화 없이 호출 스레드에서 전달
+    private final int inlineThreshold;
+
+    // 클라이언트가 구독/해지할 수 없는 토픽 (서버 쪽 subscribe 로만 구독)
+    private final Set<String> reservedTopics;
+    private final int maxTopicsPerRecipient;
+
+    private final ConcurrentHashMap<String, Topic> topics = new ConcurrentHashMap<>();
+    // 수신자 ID -> 구독 중인 토픽 (연결당 제한과 연결 종료 시 정리에 사용)
+    private final ConcurrentHashMap<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+
+    private final Counter queuedFrames;
+    private final Counter droppedFrames;
+    private final Timer fanout;
+
+    public BroadcastEngine(ChatExecution execution,
+                           MeterRegistry meterRegistry,
+                           @Value("${rag.websocket.broadcast.shards:0}") int shards,
+                           @Value("${rag.websocket.broadcast.inline-threshold:256}") int inlineThreshold,
+                           @Value("${rag.websocket.broadcast.max-topics-per-connection:16}") int maxTopicsPerRecipient,
+                           @Value("${rag.websocket.broadcast.reserved-topics:admin,system}") String[] reservedTopics) {
+        this.executor = execution.executor();
+        this.shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.inlineThreshold = inlineThreshold;
+        this.maxTopicsPerRecipient = maxTopicsPerRecipient;
+        Set<String> reserved = new HashSet<>(Set.of(TOPIC_ALL));
+        for (String topic : reservedTopics) {
+            if (!topic.isBlank()) {
+                reserved.add(topic.trim());
+            }
+        }
+        this.reservedTopics = Set.copyOf(reserved);
+        this.queuedFrames = Counter.builder("chat.ws.broadcast.frames")
+                .description("브로드캐스트 프레임 전달 결과")
+                .tag("result", "queued")
+                .register(meterRegistry);
+        this.droppedFrames = Counter.builder("chat.ws.broadcast.frames")
+                .description("브로드캐스트 프레임 전달 결과")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+        this.fanout = Timer.builder("chat.ws.broadcast.fanout")
+                .description("브로드캐스트 한 건의 직렬화 + 전체 구독자 대기열 반영 시간")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(meterRegistry);
+    }
+
+    /**
+     * 토픽 이름 검증 (형식이 맞지 않으면 IllegalArgumentException)
+     */
+    public static String checkTopic(String topic) {
+        if (topic == null || !TOPIC_NAME.matcher(topic).matches()) {
+            throw new IllegalArgumentException("토픽 이름은 영문 소문자/숫자/._- 로 된 64자 이하 문자열이어야 합니다: " + topic);
+        }
+        return topic;
+    }
+
+    /**
+     * 서버 쪽 구독 (예약 토픽 포함, 연결당 제한 없음)
+     */
+    public void subscribe(String topic, Recipient recipient) {
+        checkTopic(topic);
+        subscriptions.computeIfAbsent(recipient.id(), id -> ConcurrentHashMap.newKeySet()).add(topic);
+        addSubscriber(topic, recipient);
+    }
+
+    /**
+     * 클라이언트 요청에 의한 구독 (예약 토픽이거나 연결당 토픽 수를 넘으면 IllegalArgumentException)
+     */
+    public void subscribeClient(String topic, Recipient recipient) {
+        checkClientTopic(topic);
+        subscriptions.compute(recipient.id(), (id, current) -> {
+            Set<String> own = current != null ? current : ConcurrentHashMap.newKeySet();
+            if (!own.contains(topic) && clientTopicCount(own) >= maxTopicsPerRecipient) {
+                throw new IllegalArgumentException("연결당 구독할 수 있는 토픽은 최대 " + maxTopicsPerRecipient + "개입니다");
+            }
+            own.add(topic);
+            return own;
+        });
+        addSubscriber(topic, recipient);
+    }
+
+    /**
+     * 클라이언트 요청에 의한 구독 해지 (예약 토픽은 해지할 수 없음)
+     */
+    public void unsubscribeClient(String topic, String recipientId) {
+        checkClientTopic(topic);
+        unsubscribe(topic, recipientId);
+    }
+
+    public void unsubscribe(String topic, String recipientId) {
+        subscriptions.computeIfPresent(recipientId, (id, own) -> own.remove(topic) && own.isEmpty() ? null : own);
+        removeSubscriber(topic, recipientId);
+    }
+
+    /**
+     * 연결 종료 시 모든 토픽에서 제거
+     */
+    public void unsubscribeAll(String recipientId) {
+        Set<String> own = subscriptions.remove(recipientId);
+        if (own != null) {
+            own.forEach(topic -> removeSubscriber(topic, recipientId));
+        }
+    }
+
+    private void checkClientTopic(String topic) {
+        checkTopic(topic);
+        if (reservedTopics.contains(topic)) {
+            throw new IllegalArgumentException("예약된 토픽은 구독하거나 해지할 수 없습니다: " + topic);
+        }
+    }
+
+    private static int clientTopicCount(Set<String> own) {
+        return own.contains(TOPIC_ALL) ? own.size() - 1 : own.size();
+    }
+
+    private void addSubscriber(String topic, Recipient recipient) {
+        topics.compute(topic, (name, existing) -> {
+            Topic target = existing != null ? existing : new Topic(shardCount);
+            target.add(recipient);
+            return target;
+        });
+    }
+
+    private void removeSubscriber(String topic, String recipientId) {
+        // 마지막 구독자가 나가면 토픽 제거 (compute 안에서 처리하여 동시 subscribe 와 경합하지 않음)
+        topics.computeIfPresent(topic, (name, existing) -> existing.remove(recipientId) ? null : existing);
+    }
+
+    /**
+     * 토픽 구독자에게 메시지 전송
+     *
+     * @return 송신 대기열에 반영된 구독자 수
+     */
+    public int publish(String topic, ChatWebSocketHandler.ChatMessage message) {
+        long start = System.nanoTime();
+        Topic target = topics.get(checkTopic(topic));
+        if (target == null) {
+            return 0;
+        }
+        BroadcastFrame frame = BroadcastFrame.of(objectMapper, topic, message);
+        int delivered;
+        if (target.size() <= inlineThreshold) {
+            delivered = 0;
+            for (Map<String, Recipient> shard : target.shards) {
+                delivered += deliver(shard, frame);
+            }
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            List<CompletableFuture<Void>> tasks = new ArrayList<>(target.shards.length);
+            for (Map<String, Recipient> shard : target.shards) {
+                if (!shard.isEmpty()) {
+                    tasks.add(CompletableFuture.runAsync(() -> count.addAndGet(deliver(shard, frame)), executor));
+                }
+            }
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+            delivered = count.get();
+        }
+        fanout.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return delivered;
+    }
+
+    private int deliver(Map<String, Recipient> shard, BroadcastFrame frame) {
+        int delivered = 0;
+        int dropped = 0;
+        for (Recipient recipient : shard.values()) {
+            if (recipient.deliver(frame)) {
+                delivered++;
+            } else {
+                dropped++;
+            }
+        }
+        queuedFrames.increment(delivered);
+        droppedFrames.increment(dropped);
+        return delivered;
+    }
+
+    /**
+     * 토픽별 구독자 수
+     */
+    public Map<String, Integer> stats() {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        topics.forEach((name, topic) -> stats.put(name, topic.size()));
+        return stats;
+    }
+
+    /**
+     * 토픽 하나의 구독자 (세션 ID 해시 기준 shard)
+     */
+    private static final class Topic {
+        private final Map<String, Recipient>[] shards;
+        private final AtomicInteger size = new AtomicInteger();
+
+        @SuppressWarnings("unchecked")
+        Topic(int shardCount) {
+            this.shards = new Map[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = new ConcurrentHashMap<>();
+            }
+        }
+
+        void add(Recipient recipient) {
+            if (shard(recipient.id()).put(recipient.id(), recipient) == null) {
+                size.incrementAndGet();
+            }
+        }
+
+        /**
+         * @return 제거 후 구독자가 없으면 true
+         */
+        boolean remove(String recipientId) {
+            if (shard(recipientId).remove(recipientId) != null) {
+                return size.decrementAndGet() == 0;
+            }
+            return size.get() == 0;
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        private Map<String, Recipient> shard(String id) {
+            return shards[Math.floorMod(id.hashCode(), shards.length)];
+        }
+    }
+}
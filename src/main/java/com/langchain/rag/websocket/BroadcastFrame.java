@@ -0,0 +1,69 @@
+package com.langchain.rag.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 한 번만 직렬화된 브로드캐스트 프레임 (불변, 모든 수신 세션이 공유)
+ * - JSON 과 바이너리(FrameCodec.BINARY) 인코딩을 모두 미리 만들어 두고 세션의 코덱에 맞는 것을 사용
+ * - 서블릿 JSON 세션은 같은 TextMessage 인스턴스를 그대로 전송
+ * - 리액티브 세션은 payload 바이트를 감싸 세션별 WebSocketMessage 를 만듦 (DataBuffer 는 세션 소유라 공유 불가)
+ * - payload/binary 배열은 읽기 전용으로만 사용할 것
+ */
+public final class BroadcastFrame {
+
+    private final String topic;
+    private final String type;
+    private final String json;
+    private final byte[] jsonBytes;
+    private final byte[] binary;
+    private final TextMessage textMessage;
+
+    private BroadcastFrame(String topic, String type, String json, byte[] binary) {
+        this.topic = topic;
+        this.type = type;
+        this.json = json;
+        this.jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        this.binary = binary;
+        this.textMessage = new TextMessage(json);
+    }
+
+    public static BroadcastFrame of(ObjectMapper objectMapper, String topic, ChatWebSocketHandler.ChatMessage message) {
+        try {
+            return new BroadcastFrame(topic, message.getType(), objectMapper.writeValueAsString(message),
+                    FrameCodec.encodeBinary(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("브로드캐스트 메시지를 직렬화할 수 없습니다: " + e.getMessage(), e);
+        }
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public String json() {
+        return json;
+    }
+
+    public byte[] binary() {
+        return binary;
+    }
+
+    /**
+     * 코덱에 맞는 프레임 페이로드 (JSON 은 UTF-8 바이트)
+     */
+    public byte[] payload(FrameCodec codec) {
+        return codec == FrameCodec.BINARY ? binary : jsonBytes;
+    }
+
+    public TextMessage textMessage() {
+        return textMessage;
+    }
+}
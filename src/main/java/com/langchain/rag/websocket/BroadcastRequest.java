@@ -0,0 +1,19 @@
+package com.langchain.rag.websocket;
+
+/**
+ * 관리자 브로드캐스트 요청
+ *
+ * @param topic   대상 토픽 (비어 있으면 전체 연결, BroadcastEngine.TOPIC_ALL)
+ * @param content 전송할 내용
+ * @param sender  발신자 표시 (비어 있으면 system)
+ */
+public record BroadcastRequest(String topic, String content, String sender) {
+
+    public String topic() {
+        return topic == null || topic.isBlank() ? BroadcastEngine.TOPIC_ALL : topic;
+    }
+
+    public String sender() {
+        return sender == null || sender.isBlank() ? "system" : sender;
+    }
+}
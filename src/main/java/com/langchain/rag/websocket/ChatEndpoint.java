@@ -0,0 +1,21 @@
+package com.langchain.rag.websocket;
+
+/**
+ * /ws/chat 엔드포인트 공통 기능
+ * - 서블릿(ChatWebSocketHandler) / 리액티브(ReactiveChatWebSocketHandler) 구현 중 실행 중인 웹 스택의 것 하나만 빈으로 등록됨
+ * - 브로드캐스트는 두 스택 모두 BroadcastEngine 을 통해 전송
+ */
+public interface ChatEndpoint {
+
+    String STACK_SERVLET = "servlet";
+    String STACK_REACTIVE = "reactive";
+
+    int getActiveSessionCount();
+
+    int getActiveStreamCount();
+
+    /**
+     * 실행 중인 웹 스택 (servlet | reactive)
+     */
+    String stack();
+}
@@ -2,37 +2,118 @@ package com.langchain.rag.websocket;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.langchain.rag.service.ChatAssistant;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.exception.AdmissionRejectedException;
+import com.langchain.rag.memory.ChatMessageSizes;
+import com.langchain.rag.service.ChatAdmissionService;
+import com.langchain.rag.service.SemanticResponseCache;
+import dev.langchain4j.memory.ChatMemory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.SignalType;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 @Component
-public class ChatWebSocketHandler implements WebSocketHandler {
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ChatWebSocketHandler implements WebSocketHandler, SubProtocolCapable, ChatEndpoint {
 
     private static final Logger log = LoggerFactory.getLogger(ChatWebSocketHandler.class);
-    private final ChatAssistant chatAssistant;
+
+    // 세션 속성에 저장되는 스트리밍 옵션 키
+    private static final String STREAM_OPTIONS_ATTRIBUTE = "rag.streamOptions";
+
+    // ChatAssistant 앞단의 응답 캐시 (미스/우회 시 ChatAssistant 로 위임)
+    private final SemanticResponseCache responseCache;
+    private final ChatMemoryConfig chatMemoryConfig;
+    private final ChatAdmissionService admissionService;
+    private final ChatExecution execution;
+    private final BroadcastEngine broadcastEngine;
     private final ObjectMapper objectMapper;
+
+    // 토큰 묶음 전송(coalesced) 모드 기본값/상한
+    private final Duration defaultFlushInterval;
+    private final Duration maxFlushInterval;
+    private final int defaultMaxTokens;
+    private final int maxTokensLimit;
+
+    // 세션별 송신 대기열 설정
+    private final int outboundCapacity;
+    private final int outboundResumeThreshold;
+    private final SessionOutbound.OverflowPolicy overflowPolicy;
+    private final Executor outboundExecutor;
+    private final OutboundMetrics outboundMetrics;
+    private final StreamMetrics streamMetrics;
     
-    // 활성 WebSocket 세션 관리
-    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    // 활성 WebSocket 세션 관리 (세션 ID -> 송신 대기열)
+    private final ConcurrentHashMap<String, SessionOutbound> sessions = new ConcurrentHashMap<>();
+
+    // 진행 중인 LLM 스트림 (연결 종료/중지 요청 시 구독 해제)
+    private final ActiveStreamRegistry activeStreams = new ActiveStreamRegistry();
 
-    public ChatWebSocketHandler(ChatAssistant chatAssistant) {
-        this.chatAssistant = chatAssistant;
+    public ChatWebSocketHandler(
+            SemanticResponseCache responseCache,
+            ChatMemoryConfig chatMemoryConfig,
+            ChatAdmissionService admissionService,
+            ChatExecution execution,
+            BroadcastEngine broadcastEngine,
+            MeterRegistry meterRegistry,
+            @Value("${rag.websocket.coalesce.flush-interval:30ms}") Duration defaultFlushInterval,
+            @Value("${rag.websocket.coalesce.max-flush-interval:250ms}") Duration maxFlushInterval,
+            @Value("${rag.websocket.coalesce.max-tokens:64}") int defaultMaxTokens,
+            @Value("${rag.websocket.coalesce.max-tokens-limit:512}") int maxTokensLimit,
+            @Value("${rag.websocket.outbound.capacity:256}") int outboundCapacity,
+            @Value("${rag.websocket.outbound.resume-threshold:64}") int outboundResumeThreshold,
+            @Value("${rag.websocket.outbound.overflow-policy:COALESCE}") SessionOutbound.OverflowPolicy overflowPolicy) {
+        this.responseCache = responseCache;
+        this.chatMemoryConfig = chatMemoryConfig;
+        this.admissionService = admissionService;
+        this.execution = execution;
+        this.broadcastEngine = broadcastEngine;
         this.objectMapper = new ObjectMapper();
+        this.defaultFlushInterval = defaultFlushInterval;
+        this.maxFlushInterval = maxFlushInterval;
+        this.defaultMaxTokens = defaultMaxTokens;
+        this.maxTokensLimit = maxTokensLimit;
+        this.outboundCapacity = outboundCapacity;
+        this.outboundResumeThreshold = outboundResumeThreshold;
+        this.overflowPolicy = overflowPolicy;
+        // 블로킹 sendMessage 를 수행하는 세션별 drainer (rag.execution.mode 에 따라 boundedElastic 또는 가상 스레드)
+        this.outboundExecutor = execution.executor();
+        this.outboundMetrics = new OutboundMetrics(meterRegistry);
+        this.streamMetrics = new StreamMetrics(meterRegistry);
+        Gauge.builder("chat.ws.outbound.queued", sessions,
+                        map -> map.values().stream().mapToInt(SessionOutbound::queuedFrames).sum())
+                .description("전체 세션의 송신 대기 프레임 수")
+                .register(meterRegistry);
+        Gauge.builder("chat.stream.active", activeStreams, ActiveStreamRegistry::activeCount)
+                .description("진행 중인 LLM 스트림 수")
+                .register(meterRegistry);
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String sessionId = session.getId();
-        sessions.put(sessionId, session);
-        log.info("WebSocket 연결 성공: {}", sessionId);
+        // 송신 프레임 인코딩은 핸드셰이크의 서브프로토콜로 결정 (permessage-deflate 는 Tomcat 이 협상)
+        FrameCodec codec = FrameCodec.forSubprotocol(session.getAcceptedProtocol());
+        SessionOutbound outbound = new SessionOutbound(session, codec, outboundCapacity,
+                outboundResumeThreshold, overflowPolicy, outboundExecutor, outboundMetrics);
+        sessions.put(sessionId, outbound);
+        broadcastEngine.subscribe(BroadcastEngine.TOPIC_ALL, outbound);
+        log.info("WebSocket 연결 성공: {} (codec={}, extensions={})", sessionId, codec, session.getExtensions());
         
         // 연결 확인 메시지 전송
         sendMessage(session, new ChatMessage("system", "연결되었습니다. 메시지를 보내보세요!", "connected"));
@@ -47,6 +128,22 @@ public class ChatWebSocketHandler implements WebSocketHandler {
         
         try {
             JsonNode jsonNode = objectMapper.readTree(payload);
+            String type = jsonNode.path("type").asText();
+            if ("config".equals(type)) {
+                // 스트리밍 전송 모드 협상
+                handleConfigMessage(session, jsonNode);
+                return;
+            }
+            if ("stop".equals(type)) {
+                // 생성 중지 요청
+                handleStopMessage(session, jsonNode.hasNonNull("sessionId") ? jsonNode.get("sessionId").asText() : null);
+                return;
+            }
+            if ("subscribe".equals(type) || "unsubscribe".equals(type)) {
+                // 브로드캐스트 토픽 구독 변경
+                handleTopicMessage(session, type, jsonNode.path("topic").asText());
+                return;
+            }
             String userMessage = jsonNode.get("message").asText();
             String memoryId = jsonNode.has("sessionId") ? 
                 jsonNode.get("sessionId").asText() : session.getId();
@@ -60,20 +157,112 @@ public class ChatWebSocketHandler implements WebSocketHandler {
         }
     }
 
- 
+    /**
+     * 스트리밍 전송 모드 협상
+     * 요청 예: {"type":"config","streamMode":"coalesced","flushIntervalMs":30,"maxTokens":64}
+     * 서버 상한으로 보정한 실제 적용 값을 config_ack 로 돌려준다.
+     */
+    private void handleConfigMessage(WebSocketSession session, JsonNode config) {
+        StreamOptions options = StreamOptions.PER_TOKEN;
+        if (StreamOptions.MODE_COALESCED.equals(config.path("streamMode").asText())) {
+            long flushMillis = config.path("flushIntervalMs").asLong(defaultFlushInterval.toMillis());
+            flushMillis = Math.max(1, Math.min(flushMillis, maxFlushInterval.toMillis()));
+            int maxTokens = config.path("maxTokens").asInt(defaultMaxTokens);
+            maxTokens = Math.max(1, Math.min(maxTokens, maxTokensLimit));
+            options = new StreamOptions(true, Duration.ofMillis(flushMillis), maxTokens);
+        }
+        session.getAttributes().put(STREAM_OPTIONS_ATTRIBUTE, options);
+        log.info("스트리밍 모드 설정 [{}]: {}", session.getId(), options);
+
+        ObjectNode ack = objectMapper.createObjectNode();
+        ack.put("streamMode", options.mode());
+        ack.put("flushIntervalMs", options.flushInterval().toMillis());
+        ack.put("maxTokens", options.maxTokens());
+        sendMessage(session, new ChatMessage("system", ack.toString(), "config_ack"));
+    }
+
+    /**
+     * 진행 중인 스트림을 중지하고 지금까지 생성된 부분 응답만 메모리에 반영
+     * 요청 예: {"type":"stop","sessionId":"..."} (sessionId 생략 시 이 연결의 모든 스트림)
+     */
+    private void handleStopMessage(WebSocketSession session, String memoryId) {
+        for (ActiveStream stream : activeStreams.find(session.getId(), memoryId)) {
+            // 부분 응답 반영과 허가 반납은 구독 해제 시 settle 에서 수행
+            if (stream.cancel()) {
+                activeStreams.unregister(stream);
+                log.info("스트리밍 중지 [{}] memoryId={}", session.getId(), stream.memoryId());
+                sendMessage(session, new ChatMessage("system", "응답 생성이 중지되었습니다.", "stream_stopped"));
+            }
+        }
+    }
+
+    /**
+     * 브로드캐스트 토픽 구독/해지
+     * 요청 예: {"type":"subscribe","topic":"notice"} → subscribed / unsubscribed 응답 (content 는 토픽 이름)
+     * 예약 토픽이거나 연결당 토픽 수를 넘으면 error 응답
+     */
+    private void handleTopicMessage(WebSocketSession session, String type, String topic) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        if (outbound == null) {
+            return;
+        }
+        if ("subscribe".equals(type)) {
+            broadcastEngine.subscribeClient(topic, outbound);
+        } else {
+            broadcastEngine.unsubscribeClient(topic, outbound.id());
+        }
+        log.info("브로드캐스트 토픽 {} [{}]: {}", type, session.getId(), topic);
+        sendMessage(session, new ChatMessage("system", topic, type + "d"));
+    }
+
+    private StreamOptions streamOptions(WebSocketSession session) {
+        Object options = session.getAttributes().get(STREAM_OPTIONS_ATTRIBUTE);
+        return options instanceof StreamOptions streamOptions ? streamOptions : StreamOptions.PER_TOKEN;
+    }
 
     private void handleChatMessage(WebSocketSession session, String userMessage, String memoryId) {
         try {
-            // 스트리밍 시작 알림
-            sendMessage(session, new ChatMessage("system", "스트리밍을 시작합니다...", "stream_start"));
-            
-            // 프론트엔드에서 전송한 논리적 세션 ID를 메모리 ID로 사용
-            Flux<String> streamResponse = chatAssistant.chatStream(memoryId, userMessage);
-            
-            streamResponse
-                .subscribeOn(Schedulers.boundedElastic())
+            SessionOutbound outbound = sessions.get(session.getId());
+            if (outbound == null) {
+                return;
+            }
+            StreamOptions options = streamOptions(session);
+            StreamMetrics.Recorder metrics = streamMetrics.start(options);
+
+            ActiveStream activeStream = new ActiveStream(session.getId(), memoryId);
+            activeStreams.register(activeStream);
+
+            // 입장 제어: 전체 동시 스트림 한도, memoryId 별 직렬화, 대기 순번 통지
+            Disposable subscription = admissionService.acquire(session.getId(), memoryId,
+                    position -> sendMessage(session, new ChatMessage("system", String.valueOf(position), "queued")))
+                // 준비 단계에서 실패하거나 중지되어도 settle 을 거쳐 허가 반납
+                .flatMapMany(permit -> Flux.defer(() -> {
+                    // 스트리밍 시작 알림
+                    sendMessage(session, new ChatMessage("system", "스트리밍을 시작합니다...", "stream_start"));
+
+                    streamMetrics.recordPromptBytes(promptBytes(memoryId, userMessage));
+
+                    // 프론트엔드에서 전송한 논리적 세션 ID를 메모리 ID로 사용
+                    // 토큰 간격/처리량은 묶음 전송 전 모델 토큰 기준으로 측정
+                    Flux<String> streamResponse = responseCache.chatStream(memoryId, userMessage, activeStream.control())
+                        .doOnNext(token -> metrics.onToken());
+
+                    // coalesced 모드: 시간 창/최대 토큰 수/스트림 종료 중 먼저 도달한 시점에 한 프레임으로 전송
+                    if (options.coalesced()) {
+                        streamResponse = streamResponse
+                            // 시간 창 flush 를 기본 parallel 이 아닌 채팅 실행기에서 수행 (송신/메모리 반영이 같은 스케줄러에 머물도록)
+                            // fair backpressure: 느린 클라이언트로 하류 요청이 멈추면 시간 창 flush 도 기다림 (요청 부족 오류 대신 속도 조절)
+                            .bufferTimeout(options.maxTokens(), options.flushInterval(), execution.scheduler(), true)
+                            .map(tokens -> String.join("", tokens));
+                    }
+                    return streamResponse;
+                }).doFinally(signal -> settle(activeStream, signal, permit)))
+                .subscribeOn(execution.scheduler())
+                // 송신 대기열이 가득 차면 여유가 생길 때까지 다음 토큰 요청을 멈춤 (backpressure)
+                .concatMap(token -> outbound.whenWritable().thenReturn(token), 1)
                 .doOnNext(token -> {
                     try {
+                        activeStream.append(token);
                         sendMessage(session, new ChatMessage("ai", token, "stream_token"));
                     } catch (Exception e) {
                         log.error("스트리밍 토큰 전송 중 오류", e);
@@ -88,13 +277,25 @@ public class ChatWebSocketHandler implements WebSocketHandler {
                 })
                 .doOnError(error -> {
                     try {
+                        if (error instanceof AdmissionRejectedException rejected) {
+                            metrics.rejected();
+                            log.warn("채팅 요청 거절 [{}]: {}", session.getId(), rejected.getReason());
+                            sendMessage(session, new ChatMessage("system", rejected.getMessage(), "rejected"));
+                            return;
+                        }
                         log.error("스트리밍 중 오류", error);
                         sendMessage(session, new ChatMessage("error", "스트리밍 중 오류가 발생했습니다.", "error"));
                     } catch (Exception e) {
                         log.error("에러 메시지 전송 중 오류", e);
                     }
                 })
-                .subscribe();
+                .doFinally(signal -> {
+                    activeStreams.unregister(activeStream);
+                    metrics.finish(signal);
+                })
+                // 오류는 doOnError 에서 처리
+                .subscribe(null, error -> { });
+            activeStream.attach(subscription);
                 
         } catch (Exception e) {
             log.error("스트리밍 메시지 처리 중 오류", e);
@@ -102,27 +303,70 @@ public class ChatWebSocketHandler implements WebSocketHandler {
         }
     }
 
-    private void sendMessage(WebSocketSession session, ChatMessage chatMessage) {
+    /**
+     * 상류(모델 호출) 스트림이 끝났거나 취소된 뒤 허가 반납
+     * - 취소된 경우 StreamControl 을 먼저 취소하여 이후 모델 콜백/메모리 쓰기를 막고, 최종 응답 전이면 부분 응답을 반영
+     * - 그 다음 허가를 반납하므로 같은 memoryId 의 다음 턴은 부분 응답이 반영된 메모리에서 시작
+     * - 준비 단계(메모리/검색/모델 요청) 중 취소되면 준비 단계가 끝나거나 인터럽트로 실패한 뒤 호출됨
+     */
+    private void settle(ActiveStream stream, SignalType signal, ChatAdmissionService.Permit permit) {
         try {
-            if (session.isOpen()) {
-                String json = objectMapper.writeValueAsString(chatMessage);
-                session.sendMessage(new TextMessage(json));
+            if (signal == SignalType.CANCEL) {
+                stream.cancel();
             }
-        } catch (IOException e) {
-            log.error("WebSocket 메시지 전송 실패", e);
+            // 중지로 준비 단계가 인터럽트되어 오류로 끝난 경우도 포함
+            if (stream.responseAbandoned()) {
+                chatMemoryConfig.commitPartialResponse(stream.memoryId(), stream.partialResponse());
+            }
+        } catch (Exception e) {
+            log.error("중지된 스트림 정리 중 오류", e);
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * 세션 송신 대기열에 메시지 추가 (실제 전송은 세션별 drainer 가 수행)
+     */
+    private void sendMessage(WebSocketSession session, ChatMessage chatMessage) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        if (outbound != null) {
+            outbound.offer(chatMessage);
+        }
+    }
+
+    /**
+     * 요청 시점의 대화 메모리 + 질문 크기 추정치 (ChatMessageSizes 기준, 검색으로 덧붙는 문서는 제외)
+     */
+    private long promptBytes(String memoryId, String userMessage) {
+        ChatMemory memory = chatMemoryConfig.getMemory(memoryId);
+        long bytes = memory != null ? ChatMessageSizes.estimateBytes(memory.messages()) : 0;
+        return bytes + 2L * userMessage.length();
+    }
+
+    private void removeSession(String sessionId) {
+        // 연결이 끊긴 세션의 스트림은 더 이상 소비할 곳이 없으므로 구독 해제 (보낸 데까지만 메모리에 반영)
+        for (ActiveStream stream : activeStreams.find(sessionId, null)) {
+            stream.cancel();
+            activeStreams.unregister(stream);
+        }
+        broadcastEngine.unsubscribeAll(sessionId);
+        SessionOutbound outbound = sessions.remove(sessionId);
+        if (outbound != null) {
+            outbound.close();
         }
     }
 
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
         log.error("WebSocket 전송 오류 [{}]", session.getId(), exception);
-        sessions.remove(session.getId());
+        removeSession(session.getId());
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
         String sessionId = session.getId();
-        sessions.remove(sessionId);
+        removeSession(sessionId);
         log.info("WebSocket 연결 종료: {} (상태: {})", sessionId, closeStatus);
     }
 
@@ -132,19 +376,34 @@ public class ChatWebSocketHandler implements WebSocketHandler {
     }
 
     /**
-     * 모든 활성 세션에 브로드캐스트
+     * 핸드셰이크에서 제시하는 서브프로토콜 (FrameCodec 참고, 요청하지 않으면 JSON)
+     */
+    @Override
+    public List<String> getSubProtocols() {
+        return FrameCodec.subprotocols();
+    }
+
+    /**
+     * 진행 중인 스트림 수 반환
      */
-    public void broadcast(ChatMessage message) {
-        sessions.values().forEach(session -> sendMessage(session, message));
+    @Override
+    public int getActiveStreamCount() {
+        return activeStreams.activeCount();
     }
 
     /**
      * 현재 활성 세션 수 반환
      */
+    @Override
     public int getActiveSessionCount() {
         return sessions.size();
     }
 
+    @Override
+    public String stack() {
+        return STACK_SERVLET;
+    }
+
     /**
      * 채팅 메시지 DTO
      */
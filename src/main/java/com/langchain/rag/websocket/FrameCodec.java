@@ -0,0 +1,181 @@
+package com.langchain.rag.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * /ws/chat 송신 프레임 인코딩 (연결 시 WebSocket 서브프로토콜로 협상, 협상하지 않으면 JSON)
+ * - JSON   (chat.v1.json, 기본): ChatMessage 를 그대로 JSON 텍스트 프레임으로
+ * - BINARY (chat.v2.bin): 필드 이름 없이 아래 형식의 바이너리 프레임
+ *   [헤더 1B]   bit0-4 type 코드 (TYPES 순번, 31 = 표에 없는 type), bit5-6 sender 코드 (SENDERS 순번, 3 = 표에 없는 sender),
+ *               bit7 timestamp 포함 여부
+ *   [type]      type 코드가 31 일 때만, varint 길이 + UTF-8
+ *   [sender]    sender 코드가 3 일 때만, varint 길이 + UTF-8
+ *   [timestamp] bit7 일 때만, varint (epoch ms), stream_token 에는 넣지 않음
+ *   [content]   프레임의 나머지 전부 UTF-8 (길이 없음)
+ * - 수신(클라이언트 → 서버)은 두 방식 모두 JSON 텍스트 프레임
+ * - 코드 표는 순서가 곧 프로토콜이므로 항목은 끝에만 추가 (index.html 의 같은 표와 맞출 것)
+ */
+public enum FrameCodec {
+
+    JSON("chat.v1.json"),
+    BINARY("chat.v2.bin");
+
+    static final List<String> TYPES = List.of("stream_token", "stream_start", "stream_end", "connected",
+            "config_ack", "queued", "rejected", "error", "stream_stopped", "subscribed", "unsubscribed", "broadcast");
+    static final List<String> SENDERS = List.of("ai", "system", "error");
+
+    private static final int CUSTOM_TYPE = 0x1F;
+    private static final int CUSTOM_SENDER = 0x3;
+    private static final int SENDER_SHIFT = 5;
+    private static final int HAS_TIMESTAMP = 0x80;
+    private static final String STREAM_TOKEN = "stream_token";
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writerFor(ChatWebSocketHandler.ChatMessage.class);
+
+    private final String subprotocol;
+
+    FrameCodec(String subprotocol) {
+        this.subprotocol = subprotocol;
+    }
+
+    public String subprotocol() {
+        return subprotocol;
+    }
+
+    /**
+     * 서버가 지원하는 서브프로토콜 (선택은 클라이언트가 요청한 순서를 따름)
+     */
+    public static List<String> subprotocols() {
+        return List.of(BINARY.subprotocol, JSON.subprotocol);
+    }
+
+    /**
+     * 핸드셰이크에서 합의된 서브프로토콜의 코덱 (없거나 모르는 값이면 JSON)
+     */
+    public static FrameCodec forSubprotocol(String subprotocol) {
+        return BINARY.subprotocol.equals(subprotocol) ? BINARY : JSON;
+    }
+
+    /**
+     * 프레임 페이로드 (JSON 은 UTF-8 바이트)
+     */
+    public byte[] encode(ChatWebSocketHandler.ChatMessage message) {
+        if (this == BINARY) {
+            return encodeBinary(message);
+        }
+        try {
+            return JSON_WRITER.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String encodeJson(ChatWebSocketHandler.ChatMessage message) {
+        try {
+            return JSON_WRITER.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static byte[] encodeBinary(ChatWebSocketHandler.ChatMessage message) {
+        int typeCode = code(TYPES, message.getType(), CUSTOM_TYPE);
+        int senderCode = code(SENDERS, message.getSender(), CUSTOM_SENDER);
+        boolean timestamp = !STREAM_TOKEN.equals(message.getType());
+        byte[] type = typeCode == CUSTOM_TYPE ? utf8(message.getType()) : null;
+        byte[] sender = senderCode == CUSTOM_SENDER ? utf8(message.getSender()) : null;
+        byte[] content = utf8(message.getContent());
+
+        int size = 1 + content.length
+                + (type != null ? varintSize(type.length) + type.length : 0)
+                + (sender != null ? varintSize(sender.length) + sender.length : 0)
+                + (timestamp ? varintSize(message.getTimestamp()) : 0);
+        byte[] frame = new byte[size];
+        frame[0] = (byte) (typeCode | senderCode << SENDER_SHIFT | (timestamp ? HAS_TIMESTAMP : 0));
+        int position = 1;
+        if (type != null) {
+            position = writeString(frame, position, type);
+        }
+        if (sender != null) {
+            position = writeString(frame, position, sender);
+        }
+        if (timestamp) {
+            position = writeVarint(frame, position, message.getTimestamp());
+        }
+        System.arraycopy(content, 0, frame, position, content.length);
+        return frame;
+    }
+
+    /**
+     * 바이너리 프레임 해석 (index.html 의 decodeFrame 과 같은 규칙, 검증/벤치마크용)
+     */
+    static ChatWebSocketHandler.ChatMessage decodeBinary(byte[] frame) {
+        int header = frame[0] & 0xFF;
+        int typeCode = header & CUSTOM_TYPE;
+        int senderCode = (header >>> SENDER_SHIFT) & CUSTOM_SENDER;
+        int[] position = {1};
+        String type = typeCode == CUSTOM_TYPE ? readString(frame, position) : TYPES.get(typeCode);
+        String sender = senderCode == CUSTOM_SENDER ? readString(frame, position) : SENDERS.get(senderCode);
+        ChatWebSocketHandler.ChatMessage message = new ChatWebSocketHandler.ChatMessage(sender, null, type);
+        message.setTimestamp((header & HAS_TIMESTAMP) != 0 ? readVarint(frame, position) : 0);
+        message.setContent(new String(frame, position[0], frame.length - position[0], StandardCharsets.UTF_8));
+        return message;
+    }
+
+    private static int code(List<String> table, String value, int custom) {
+        int index = value != null ? table.indexOf(value) : -1;
+        return index >= 0 ? index : custom;
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : EMPTY;
+    }
+
+    private static int writeString(byte[] frame, int position, byte[] value) {
+        position = writeVarint(frame, position, value.length);
+        System.arraycopy(value, 0, frame, position, value.length);
+        return position + value.length;
+    }
+
+    private static int writeVarint(byte[] frame, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            frame[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        frame[position++] = (byte) value;
+        return position;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static String readString(byte[] frame, int[] position) {
+        int length = (int) readVarint(frame, position);
+        String value = new String(frame, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+
+    private static long readVarint(byte[] frame, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = frame[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
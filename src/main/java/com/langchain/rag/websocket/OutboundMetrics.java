@@ -0,0 +1,57 @@
+package com.langchain.rag.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 송신 대기열 지표
+ * - chat.ws.outbound.slow.consumer{action=throttled}: 대기열이 가득 차 상류 스트림을 멈춘 횟수
+ * - chat.ws.outbound.slow.consumer{action=drop_oldest|coalesce|disconnect}: 대기열 초과 처리 횟수
+ * - chat.ws.outbound.send: 프레임 하나의 직렬화 + sendMessage 시간
+ */
+public class OutboundMetrics {
+
+    private static final String NAME = "chat.ws.outbound.slow.consumer";
+
+    private final Counter throttled;
+    private final Timer send;
+    private final Map<SessionOutbound.OverflowPolicy, Counter> overflows =
+            new EnumMap<>(SessionOutbound.OverflowPolicy.class);
+
+    public OutboundMetrics(MeterRegistry meterRegistry) {
+        this.throttled = Counter.builder(NAME)
+                .description("느린 클라이언트로 인한 송신 대기열 이벤트")
+                .tag("action", "throttled")
+                .register(meterRegistry);
+        this.send = Timer.builder("chat.ws.outbound.send")
+                .description("프레임 직렬화 + WebSocket 전송 시간")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(meterRegistry);
+        for (SessionOutbound.OverflowPolicy policy : SessionOutbound.OverflowPolicy.values()) {
+            overflows.put(policy, Counter.builder(NAME)
+                    .description("느린 클라이언트로 인한 송신 대기열 이벤트")
+                    .tag("action", policy.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    void throttled() {
+        throttled.increment();
+    }
+
+    void sent(long nanos) {
+        send.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void overflow(SessionOutbound.OverflowPolicy policy) {
+        overflows.get(policy).increment();
+    }
+}
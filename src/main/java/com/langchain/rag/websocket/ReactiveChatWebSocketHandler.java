@@ -0,0 +1,364 @@
+package com.langchain.rag.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.exception.AdmissionRejectedException;
+import com.langchain.rag.memory.ChatMessageSizes;
+import com.langchain.rag.service.ChatAdmissionService;
+import com.langchain.rag.service.SemanticResponseCache;
+import dev.langchain4j.memory.ChatMemory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * WebFlux 기반 /ws/chat 핸들러 (spring.main.web-application-type=reactive 일 때 사용)
+ * - ChatWebSocketHandler 와 같은 프로토콜 (config / stop / 채팅 메시지, 송신 인코딩은 서브프로토콜로 협상한 FrameCodec)
+ * - 응답 토큰 Flux 를 그대로 session.send(...) 에 연결하므로 소켓 쓰기 속도가 곧 상류 요청량 (end-to-end backpressure)
+ * - 세션별 송신 대기열/drainer 스레드가 없고, 토큰 전송에 스레드를 점유하지 않음
+ *   (대화 메모리/검색 등 블로킹 준비 단계만 ChatExecution 스케줄러에서 구독)
+ * - 중지/연결 종료 시 부분 응답 반영과 허가 반납은 ChatExecution 스케줄러에서 settle 로 수행
+ *   (취소 신호는 이벤트 루프에서 오므로 블로킹 메모리 쓰기를 그 자리에서 하지 않고, 반영이 끝난 뒤에 다음 턴이 시작됨)
+ * - 스트림 밖에서 생기는 프레임(연결 확인, 대기 순번, 중지, 브로드캐스트)은 연결별 제한 크기 sink 에 인코딩된 페이로드로 합류
+ *   (브로드캐스트는 BroadcastEngine 이 한 번 직렬화한 페이로드를 그대로 사용)
+ */
+public class ReactiveChatWebSocketHandler implements WebSocketHandler, ChatEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveChatWebSocketHandler.class);
+
+    private final SemanticResponseCache responseCache;
+    private final ChatMemoryConfig chatMemoryConfig;
+    private final ChatAdmissionService admissionService;
+    private final ChatExecution execution;
+    private final BroadcastEngine broadcastEngine;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Duration defaultFlushInterval;
+    private final Duration maxFlushInterval;
+    private final int defaultMaxTokens;
+    private final int maxTokensLimit;
+    // 연결별 제어 프레임 sink 크기 (초과분은 버림)
+    private final int controlCapacity;
+
+    private final StreamMetrics streamMetrics;
+    private final Counter droppedControlFrames;
+
+    // 활성 연결 (세션 ID -> 연결 상태)
+    private final ConcurrentHashMap<String, Connection> connections = new ConcurrentHashMap<>();
+    private final ActiveStreamRegistry activeStreams = new ActiveStreamRegistry();
+
+    public ReactiveChatWebSocketHandler(SemanticResponseCache responseCache,
+                                        ChatMemoryConfig chatMemoryConfig,
+                                        ChatAdmissionService admissionService,
+                                        ChatExecution execution,
+                                        BroadcastEngine broadcastEngine,
+                                        MeterRegistry meterRegistry,
+                                        Duration defaultFlushInterval,
+                                        Duration maxFlushInterval,
+                                        int defaultMaxTokens,
+                                        int maxTokensLimit,
+                                        int controlCapacity) {
+        this.responseCache = responseCache;
+        this.chatMemoryConfig = chatMemoryConfig;
+        this.admissionService = admissionService;
+        this.execution = execution;
+        this.broadcastEngine = broadcastEngine;
+        this.defaultFlushInterval = defaultFlushInterval;
+        this.maxFlushInterval = maxFlushInterval;
+        this.defaultMaxTokens = defaultMaxTokens;
+        this.maxTokensLimit = maxTokensLimit;
+        this.controlCapacity = controlCapacity;
+        this.streamMetrics = new StreamMetrics(meterRegistry);
+        this.droppedControlFrames = Counter.builder("chat.ws.outbound.slow.consumer")
+                .description("느린 클라이언트로 인한 송신 대기열 이벤트")
+                .tag("action", "drop_control")
+                .register(meterRegistry);
+        Gauge.builder("chat.stream.active", activeStreams, ActiveStreamRegistry::activeCount)
+                .description("진행 중인 LLM 스트림 수")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        FrameCodec codec = FrameCodec.forSubprotocol(session.getHandshakeInfo().getSubProtocol());
+        Connection connection = new Connection(session.getId(), controlCapacity, codec);
+        connections.put(connection.id, connection);
+        broadcastEngine.subscribe(BroadcastEngine.TOPIC_ALL, connection);
+        log.info("WebSocket 연결 성공 (reactive): {} (codec={})", connection.id, codec);
+        connection.emit(new ChatWebSocketHandler.ChatMessage("system", "연결되었습니다. 메시지를 보내보세요!", "connected"));
+
+        // 수신 메시지마다 응답 프레임 Flux 를 만들어 합침 (연결이 닫히면 제어 sink 도 종료)
+        Flux<ChatWebSocketHandler.ChatMessage> responses = session.receive()
+                .map(WebSocketMessage::getPayloadAsText)
+                .flatMap(payload -> handleMessage(connection, payload))
+                .doFinally(signal -> connection.control.tryEmitComplete());
+
+        WebSocketMessage.Type frameType = codec == FrameCodec.BINARY ? WebSocketMessage.Type.BINARY : WebSocketMessage.Type.TEXT;
+        Flux<WebSocketMessage> outbound = Flux.merge(connection.control.asFlux(), responses.map(codec::encode))
+                .map(payload -> new WebSocketMessage(frameType, session.bufferFactory().wrap(payload)));
+
+        return session.send(outbound)
+                .doFinally(signal -> {
+                    removeConnection(connection);
+                    log.info("WebSocket 연결 종료 (reactive): {} ({})", connection.id, signal);
+                });
+    }
+
+    private Flux<ChatWebSocketHandler.ChatMessage> handleMessage(Connection connection, String payload) {
+        log.info("WebSocket 메시지 수신 [{}]: {}", connection.id, payload);
+        try {
+            JsonNode jsonNode = objectMapper.readTree(payload);
+            String type = jsonNode.path("type").asText();
+            if ("config".equals(type)) {
+                return Flux.just(handleConfigMessage(connection, jsonNode));
+            }
+            if ("stop".equals(type)) {
+                handleStopMessage(connection, jsonNode.hasNonNull("sessionId") ? jsonNode.get("sessionId").asText() : null);
+                return Flux.empty();
+            }
+            if ("subscribe".equals(type) || "unsubscribe".equals(type)) {
+                return Flux.just(handleTopicMessage(connection, type, jsonNode.path("topic").asText()));
+            }
+            String userMessage = jsonNode.get("message").asText();
+            String memoryId = jsonNode.has("sessionId") ? jsonNode.get("sessionId").asText() : connection.id;
+            return chatStream(connection, userMessage, memoryId);
+        } catch (Exception e) {
+            log.error("메시지 처리 중 오류 발생", e);
+            return Flux.just(new ChatWebSocketHandler.ChatMessage("error",
+                    "메시지 처리 중 오류가 발생했습니다: " + e.getMessage(), "error"));
+        }
+    }
+
+    /**
+     * 스트리밍 전송 모드 협상 (ChatWebSocketHandler 와 같은 규칙으로 보정)
+     */
+    private ChatWebSocketHandler.ChatMessage handleConfigMessage(Connection connection, JsonNode config) {
+        StreamOptions options = StreamOptions.PER_TOKEN;
+        if (StreamOptions.MODE_COALESCED.equals(config.path("streamMode").asText())) {
+            long flushMillis = config.path("flushIntervalMs").asLong(defaultFlushInterval.toMillis());
+            flushMillis = Math.max(1, Math.min(flushMillis, maxFlushInterval.toMillis()));
+            int maxTokens = config.path("maxTokens").asInt(defaultMaxTokens);
+            maxTokens = Math.max(1, Math.min(maxTokens, maxTokensLimit));
+            options = new StreamOptions(true, Duration.ofMillis(flushMillis), maxTokens);
+        }
+        connection.options = options;
+        log.info("스트리밍 모드 설정 [{}]: {}", connection.id, options);
+
+        ObjectNode ack = objectMapper.createObjectNode();
+        ack.put("streamMode", options.mode());
+        ack.put("flushIntervalMs", options.flushInterval().toMillis());
+        ack.put("maxTokens", options.maxTokens());
+        return new ChatWebSocketHandler.ChatMessage("system", ack.toString(), "config_ack");
+    }
+
+    private void handleStopMessage(Connection connection, String memoryId) {
+        for (ActiveStream stream : activeStreams.find(connection.id, memoryId)) {
+            // 부분 응답 반영과 허가 반납은 구독 해제 시 settle 에서 수행
+            if (stream.cancel()) {
+                activeStreams.unregister(stream);
+                log.info("스트리밍 중지 [{}] memoryId={}", connection.id, stream.memoryId());
+                connection.emit(new ChatWebSocketHandler.ChatMessage("system", "응답 생성이 중지되었습니다.", "stream_stopped"));
+            }
+        }
+    }
+
+    /**
+     * 브로드캐스트 토픽 구독/해지 (ChatWebSocketHandler 와 같은 응답)
+     */
+    private ChatWebSocketHandler.ChatMessage handleTopicMessage(Connection connection, String type, String topic) {
+        if ("subscribe".equals(type)) {
+            broadcastEngine.subscribeClient(topic, connection);
+        } else {
+            broadcastEngine.unsubscribeClient(topic, connection.id);
+        }
+        log.info("브로드캐스트 토픽 {} [{}]: {}", type, connection.id, topic);
+        return new ChatWebSocketHandler.ChatMessage("system", topic, type + "d");
+    }
+
+    /**
+     * 채팅 요청 하나의 응답 프레임: stream_start → stream_token* → stream_end (중지 시 stream_end 없음)
+     */
+    private Flux<ChatWebSocketHandler.ChatMessage> chatStream(Connection connection, String userMessage, String memoryId) {
+        StreamOptions options = connection.options;
+        StreamMetrics.Recorder metrics = streamMetrics.start(options);
+        ActiveStream activeStream = new ActiveStream(connection.id, memoryId);
+        // stop 요청 시 takeUntilOther 로 토큰 Flux 를 끊음 (구독은 session.send 가 소유)
+        Sinks.Empty<Void> stopped = Sinks.empty();
+        activeStream.attach(stopped::tryEmitEmpty);
+        activeStreams.register(activeStream);
+
+        return admissionService.acquire(connection.id, memoryId,
+                        position -> connection.emit(new ChatWebSocketHandler.ChatMessage("system", String.valueOf(position), "queued")))
+                // 준비 단계에서 실패하거나 중지되어도 settle 을 거쳐 허가 반납
+                .flatMapMany(permit -> Flux.defer(() -> {
+                    streamMetrics.recordPromptBytes(promptBytes(memoryId, userMessage));
+                    Flux<String> tokens = responseCache.chatStream(memoryId, userMessage, activeStream.control())
+                            .doOnNext(token -> metrics.onToken());
+                    if (options.coalesced()) {
+                        tokens = tokens
+                                // 시간 창 flush 를 기본 parallel 이 아닌 채팅 실행기에서 수행 (송신/메모리 반영이 같은 스케줄러에 머물도록)
+                                // fair backpressure: 느린 클라이언트로 하류 요청이 멈추면 시간 창 flush 도 기다림 (요청 부족 오류 대신 속도 조절)
+                                .bufferTimeout(options.maxTokens(), options.flushInterval(), execution.scheduler(), true)
+                                .map(batch -> String.join("", batch));
+                    }
+                    return Flux.concat(
+                                    Flux.just(new ChatWebSocketHandler.ChatMessage("system", "스트리밍을 시작합니다...", "stream_start")),
+                                    tokens.map(token -> {
+                                        activeStream.append(token);
+                                        return new ChatWebSocketHandler.ChatMessage("ai", token, "stream_token");
+                                    }));
+                }).doFinally(signal -> settleLater(activeStream, signal, permit)))
+                // 메모리 조회/검색 등 블로킹 준비 단계가 이벤트 루프를 막지 않도록 구독만 옮김
+                .subscribeOn(execution.scheduler())
+                .takeUntilOther(stopped.asMono())
+                .concatWith(Flux.defer(() -> activeStream.isCancelled()
+                        ? Flux.empty()
+                        : Flux.just(new ChatWebSocketHandler.ChatMessage("system", "스트리밍이 완료되었습니다.", "stream_end"))))
+                // 오류 신호를 그대로 보도록 onErrorResume 보다 앞에서 정리 (중지된 스트림은 cancelled 로 기록)
+                .doFinally(signal -> {
+                    activeStreams.unregister(activeStream);
+                    metrics.finish(activeStream.isCancelled() ? SignalType.CANCEL : signal);
+                })
+                .onErrorResume(error -> {
+                    if (error instanceof AdmissionRejectedException rejected) {
+                        metrics.rejected();
+                        log.warn("채팅 요청 거절 [{}]: {}", connection.id, rejected.getReason());
+                        return Flux.just(new ChatWebSocketHandler.ChatMessage("system", rejected.getMessage(), "rejected"));
+                    }
+                    log.error("스트리밍 중 오류", error);
+                    return Flux.just(new ChatWebSocketHandler.ChatMessage("error", "스트리밍 중 오류가 발생했습니다.", "error"));
+                });
+    }
+
+    private long promptBytes(String memoryId, String userMessage) {
+        ChatMemory memory = chatMemoryConfig.getMemory(memoryId);
+        long bytes = memory != null ? ChatMessageSizes.estimateBytes(memory.messages()) : 0;
+        return bytes + 2L * userMessage.length();
+    }
+
+    /**
+     * settle 을 ChatExecution 스케줄러에서 실행 (취소는 Netty 이벤트 루프에서 전달되므로)
+     */
+    private void settleLater(ActiveStream stream, SignalType signal, ChatAdmissionService.Permit permit) {
+        try {
+            execution.scheduler().schedule(() -> settle(stream, signal, permit));
+        } catch (RejectedExecutionException e) {
+            // 종료 중이라 스케줄러가 작업을 받지 않음
+            settle(stream, signal, permit);
+        }
+    }
+
+    /**
+     * 끝난 스트림 정리: 중지/연결 종료로 버려진 응답이면 부분 응답을 메모리에 반영한 뒤 허가 반납
+     * (같은 memoryId 의 다음 턴은 반영된 메모리를 보고 시작)
+     */
+    private void settle(ActiveStream stream, SignalType signal, ChatAdmissionService.Permit permit) {
+        try {
+            if (signal == SignalType.CANCEL) {
+                stream.cancel();
+            }
+            // 중지로 준비 단계가 인터럽트되어 오류로 끝난 경우도 포함
+            if (stream.responseAbandoned()) {
+                chatMemoryConfig.commitPartialResponse(stream.memoryId(), stream.partialResponse());
+            }
+        } catch (Exception e) {
+            log.error("중지된 스트림 정리 중 오류", e);
+        } finally {
+            permit.release();
+        }
+    }
+
+    private void removeConnection(Connection connection) {
+        // 부분 응답 반영은 세션 송신 구독이 취소될 때 settle 에서 수행
+        for (ActiveStream stream : activeStreams.find(connection.id, null)) {
+            stream.cancel();
+            activeStreams.unregister(stream);
+        }
+        broadcastEngine.unsubscribeAll(connection.id);
+        connections.remove(connection.id);
+    }
+
+    /**
+     * 핸드셰이크에서 제시하는 서브프로토콜 (FrameCodec 참고, 요청하지 않으면 JSON)
+     */
+    @Override
+    public List<String> getSubProtocols() {
+        return FrameCodec.subprotocols();
+    }
+
+    @Override
+    public int getActiveSessionCount() {
+        return connections.size();
+    }
+
+    @Override
+    public int getActiveStreamCount() {
+        return activeStreams.activeCount();
+    }
+
+    @Override
+    public String stack() {
+        return STACK_REACTIVE;
+    }
+
+    /**
+     * 연결별 상태
+     */
+    private final class Connection implements BroadcastEngine.Recipient {
+        private final String id;
+        private final FrameCodec codec;
+        // 스트림 밖 프레임의 페이로드 (여러 스레드에서 emit 하므로 busy-loop 로 직렬화, 가득 차면 버림)
+        private final Sinks.Many<byte[]> control;
+        private volatile StreamOptions options = StreamOptions.PER_TOKEN;
+
+        Connection(String id, int capacity, FrameCodec codec) {
+            this.id = id;
+            this.codec = codec;
+            this.control = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<byte[]>get(capacity).get());
+        }
+
+        void emit(ChatWebSocketHandler.ChatMessage message) {
+            emitPayload(codec.encode(message));
+        }
+
+        @Override
+        public String id() {
+            return id;
+        }
+
+        @Override
+        public boolean deliver(BroadcastFrame frame) {
+            return emitPayload(frame.payload(codec));
+        }
+
+        private boolean emitPayload(byte[] payload) {
+            Sinks.EmitResult result;
+            while ((result = control.tryEmitNext(payload)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+                Thread.onSpinWait();
+            }
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                droppedControlFrames.increment();
+            }
+            return result.isSuccess();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.langchain.rag.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 세션별 송신 대기열
+ * - 서블릿 WebSocket 세션은 동시 전송을 허용하지 않으므로, 모든 전송을 세션당 하나의 drainer 가 순서대로 처리
+ * - 대기열은 capacity 로 제한되며, 초과 시 overflowPolicy 에 따라 처리
+ *   버릴 수 없는 프레임(합칠 수 없는 제어 프레임, stream_start/end 등)은 CONTROL_HEADROOM 개까지 더 받고, 그 이상이면 연결 종료
+ * - whenWritable() 로 상류 Flux 의 속도를 늦출 수 있음 (resumeThreshold 이하로 줄어들면 재개)
+ * - 브로드캐스트 프레임은 이미 직렬화된 페이로드를 그대로 전송하며, 대기열이 가득 차면 이 세션만 건너뜀
+ * - 프레임은 핸드셰이크에서 합의된 FrameCodec 으로 인코딩 (JSON 텍스트 또는 바이너리)
+ */
+public class SessionOutbound implements BroadcastEngine.Recipient {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionOutbound.class);
+
+    /**
+     * 대기열이 가득 찼을 때의 처리 방식
+     */
+    public enum OverflowPolicy {
+        // 가장 오래된 프레임을 버림 (stream_start/end/stopped 는 남김)
+        DROP_OLDEST,
+        // 연속된 stream_token 프레임을 하나로 합침
+        COALESCE,
+        // 느린 클라이언트의 연결을 끊음
+        DISCONNECT
+    }
+
+    private static final String STREAM_TOKEN = "stream_token";
+    // 클라이언트 상태 전환 프레임 (버리면 스트림 시작/종료 표시가 어긋남)
+    private static final Set<String> LIFECYCLE_TYPES = Set.of("stream_start", "stream_end", "stream_stopped");
+    // 대기열이 가득 찬 뒤에도 버릴 수 없는 프레임을 위해 추가로 허용하는 수
+    static final int CONTROL_HEADROOM = 16;
+
+    /**
+     * 대기열 항목 (prepared 가 있으면 직렬화 없이 그대로 전송)
+     */
+    private record Frame(ChatWebSocketHandler.ChatMessage message, WebSocketMessage<?> prepared) {
+    }
+
+    private final WebSocketSession session;
+    private final FrameCodec codec;
+    private final int capacity;
+    private final int resumeThreshold;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor drainExecutor;
+    private final OutboundMetrics metrics;
+
+    // 아래 필드는 모두 queue 잠금으로 보호
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private final List<MonoSink<Void>> writableWaiters = new ArrayList<>();
+    private boolean draining;
+    private boolean closed;
+
+    public SessionOutbound(WebSocketSession session, FrameCodec codec, int capacity,
+                           int resumeThreshold, OverflowPolicy overflowPolicy,
+                           Executor drainExecutor, OutboundMetrics metrics) {
+        this.session = session;
+        this.codec = codec;
+        this.capacity = capacity;
+        this.resumeThreshold = Math.min(resumeThreshold, capacity - 1);
+        this.overflowPolicy = overflowPolicy;
+        this.drainExecutor = drainExecutor;
+        this.metrics = metrics;
+    }
+
+    public WebSocketSession session() {
+        return session;
+    }
+
+    public FrameCodec codec() {
+        return codec;
+    }
+
+    @Override
+    public String id() {
+        return session.getId();
+    }
+
+    /**
+     * 브로드캐스트 프레임 추가 (overflowPolicy 를 적용하지 않고, 가득 찼으면 이 세션에는 보내지 않음)
+     */
+    @Override
+    public boolean deliver(BroadcastFrame frame) {
+        boolean startDrain;
+        synchronized (queue) {
+            if (closed || queue.size() >= capacity) {
+                return false;
+            }
+            // BinaryMessage 의 ByteBuffer 는 전송 중 position 이 바뀌므로 세션마다 감쌈 (배열은 공유)
+            queue.addLast(new Frame(null, codec == FrameCodec.BINARY
+                    ? new BinaryMessage(frame.binary())
+                    : frame.textMessage()));
+            startDrain = !draining;
+            draining = true;
+        }
+        if (startDrain) {
+            drainExecutor.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * 프레임을 대기열에 추가 (블로킹 없음)
+     *
+     * @return 대기열에 반영되었으면 true
+     */
+    public boolean offer(ChatWebSocketHandler.ChatMessage message) {
+        boolean startDrain = false;
+        boolean disconnect = false;
+        synchronized (queue) {
+            if (closed) {
+                return false;
+            }
+            if (queue.size() >= capacity) {
+                metrics.overflow(overflowPolicy);
+                switch (overflowPolicy) {
+                    case DROP_OLDEST -> dropOldest();
+                    case COALESCE -> {
+                        if (mergeIntoTail(message)) {
+                            return true;
+                        }
+                        // 합칠 수 없는 프레임(제어 프레임, 제어 프레임 뒤의 첫 토큰)은 버리지 않고 추가
+                    }
+                    case DISCONNECT -> disconnect = true;
+                }
+                // 버릴 수 없는 프레임만으로 여유분까지 찼으면 더 이상 보장할 수 없으므로 연결 종료
+                if (queue.size() >= capacity + CONTROL_HEADROOM) {
+                    disconnect = true;
+                }
+                if (disconnect) {
+                    closeLocked();
+                }
+            }
+            if (!disconnect) {
+                queue.addLast(new Frame(message, null));
+                if (!draining) {
+                    draining = true;
+                    startDrain = true;
+                }
+            }
+        }
+        if (disconnect) {
+            log.warn("송신 대기열 초과로 연결 종료 [{}]", session.getId());
+            drainExecutor.execute(() -> closeSession(CloseStatus.SESSION_NOT_RELIABLE));
+            return false;
+        }
+        if (startDrain) {
+            drainExecutor.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * 대기열에 여유가 생기면 완료되는 Mono (여유가 있으면 즉시 완료)
+     */
+    public Mono<Void> whenWritable() {
+        synchronized (queue) {
+            if (closed || queue.size() < capacity) {
+                return Mono.empty();
+            }
+        }
+        metrics.throttled();
+        return Mono.create(sink -> {
+            synchronized (queue) {
+                if (closed || queue.size() <= resumeThreshold) {
+                    sink.success();
+                } else {
+                    writableWaiters.add(sink);
+                }
+            }
+        });
+    }
+
+    public int queuedFrames() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * 대기열 정리 (세션 종료 시 호출), 대기 중인 상류는 모두 깨움
+     */
+    public void close() {
+        synchronized (queue) {
+            closeLocked();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Frame frame;
+            synchronized (queue) {
+                frame = queue.pollFirst();
+                if (frame == null || closed) {
+                    draining = false;
+                    return;
+                }
+                if (queue.size() <= resumeThreshold) {
+                    releaseWaiters();
+                }
+            }
+            send(frame);
+        }
+    }
+
+    private void send(Frame frame) {
+        try {
+            if (session.isOpen()) {
+                long start = System.nanoTime();
+                WebSocketMessage<?> message = frame.prepared() != null ? frame.prepared() : encode(frame.message());
+                session.sendMessage(message);
+                metrics.sent(System.nanoTime() - start);
+            }
+        } catch (IOException e) {
+            log.error("WebSocket 메시지 전송 실패", e);
+        }
+    }
+
+    private WebSocketMessage<?> encode(ChatWebSocketHandler.ChatMessage message) {
+        return codec == FrameCodec.BINARY
+                ? new BinaryMessage(FrameCodec.encodeBinary(message))
+                : new TextMessage(FrameCodec.encodeJson(message));
+    }
+
+    /**
+     * 상태 전환 프레임이 아닌 가장 오래된 프레임 하나를 버림
+     */
+    private void dropOldest() {
+        for (Iterator<Frame> it = queue.iterator(); it.hasNext(); ) {
+            ChatWebSocketHandler.ChatMessage queued = it.next().message();
+            if (queued == null || !LIFECYCLE_TYPES.contains(queued.getType())) {
+                it.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 마지막 프레임이 stream_token 이면 합친 새 프레임으로 교체 (호출자가 가진 메시지 객체는 바꾸지 않음)
+     */
+    private boolean mergeIntoTail(ChatWebSocketHandler.ChatMessage message) {
+        Frame tailFrame = queue.peekLast();
+        ChatWebSocketHandler.ChatMessage tail = tailFrame != null ? tailFrame.message() : null;
+        if (tail == null || !STREAM_TOKEN.equals(tail.getType()) || !STREAM_TOKEN.equals(message.getType())) {
+            return false;
+        }
+        ChatWebSocketHandler.ChatMessage merged =
+                new ChatWebSocketHandler.ChatMessage(tail.getSender(), tail.getContent() + message.getContent(), STREAM_TOKEN);
+        merged.setTimestamp(tail.getTimestamp());
+        queue.pollLast();
+        queue.addLast(new Frame(merged, null));
+        return true;
+    }
+
+    private void closeLocked() {
+        closed = true;
+        queue.clear();
+        releaseWaiters();
+    }
+
+    private void releaseWaiters() {
+        if (!writableWaiters.isEmpty()) {
+            // success 가 같은 스레드에서 바로 다음 토큰을 보내며 새 대기자를 등록할 수 있으므로 비운 뒤 알림
+            List<MonoSink<Void>> waiters = new ArrayList<>(writableWaiters);
+            writableWaiters.clear();
+            waiters.forEach(MonoSink::success);
+        }
+    }
+
+    private void closeSession(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("WebSocket 세션 종료 실패 [{}]", session.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.langchain.rag.websocket;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스트리밍 응답 지연 지표 (태그는 mode/outcome 만 사용하여 카디널리티를 낮게 유지)
+ * - chat.stream.ttft{mode}: 요청 수신 → 첫 토큰 (입장 대기 포함)
+ * - chat.stream.duration{mode,outcome}: 요청 수신 → 스트림 종료 (outcome=completed|cancelled|error)
+ * - chat.stream.inter.token.gap{mode}: 모델이 내보낸 토큰 사이 간격 (coalesced 묶음 전)
+ * - chat.stream.tokens.per.second{mode}, chat.stream.tokens{mode}: 스트림별 생성 속도와 토큰 수
+ * - chat.stream.prompt.bytes: 요청 시점의 대화 메모리 + 질문 크기 추정치
+ *   (memoryId 는 값이 무한히 늘어나므로 태그로 쓰지 않고 요청마다 분포로 기록)
+ * 스트림 시작 시 Recorder 하나만 만들고, 토큰마다 호출되는 onToken 은 미리 등록한 Timer 에 long 값만 기록
+ */
+public class StreamMetrics {
+
+    private final ModeMeters perToken;
+    private final ModeMeters coalesced;
+    private final DistributionSummary promptBytes;
+
+    public StreamMetrics(MeterRegistry meterRegistry) {
+        this.perToken = new ModeMeters(meterRegistry, StreamOptions.MODE_TOKEN);
+        this.coalesced = new ModeMeters(meterRegistry, StreamOptions.MODE_COALESCED);
+        this.promptBytes = DistributionSummary.builder("chat.stream.prompt.bytes")
+                .description("요청 시점의 대화 메모리 + 질문 크기 추정치")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(64.0)
+                .maximumExpectedValue(1024.0 * 1024)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 요청 수신 시점에 호출
+     */
+    public Recorder start(StreamOptions options) {
+        return new Recorder(options.coalesced() ? coalesced : perToken);
+    }
+
+    public void recordPromptBytes(long bytes) {
+        promptBytes.record(bytes);
+    }
+
+    /**
+     * 스트림 하나의 측정 상태
+     * - onToken 은 Reactor 신호 순서대로 한 번에 한 스레드에서 호출되지만,
+     *   finish 는 중지 요청 스레드에서 호출될 수 있으므로 필드는 volatile
+     */
+    public static final class Recorder {
+        private final ModeMeters meters;
+        private final long startNanos = System.nanoTime();
+        private volatile long firstTokenNanos;
+        private volatile long lastTokenNanos;
+        private volatile int tokens;
+        private volatile boolean rejected;
+        private boolean finished;
+
+        private Recorder(ModeMeters meters) {
+            this.meters = meters;
+        }
+
+        public void onToken() {
+            long now = System.nanoTime();
+            if (tokens == 0) {
+                firstTokenNanos = now;
+                meters.ttft.record(now - startNanos, TimeUnit.NANOSECONDS);
+            } else {
+                meters.interTokenGap.record(now - lastTokenNanos, TimeUnit.NANOSECONDS);
+            }
+            lastTokenNanos = now;
+            tokens++;
+        }
+
+        /**
+         * 입장 거절된 요청은 스트림 지표에서 제외 (chat.admission.rejected 로 집계)
+         */
+        public void rejected() {
+            rejected = true;
+        }
+
+        public synchronized void finish(SignalType signal) {
+            if (finished || rejected) {
+                return;
+            }
+            finished = true;
+            Timer duration = switch (signal) {
+                case ON_COMPLETE -> meters.completed;
+                case ON_ERROR -> meters.failed;
+                default -> meters.cancelled;
+            };
+            long end = System.nanoTime();
+            duration.record(end - startNanos, TimeUnit.NANOSECONDS);
+            int count = tokens;
+            if (count > 0) {
+                meters.tokens.record(count);
+            }
+            long generating = lastTokenNanos - firstTokenNanos;
+            if (count > 1 && generating > 0) {
+                meters.tokensPerSecond.record((count - 1) * 1e9 / generating);
+            }
+        }
+    }
+
+    private static final class ModeMeters {
+        private final Timer ttft;
+        private final Timer interTokenGap;
+        private final Timer completed;
+        private final Timer cancelled;
+        private final Timer failed;
+        private final DistributionSummary tokensPerSecond;
+        private final DistributionSummary tokens;
+
+        ModeMeters(MeterRegistry meterRegistry, String mode) {
+            this.ttft = Timer.builder("chat.stream.ttft")
+                    .description("요청 수신부터 첫 토큰까지의 시간")
+                    .tag("mode", mode)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(10))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(meterRegistry);
+            this.interTokenGap = Timer.builder("chat.stream.inter.token.gap")
+                    .description("모델 토큰 사이 간격")
+                    .tag("mode", mode)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry);
+            this.completed = duration(meterRegistry, mode, "completed");
+            this.cancelled = duration(meterRegistry, mode, "cancelled");
+            this.failed = duration(meterRegistry, mode, "error");
+            this.tokensPerSecond = DistributionSummary.builder("chat.stream.tokens.per.second")
+                    .description("스트림별 첫 토큰 이후 토큰 생성 속도")
+                    .tag("mode", mode)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1.0)
+                    .maximumExpectedValue(1000.0)
+                    .register(meterRegistry);
+            this.tokens = DistributionSummary.builder("chat.stream.tokens")
+                    .description("스트림별 토큰 수")
+                    .tag("mode", mode)
+                    .baseUnit("tokens")
+                    .register(meterRegistry);
+        }
+
+        private static Timer duration(MeterRegistry meterRegistry, String mode, String outcome) {
+            return Timer.builder("chat.stream.duration")
+                    .description("요청 수신부터 스트림 종료까지의 시간")
+                    .tag("mode", mode)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(10))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .register(meterRegistry);
+        }
+    }
+}
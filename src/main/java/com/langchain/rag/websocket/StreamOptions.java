@@ -0,0 +1,23 @@
+package com.langchain.rag.websocket;
+
+import java.time.Duration;
+
+/**
+ * 세션별 스트리밍 전송 옵션
+ *
+ * @param coalesced     true 면 토큰을 모아서 하나의 프레임으로 전송
+ * @param flushInterval 모은 토큰을 내보내는 최대 대기 시간 (첫 토큰 기준)
+ * @param maxTokens     한 프레임에 담을 최대 토큰 수
+ */
+public record StreamOptions(boolean coalesced, Duration flushInterval, int maxTokens) {
+
+    // 토큰 단위 전송 (기본값)
+    public static final StreamOptions PER_TOKEN = new StreamOptions(false, Duration.ZERO, 1);
+
+    public static final String MODE_TOKEN = "token";
+    public static final String MODE_COALESCED = "coalesced";
+
+    public String mode() {
+        return coalesced ? MODE_COALESCED : MODE_TOKEN;
+    }
+}
@@ -0,0 +1,83 @@
+package com.langchain.rag.config;
+
+import com.langchain.rag.memory.MemoryCompactor;
+import com.langchain.rag.memory.MemorySnapshotStore;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ChatMemoryConfigTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void concurrentFirstAccessWaitsForSnapshotRestore() throws Exception {
+		List<ChatMessage> history = List.of(UserMessage.from("이전 질문"), AiMessage.from("이전 답변"));
+		new MemorySnapshotStore(directory, 4).write(action -> Map.of("s1", history).forEach(action));
+
+		CountDownLatch reading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		MemorySnapshotStore snapshotStore = new MemorySnapshotStore(directory, 4) {
+			@Override
+			public List<ChatMessage> take(String memoryId) {
+				// 느린 청크 읽기
+				reading.countDown();
+				awaitUninterruptibly(release);
+				return super.take(memoryId);
+			}
+		};
+		snapshotStore.open();
+		ChatMemoryConfig config = config(snapshotStore);
+
+		CompletableFuture<ChatMemory> first = CompletableFuture.supplyAsync(() -> config.getOrCreateMemory("s1"));
+		assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<ChatMemory> second = CompletableFuture.supplyAsync(() -> config.getOrCreateMemory("s1"));
+
+		// 복원 중에도 다른 세션은 기다리지 않고, 같은 세션의 두 번째 접근은 복원된 메모리를 받음
+		assertThat(config.getOrCreateMemory("s2").messages()).isEmpty();
+		Thread.sleep(100);
+		assertThat(second).isNotDone();
+		release.countDown();
+
+		ChatMemory restored = first.get(5, TimeUnit.SECONDS);
+		assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(restored);
+		assertThat(restored.messages()).isEqualTo(history);
+		assertThat(config.getOrCreateMemory("s1")).isSameAs(restored);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ChatMemoryConfig config(MemorySnapshotStore snapshotStore) {
+		ObjectProvider<ChatMemoryStore> stores = mock(ObjectProvider.class);
+		ObjectProvider<MemoryCompactor> compactors = mock(ObjectProvider.class);
+		ObjectProvider<MemorySnapshotStore> snapshots = mock(ObjectProvider.class);
+		given(snapshots.getIfAvailable()).willReturn(snapshotStore);
+		return new ChatMemoryConfig(100, 1 << 20, Duration.ofMinutes(5), 10, stores, compactors, snapshots);
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		while (latch.getCount() > 0) {
+			try {
+				latch.await();
+			} catch (InterruptedException ignored) {
+			}
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.langchain.rag.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedEmbeddingModelTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void embedsOnlyMissesAndSurvivesRestart() throws Exception {
+		CountingModel delegate = new CountingModel(16);
+		List<TextSegment> segments = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			segments.add(TextSegment.from("문서 " + (i % 600)));
+		}
+
+		List<Embedding> first;
+		try (CachedEmbeddingModel model = new CachedEmbeddingModel(delegate, "test/counting", directory, 1 << 20, 64,
+				new SimpleMeterRegistry())) {
+			first = model.embedAll(segments).content();
+			// 같은 텍스트는 한 번만 요청
+			assertThat(delegate.embedded.get()).isEqualTo(600);
+
+			model.embedAll(segments);
+			assertThat(delegate.embedded.get()).isEqualTo(600);
+			assertThat(model.stats()).containsEntry("entries", 600).containsEntry("hits", 1400L);
+		}
+
+		try (CachedEmbeddingModel reopened = new CachedEmbeddingModel(delegate, "test/counting", directory, 1 << 20, 64,
+				new SimpleMeterRegistry())) {
+			List<Embedding> second = reopened.embedAll(segments).content();
+			assertThat(delegate.embedded.get()).isEqualTo(600);
+			assertThat(second).isEqualTo(first);
+		}
+	}
+
+	@Test
+	void secondProcessOpensReadOnlyWhileFileIsLocked() throws Exception {
+		CountingModel delegate = new CountingModel(16);
+		try (CachedEmbeddingModel writer = new CachedEmbeddingModel(delegate, "test/counting", directory, 1 << 20, 64,
+				new SimpleMeterRegistry())) {
+			writer.embedAll(List.of(TextSegment.from("기존 문서")));
+
+			try (CachedEmbeddingModel reader = new CachedEmbeddingModel(delegate, "test/counting", directory, 1 << 20, 64,
+					new SimpleMeterRegistry())) {
+				assertThat(reader.stats()).containsEntry("readOnly", true).containsEntry("entries", 1);
+
+				reader.embedAll(List.of(TextSegment.from("기존 문서"), TextSegment.from("새 문서")));
+				// 기록된 항목은 적중, 새 항목은 모델에 요청하지만 파일에는 쓰지 않음
+				assertThat(delegate.embedded.get()).isEqualTo(2);
+				assertThat(reader.stats()).containsEntry("hits", 1L).containsEntry("entries", 1);
+			}
+			assertThat(writer.stats()).containsEntry("readOnly", false).containsEntry("entries", 1);
+		}
+	}
+
+	private static final class CountingModel implements EmbeddingModel {
+		private final int dimension;
+		private final AtomicInteger embedded = new AtomicInteger();
+
+		CountingModel(int dimension) {
+			this.dimension = dimension;
+		}
+
+		@Override
+		public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+			embedded.addAndGet(textSegments.size());
+			List<Embedding> embeddings = new ArrayList<>();
+			for (TextSegment segment : textSegments) {
+				embeddings.add(Embedding.from(HashingEmbeddingModel.embed(segment.text(), dimension)));
+			}
+			return Response.from(embeddings);
+		}
+
+		@Override
+		public int dimension() {
+			return dimension;
+		}
+	}
+}
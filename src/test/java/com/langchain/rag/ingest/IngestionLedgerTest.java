@@ -0,0 +1,48 @@
+package com.langchain.rag.ingest;
+
+import com.langchain.rag.retrieval.HnswEmbeddingStore;
+import com.langchain.rag.retrieval.HnswIndex;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestionLedgerTest {
+
+	@Test
+	void rebuildsDocumentRecordsFromChunkMetadata() {
+		HnswEmbeddingStore store = new HnswEmbeddingStore(new HnswIndex(4, 8, 32), 32);
+		add(store, "a-1", chunk("a", "hash-a", 2));
+		add(store, "a-2", chunk("a", "hash-a", 2));
+		// 청크 하나가 저장되지 못한 문서
+		add(store, "b-1", chunk("b", "hash-b", 2));
+		// 이전 버전에서 적재되어 해시가 없는 문서
+		add(store, "c-1", TextSegment.from("본문", Metadata.from(IngestionLedger.DOCUMENT_ID, "c")));
+		// 적재 파이프라인 밖에서 추가된 항목
+		add(store, "x", TextSegment.from("본문"));
+
+		IngestionLedger ledger = new IngestionLedger();
+		assertThat(ledger.rebuild(store)).isEqualTo(3);
+
+		assertThat(ledger.get("a")).isEqualTo(new IngestionLedger.DocumentRecord("hash-a", Set.of("a-1", "a-2")));
+		// 불완전한 문서는 해시를 비워 다음 적재 때 다시 분할되도록
+		assertThat(ledger.get("b")).isEqualTo(new IngestionLedger.DocumentRecord("", Set.of("b-1")));
+		assertThat(ledger.get("c")).isEqualTo(new IngestionLedger.DocumentRecord("", Set.of("c-1")));
+		assertThat(ledger.chunkCount()).isEqualTo(4);
+	}
+
+	private static TextSegment chunk(String documentId, String contentHash, int chunkCount) {
+		return TextSegment.from("본문", Metadata.from(IngestionLedger.DOCUMENT_ID, documentId)
+				.put(IngestionLedger.CONTENT_HASH, contentHash)
+				.put(IngestionLedger.CHUNK_COUNT, chunkCount));
+	}
+
+	private static void add(HnswEmbeddingStore store, String id, TextSegment segment) {
+		store.addAll(List.of(id), List.of(Embedding.from(new float[]{1, id.length(), 0, 1})), List.of(segment));
+	}
+}
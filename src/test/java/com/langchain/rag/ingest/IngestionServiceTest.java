@@ -0,0 +1,121 @@
+package com.langchain.rag.ingest;
+
+import com.langchain.rag.retrieval.SegmentedEmbeddingStore;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestionServiceTest {
+
+	private static final int DIMENSION = 8;
+
+	@TempDir
+	Path root;
+
+	@TempDir
+	Path indexDirectory;
+
+	private final CountingEmbeddingModel embeddingModel = new CountingEmbeddingModel();
+
+	@Test
+	void editedDocumentIsUnchangedAfterRestart() throws Exception {
+		Path document = root.resolve("guide.md");
+		Files.writeString(document, document("환불은 영수증 사진을 첨부해 마이페이지의 환불 메뉴에서 신청합니다."));
+		assertThat(ingestAndRestart()).containsEntry("embedded", 4L);
+
+		// 문단 하나만 수정: 새 청크 하나만 임베딩
+		Files.writeString(document, document("환불은 앱의 주문 내역 화면에서 환불 버튼을 눌러 바로 신청하면 됩니다."));
+		assertThat(ingestAndRestart()).containsEntry("embedded", 1L).containsEntry("unchanged", 3L);
+
+		// 재시작 후 같은 내용이면 분할하지 않고 문서 전체를 건너뜀
+		Map<String, Object> documents;
+		try (SegmentedEmbeddingStore store = openStore()) {
+			IngestionService service = service(store);
+			IngestionJob job = await(service, service.submit(new IngestRequest(List.of("guide.md"), null, false, null)));
+			service.shutdown();
+			documents = section(job, "documents");
+			assertThat(section(job, "chunks")).containsEntry("split", 0L).containsEntry("embedded", 0L);
+		}
+		assertThat(documents).containsEntry("unchanged", 1L);
+		assertThat(embeddingModel.embedded.get()).isEqualTo(5);
+	}
+
+	/**
+	 * 적재 후 저장소를 닫아 재시작을 흉내냄
+	 *
+	 * @return 작업의 청크 통계
+	 */
+	private Map<String, Object> ingestAndRestart() throws InterruptedException {
+		try (SegmentedEmbeddingStore store = openStore()) {
+			IngestionService service = service(store);
+			IngestionJob job = await(service, service.submit(new IngestRequest(List.of("guide.md"), null, false, null)));
+			service.shutdown();
+			return section(job, "chunks");
+		}
+	}
+
+	private SegmentedEmbeddingStore openStore() {
+		return new SegmentedEmbeddingStore(indexDirectory, DIMENSION, new SegmentedEmbeddingStore.Settings(
+				8, 32, 32, 1000, Duration.ofHours(1), 8, 4, 0.3, 100_000, false));
+	}
+
+	private IngestionService service(SegmentedEmbeddingStore store) {
+		return new IngestionService(store, embeddingModel, root.toString(), "**.{txt,md}",
+				1, 1, 1, 16, 8, Duration.ofMillis(5), 60, 0, 10);
+	}
+
+	private static IngestionJob await(IngestionService service, IngestionJob job) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (job.status() == IngestionJob.Status.QUEUED || job.status() == IngestionJob.Status.RUNNING) {
+			assertThat(System.nanoTime()).as("적재 대기 시간 초과").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+		assertThat(service.job(job.id()).status()).isEqualTo(IngestionJob.Status.COMPLETED);
+		return job;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> section(IngestionJob job, String name) {
+		return (Map<String, Object>) job.snapshot().get(name);
+	}
+
+	/**
+	 * 문단 4개 (chunk-size 60 이면 문단마다 청크 하나)
+	 */
+	private static String document(String refund) {
+		return String.join("\n\n",
+				"배송은 주문 후 평일 기준 이틀 안에 출발하며 도서 산간 지역은 하루가 더 걸립니다.",
+				refund,
+				"교환은 상품을 받은 날부터 칠 일 안에 고객센터로 요청하면 회수 기사가 방문합니다.",
+				"포인트는 구매 확정 후 적립되며 유효 기간은 적립일로부터 일 년입니다.");
+	}
+
+	private static final class CountingEmbeddingModel implements EmbeddingModel {
+		private final AtomicInteger embedded = new AtomicInteger();
+
+		@Override
+		public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+			embedded.addAndGet(segments.size());
+			return Response.from(segments.stream().map(segment -> {
+				float[] vector = new float[DIMENSION];
+				int hash = segment.text().hashCode();
+				for (int d = 0; d < DIMENSION; d++) {
+					vector[d] = ((hash >>> (d * 4)) & 0xF) + 1;
+				}
+				return Embedding.from(vector);
+			}).toList());
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package com.langchain.rag.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * /ws/chat 부하 테스트 드라이버
+ * - 연결 connections 개를 ramp-up 동안 나누어 열고, 연결마다 turns 턴의 대화를 think-time 간격으로 보냄
+ * - 모든 대화가 끝날 때까지 연결을 유지하므로 최대 동시 연결 수로 수용 가능한 연결 수를 확인
+ * - 서버 힙/스레드는 actuator 지표를 1초마다 조회하여 최댓값 기록
+ * - 결과는 콘솔과 report(JSON) 에 기록
+ * 서버: ./mvnw spring-boot:run -Dspring-boot.run.profiles=loadtest
+ * 실행: ./mvnw -Ploadtest verify -Dloadtest.connections=2000 -Dloadtest.turns=3
+ */
+public class ChatLoadDriver {
+
+	private static final String[] SCRIPT = {
+			"주문한 상품의 배송 상태를 알려주세요",
+			"배송이 늦어지면 환불을 받을 수 있나요?",
+			"환불 요청은 어디에서 하면 되나요?",
+			"쿠폰은 환불 후에도 다시 사용할 수 있나요?",
+			"마지막으로 상담 내용을 요약해 주세요",
+	};
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+	private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+
+	private final URI url;
+	private final URI actuator;
+	private final int connections;
+	private final Duration rampUp;
+	private final int turns;
+	private final Duration thinkTime;
+	private final Duration timeout;
+	private final Path report;
+
+	private final AtomicInteger connected = new AtomicInteger();
+	private final AtomicInteger connectFailures = new AtomicInteger();
+	private final AtomicInteger open = new AtomicInteger();
+	private final AtomicInteger peakOpen = new AtomicInteger();
+	private final AtomicInteger completedTurns = new AtomicInteger();
+	private final AtomicInteger failedTurns = new AtomicInteger();
+	private final AtomicInteger rejectedTurns = new AtomicInteger();
+	private final AtomicLong tokenFrames = new AtomicLong();
+	private final AtomicLong peakHeapBytes = new AtomicLong(-1);
+	private final AtomicLong peakThreads = new AtomicLong(-1);
+	private final Samples ttft = new Samples();
+	private final Samples responseTime = new Samples();
+
+	ChatLoadDriver(URI url, URI actuator, int connections, Duration rampUp, int turns, Duration thinkTime,
+				   Duration timeout, Path report) {
+		this.url = url;
+		this.actuator = actuator;
+		this.connections = connections;
+		this.rampUp = rampUp;
+		this.turns = turns;
+		this.thinkTime = thinkTime;
+		this.timeout = timeout;
+		this.report = report;
+	}
+
+	public static void main(String[] args) throws Exception {
+		ChatLoadDriver driver = new ChatLoadDriver(
+				URI.create(System.getProperty("loadtest.url", "ws://localhost:8080/ws/chat")),
+				URI.create(System.getProperty("loadtest.actuator", "http://localhost:8080/actuator")),
+				Integer.getInteger("loadtest.connections", 1000),
+				Duration.parse(System.getProperty("loadtest.ramp-up", "PT10S")),
+				Integer.getInteger("loadtest.turns", 3),
+				Duration.parse(System.getProperty("loadtest.think-time", "PT1S")),
+				Duration.parse(System.getProperty("loadtest.timeout", "PT5M")),
+				Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json")));
+		driver.run();
+		System.exit(0);
+	}
+
+	void run() throws Exception {
+		sampler.scheduleAtFixedRate(this::sampleServer, 0, 1, TimeUnit.SECONDS);
+		CountDownLatch finished = new CountDownLatch(connections);
+		List<Conversation> conversations = new ArrayList<>(connections);
+		long rampNanos = connections > 1 ? rampUp.toNanos() / (connections - 1) : 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < connections; i++) {
+			Conversation conversation = new Conversation(i, finished);
+			conversations.add(conversation);
+			conversation.connect();
+			long next = start + rampNanos * (i + 1);
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+		}
+		boolean completed = finished.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		scheduler.shutdownNow();
+		sampler.shutdownNow();
+		sampleServer();
+		conversations.forEach(Conversation::close);
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("url", url.toString());
+		result.put("timedOut", !completed);
+		result.put("elapsedSeconds", seconds);
+		result.put("connectionsAttempted", connections);
+		result.put("connectionsOpened", connected.get());
+		result.put("connectionFailures", connectFailures.get());
+		result.put("peakOpenConnections", peakOpen.get());
+		result.put("turnsCompleted", completedTurns.get());
+		result.put("turnsFailed", failedTurns.get());
+		result.put("turnsRejected", rejectedTurns.get());
+		result.put("responsesPerSecond", completedTurns.get() / seconds);
+		result.put("tokenFramesPerSecond", tokenFrames.get() / seconds);
+		result.put("ttftMillis", ttft.summary());
+		result.put("responseMillis", responseTime.summary());
+		result.put("serverPeakHeapMb", peakHeapBytes.get() < 0 ? null : peakHeapBytes.get() / (1024 * 1024));
+		result.put("serverPeakThreads", peakThreads.get() < 0 ? null : peakThreads.get());
+
+		String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result);
+		System.out.println(json);
+		if (report.toAbsolutePath().getParent() != null) {
+			Files.createDirectories(report.toAbsolutePath().getParent());
+		}
+		Files.writeString(report, json);
+	}
+
+	/**
+	 * 서버 힙 사용량/스레드 수 최댓값 갱신 (actuator 를 열지 않았으면 기록하지 않음)
+	 */
+	private void sampleServer() {
+		updateMax(peakHeapBytes, metric("jvm.memory.used?tag=area:heap"));
+		updateMax(peakThreads, metric("jvm.threads.live"));
+	}
+
+	private long metric(String name) {
+		try {
+			HttpResponse<String> response = httpClient.send(
+					HttpRequest.newBuilder(actuator.resolve(actuator.getPath() + "/metrics/" + name))
+							.timeout(Duration.ofSeconds(2))
+							.build(),
+					HttpResponse.BodyHandlers.ofString());
+			if (response.statusCode() != 200) {
+				return -1;
+			}
+			for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+				if ("VALUE".equals(measurement.path("statistic").asText())) {
+					return measurement.path("value").asLong();
+				}
+			}
+		} catch (Exception e) {
+			// 지표 조회 실패는 부하 측정에 영향을 주지 않음
+		}
+		return -1;
+	}
+
+	private static void updateMax(AtomicLong target, long value) {
+		target.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * 연결 하나의 대화 진행 상태
+	 * - Listener 콜백과 think-time 후 전송이 다른 스레드에서 호출되므로 상태 변경은 this 로 동기화
+	 */
+	private final class Conversation implements WebSocket.Listener {
+		private final int index;
+		private final CountDownLatch finished;
+		private final StringBuilder frame = new StringBuilder();
+		private volatile WebSocket webSocket;
+		private int turn;
+		private long sentAt;
+		private boolean firstToken;
+		private boolean done;
+
+		Conversation(int index, CountDownLatch finished) {
+			this.index = index;
+			this.finished = finished;
+		}
+
+		void connect() {
+			httpClient.newWebSocketBuilder()
+					.connectTimeout(Duration.ofSeconds(10))
+					.buildAsync(url, this)
+					.whenComplete((socket, error) -> {
+						if (error != null) {
+							connectFailures.incrementAndGet();
+							finish();
+							return;
+						}
+						connected.incrementAndGet();
+						peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+						webSocket = socket;
+						send();
+					});
+		}
+
+		private synchronized void send() {
+			ObjectNode message = objectMapper.createObjectNode();
+			message.put("message", SCRIPT[turn % SCRIPT.length] + " (고객 " + index + ")");
+			message.put("sessionId", "load-" + index);
+			sentAt = System.nanoTime();
+			firstToken = true;
+			webSocket.sendText(message.toString(), true);
+		}
+
+		@Override
+		public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+			frame.append(data);
+			if (last) {
+				String text = frame.toString();
+				frame.setLength(0);
+				try {
+					handle(objectMapper.readTree(text).path("type").asText());
+				} catch (Exception e) {
+					failedTurns.incrementAndGet();
+				}
+			}
+			socket.request(1);
+			return null;
+		}
+
+		private synchronized void handle(String type) {
+			switch (type) {
+				case "stream_token" -> {
+					tokenFrames.incrementAndGet();
+					if (firstToken) {
+						firstToken = false;
+						ttft.add(System.nanoTime() - sentAt);
+					}
+				}
+				case "stream_end" -> {
+					responseTime.add(System.nanoTime() - sentAt);
+					completedTurns.incrementAndGet();
+					nextTurn();
+				}
+				case "error" -> {
+					failedTurns.incrementAndGet();
+					nextTurn();
+				}
+				case "rejected" -> {
+					rejectedTurns.incrementAndGet();
+					nextTurn();
+				}
+				default -> {
+					// connected, queued, stream_start 등
+				}
+			}
+		}
+
+		private void nextTurn() {
+			if (++turn >= turns) {
+				finish();
+				return;
+			}
+			scheduler.schedule(this::send, thinkTime.toMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+			open.decrementAndGet();
+			abort();
+			return null;
+		}
+
+		@Override
+		public void onError(WebSocket socket, Throwable error) {
+			if (webSocket != null) {
+				open.decrementAndGet();
+			}
+			abort();
+		}
+
+		/**
+		 * 대화 도중 연결이 끊기면 진행 중인 턴을 실패로 기록
+		 */
+		private synchronized void abort() {
+			if (!done) {
+				failedTurns.incrementAndGet();
+				finish();
+			}
+		}
+
+		/**
+		 * 대화 종료 표시 (연결은 모든 대화가 끝난 뒤 close 에서 닫음)
+		 */
+		private synchronized void finish() {
+			if (!done) {
+				done = true;
+				finished.countDown();
+			}
+		}
+
+		void close() {
+			WebSocket socket = webSocket;
+			if (socket != null && !socket.isOutputClosed()) {
+				socket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+			}
+		}
+	}
+
+	/**
+	 * 지연 시간 표본 (나노초), 끝난 뒤 정렬하여 백분위 계산
+	 */
+	private static final class Samples {
+		private long[] values = new long[1024];
+		private int size;
+
+		synchronized void add(long nanos) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = nanos;
+		}
+
+		synchronized Map<String, Object> summary() {
+			long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			Map<String, Object> result = new LinkedHashMap<>();
+			result.put("count", size);
+			for (double percentile : List.of(0.5, 0.9, 0.99)) {
+				result.put("p" + Math.round(percentile * 100), size == 0 ? null : millis(sorted, percentile));
+			}
+			result.put("max", size == 0 ? null : sorted[size - 1] / 1e6);
+			return result;
+		}
+
+		private static double millis(long[] sorted, double percentile) {
+			int index = (int) Math.ceil(percentile * sorted.length) - 1;
+			return sorted[Math.max(0, index)] / 1e6;
+		}
+	}
+}
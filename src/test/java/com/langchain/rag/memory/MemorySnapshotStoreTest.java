@@ -0,0 +1,66 @@
+package com.langchain.rag.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemorySnapshotStoreTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void restoresSessionsLazilyAfterRestart() throws Exception {
+		Map<String, List<ChatMessage>> live = sessions(10);
+		new MemorySnapshotStore(directory, 3).write(live::forEach);
+
+		MemorySnapshotStore restarted = new MemorySnapshotStore(directory, 3);
+		assertThat(restarted.open()).isEqualTo(10);
+
+		assertThat(restarted.take("session-4")).isEqualTo(live.get("session-4"));
+		assertThat(restarted.take("session-5")).isEqualTo(live.get("session-5"));
+		// 한 번 꺼낸 세션은 다시 반환하지 않음 (이후에는 활성 메모리가 원본)
+		assertThat(restarted.take("session-4")).isNull();
+		// 같은 청크의 세션은 청크를 한 번만 풀어서 복원
+		assertThat(restarted.stats()).containsEntry("chunkReads", 1L).containsEntry("pendingSessions", 8);
+	}
+
+	@Test
+	void carriesPendingSessionsIntoNextSnapshot() throws Exception {
+		new MemorySnapshotStore(directory, 4).write(sessions(6)::forEach);
+		MemorySnapshotStore store = new MemorySnapshotStore(directory, 4);
+		store.open();
+		store.take("session-1");
+		store.discard("session-2");
+
+		// 복원된 session-1 은 활성 메모리 내용으로, 나머지 대기 세션은 이전 파일에서 그대로 옮겨 씀
+		List<ChatMessage> updated = List.of(UserMessage.from("새 질문"));
+		assertThat(store.write(action -> action.accept("session-1", updated))).isEqualTo(5);
+
+		MemorySnapshotStore restarted = new MemorySnapshotStore(directory, 4);
+		List<String> ids = new ArrayList<>();
+		restarted.open();
+		restarted.forEachPending((id, line) -> ids.add(id));
+		assertThat(ids).containsExactly("session-1", "session-0", "session-3", "session-4", "session-5");
+		assertThat(restarted.take("session-1")).isEqualTo(updated);
+		assertThat(restarted.take("session-2")).isNull();
+	}
+
+	private static Map<String, List<ChatMessage>> sessions(int count) {
+		Map<String, List<ChatMessage>> sessions = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			sessions.put("session-" + i, List.of(UserMessage.from("질문 " + i), AiMessage.from("답변 " + i)));
+		}
+		return sessions;
+	}
+}
@@ -0,0 +1,69 @@
+package com.langchain.rag.memory;
+
+import com.langchain.rag.config.ChatExecution;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+
+class PersistentChatMemoryStoreTest {
+
+	private final ChatExecution execution = new ChatExecution(ChatExecution.Mode.PLATFORM);
+	private final ChatMemoryRepository repository = mock(ChatMemoryRepository.class);
+	private PersistentChatMemoryStore store;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		store.shutdown();
+		execution.close();
+	}
+
+	@Test
+	void loadsOutsideTheMapAndDropsLoadsRacingADelete() throws Exception {
+		List<ChatMessage> history = List.of(UserMessage.from("이전 질문"));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(repository.findById(anyString())).willAnswer(invocation -> {
+			String id = invocation.getArgument(0);
+			if (id.equals("slow")) {
+				// 느린 DB 조회
+				loading.countDown();
+				release.await(5, TimeUnit.SECONDS);
+			}
+			ChatMemoryEntity entity = new ChatMemoryEntity(id);
+			entity.setMessagesJson(ChatMessageSerializer.messagesToJson(history));
+			return Optional.of(entity);
+		});
+		store = new PersistentChatMemoryStore(repository, mock(PlatformTransactionManager.class), execution,
+				100, Duration.ofHours(1));
+
+		CompletableFuture<List<ChatMessage>> first = CompletableFuture.supplyAsync(() -> store.getMessages("slow"));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// 조회 중에도 다른 세션의 로딩과 같은 세션의 삭제는 기다리지 않음
+		assertThat(store.getMessages("other")).isEqualTo(history);
+		CompletableFuture.runAsync(() -> store.deleteMessages("slow")).get(1, TimeUnit.SECONDS);
+		release.countDown();
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(history);
+		// 삭제 전에 읽은 값은 캐시되지 않음
+		assertThat(store.getMessages("slow")).isEmpty();
+		then(repository).should(times(1)).findById("slow");
+	}
+}
@@ -0,0 +1,94 @@
+package com.langchain.rag.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SessionMemoryStoreTest {
+
+	@Test
+	void tracksBytesAndEvictsByWeight() throws Exception {
+		SessionMemoryStore store = new SessionMemoryStore(100, 10_000, Duration.ofMinutes(5),
+				id -> MessageWindowChatMemory.withMaxMessages(100));
+
+		ChatMemory first = store.getOrCreate("s1");
+		first.add(UserMessage.from("가".repeat(3000)));
+		assertThat(store.stats().get("estimatedBytes")).isEqualTo(ChatMessageSizes.estimateBytes(first.messages()));
+
+		// 두 세션의 합이 maxBytes 를 넘으면 가중치 기준으로 하나가 축출됨
+		ChatMemory second = store.getOrCreate("s2");
+		second.add(UserMessage.from("나".repeat(3000)));
+		awaitTrue(() -> store.size() == 1 && (long) store.stats().get("sizeEvictionCount") == 1);
+
+		TrackedChatMemory remaining = store.asMap().values().iterator().next();
+		assertThat(store.stats().get("estimatedBytes")).isEqualTo(remaining.estimatedBytes());
+	}
+
+	@Test
+	void refreshesWeightAfterBackgroundCompaction() {
+		SessionMemoryStore store = new SessionMemoryStore(100, 1 << 20, Duration.ofMinutes(5),
+				id -> new TokenBudgetChatMemory(id, new InMemoryChatMemoryStore(), new CharTokenEstimator(),
+						100, 100_000, 0.5, mock(MemoryCompactor.class)));
+
+		ChatMemory memory = store.getOrCreate("s1");
+		for (int i = 0; i < 6; i++) {
+			memory.add(UserMessage.from(i + "번째 질문 " + "가".repeat(500)));
+			memory.add(AiMessage.from(i + "번째 답변 " + "나".repeat(500)));
+		}
+		long before = (long) store.stats().get("estimatedBytes");
+
+		// 요약은 add 를 거치지 않고 저장소를 직접 바꾸지만 래퍼의 크기와 저장소 집계에 반영되어야 함
+		TokenBudgetChatMemory budgetMemory = (TokenBudgetChatMemory) store.asMap().get("s1").delegate();
+		TokenBudgetChatMemory.CompactionPlan plan = budgetMemory.prepareCompaction();
+		assertThat(plan).isNotNull();
+		assertThat(budgetMemory.applyCompaction(plan, "이전 질문 요약")).isPositive();
+
+		long after = ChatMessageSizes.estimateBytes(memory.messages());
+		assertThat(after).isLessThan(before);
+		assertThat(store.asMap().get("s1").estimatedBytes()).isEqualTo(after);
+		assertThat(store.stats().get("estimatedBytes")).isEqualTo(after);
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("조건 대기 시간 초과").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * 글자 4개 = 토큰 1개
+	 */
+	private static final class CharTokenEstimator implements TokenCountEstimator {
+		@Override
+		public int estimateTokenCountInText(String text) {
+			return text.length() / 4;
+		}
+
+		@Override
+		public int estimateTokenCountInMessage(ChatMessage message) {
+			return estimateTokenCountInText(ChatMessageSizes.text(message));
+		}
+
+		@Override
+		public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+			int total = 0;
+			for (ChatMessage message : messages) {
+				total += estimateTokenCountInMessage(message);
+			}
+			return total;
+		}
+	}
+}
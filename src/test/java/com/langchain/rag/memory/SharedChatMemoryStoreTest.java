@@ -0,0 +1,127 @@
+package com.langchain.rag.memory;
+
+import com.langchain.rag.config.ChatExecution;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 두 노드가 H2 TCP 서버의 같은 DB 를 공유하는 상황 재현 (polling 은 테스트에서 직접 호출)
+ */
+class SharedChatMemoryStoreTest {
+
+	private Server server;
+	private ChatExecution execution;
+	private final List<SharedChatMemoryStore> stores = new ArrayList<>();
+	private String url;
+
+	@BeforeEach
+	void startServer() throws Exception {
+		server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+		url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:shared-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		execution = new ChatExecution(ChatExecution.Mode.PLATFORM);
+	}
+
+	@AfterEach
+	void stopServer() throws Exception {
+		for (SharedChatMemoryStore store : stores) {
+			store.shutdown();
+		}
+		execution.close();
+		server.stop();
+	}
+
+	@Test
+	void sharesConversationAcrossNodes() {
+		SharedChatMemoryStore nodeA = node("node-a");
+		SharedChatMemoryStore nodeB = node("node-b");
+
+		ChatMemory memory = memory(nodeA, "session");
+		memory.add(UserMessage.from("배송 조회"));
+		memory.add(AiMessage.from("주문 번호를 알려주세요."));
+
+		assertThat(nodeB.getMessages("session")).containsExactly(
+				UserMessage.from("배송 조회"), AiMessage.from("주문 번호를 알려주세요."));
+	}
+
+	@Test
+	void invalidatesNearCacheOnRemoteAppend() {
+		SharedChatMemoryStore nodeA = node("node-a");
+		SharedChatMemoryStore nodeB = node("node-b");
+		memory(nodeA, "session").add(UserMessage.from("첫 질문"));
+		assertThat(nodeB.getMessages("session")).hasSize(1);
+
+		memory(nodeA, "session").add(AiMessage.from("첫 답변"));
+		// 변경 통지 전에는 near-cache 에서 읽음
+		assertThat(nodeB.getMessages("session")).hasSize(1);
+
+		assertThat(nodeB.pollChanges()).isGreaterThan(0);
+		assertThat(nodeB.getMessages("session")).containsExactly(UserMessage.from("첫 질문"), AiMessage.from("첫 답변"));
+		assertThat(nodeB.stats()).containsEntry("invalidations", 1L);
+	}
+
+	@Test
+	void concurrentAppendsDoNotOverwriteEachOther() {
+		SharedChatMemoryStore nodeA = node("node-a");
+		SharedChatMemoryStore nodeB = node("node-b");
+		memory(nodeA, "session").add(UserMessage.from("공통 질문"));
+		nodeB.getMessages("session");
+
+		// 두 노드가 같은 version 을 기준으로 각자 메시지를 추가 (B 는 A 의 변경을 아직 모름)
+		memory(nodeA, "session").add(AiMessage.from("A 노드 답변"));
+		memory(nodeB, "session").add(UserMessage.from("B 노드 질문"));
+
+		List<ChatMessage> expected = List.of(UserMessage.from("공통 질문"), AiMessage.from("A 노드 답변"),
+				UserMessage.from("B 노드 질문"));
+		assertThat(nodeB.getMessages("session")).isEqualTo(expected);
+		nodeA.pollChanges();
+		assertThat(nodeA.getMessages("session")).isEqualTo(expected);
+		assertThat(nodeB.stats()).containsEntry("conflicts", 1L);
+	}
+
+	@Test
+	void rebaseKeepsOnlyLocalAppendAfterWindowTrim() {
+		List<ChatMessage> base = List.of(UserMessage.from("1"), AiMessage.from("2"), UserMessage.from("3"));
+		// 윈도우가 앞의 메시지 하나를 잘라내고 하나를 덧붙인 목록
+		List<ChatMessage> target = List.of(AiMessage.from("2"), UserMessage.from("3"), AiMessage.from("local"));
+		List<ChatMessage> latest = List.of(UserMessage.from("1"), AiMessage.from("2"), UserMessage.from("3"),
+				AiMessage.from("remote"));
+
+		assertThat(SharedChatMemoryStore.rebase(base, target, latest)).containsExactly(UserMessage.from("1"),
+				AiMessage.from("2"), UserMessage.from("3"), AiMessage.from("remote"), AiMessage.from("local"));
+	}
+
+	private SharedChatMemoryStore node(String nodeId) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+		SharedChatMemoryStore store = new SharedChatMemoryStore(new JdbcTemplate(dataSource),
+				new DataSourceTransactionManager(dataSource), execution,
+				new SharedChatMemoryStore.Settings(nodeId, Duration.ofHours(1), 500, Duration.ofHours(1),
+						Duration.ofMinutes(10), 3, true));
+		stores.add(store);
+		return store;
+	}
+
+	private static ChatMemory memory(SharedChatMemoryStore store, String memoryId) {
+		return MessageWindowChatMemory.builder()
+				.id(memoryId)
+				.maxMessages(10)
+				.chatMemoryStore(store)
+				.build();
+	}
+}
@@ -0,0 +1,165 @@
+package com.langchain.rag.model;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilderLoader;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 천천히 토큰을 흘려 보내는 로컬 SSE 서버로 중지 시 공급자 연결이 실제로 끊기는지 확인
+ */
+class CancellableHttpClientTest {
+
+	private static final int SERVER_TOKENS = 200;
+
+	private HttpServer server;
+	private final AtomicInteger written = new AtomicInteger();
+	private final CountDownLatch disconnected = new CountDownLatch(1);
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/chat/completions", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream body = exchange.getResponseBody()) {
+				for (int i = 0; i < SERVER_TOKENS; i++) {
+					body.write(chunk("토큰" + i + " ").getBytes(StandardCharsets.UTF_8));
+					body.flush();
+					written.incrementAndGet();
+					Thread.sleep(20);
+				}
+				body.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				// 클라이언트가 연결을 끊음
+				disconnected.countDown();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void cancellingTheStreamClosesTheProviderConnection() throws Exception {
+		StreamingChatModel model = new CancellableStreamingChatModel(OpenAiStreamingChatModel.builder()
+				.baseUrl("http://localhost:" + server.getAddress().getPort())
+				.apiKey("test")
+				.modelName("test-model")
+				.timeout(Duration.ofSeconds(30))
+				.httpClientBuilder(new CancellableHttpClient.Builder(HttpClientBuilderLoader.loadHttpClientBuilder()))
+				.build());
+		StreamControl control = new StreamControl();
+		List<String> received = new CopyOnWriteArrayList<>();
+		CountDownLatch firstToken = new CountDownLatch(1);
+
+		control.bind(() -> model.chat(ChatRequest.builder().messages(UserMessage.from("질문")).build(),
+				new StreamingChatResponseHandler() {
+					@Override
+					public void onPartialResponse(String partialResponse) {
+						received.add(partialResponse);
+						firstToken.countDown();
+					}
+
+					@Override
+					public void onCompleteResponse(ChatResponse completeResponse) {
+						received.add("complete");
+					}
+
+					@Override
+					public void onError(Throwable error) {
+						received.add("error");
+					}
+				}));
+		assertThat(firstToken.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(control.cancel()).isTrue();
+
+		// 서버 쪽 쓰기가 실패할 때까지 (소켓 버퍼가 차거나 RST 를 받을 때까지) 기다림
+		assertThat(disconnected.await(10, TimeUnit.SECONDS)).as("공급자 연결이 끊기지 않음").isTrue();
+		assertThat(written.get()).isLessThan(SERVER_TOKENS);
+		// 닫힌 스트림의 읽기 오류와 이후 토큰은 호출자에게 전달되지 않음
+		assertThat(received).doesNotContain("complete", "error");
+	}
+
+	@Test
+	void closesImmediatelyWhenAlreadyCancelled() {
+		StreamControl control = new StreamControl();
+		control.cancel();
+		List<String> events = new CopyOnWriteArrayList<>();
+		CancellableHttpClient client = new CancellableHttpClient(new StubHttpClient((parser, listener) -> {
+			ClosableBody body = new ClosableBody();
+			parser.parse(body, listener);
+			events.add(body.closed ? "closed" : "open");
+		}));
+
+		control.bind(() -> client.execute(null, (body, listener) -> events.add("parsed"), null));
+
+		assertThat(events).containsExactly("parsed", "closed");
+	}
+
+	private static String chunk(String content) {
+		return "data: {\"id\":\"c1\",\"object\":\"chat.completion.chunk\",\"created\":0,\"model\":\"test-model\","
+				+ "\"choices\":[{\"index\":0,\"delta\":{\"content\":\"" + content + "\"}}]}\n\n";
+	}
+
+	private interface SseExchange {
+		void run(ServerSentEventParser parser, ServerSentEventListener listener);
+	}
+
+	private record StubHttpClient(SseExchange exchange) implements HttpClient {
+		@Override
+		public SuccessfulHttpResponse execute(HttpRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+			exchange.run(parser, listener);
+		}
+	}
+
+	private static final class ClosableBody extends InputStream {
+		private volatile boolean closed;
+
+		@Override
+		public int read() {
+			return -1;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.langchain.rag.model;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingStreamingChatModelTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final FakeStreamingChatModel slow = fake(Duration.ofSeconds(3));
+	private final FakeStreamingChatModel fast = fake(Duration.ofMillis(20));
+	private RoutingStreamingChatModel routing;
+
+	@AfterEach
+	void close() {
+		slow.close();
+		fast.close();
+		if (routing != null) {
+			routing.close();
+		}
+	}
+
+	@Test
+	void hedgesWhenFirstTokenIsLate() throws Exception {
+		routing = new RoutingStreamingChatModel(
+				List.of(new RoutingStreamingChatModel.Route("slow", slow), new RoutingStreamingChatModel.Route("fast", fast)),
+				null, new RoutingStreamingChatModel.Settings(Duration.ofMillis(100), 1, 3, Duration.ofSeconds(30)),
+				meterRegistry);
+
+		long start = System.nanoTime();
+		Result result = chat(routing);
+
+		// 느린 경로의 첫 토큰(3초)을 기다리지 않고 hedge 경로의 응답을 채택
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+		assertThat(result.response().aiMessage().text()).isEqualTo(result.streamed());
+		assertThat(meterRegistry.get("chat.model.hedges").counter().count()).isEqualTo(1);
+		assertThat(attempts("fast", "won")).isEqualTo(1);
+		assertThat(attempts("slow", "lost")).isEqualTo(1);
+	}
+
+	@Test
+	void failsOverToFallbackAndOpensCircuit() throws Exception {
+		AtomicInteger primaryCalls = new AtomicInteger();
+		StreamingChatModel failing = new StreamingChatModel() {
+			@Override
+			public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+				primaryCalls.incrementAndGet();
+				handler.onError(new IllegalStateException("공급자 오류"));
+			}
+		};
+		routing = new RoutingStreamingChatModel(
+				List.of(new RoutingStreamingChatModel.Route("primary", failing)),
+				new RoutingStreamingChatModel.Route("fallback", fast),
+				new RoutingStreamingChatModel.Settings(Duration.ofSeconds(5), 1, 2, Duration.ofMinutes(1)),
+				meterRegistry);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(chat(routing).response().aiMessage().text()).isNotEmpty();
+		}
+
+		// 연속 2회 실패 후 circuit 이 열려 세 번째 요청은 바로 fallback 으로
+		assertThat(primaryCalls.get()).isEqualTo(2);
+		assertThat(attempts("primary", "failed")).isEqualTo(2);
+		assertThat(attempts("fallback", "won")).isEqualTo(3);
+		assertThat(meterRegistry.get("chat.model.circuit.open").tag("route", "primary").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void cancellingTheRequestCancelsEveryAttempt() throws Exception {
+		// 응답하지 않는 경로: 요청마다 연결된 시도별 StreamControl 을 기록
+		List<StreamControl> attemptControls = new CopyOnWriteArrayList<>();
+		StreamingChatModel hanging = new StreamingChatModel() {
+			@Override
+			public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+				attemptControls.add(StreamControl.current());
+			}
+		};
+		routing = new RoutingStreamingChatModel(
+				List.of(new RoutingStreamingChatModel.Route("first", hanging), new RoutingStreamingChatModel.Route("second", hanging),
+						new RoutingStreamingChatModel.Route("third", hanging)),
+				null, new RoutingStreamingChatModel.Settings(Duration.ofMillis(200), 2, 3, Duration.ofSeconds(30)),
+				meterRegistry);
+		StreamControl control = new StreamControl();
+
+		control.bind(() -> routing.chat(ChatRequest.builder().messages(UserMessage.from("배송 조회")).build(),
+				new StreamingChatResponseHandler() {
+					@Override
+					public void onPartialResponse(String partialResponse) {
+					}
+
+					@Override
+					public void onCompleteResponse(ChatResponse completeResponse) {
+					}
+
+					@Override
+					public void onError(Throwable error) {
+					}
+				}));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (attemptControls.size() < 2) {
+			assertThat(System.nanoTime()).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+		control.cancel();
+		// 취소하지 않았다면 세 번째 경로로 hedge 했을 시간
+		Thread.sleep(500);
+
+		// 진행 중이던 시도는 모두 취소되고, 취소 뒤에는 hedge 를 더 보내지 않음
+		assertThat(attemptControls).hasSize(2).doesNotContainNull().allMatch(StreamControl::isCancelled);
+		assertThat(attemptControls.get(0)).isNotSameAs(control);
+	}
+
+	private double attempts(String route, String result) {
+		return meterRegistry.get("chat.model.route.attempts").tag("route", route).tag("result", result).counter().count();
+	}
+
+	private static FakeStreamingChatModel fake(Duration firstTokenLatency) {
+		return new FakeStreamingChatModel(new FakeStreamingChatModel.Settings(
+				firstTokenLatency, Duration.ofMillis(1), 0, 3, 5, 1));
+	}
+
+	private static Result chat(StreamingChatModel model) throws Exception {
+		CompletableFuture<ChatResponse> response = new CompletableFuture<>();
+		StringBuilder streamed = new StringBuilder();
+		model.chat(ChatRequest.builder().messages(UserMessage.from("배송 조회")).build(), new StreamingChatResponseHandler() {
+			@Override
+			public void onPartialResponse(String partialResponse) {
+				streamed.append(partialResponse);
+			}
+
+			@Override
+			public void onCompleteResponse(ChatResponse completeResponse) {
+				response.complete(completeResponse);
+			}
+
+			@Override
+			public void onError(Throwable error) {
+				response.completeExceptionally(error);
+			}
+		});
+		return new Result(response.get(5, TimeUnit.SECONDS), streamed.toString());
+	}
+
+	private record Result(ChatResponse response, String streamed) {
+	}
+}
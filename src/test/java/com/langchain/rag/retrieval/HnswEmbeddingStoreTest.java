@@ -0,0 +1,104 @@
+package com.langchain.rag.retrieval;
+
+import com.langchain.rag.embedding.HashingEmbeddingModel;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.filter.MetadataFilterBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswEmbeddingStoreTest {
+
+	@Test
+	void recallAgainstExactSearch() {
+		int dimension = 32;
+		Random random = new Random(7);
+		HnswIndex index = new HnswIndex(dimension, 16, 100);
+		for (int i = 0; i < 5000; i++) {
+			index.add(randomVector(random, dimension));
+		}
+
+		int queries = 100;
+		int k = 10;
+		int found = 0;
+		for (int q = 0; q < queries; q++) {
+			float[] query = randomVector(random, dimension);
+			Set<Integer> expected = new HashSet<>();
+			index.exactSearch(query, k, null).forEach(hit -> expected.add(hit.node()));
+			for (HnswIndex.Hit hit : index.search(query, k, 64, null)) {
+				if (expected.contains(hit.node())) {
+					found++;
+				}
+			}
+		}
+		assertThat((double) found / (queries * k)).isGreaterThan(0.9);
+	}
+
+	@Test
+	void deletedAndFilteredNodesAreSkipped() {
+		Random random = new Random(11);
+		HnswIndex index = new HnswIndex(16, 8, 32);
+		for (int i = 0; i < 1000; i++) {
+			index.add(randomVector(random, 16));
+		}
+		float[] query = randomVector(random, 16);
+		int nearest = index.exactSearch(query, 1, null).get(0).node();
+		index.markDeleted(nearest);
+
+		List<HnswIndex.Hit> hits = index.search(query, 20, 64, node -> node % 2 == 0);
+		assertThat(hits).hasSize(20);
+		assertThat(hits).allSatisfy(hit -> {
+			assertThat(hit.node()).isNotEqualTo(nearest);
+			assertThat(hit.node() % 2).isZero();
+		});
+	}
+
+	@Test
+	void storeSearchWithMetadataFilterAndReplace() {
+		HashingEmbeddingModel model = new HashingEmbeddingModel(128);
+		HnswEmbeddingStore store = new HnswEmbeddingStore(new HnswIndex(128, 16, 100), 64);
+		store.addAll(
+				List.of("faq-1", "faq-2", "guide-1"),
+				List.of(embed(model, "환불은 결제 후 7일 이내에 가능합니다"),
+						embed(model, "배송은 영업일 기준 2~3일 소요됩니다"),
+						embed(model, "환불 신청 화면 사용 가이드")),
+				List.of(TextSegment.from("환불은 결제 후 7일 이내에 가능합니다", Metadata.from("category", "faq")),
+						TextSegment.from("배송은 영업일 기준 2~3일 소요됩니다", Metadata.from("category", "faq")),
+						TextSegment.from("환불 신청 화면 사용 가이드", Metadata.from("category", "guide"))));
+
+		List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+				.queryEmbedding(embed(model, "환불 가능 기간"))
+				.maxResults(1)
+				.filter(MetadataFilterBuilder.metadataKey("category").isEqualTo("faq"))
+				.build()).matches();
+		assertThat(matches).hasSize(1);
+		assertThat(matches.get(0).embeddingId()).isEqualTo("faq-1");
+
+		store.add("faq-1", embed(model, "교환은 수령 후 14일 이내에 가능합니다"));
+		assertThat(store.size()).isEqualTo(3);
+		store.removeAll(List.of("faq-2"));
+		assertThat(store.size()).isEqualTo(2);
+		assertThat(store.contains("faq-2")).isFalse();
+	}
+
+	private static Embedding embed(HashingEmbeddingModel model, String text) {
+		return model.embed(text).content();
+	}
+
+	private static float[] randomVector(Random random, int dimension) {
+		float[] vector = new float[dimension];
+		for (int i = 0; i < dimension; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+}
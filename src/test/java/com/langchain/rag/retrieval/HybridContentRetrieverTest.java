@@ -0,0 +1,98 @@
+package com.langchain.rag.retrieval;
+
+import com.langchain.rag.embedding.HashingEmbeddingModel;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class HybridContentRetrieverTest {
+
+	private static final String[] TOPICS = {
+			"배송이 지연되어 주문 상태를 확인하고 싶습니다",
+			"결제 오류가 발생하여 환불을 요청합니다",
+			"로그인이 되지 않아 계정 복구 방법을 문의합니다",
+			"상품 재고와 입고 일정을 알려주세요",
+	};
+
+	@Test
+	void tokenizesKoreanAsNgramsAndKeepsCodes() {
+		LexicalTokenizer tokenizer = new LexicalTokenizer(2);
+
+		assertThat(tokenizer.tokenize("배송지연 ERR-1042"))
+				.containsExactly("배송", "송지", "지연", "err", "1042", "err-1042");
+		assertThat(tokenizer.tokenize("갤럭시S24")).containsExactly("갤럭", "럭시", "s24");
+	}
+
+	@Test
+	void hybridFindsProductCodesThatVectorSearchMisses() {
+		HashingEmbeddingModel model = new HashingEmbeddingModel(64);
+		LexicalIndexedStore store = new LexicalIndexedStore(
+				new HnswEmbeddingStore(new HnswIndex(model.dimension(), 16, 100), 64), new LexicalIndex(2, 1.2f, 0.75f));
+		HybridContentRetriever retriever = new HybridContentRetriever(store, store.lexicalIndex(), model,
+				new HybridContentRetriever.Settings(5, 0.0, null, 50, 60, 1.0f, 1.0f));
+
+		Random random = new Random(11);
+		List<String> codes = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			String code = "PX-" + (10000 + random.nextInt(90000));
+			codes.add(code);
+			TextSegment segment = TextSegment.from(TOPICS[i % TOPICS.length] + " 제품 코드 " + code);
+			store.addAll(List.of("chunk-" + i), List.of(model.embed(segment).content()), List.of(segment));
+		}
+
+		int hybridFound = 0;
+		int vectorFound = 0;
+		int queries = 200;
+		for (int i = 0; i < queries; i++) {
+			String code = codes.get(i * 7);
+			String question = code + " 제품 문의드립니다";
+			List<Content> contents = retriever.retrieve(Query.from(question));
+			if (contents.stream().anyMatch(content -> content.textSegment().text().endsWith(code))) {
+				hybridFound++;
+			}
+			Embedding embedding = model.embed(question).content();
+			if (store.search(EmbeddingSearchRequest.builder().queryEmbedding(embedding).maxResults(5).build())
+					.matches().stream().anyMatch(match -> match.embedded().text().endsWith(code))) {
+				vectorFound++;
+			}
+		}
+
+		double hybridRecall = (double) hybridFound / queries;
+		double vectorRecall = (double) vectorFound / queries;
+		String recall = String.format("recall@5 hybrid=%.3f vector=%.3f", hybridRecall, vectorRecall);
+		assertThat(hybridRecall).as(recall).isGreaterThanOrEqualTo(0.95);
+		assertThat(hybridRecall).as(recall).isGreaterThanOrEqualTo(vectorRecall);
+	}
+
+	@Test
+	void removedChunksDisappearFromLexicalResults() {
+		HashingEmbeddingModel model = new HashingEmbeddingModel(64);
+		LexicalIndexedStore store = new LexicalIndexedStore(
+				new HnswEmbeddingStore(new HnswIndex(model.dimension(), 16, 100), 64), new LexicalIndex(2, 1.2f, 0.75f));
+		TextSegment segment = TextSegment.from("환불 규정 안내 REF-001");
+		TextSegment other = TextSegment.from("환불 규정 안내 REF-002", Metadata.from("source", "old"));
+		store.addAll(List.of("a", "b"), List.of(model.embed(segment).content(), model.embed(other).content()),
+				List.of(segment, other));
+		assertThat(store.lexicalIndex().search("REF-001", 5))
+				.extracting(LexicalIndex.Hit::id, LexicalIndex.Hit::exact)
+				.containsExactly(tuple("a", true), tuple("b", false));
+
+		store.removeAll(List.of("a"));
+		store.removeAll(metadataKey("source").isEqualTo("old"));
+
+		assertThat(store.lexicalIndex().search("REF-001", 5)).isEmpty();
+		assertThat(store.lexicalIndex().size()).isZero();
+	}
+}
@@ -0,0 +1,48 @@
+package com.langchain.rag.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScratchPoolTest {
+
+	@Test
+	void reusesBuffersAcrossVirtualThreads() throws Exception {
+		AtomicInteger created = new AtomicInteger();
+		ScratchPool<int[]> pool = new ScratchPool<>(2, () -> {
+			created.incrementAndGet();
+			return new int[16];
+		});
+
+		// 가상 스레드마다 ThreadLocal 을 쓰면 1000 개가 만들어짐
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < 1000; i++) {
+				executor.submit(() -> pool.release(pool.acquire())).get();
+			}
+		}
+		assertThat(created.get()).isEqualTo(1);
+	}
+
+	@Test
+	void keepsAtMostCapacityIdleBuffers() {
+		AtomicInteger created = new AtomicInteger();
+		ScratchPool<int[]> pool = new ScratchPool<>(2, () -> new int[created.incrementAndGet()]);
+
+		int[] first = pool.acquire();
+		int[] second = pool.acquire();
+		int[] third = pool.acquire();
+		pool.release(first);
+		pool.release(second);
+		pool.release(third);
+
+		// 가득 찬 풀에 반납한 세 번째 버퍼는 버려짐
+		assertThat(pool.acquire()).isSameAs(first);
+		assertThat(pool.acquire()).isSameAs(second);
+		assertThat(pool.acquire()).isNotIn(first, second, third);
+		assertThat(created.get()).isEqualTo(4);
+	}
+}
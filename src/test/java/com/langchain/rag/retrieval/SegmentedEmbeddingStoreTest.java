@@ -0,0 +1,178 @@
+package com.langchain.rag.retrieval;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentedEmbeddingStoreTest {
+
+	private static final int DIMENSION = 8;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void openCleansOnlyOwnUncommittedFiles() throws Exception {
+		try (SegmentedEmbeddingStore store = open(Duration.ofHours(1))) {
+			addVectors(store, 10);
+			store.flush();
+		}
+		Files.writeString(directory.resolve("notes.txt"), "운영 메모");
+		Files.writeString(directory.resolve("seg_99.seg"), "");
+		Files.writeString(directory.resolve("seg_99_1.del"), "");
+		Files.writeString(directory.resolve("seg_100.seg.tmp"), "");
+		Files.writeString(directory.resolve("MANIFEST.tmp"), "");
+		Files.writeString(directory.resolve("seg_7.seg" + SegmentedEmbeddingStore.CORRUPT_SUFFIX), "");
+
+		try (SegmentedEmbeddingStore store = open(Duration.ofHours(1))) {
+			assertThat(store.size()).isEqualTo(10);
+		}
+		// 커밋되지 않은 세그먼트/삭제/임시 파일만 지우고 다른 파일과 격리된 세그먼트는 남김
+		assertThat(directory.resolve("seg_99.seg")).doesNotExist();
+		assertThat(directory.resolve("seg_99_1.del")).doesNotExist();
+		assertThat(directory.resolve("seg_100.seg.tmp")).doesNotExist();
+		assertThat(directory.resolve("MANIFEST.tmp")).doesNotExist();
+		assertThat(directory.resolve("notes.txt")).exists();
+		assertThat(directory.resolve("seg_7.seg" + SegmentedEmbeddingStore.CORRUPT_SUFFIX)).exists();
+	}
+
+	@Test
+	void corruptSegmentIsQuarantinedAndDroppedFromManifest() throws Exception {
+		try (SegmentedEmbeddingStore store = open(Duration.ofHours(1))) {
+			addVectors(store, 20);
+			store.flush();
+		}
+		Path segment;
+		try (var files = Files.list(directory)) {
+			segment = files.filter(file -> file.getFileName().toString().endsWith(".seg")).findFirst().orElseThrow();
+		}
+		// VECTORS 섹션(헤더 바로 뒤) 한 바이트 손상
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(SegmentFormat.HEADER_SIZE + 4);
+			int value = file.read();
+			file.seek(SegmentFormat.HEADER_SIZE + 4);
+			file.write(value ^ 0xFF);
+		}
+
+		try (SegmentedEmbeddingStore store = open(Duration.ofMillis(20))) {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (!Files.exists(segment.resolveSibling(segment.getFileName() + SegmentedEmbeddingStore.CORRUPT_SUFFIX))) {
+				assertThat(System.nanoTime()).as("격리 대기 시간 초과").isLessThan(deadline);
+				Thread.sleep(10);
+			}
+			assertThat(store.size()).isZero();
+			assertThat(store.stats()).containsEntry("corruptSegments", 1L);
+		}
+		assertThat(segment).doesNotExist();
+
+		// 다시 열 때 격리된 파일을 참조하지 않으며 지우지도 않음
+		try (SegmentedEmbeddingStore store = open(Duration.ofHours(1))) {
+			assertThat(store.size()).isZero();
+		}
+		assertThat(segment.resolveSibling(segment.getFileName() + SegmentedEmbeddingStore.CORRUPT_SUFFIX)).exists();
+	}
+
+	@Test
+	void mergeKeepsPayloadSectionUnderTheByteLimit() throws Exception {
+		// 세그먼트 10개 x 노드 10개, 본문 바이트 기준으로 두 세그먼트까지만 합칠 수 있는 한도
+		long segmentPayload = 0;
+		for (int i = 0; i < 10; i++) {
+			segmentPayload += SegmentFormat.encodePayload(TextSegment.from("본문 " + i)).length;
+		}
+		try (SegmentedEmbeddingStore store = new SegmentedEmbeddingStore(directory, DIMENSION, settings(Duration.ofHours(1)),
+				segmentPayload * 2 + segmentPayload / 2)) {
+			Random random = new Random(5);
+			for (int s = 0; s < 10; s++) {
+				for (int i = 0; i < 10; i++) {
+					store.addAll(List.of("seg" + s + "-chunk-" + i), List.of(Embedding.from(randomVector(random))),
+							List.of(TextSegment.from("본문 " + i)));
+				}
+				store.flush();
+			}
+			assertThat(segmentNodes(store)).hasSize(10);
+
+			store.maybeMerge();
+
+			// mergeFactor(4) 개가 아닌 2 개만 병합
+			assertThat(segmentNodes(store)).hasSize(9).contains(20);
+			assertThat(store.size()).isEqualTo(100);
+		}
+	}
+
+	@Test
+	void concurrentPutsOfTheSameIdLeaveOneVersion() throws Exception {
+		try (SegmentedEmbeddingStore store = open(Duration.ofHours(1))) {
+			addVectors(store, 10);
+			store.flush();
+			Random random = new Random(7);
+			float[][] vectors = new float[8][];
+			for (int i = 0; i < vectors.length; i++) {
+				vectors[i] = randomVector(random);
+			}
+			// 같은 ID 를 여러 스레드가 동시에 교체
+			List<Thread> writers = new ArrayList<>();
+			for (float[] vector : vectors) {
+				writers.add(Thread.ofPlatform().start(() -> {
+					for (int round = 0; round < 50; round++) {
+						store.addAll(List.of("chunk-0"), List.of(Embedding.from(vector)), List.of(TextSegment.from("본문 0")));
+					}
+				}));
+			}
+			for (Thread writer : writers) {
+				writer.join();
+			}
+
+			assertThat(store.size()).isEqualTo(10);
+			int[] versions = new int[1];
+			store.forEach((id, segment) -> {
+				if (id.equals("chunk-0")) {
+					versions[0]++;
+				}
+			});
+			assertThat(versions[0]).isEqualTo(1);
+		}
+	}
+
+	private SegmentedEmbeddingStore open(Duration maintenanceInterval) {
+		return new SegmentedEmbeddingStore(directory, DIMENSION, settings(maintenanceInterval));
+	}
+
+	private static SegmentedEmbeddingStore.Settings settings(Duration maintenanceInterval) {
+		return new SegmentedEmbeddingStore.Settings(8, 32, 32, 1000, maintenanceInterval, 8, 4, 0.3, 100_000, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Integer> segmentNodes(SegmentedEmbeddingStore store) {
+		return ((List<Map<String, Object>>) store.stats().get("segments")).stream()
+				.map(segment -> (Integer) segment.get("nodes"))
+				.toList();
+	}
+
+	private static float[] randomVector(Random random) {
+		float[] vector = new float[DIMENSION];
+		for (int d = 0; d < DIMENSION; d++) {
+			vector[d] = random.nextFloat() - 0.5f;
+		}
+		return vector;
+	}
+
+	private static void addVectors(SegmentedEmbeddingStore store, int count) {
+		Random random = new Random(3);
+		for (int i = 0; i < count; i++) {
+			store.addAll(List.of("chunk-" + i), List.of(Embedding.from(randomVector(random))), List.of(TextSegment.from("본문 " + i)));
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.langchain.rag.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatAdmissionServiceTest {
+
+	private final ChatAdmissionService admission = new ChatAdmissionService(new SimpleMeterRegistry(), 1, 10, 10);
+
+	@Test
+	void cancelBeforeGrantDoesNotLeakTheSlot() {
+		// 허가 콜백이 실행되기 전에 (onSubscribe 안에서) 구독을 취소
+		admission.acquire("c1", "m1", position -> { }).subscribe(new BaseSubscriber<>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				cancel();
+			}
+		});
+
+		assertThat(admission.activeStreams()).isZero();
+		assertThat(admission.queueDepth()).isZero();
+		// 같은 memoryId 로 다시 허가받을 수 있어야 함
+		ChatAdmissionService.Permit permit = admission.acquire("c2", "m1", position -> { }).block(Duration.ofSeconds(1));
+		assertThat(permit).isNotNull();
+		assertThat(admission.activeStreams()).isEqualTo(1);
+		permit.release();
+		assertThat(admission.activeStreams()).isZero();
+	}
+
+	@Test
+	void cancellingAQueuedRequestRemovesItFromTheQueue() {
+		ChatAdmissionService.Permit holder = admission.acquire("c1", "m1", position -> { }).block(Duration.ofSeconds(1));
+		List<Integer> positions = new ArrayList<>();
+		Disposable waiting = admission.acquire("c2", "m2", positions::add).subscribe();
+		assertThat(positions).containsExactly(1);
+		assertThat(admission.queueDepth()).isEqualTo(1);
+
+		waiting.dispose();
+		assertThat(admission.queueDepth()).isZero();
+		holder.release();
+		assertThat(admission.activeStreams()).isZero();
+	}
+
+	@Test
+	void grantsRacingCancellationAreReleased() throws Exception {
+		ChatAdmissionService.Permit holder = admission.acquire("c0", "m0", position -> { }).block(Duration.ofSeconds(1));
+		for (int i = 0; i < 200; i++) {
+			// 자리가 나서 허가되는 순간과 구독 취소가 겹치게 함
+			// 취소 뒤에 도착한 허가도 받으면 반납하는 구독자 (전달된 허가는 구독자 책임)
+			BaseSubscriber<ChatAdmissionService.Permit> waiting = new BaseSubscriber<>() {
+				@Override
+				protected void hookOnNext(ChatAdmissionService.Permit permit) {
+					permit.release();
+				}
+			};
+			admission.acquire("c" + i, "m" + i, position -> { })
+					.subscribeOn(Schedulers.parallel())
+					.subscribe(waiting);
+			ChatAdmissionService.Permit current = holder;
+			CompletableFuture<Void> releasing = CompletableFuture.runAsync(current::release);
+			waiting.dispose();
+			releasing.get(1, TimeUnit.SECONDS);
+			holder = admission.acquire("h" + i, "h" + i, position -> { }).block(Duration.ofSeconds(1));
+			assertThat(holder).as("%d번째 반복에서 자리가 새어 나감", i).isNotNull();
+		}
+		holder.release();
+		assertThat(admission.activeStreams()).isZero();
+		assertThat(admission.queueDepth()).isZero();
+	}
+}
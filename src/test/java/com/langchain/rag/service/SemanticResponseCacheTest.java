@@ -0,0 +1,118 @@
+package com.langchain.rag.service;
+
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.memory.MemoryCompactor;
+import com.langchain.rag.memory.MemorySnapshotStore;
+import com.langchain.rag.model.StreamControl;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+class SemanticResponseCacheTest {
+
+	// 같은 뜻의 질문은 가까운 벡터, 다른 질문은 직교하는 벡터
+	private static final Map<String, float[]> EMBEDDINGS = Map.of(
+			"환불은 어떻게 하나요", new float[] {1f, 0.05f, 0f, 0f},
+			"환불 방법을 알려주세요", new float[] {0.98f, 0.1f, 0f, 0f},
+			"배송은 얼마나 걸리나요", new float[] {0f, 0f, 1f, 0f});
+
+	private final ChatExecution execution = new ChatExecution(ChatExecution.Mode.PLATFORM);
+	private final ChatAssistant assistant = mock(ChatAssistant.class);
+	private final ChatMemoryConfig memoryConfig = memoryConfig();
+	private final SemanticResponseCache cache = new SemanticResponseCache(assistant, memoryConfig, execution,
+			new TableEmbeddingModel(), new SimpleMeterRegistry(), true, 100, Duration.ofHours(1), 0.92, 8000, "openai");
+
+	@AfterEach
+	void tearDown() throws Exception {
+		execution.close();
+	}
+
+	@Test
+	void paraphrasedQuestionFromAnotherSessionHitsTheSharedEntry() {
+		given(assistant.chatStream(anyString(), anyString())).willAnswer(invocation -> {
+			String memoryId = invocation.getArgument(0);
+			String question = invocation.getArgument(1);
+			// AiServices 처럼 메모리에 질문과 답변을 기록
+			memoryConfig.getOrCreateMemory(memoryId).add(UserMessage.from(question));
+			memoryConfig.getOrCreateMemory(memoryId).add(AiMessage.from("영수증을 첨부해 신청하세요."));
+			return Flux.just("영수증을 ", "첨부해 ", "신청하세요.");
+		});
+
+		assertThat(answer("s1", "환불은 어떻게 하나요?")).isEqualTo("영수증을 첨부해 신청하세요.");
+		// 다른 세션의 첫 질문은 표현이 달라도 유사도로 적중
+		assertThat(answer("s2", "환불 방법을 알려주세요")).isEqualTo("영수증을 첨부해 신청하세요.");
+		then(assistant).should(times(1)).chatStream(anyString(), anyString());
+		then(assistant).should(never()).chatStream(eq("s2"), anyString());
+		// 재생한 턴도 다음 턴의 맥락으로 메모리에 남음
+		assertThat(memoryConfig.getMemory("s2").messages()).hasSize(3);
+
+		Map<String, Object> stats = cache.stats(10);
+		assertThat(stats.get("semanticHits")).isEqualTo(1L);
+		assertThat(stats.get("misses")).isEqualTo(1L);
+		assertThat(stats.get("indexedNodes")).isEqualTo(1);
+	}
+
+	@Test
+	void sessionsWithHistoryAndUnrelatedQuestionsGoToTheModel() {
+		given(assistant.chatStream(anyString(), anyString())).willAnswer(invocation -> {
+			String memoryId = invocation.getArgument(0);
+			memoryConfig.getOrCreateMemory(memoryId).add(UserMessage.from((String) invocation.getArgument(1)));
+			return Flux.just("답변");
+		});
+
+		answer("s1", "환불은 어떻게 하나요");
+		// 이전 대화가 있는 세션은 같은 질문이어도 우회, 다른 질문은 유사도가 낮아 미스
+		answer("s1", "환불은 어떻게 하나요");
+		answer("s2", "배송은 얼마나 걸리나요");
+
+		then(assistant).should(times(3)).chatStream(anyString(), anyString());
+		Map<String, Object> stats = cache.stats(10);
+		assertThat(stats.get("bypasses")).isEqualTo(1L);
+		assertThat(stats.get("misses")).isEqualTo(2L);
+		assertThat(stats.get("semanticHits")).isEqualTo(0L);
+	}
+
+	private String answer(String memoryId, String question) {
+		List<String> tokens = cache.chatStream(memoryId, question, new StreamControl()).collectList()
+				.block(Duration.ofSeconds(5));
+		return String.join("", tokens);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ChatMemoryConfig memoryConfig() {
+		return new ChatMemoryConfig(100, 1 << 20, Duration.ofMinutes(5), 10, mock(ObjectProvider.class),
+				(ObjectProvider<MemoryCompactor>) mock(ObjectProvider.class),
+				(ObjectProvider<MemorySnapshotStore>) mock(ObjectProvider.class));
+	}
+
+	private static final class TableEmbeddingModel implements EmbeddingModel {
+		@Override
+		public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+			return Response.from(segments.stream()
+					.map(segment -> Embedding.from(EMBEDDINGS.get(segment.text())))
+					.toList());
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package com.langchain.rag.websocket;
+
+import com.langchain.rag.config.ChatExecution;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BroadcastEngineTest {
+
+	private final ChatExecution execution = new ChatExecution(ChatExecution.Mode.PLATFORM);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@AfterEach
+	void tearDown() {
+		execution.close();
+	}
+
+	@Test
+	void fansOutInlineToEverySubscriber() {
+		BroadcastEngine engine = engine(4, 256);
+		List<FakeRecipient> recipients = recipients(engine, "notice", 10);
+
+		assertThat(engine.publish("notice", message("점검 예정"))).isEqualTo(10);
+
+		// 구독자가 inline-threshold 이하이면 호출 스레드에서 전달
+		String caller = Thread.currentThread().getName();
+		assertThat(recipients).allSatisfy(recipient -> assertThat(recipient.threads).containsExactly(caller));
+		assertThat(engine.publish("other", message("구독자 없음"))).isZero();
+	}
+
+	@Test
+	void fansOutLargeTopicsAcrossShards() {
+		BroadcastEngine engine = engine(4, 0);
+		List<FakeRecipient> recipients = recipients(engine, "notice", 200);
+
+		assertThat(engine.publish("notice", message("점검 예정"))).isEqualTo(200);
+
+		// shard 마다 실행기 작업 하나로 전달되며, 각 수신자는 프레임을 정확히 한 번 받음
+		assertThat(recipients).allSatisfy(recipient -> assertThat(recipient.threads).hasSize(1));
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		recipients.forEach(recipient -> threads.addAll(recipient.threads));
+		assertThat(threads).doesNotContain(Thread.currentThread().getName()).hasSizeBetween(1, 4);
+	}
+
+	@Test
+	void skipsRecipientsWithFullQueues() {
+		BroadcastEngine engine = engine(2, 256);
+		List<FakeRecipient> recipients = recipients(engine, "notice", 4);
+		recipients.get(1).full = true;
+		recipients.get(3).full = true;
+
+		assertThat(engine.publish("notice", message("점검 예정"))).isEqualTo(2);
+
+		assertThat(recipients.get(0).threads).hasSize(1);
+		assertThat(recipients.get(2).threads).hasSize(1);
+		assertThat(meterRegistry.get("chat.ws.broadcast.frames").tag("result", "dropped").counter().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("chat.ws.broadcast.frames").tag("result", "queued").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void limitsClientSubscriptions() {
+		BroadcastEngine engine = new BroadcastEngine(execution, meterRegistry, 2, 256, 2, new String[]{"admin"});
+		FakeRecipient recipient = new FakeRecipient("s1");
+		engine.subscribe(BroadcastEngine.TOPIC_ALL, recipient);
+
+		assertThatThrownBy(() -> engine.subscribeClient("admin", recipient)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> engine.unsubscribeClient(BroadcastEngine.TOPIC_ALL, "s1"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> engine.subscribeClient("Bad Topic", recipient)).isInstanceOf(IllegalArgumentException.class);
+
+		// TOPIC_ALL 은 연결당 제한에 포함되지 않고, 이미 구독한 토픽은 다시 요청해도 됨
+		engine.subscribeClient("notice", recipient);
+		engine.subscribeClient("release", recipient);
+		engine.subscribeClient("notice", recipient);
+		assertThatThrownBy(() -> engine.subscribeClient("third", recipient)).isInstanceOf(IllegalArgumentException.class);
+		engine.unsubscribeClient("release", "s1");
+		engine.subscribeClient("third", recipient);
+		assertThat(engine.stats()).containsOnlyKeys(BroadcastEngine.TOPIC_ALL, "notice", "third");
+
+		engine.unsubscribeAll("s1");
+		assertThat(engine.stats()).isEmpty();
+	}
+
+	private BroadcastEngine engine(int shards, int inlineThreshold) {
+		return new BroadcastEngine(execution, meterRegistry, shards, inlineThreshold, 16, new String[]{"admin"});
+	}
+
+	private static List<FakeRecipient> recipients(BroadcastEngine engine, String topic, int count) {
+		List<FakeRecipient> recipients = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < count; i++) {
+			FakeRecipient recipient = new FakeRecipient("session-" + i);
+			engine.subscribeClient(topic, recipient);
+			recipients.add(recipient);
+		}
+		return recipients;
+	}
+
+	private static ChatWebSocketHandler.ChatMessage message(String content) {
+		return new ChatWebSocketHandler.ChatMessage("system", content, "broadcast");
+	}
+
+	private static final class FakeRecipient implements BroadcastEngine.Recipient {
+		private final String id;
+		// 프레임을 받은 스레드 (받을 때마다 하나씩)
+		private final List<String> threads = new CopyOnWriteArrayList<>();
+		private volatile boolean full;
+
+		FakeRecipient(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public String id() {
+			return id;
+		}
+
+		@Override
+		public boolean deliver(BroadcastFrame frame) {
+			if (full) {
+				return false;
+			}
+			threads.add(Thread.currentThread().getName());
+			return true;
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.langchain.rag.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.model.StreamControl;
+import com.langchain.rag.service.ChatAdmissionService;
+import com.langchain.rag.service.SemanticResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+class ChatWebSocketHandlerTest {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final SemanticResponseCache responseCache = mock(SemanticResponseCache.class);
+	private final ChatMemoryConfig chatMemoryConfig = mock(ChatMemoryConfig.class);
+	private final WebSocketSession session = mock(WebSocketSession.class);
+	private final WebSocketSession otherSession = mock(WebSocketSession.class);
+	private final ChatExecution execution = new ChatExecution(ChatExecution.Mode.PLATFORM);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	// 모델 호출(chat:질문)과 부분 응답 반영(commit:내용)의 순서
+	private final List<String> events = new CopyOnWriteArrayList<>();
+	private final List<String> sent = new CopyOnWriteArrayList<>();
+	private final List<String> otherSent = new CopyOnWriteArrayList<>();
+	private final Map<String, StreamControl> controls = new ConcurrentHashMap<>();
+	private ChatWebSocketHandler handler;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		connect(session, "s1", sent);
+		connect(otherSession, "s2", otherSent);
+		willAnswer(invocation -> {
+			// 느린 메모리 쓰기: 반영이 끝나기 전에 다음 턴이 시작되면 순서가 뒤바뀜
+			Thread.sleep(200);
+			events.add("commit:" + invocation.getArgument(1));
+			return null;
+		}).given(chatMemoryConfig).commitPartialResponse(anyString(), anyString());
+
+		BroadcastEngine broadcastEngine = new BroadcastEngine(execution, meterRegistry, 1, 256, 16, new String[]{"admin"});
+		handler = new ChatWebSocketHandler(responseCache, chatMemoryConfig,
+				new ChatAdmissionService(meterRegistry, 4, 16, 3), execution, broadcastEngine, meterRegistry,
+				Duration.ofMillis(30), Duration.ofMillis(250), 64, 512, 256, 64, SessionOutbound.OverflowPolicy.COALESCE);
+		handler.afterConnectionEstablished(session);
+		handler.afterConnectionEstablished(otherSession);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+		handler.afterConnectionClosed(otherSession, CloseStatus.NORMAL);
+		execution.close();
+	}
+
+	@Test
+	void requestRightAfterStopStartsAfterPartialIsCommitted() throws Exception {
+		stubChat("첫 질문", () -> Flux.just("부분 ").concatWith(Flux.never()));
+		stubChat("두 번째 질문", () -> Flux.just("답"));
+
+		send("{\"message\":\"첫 질문\",\"sessionId\":\"m1\"}");
+		await(() -> sent.contains("stream_token:부분 "));
+		send("{\"type\":\"stop\",\"sessionId\":\"m1\"}");
+		send("{\"message\":\"두 번째 질문\",\"sessionId\":\"m1\"}");
+		await(() -> sent.contains("stream_end:스트리밍이 완료되었습니다."));
+
+		assertThat(events).containsExactly("chat:첫 질문", "commit:부분 ", "chat:두 번째 질문");
+		assertThat(controls.get("첫 질문").isCancelled()).isTrue();
+		assertThat(sent).containsSubsequence("stream_token:부분 ", "stream_stopped:응답 생성이 중지되었습니다.",
+				"stream_start:스트리밍을 시작합니다...", "stream_token:답");
+	}
+
+	@Test
+	void queuedTurnStartsAfterDisconnectedTurnIsSettled() throws Exception {
+		stubChat("첫 질문", () -> Flux.just("부분 ").concatWith(Flux.never()));
+		stubChat("두 번째 질문", () -> Flux.just("답"));
+
+		send("{\"message\":\"첫 질문\",\"sessionId\":\"m1\"}");
+		await(() -> sent.contains("stream_token:부분 "));
+		// 다른 연결(재접속한 탭)의 같은 memoryId 요청은 대기열에서 기다림
+		handler.handleMessage(otherSession, new TextMessage("{\"message\":\"두 번째 질문\",\"sessionId\":\"m1\"}"));
+		await(() -> otherSent.contains("queued:1"));
+
+		handler.afterConnectionClosed(session, CloseStatus.GOING_AWAY);
+		await(() -> otherSent.contains("stream_end:스트리밍이 완료되었습니다."));
+
+		// 대기하던 턴은 끊긴 턴의 부분 응답이 메모리에 반영된 뒤에 시작
+		assertThat(events).containsExactly("chat:첫 질문", "commit:부분 ", "chat:두 번째 질문");
+		assertThat(controls.get("첫 질문").isCancelled()).isTrue();
+	}
+
+	@Test
+	void stopDuringPreparationHoldsPermitUntilPreparationReturns() throws Exception {
+		CountDownLatch preparing = new CountDownLatch(1);
+		stubChat("첫 질문", () -> {
+			// 인터럽트에 반응하지 않는 준비 단계 (메모리/검색/모델 요청이 끝나지 않은 상태)
+			awaitUninterruptibly(preparing);
+			return Flux.just("늦은 토큰");
+		});
+		stubChat("두 번째 질문", () -> Flux.just("답"));
+
+		send("{\"message\":\"첫 질문\",\"sessionId\":\"m1\"}");
+		await(() -> events.contains("chat:첫 질문"));
+		send("{\"type\":\"stop\",\"sessionId\":\"m1\"}");
+		send("{\"message\":\"두 번째 질문\",\"sessionId\":\"m1\"}");
+
+		Thread.sleep(300);
+		assertThat(events).as("준비 단계가 끝나기 전에 다음 턴이 시작됨").containsExactly("chat:첫 질문");
+		assertThat(controls.get("첫 질문").isCancelled()).isTrue();
+
+		preparing.countDown();
+		await(() -> sent.contains("stream_token:답"));
+		assertThat(events).containsExactly("chat:첫 질문", "commit:", "chat:두 번째 질문");
+		assertThat(sent).doesNotContain("stream_token:늦은 토큰");
+	}
+
+	@Test
+	void coalescedStreamSlowsDownForSlowClientInsteadOfFailing() throws Exception {
+		WebSocketSession slowSession = mock(WebSocketSession.class);
+		List<String> slowSent = new CopyOnWriteArrayList<>();
+		given(slowSession.getId()).willReturn("slow");
+		given(slowSession.isOpen()).willReturn(true);
+		given(slowSession.getAttributes()).willReturn(new ConcurrentHashMap<>());
+		willAnswer(invocation -> {
+			// 느린 클라이언트: 프레임마다 전송이 지연되어 송신 대기열이 차고 하류 요청이 멈춤
+			Thread.sleep(10);
+			TextMessage message = invocation.getArgument(0);
+			ChatWebSocketHandler.ChatMessage frame =
+					objectMapper.readValue(message.getPayload(), ChatWebSocketHandler.ChatMessage.class);
+			slowSent.add(frame.getType() + ":" + frame.getContent());
+			return null;
+		}).given(slowSession).sendMessage(any());
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 60; i++) {
+			expected.append(i).append(' ');
+		}
+		stubChat("긴 질문", () -> Flux.range(0, 60).map(i -> i + " ").delayElements(Duration.ofMillis(1)));
+
+		ChatWebSocketHandler slowHandler = new ChatWebSocketHandler(responseCache, chatMemoryConfig,
+				new ChatAdmissionService(meterRegistry, 4, 16, 3), execution,
+				new BroadcastEngine(execution, meterRegistry, 1, 256, 16, new String[]{"admin"}), new SimpleMeterRegistry(),
+				Duration.ofMillis(30), Duration.ofMillis(250), 64, 512, 2, 1, SessionOutbound.OverflowPolicy.COALESCE);
+		slowHandler.afterConnectionEstablished(slowSession);
+		try {
+			slowHandler.handleMessage(slowSession,
+					new TextMessage("{\"type\":\"config\",\"streamMode\":\"coalesced\",\"flushIntervalMs\":2,\"maxTokens\":2}"));
+			slowHandler.handleMessage(slowSession, new TextMessage("{\"message\":\"긴 질문\",\"sessionId\":\"m1\"}"));
+			await(() -> slowSent.stream().anyMatch(frame -> frame.startsWith("stream_end:") || frame.startsWith("error:")));
+
+			// 시간 창 flush 가 요청 없이 내보내려다 실패하지 않고, 모든 토큰이 순서대로 전달됨
+			assertThat(slowSent).noneMatch(frame -> frame.startsWith("error:"));
+			assertThat(slowSent.stream()
+					.filter(frame -> frame.startsWith("stream_token:"))
+					.map(frame -> frame.substring("stream_token:".length()))
+					.reduce("", String::concat)).isEqualTo(expected.toString());
+		} finally {
+			slowHandler.afterConnectionClosed(slowSession, CloseStatus.NORMAL);
+		}
+	}
+
+	private static void connect(WebSocketSession session, String id, List<String> sent) throws Exception {
+		given(session.getId()).willReturn(id);
+		given(session.isOpen()).willReturn(true);
+		willAnswer(invocation -> {
+			TextMessage message = invocation.getArgument(0);
+			ChatWebSocketHandler.ChatMessage frame =
+					objectMapper.readValue(message.getPayload(), ChatWebSocketHandler.ChatMessage.class);
+			sent.add(frame.getType() + ":" + frame.getContent());
+			return null;
+		}).given(session).sendMessage(any());
+	}
+
+	private interface ChatAnswer {
+		Flux<String> answer() throws Exception;
+	}
+
+	private void stubChat(String userMessage, ChatAnswer answer) {
+		willAnswer(invocation -> {
+			events.add("chat:" + userMessage);
+			controls.put(userMessage, invocation.getArgument(2));
+			return answer.answer();
+		}).given(responseCache).chatStream(anyString(), eq(userMessage), any());
+	}
+
+	private void send(String payload) throws Exception {
+		handler.handleMessage(session, new TextMessage(payload));
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		// 중지 시 subscribeOn 작업자가 인터럽트되어도 블로킹 I/O 처럼 계속 기다림
+		while (latch.getCount() > 0) {
+			try {
+				latch.await();
+			} catch (InterruptedException ignored) {
+			}
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("대기 시간 초과").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.langchain.rag.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrameCodecTest {
+
+	@Test
+	void roundTripsKnownCodes() {
+		for (String type : FrameCodec.TYPES) {
+			for (String sender : FrameCodec.SENDERS) {
+				ChatWebSocketHandler.ChatMessage message = message(sender, "내용 " + type, type, 1_700_000_000_123L);
+				byte[] frame = FrameCodec.encodeBinary(message);
+
+				// 표에 있는 type/sender 는 헤더 코드만으로 표현
+				assertThat(frame[0] & 0x1F).isEqualTo(FrameCodec.TYPES.indexOf(type));
+				assertThat((frame[0] >>> 5) & 0x3).isEqualTo(FrameCodec.SENDERS.indexOf(sender));
+				assertRoundTrip(message, frame);
+			}
+		}
+	}
+
+	@Test
+	void roundTripsCustomCodesWithMultiByteVarints() {
+		// 128 바이트 이상이면 길이 varint 가 2 바이트
+		String type = "custom_" + "t".repeat(200);
+		String sender = "운영자".repeat(50);
+		ChatWebSocketHandler.ChatMessage message = message(sender, "본문", type, Long.MAX_VALUE);
+		byte[] frame = FrameCodec.encodeBinary(message);
+
+		assertThat(frame[0] & 0x1F).isEqualTo(0x1F);
+		assertThat((frame[0] >>> 5) & 0x3).isEqualTo(0x3);
+		int typeBytes = type.getBytes(StandardCharsets.UTF_8).length;
+		int senderBytes = sender.getBytes(StandardCharsets.UTF_8).length;
+		// 헤더 + (2 + type) + (2 + sender) + timestamp 9 바이트 + content
+		assertThat(frame).hasSize(1 + 2 + typeBytes + 2 + senderBytes + 9 + "본문".getBytes(StandardCharsets.UTF_8).length);
+		assertRoundTrip(message, frame);
+	}
+
+	@Test
+	void omitsTimestampOnlyForStreamTokens() {
+		ChatWebSocketHandler.ChatMessage token = message("ai", "안", "stream_token", 1_700_000_000_123L);
+		byte[] frame = FrameCodec.encodeBinary(token);
+
+		assertThat(frame[0] & 0x80).isZero();
+		assertThat(frame).hasSize(1 + "안".getBytes(StandardCharsets.UTF_8).length);
+		ChatWebSocketHandler.ChatMessage decoded = FrameCodec.decodeBinary(frame);
+		assertThat(decoded.getTimestamp()).isZero();
+		assertThat(decoded.getContent()).isEqualTo("안");
+
+		byte[] end = FrameCodec.encodeBinary(message("system", "완료", "stream_end", 1_700_000_000_123L));
+		assertThat(end[0] & 0x80).isEqualTo(0x80);
+		assertThat(FrameCodec.decodeBinary(end).getTimestamp()).isEqualTo(1_700_000_000_123L);
+	}
+
+	@Test
+	void encodesEmptyAndNullContentAsEmpty() {
+		byte[] empty = FrameCodec.encodeBinary(message("ai", "", "stream_token", 0));
+		byte[] missing = FrameCodec.encodeBinary(message("ai", null, "stream_token", 0));
+
+		assertThat(empty).hasSize(1);
+		assertThat(missing).isEqualTo(empty);
+		assertThat(FrameCodec.decodeBinary(missing).getContent()).isEmpty();
+		assertThat(FrameCodec.decodeBinary(FrameCodec.encodeBinary(message("system", null, "connected", 0))).getContent())
+				.isEmpty();
+	}
+
+	@Test
+	void codeTablesMatchIndexHtml() throws Exception {
+		String html = new ClassPathResource("static/index.html").getContentAsString(StandardCharsets.UTF_8);
+
+		// 순서가 곧 프로토콜이므로 클라이언트 디코더의 표와 항목/순서가 같아야 함
+		assertThat(jsArray(html, "FRAME_TYPES")).isEqualTo(FrameCodec.TYPES);
+		assertThat(jsArray(html, "FRAME_SENDERS")).isEqualTo(FrameCodec.SENDERS);
+	}
+
+	private static void assertRoundTrip(ChatWebSocketHandler.ChatMessage message, byte[] frame) {
+		ChatWebSocketHandler.ChatMessage decoded = FrameCodec.decodeBinary(frame);
+		assertThat(decoded.getType()).isEqualTo(message.getType());
+		assertThat(decoded.getSender()).isEqualTo(message.getSender());
+		assertThat(decoded.getContent()).isEqualTo(message.getContent());
+		// stream_token 은 timestamp 를 싣지 않으므로 0 으로 복원
+		assertThat(decoded.getTimestamp()).isEqualTo("stream_token".equals(message.getType()) ? 0 : message.getTimestamp());
+	}
+
+	private static ChatWebSocketHandler.ChatMessage message(String sender, String content, String type, long timestamp) {
+		ChatWebSocketHandler.ChatMessage message = new ChatWebSocketHandler.ChatMessage(sender, content, type);
+		message.setTimestamp(timestamp);
+		return message;
+	}
+
+	private static List<String> jsArray(String html, String name) {
+		Matcher declaration = Pattern.compile("const " + name + " = \\[(.*?)];", Pattern.DOTALL).matcher(html);
+		assertThat(declaration.find()).as(name + " 선언을 찾을 수 없음").isTrue();
+		List<String> values = new ArrayList<>();
+		Matcher value = Pattern.compile("'([^']*)'").matcher(declaration.group(1));
+		while (value.find()) {
+			values.add(value.group(1));
+		}
+		return values;
+	}
+}
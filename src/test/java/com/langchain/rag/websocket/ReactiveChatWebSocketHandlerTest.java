@@ -0,0 +1,166 @@
+package com.langchain.rag.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.langchain.rag.config.ChatExecution;
+import com.langchain.rag.config.ChatMemoryConfig;
+import com.langchain.rag.service.ChatAdmissionService;
+import com.langchain.rag.service.SemanticResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+class ReactiveChatWebSocketHandlerTest {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final SemanticResponseCache responseCache = mock(SemanticResponseCache.class);
+	private final ChatMemoryConfig chatMemoryConfig = mock(ChatMemoryConfig.class);
+	private final ChatExecution execution = new ChatExecution(ChatExecution.Mode.PLATFORM);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	// 모델 호출(chat:질문)과 부분 응답 반영(commit:내용)의 순서
+	private final List<String> events = new CopyOnWriteArrayList<>();
+	private final List<String> commitThreads = new CopyOnWriteArrayList<>();
+	private final List<String> received = new CopyOnWriteArrayList<>();
+	private final Sinks.Many<String> outgoing = Sinks.many().unicast().onBackpressureBuffer();
+	private BroadcastEngine broadcastEngine;
+	private DisposableServer server;
+	private Disposable client;
+
+	@BeforeEach
+	void setUp() {
+		willAnswer(invocation -> {
+			// 느린 메모리 쓰기: 이벤트 루프에서 실행되면 다른 연결의 송수신이 함께 멈춤
+			Thread.sleep(200);
+			commitThreads.add(Thread.currentThread().getName());
+			events.add("commit:" + invocation.getArgument(1));
+			return null;
+		}).given(chatMemoryConfig).commitPartialResponse(anyString(), anyString());
+
+		broadcastEngine = new BroadcastEngine(execution, meterRegistry, 1, 256, 16, new String[]{"admin"});
+		ReactiveChatWebSocketHandler handler = new ReactiveChatWebSocketHandler(responseCache, chatMemoryConfig,
+				new ChatAdmissionService(meterRegistry, 4, 16, 3), execution, broadcastEngine, meterRegistry,
+				Duration.ofMillis(30), Duration.ofMillis(250), 64, 512, 64);
+		HandshakeWebSocketService webSocketService = new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+		server = HttpServer.create()
+				.port(0)
+				.handle(new ReactorHttpHandlerAdapter(WebHttpHandlerBuilder
+						.webHandler(exchange -> webSocketService.handleRequest(exchange, handler))
+						.build()))
+				.bindNow();
+
+		URI uri = URI.create("ws://localhost:" + server.port() + "/ws/chat");
+		client = new ReactorNettyWebSocketClient()
+				.execute(uri, session -> session.send(outgoing.asFlux().map(session::textMessage))
+						.and(session.receive()
+								.map(WebSocketMessage::getPayloadAsText)
+								.doOnNext(payload -> received.add(decode(payload)))))
+				.subscribe();
+	}
+
+	@AfterEach
+	void tearDown() {
+		client.dispose();
+		server.disposeNow();
+		execution.close();
+	}
+
+	@Test
+	void streamsStopsAndCommitsPartialOffTheEventLoop() throws Exception {
+		stubChat("첫 질문", Flux.just("부분 ").concatWith(Flux.never()));
+		stubChat("두 번째 질문", Flux.just("답"));
+		await(() -> received.contains("connected:연결되었습니다. 메시지를 보내보세요!"));
+
+		send("{\"message\":\"첫 질문\",\"sessionId\":\"m1\"}");
+		await(() -> received.contains("stream_token:부분 "));
+		send("{\"type\":\"stop\",\"sessionId\":\"m1\"}");
+		send("{\"message\":\"두 번째 질문\",\"sessionId\":\"m1\"}");
+		await(() -> received.contains("stream_end:스트리밍이 완료되었습니다."));
+
+		// 다음 턴은 부분 응답이 반영된 뒤에 시작하고, 반영은 Netty 이벤트 루프 밖에서 실행
+		assertThat(events).containsExactly("chat:첫 질문", "commit:부분 ", "chat:두 번째 질문");
+		assertThat(commitThreads).singleElement().asString().doesNotStartWith("reactor-http");
+		assertThat(received).containsSubsequence("stream_start:스트리밍을 시작합니다...", "stream_token:부분 ",
+				"stream_stopped:응답 생성이 중지되었습니다.", "stream_start:스트리밍을 시작합니다...", "stream_token:답",
+				"stream_end:스트리밍이 완료되었습니다.");
+		// 중지된 첫 스트림은 stream_end 를 보내지 않음
+		assertThat(received).filteredOn(frame -> frame.startsWith("stream_end:")).hasSize(1);
+	}
+
+	@Test
+	void deliversControlFrames() throws Exception {
+		await(() -> received.contains("connected:연결되었습니다. 메시지를 보내보세요!"));
+
+		send("{\"type\":\"config\",\"streamMode\":\"coalesced\",\"flushIntervalMs\":10000,\"maxTokens\":0}");
+		await(() -> received.stream().anyMatch(frame -> frame.startsWith("config_ack:")));
+		assertThat(received).anyMatch(frame -> frame.startsWith("config_ack:")
+				&& frame.contains("\"flushIntervalMs\":250") && frame.contains("\"maxTokens\":1"));
+
+		send("{\"type\":\"subscribe\",\"topic\":\"notice\"}");
+		await(() -> received.contains("subscribed:notice"));
+		broadcastEngine.publish("notice", new ChatWebSocketHandler.ChatMessage("system", "점검 예정", "broadcast"));
+		await(() -> received.contains("broadcast:점검 예정"));
+
+		send("{\"type\":\"unsubscribe\",\"topic\":\"notice\"}");
+		await(() -> received.contains("unsubscribed:notice"));
+		send("{\"type\":\"stop\"}");
+		send("not json");
+		await(() -> received.stream().anyMatch(frame -> frame.startsWith("error:")));
+		// 진행 중인 스트림이 없으면 stop 은 응답 프레임을 보내지 않음
+		assertThat(received).noneMatch(frame -> frame.startsWith("stream_stopped:"));
+	}
+
+	private void stubChat(String userMessage, Flux<String> answer) {
+		willAnswer(invocation -> {
+			events.add("chat:" + userMessage);
+			return answer;
+		}).given(responseCache).chatStream(anyString(), eq(userMessage), any());
+	}
+
+	private void send(String payload) {
+		assertThat(outgoing.tryEmitNext(payload).isSuccess()).isTrue();
+	}
+
+	private static String decode(String payload) {
+		try {
+			ChatWebSocketHandler.ChatMessage frame = objectMapper.readValue(payload, ChatWebSocketHandler.ChatMessage.class);
+			return frame.getType() + ":" + frame.getContent();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("대기 시간 초과").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
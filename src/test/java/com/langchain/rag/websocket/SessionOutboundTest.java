@@ -0,0 +1,120 @@
+package com.langchain.rag.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+class SessionOutboundTest {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final WebSocketSession session = mock(WebSocketSession.class);
+	// drain/종료 작업을 모아 두었다가 직접 실행 (그 전까지 대기열은 소비되지 않음)
+	private final List<Runnable> tasks = new ArrayList<>();
+	private final List<String> sent = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		given(session.getId()).willReturn("s1");
+		given(session.isOpen()).willReturn(true);
+		willAnswer(invocation -> {
+			TextMessage message = invocation.getArgument(0);
+			ChatWebSocketHandler.ChatMessage frame =
+					objectMapper.readValue(message.getPayload(), ChatWebSocketHandler.ChatMessage.class);
+			sent.add(frame.getType() + ":" + frame.getContent());
+			return null;
+		}).given(session).sendMessage(any());
+	}
+
+	@Test
+	void coalesceMergesIntoCopyOfTail() {
+		SessionOutbound outbound = outbound(2, SessionOutbound.OverflowPolicy.COALESCE);
+		ChatWebSocketHandler.ChatMessage first = token("안");
+		outbound.offer(control("stream_start"));
+		outbound.offer(first);
+
+		assertThat(outbound.offer(token("녕"))).isTrue();
+		assertThat(outbound.offer(token("하세요"))).isTrue();
+
+		// 생산자가 넘긴 메시지는 그대로 두고 대기열 안의 사본만 합침
+		assertThat(first.getContent()).isEqualTo("안");
+		assertThat(outbound.queuedFrames()).isEqualTo(2);
+		drain();
+		assertThat(sent).containsExactly("stream_start:null", "stream_token:안녕하세요");
+	}
+
+	@Test
+	void coalesceBoundsUnmergeableFrames() throws Exception {
+		SessionOutbound outbound = outbound(2, SessionOutbound.OverflowPolicy.COALESCE);
+		outbound.offer(token("a"));
+		outbound.offer(token("b"));
+
+		for (int i = 0; i < SessionOutbound.CONTROL_HEADROOM; i++) {
+			assertThat(outbound.offer(control("queued"))).isTrue();
+		}
+		// 여유분까지 찼으면 제어 프레임도 더 받지 않고 연결 종료
+		assertThat(outbound.offer(control("stream_end"))).isFalse();
+		drain();
+		assertThat(sent).isEmpty();
+		then(session).should().close(CloseStatus.SESSION_NOT_RELIABLE);
+	}
+
+	@Test
+	void dropOldestKeepsLifecycleFrames() {
+		SessionOutbound outbound = outbound(3, SessionOutbound.OverflowPolicy.DROP_OLDEST);
+		outbound.offer(control("stream_start"));
+		outbound.offer(token("1"));
+		outbound.offer(token("2"));
+
+		outbound.offer(token("3"));
+		outbound.offer(control("stream_end"));
+
+		drain();
+		assertThat(sent).containsExactly("stream_start:null", "stream_token:3", "stream_end:null");
+	}
+
+	@Test
+	void disconnectClosesSlowSession() throws Exception {
+		SessionOutbound outbound = outbound(1, SessionOutbound.OverflowPolicy.DISCONNECT);
+		outbound.offer(control("stream_start"));
+
+		assertThat(outbound.offer(token("a"))).isFalse();
+		assertThat(outbound.offer(control("stream_end"))).isFalse();
+		drain();
+		assertThat(sent).isEmpty();
+		then(session).should().close(CloseStatus.SESSION_NOT_RELIABLE);
+	}
+
+	private SessionOutbound outbound(int capacity, SessionOutbound.OverflowPolicy policy) {
+		return new SessionOutbound(session, FrameCodec.JSON, capacity, 0, policy, tasks::add,
+				new OutboundMetrics(new SimpleMeterRegistry()));
+	}
+
+	private void drain() {
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+	}
+
+	private static ChatWebSocketHandler.ChatMessage token(String content) {
+		return new ChatWebSocketHandler.ChatMessage("ai", content, "stream_token");
+	}
+
+	private static ChatWebSocketHandler.ChatMessage control(String type) {
+		return new ChatWebSocketHandler.ChatMessage("system", null, type);
+	}
+}